@@ -1,3 +1,6 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  * {@code BTree} is a <b>balanced search tree</b> designed to work well
  * on disks; where read and write operations are slow. It is widly used in
@@ -46,10 +49,222 @@ public class BTree<T extends Comparable<T>, V> {
         this.root = new Node<>(t);
     }
 
-    private V get(T k) {
+    /**
+     * Builds a tree bottom-up from sorted keys, without searching or
+     * splitting.
+     * <p>The keys are cut into leaves of about {@code fillFactor * (2t - 1)}
+     * keys, but never less than t - 1, with one key between every two
+     * leaves moved up to the parent level. The moved keys are cut into
+     * parent nodes the same way, and so on until a level fits in one node,
+     * which becomes the root. Nodes that are not full leave room for later
+     * insertions without splitting.
+     * <p>Running time is <em>O(n)</em>.
+     * @param t the minimum degree of the tree.
+     * @param keys the keys in ascending order, duplicates allowed.
+     * @param values the values of the keys.
+     * @param fillFactor the fraction of every node to fill, between 0 and 1.
+     * @throws IllegalArgumentException if the keys are not sorted or null,
+     *         or the arrays have different lengths.
+     */
+    public static <T extends Comparable<T>, V> BTree<T, V> bulkLoad(int t,
+            T[] keys, V[] values, double fillFactor) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys and values lengths");
+        } else if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new IllegalArgumentException("Invalid fill: " + fillFactor);
+        }
+        int n = keys.length;
+        @SuppressWarnings("unchecked")
+        Key<T, V>[] level = (Key<T, V>[]) new Key<?, ?>[n];
+        for (int i = 0; i < n; i++) {
+            if (keys[i] == null) {
+                throw new IllegalArgumentException("Invalid key");
+            } else if (i > 0 && keys[i - 1].compareTo(keys[i]) > 0) {
+                throw new IllegalArgumentException("keys are not sorted");
+            }
+            level[i] = new Key<T, V>(keys[i], values[i]);
+        }
+        BTree<T, V> tree = new BTree<>(t);
+        if (n == 0) return tree;
+        int target = (int) Math.round(fillFactor * (2 * t - 1));
+        target = Math.max(t - 1, Math.min(2 * t - 1, target));
+        Node<T, V>[] below = null; // the nodes of the level below
+        while (true) {
+            int len = level.length;
+            int m = nodesPerLevel(len, t, target);
+            @SuppressWarnings("unchecked")
+            Node<T, V>[] nodes = (Node<T, V>[]) new Node<?, ?>[m];
+            @SuppressWarnings("unchecked")
+            Key<T, V>[] up = (Key<T, V>[]) new Key<?, ?>[m - 1];
+            // every node gets q or q + 1 keys
+            int q = (len - (m - 1)) / m;
+            int extra = (len - (m - 1)) % m;
+            int i = 0;
+            for (int j = 0; j < m; j++) {
+                int size = q + (j < extra ? 1 : 0);
+                Node<T, V> x = new Node<>(t);
+                x.n = size;
+                x.isLeaf = below == null;
+                for (int k = 0; k < size; k++) x.setKey(k, level[i + k]);
+                if (below != null) {
+                    // the level has one key less than the nodes below, so
+                    // the ith key is between the ith and (i + 1)th nodes
+                    for (int k = 0; k <= size; k++) {
+                        x.setChild(k, below[i + k]);
+                    }
+                }
+                nodes[j] = x;
+                i += size;
+                if (j < m - 1) up[j] = level[i++];
+            }
+            if (m == 1) {
+                tree.root = nodes[0];
+                break;
+            }
+            level = up;
+            below = nodes;
+            tree.height++;
+        }
+        tree.num = n;
+        return tree;
+    }
+
+    /**
+     * Returns the number of nodes to cut a level of len keys into, as close
+     * as possible to nodes of target keys while every node gets between
+     * t - 1 and 2t - 1 keys. m nodes hold len - (m - 1) keys since m - 1
+     * keys move up between them.
+     */
+    private static int nodesPerLevel(int len, int t, int target) {
+        if (len <= 2 * t - 1) return 1;
+        int min = (len + 1 + 2 * t - 1) / (2 * t); // ceil((len + 1) / 2t)
+        int max = (len + 1) / t;
+        int m = (len + 1 + target) / (target + 1);
+        return Math.max(min, Math.min(max, m));
+    }
+
+    /**
+     * Returns the value of a key, null if the key is not in the tree.
+     * @param k the key.
+     */
+    public V get(T k) {
         return search(root, k);
     }
 
+    /**
+     * Returns the entries with keys in a range in ascending order.
+     * <p>The entries are found lazily while iterating: the iterator keeps
+     * the path from the root to the current entry, and moves to the next
+     * entry in amortized <em>O(1)</em> time. Starting an iteration takes
+     * <em>O(t log_t(n))</em>. Modifying the tree while iterating gives
+     * undefined results.
+     * @param from the lower bound, null for no lower bound.
+     * @param fromInclusive true to include keys equal to from.
+     * @param to the upper bound, null for no upper bound.
+     * @param toInclusive true to include keys equal to to.
+     * @return the entries of the tree, which should not be modified.
+     */
+    public Iterable<Key<T, V>> range(final T from,
+            final boolean fromInclusive, final T to,
+            final boolean toInclusive) {
+        return new Iterable<Key<T, V>>() {
+            @Override
+            public Iterator<Key<T, V>> iterator() {
+                return new RangeIterator(from, fromInclusive, to, toInclusive);
+            }
+        };
+    }
+
+    /**
+     * In-order iterator over a range of keys.
+     * Each level of the stack holds a node of the current path and the
+     * index of its next key to return; the keys of its children before
+     * that index were already returned.
+     */
+    private class RangeIterator implements Iterator<Key<T, V>> {
+        private final T to;
+        private final boolean toInclusive;
+        private final Node<T, V>[] nodes;
+        private final int[] index;
+        private int top = -1; // the top of the stack
+        private Key<T, V> next; // the next key to return
+
+        public RangeIterator(T from, boolean fromInclusive, T to,
+                boolean toInclusive) {
+            this.to = to;
+            this.toInclusive = toInclusive;
+            @SuppressWarnings("unchecked")
+            Node<T, V>[] stack = (Node<T, V>[]) new Node<?, ?>[height + 1];
+            this.nodes = stack;
+            this.index = new int[height + 1];
+            Node<T, V> x = root;
+            while (true) {
+                int i = 0;
+                if (from != null) {
+                    // the first key >= from, or > from if exclusive
+                    while (i < x.n && (greater(from, x.key(i))
+                            || !fromInclusive
+                            && BTree.this.equals(from, x.key(i)))) {
+                        i++;
+                    }
+                }
+                push(x, i);
+                if (x.isLeaf) break;
+                x = x.child(i);
+            }
+            advance();
+        }
+
+        private void push(Node<T, V> x, int i) {
+            top++;
+            nodes[top] = x;
+            index[top] = i;
+        }
+
+        /**
+         * Finds the next key of the range, null if there is none.
+         */
+        private void advance() {
+            while (top >= 0 && index[top] >= nodes[top].n) top--;
+            if (top < 0) {
+                this.next = null;
+                return;
+            }
+            Node<T, V> x = nodes[top];
+            int i = index[top];
+            this.next = x.key(i);
+            if (to != null && (lesser(to, next)
+                    || !toInclusive && BTree.this.equals(to, next))) {
+                this.next = null;
+                this.top = -1;
+                return;
+            }
+            // the keys of the subtree right of the next key come after it
+            index[top] = i + 1;
+            if (!x.isLeaf) {
+                x = x.child(i + 1);
+                while (true) {
+                    push(x, 0);
+                    if (x.isLeaf) break;
+                    x = x.child(0);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Key<T, V> next() {
+            if (next == null) throw new NoSuchElementException();
+            Key<T, V> k = next;
+            advance();
+            return k;
+        }
+    }
+
     /**
      * Searches for a key within the tree rooted at x.
      * @param	x	the node to search in for the key k.
@@ -519,5 +734,51 @@ public class BTree<T extends Comparable<T>, V> {
         println(st.toString());
 
         println("ebay.com:          " + st.get("www.ebay.com"));
+        println();
+
+        // bulk loading sorted keys with duplicates
+        int n = 100000;
+        Integer[] keys = new Integer[n];
+        Integer[] values = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i / 2;
+            values[i] = i;
+        }
+        for (double fill : new double[]{0.5, 0.75, 1.0}) {
+            BTree<Integer, Integer> T = BTree.bulkLoad(4, keys, values, fill);
+            boolean found = true;
+            for (int i = 0; i < n; i++) {
+                if (T.get(keys[i]) == null) found = false;
+            }
+            int count = 0;
+            Integer last = null;
+            boolean sorted = true;
+            for (Key<Integer, Integer> k : T.range(null, true, null, true)) {
+                if (last != null && last > k.key) sorted = false;
+                last = k.key;
+                count++;
+            }
+            println("fill " + fill + ": height = " + T.height()
+                    + ", size = " + T.size() + ", found = " + found
+                    + ", iterated = " + count + ", sorted = " + sorted);
+        }
+
+        // range scans with inclusive and exclusive bounds
+        BTree<Integer, Integer> T = BTree.bulkLoad(2, keys, values, 1.0);
+        print("[10, 13]: ");
+        for (Key<Integer, Integer> k : T.range(10, true, 13, true)) {
+            print(k.key + " ");
+        }
+        println();
+        print("(10, 13): ");
+        for (Key<Integer, Integer> k : T.range(10, false, 13, false)) {
+            print(k.key + " ");
+        }
+        println();
+        print("(49997, ...): ");
+        for (Key<Integer, Integer> k : T.range(49997, false, null, true)) {
+            print(k.key + " ");
+        }
+        println();
     }
 }
@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of B-tree insertions with sequential and random keys over
+ * several minimum degrees, of bulk loading and range scans of sorted keys,
+ * of the paged B-tree in a temporary file with both page replacement
+ * policies, and of lookups from several threads in a {@code BTree} behind
+ * one lock and in a {@code ConcurrentBTree}, with and without concurrent
+ * writes.
+ * <p>The concurrent lookups run in as many threads as there are
+ * processors; compare the scaling with e.g. {@code -t 1} and {@code -t 4}.
+ * Every thread looks up its own random keys, one per invocation.
+ * <p>Usage: {@code java -jar target/benchmarks.jar BTreeBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BTreeBenchmark {
+    private static final int CACHE_SIZE = 64; // pages of the paged trees
+    private static final int CONCURRENT_DEGREE = 16;
+    private static final int WRITE_PERCENT = 10;
+
+    /**
+     * Generates n keys between 0 and 2n, sorted or random.
+     */
+    private static Integer[] keys(int n, boolean sorted) {
+        Random rand = new Random(42);
+        int[] ints = new int[n];
+        for (int i = 0; i < n; i++) ints[i] = rand.nextInt(2 * n + 1);
+        if (sorted) Arrays.sort(ints);
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) keys[i] = ints[i];
+        return keys;
+    }
+
+    @State(Scope.Thread)
+    public static class Insert {
+        @Param({"10000", "100000"})
+        public int n;
+        @Param({"2", "16", "64"})
+        public int t;
+        @Param({"true", "false"})
+        public boolean sorted;
+        Integer[] keys;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            keys = keys(n, sorted);
+        }
+    }
+
+    /**
+     * Sorted keys and a tree bulk loaded from them with room to grow.
+     */
+    @State(Scope.Thread)
+    public static class Loaded {
+        @Param({"10000", "100000"})
+        public int n;
+        @Param({"2", "16", "64"})
+        public int t;
+        Integer[] keys;
+        BTree<Integer, Integer> T;
+        Integer from;
+        Integer to;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            keys = keys(n, true);
+            T = BTree.bulkLoad(t, keys, keys, 0.75);
+            from = keys[n / 4];
+            to = keys[3 * n / 4];
+        }
+    }
+
+    /**
+     * A paged tree in a temporary file, reopened empty before every
+     * invocation of {@code pagedPut} and filled for {@code pagedGet}.
+     */
+    @State(Scope.Thread)
+    public abstract static class Paged {
+        @Param({"10000", "100000"})
+        public int n;
+        @Param({"true", "false"})
+        public boolean sorted;
+        @Param({"LRU", "CLOCK"})
+        public BufferPool.Policy policy;
+        Integer[] keys;
+        Path file;
+        PagedBTree<Integer, Integer> T;
+
+        void generate() throws IOException {
+            keys = keys(n, sorted);
+            file = Files.createTempFile("btree", ".db");
+        }
+
+        void open() throws IOException {
+            if (T != null) T.close();
+            Files.deleteIfExists(file);
+            T = new PagedBTree<>(file, Serializers.INTEGER,
+                    Serializers.INTEGER, PagedBTree.DEFAULT_PAGE_SIZE,
+                    CACHE_SIZE, policy);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            if (T != null) T.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyPaged extends Paged {
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            generate();
+        }
+
+        @Setup(Level.Invocation)
+        public void reopen() throws IOException {
+            open();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FilledPaged extends Paged {
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            generate();
+            open();
+            for (Integer k : keys) T.put(k, k);
+        }
+    }
+
+    /**
+     * The even keys below 2n, in a {@code BTree} and a
+     * {@code ConcurrentBTree} shared by all the threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"10000", "100000"})
+        public int n;
+        BTree<Integer, Integer> B;
+        ConcurrentBTree<Integer, Integer> C;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Integer[] keys = new Integer[n];
+            for (int i = 0; i < n; i++) keys[i] = 2 * i;
+            B = BTree.bulkLoad(CONCURRENT_DEGREE, keys, keys, 1.0);
+            C = new ConcurrentBTree<>(CONCURRENT_DEGREE);
+            for (Integer k : keys) C.put(k, k);
+        }
+    }
+
+    /**
+     * The keys a thread looks up, in a cycle of 4096.
+     */
+    @State(Scope.Thread)
+    public static class Lookups {
+        private static final int MASK = 4095;
+        Integer[] keys;
+        int i;
+
+        @Setup(Level.Trial)
+        public void generate(Shared shared) {
+            Random rand = new Random(Thread.currentThread().getId());
+            keys = new Integer[MASK + 1];
+            for (int j = 0; j <= MASK; j++) {
+                keys[j] = 2 * rand.nextInt(shared.n);
+            }
+        }
+
+        Integer next() {
+            return keys[i++ & MASK];
+        }
+    }
+
+    @Benchmark
+    public Object put(Insert in) {
+        BTree<Integer, Integer> T = new BTree<>(in.t);
+        for (Integer k : in.keys) T.put(k, k);
+        return T;
+    }
+
+    @Benchmark
+    public Object bulkLoad(Loaded in) {
+        return BTree.bulkLoad(in.t, in.keys, in.keys, 1.0);
+    }
+
+    /**
+     * Scans the middle half of the keys.
+     */
+    @Benchmark
+    public int range(Loaded in) {
+        int count = 0;
+        for (Key<Integer, Integer> k : in.T.range(in.from, true, in.to,
+                false)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Object pagedPut(EmptyPaged in) {
+        for (Integer k : in.keys) in.T.put(k, k);
+        return in.T;
+    }
+
+    @Benchmark
+    public int pagedGet(FilledPaged in) {
+        int found = 0;
+        for (Integer k : in.keys) {
+            if (in.T.get(k) != null) found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object lockedGet(Shared shared, Lookups in) {
+        Integer k = in.next();
+        synchronized (shared.B) {
+            return shared.B.get(k);
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object concurrentGet(Shared shared, Lookups in) {
+        return shared.C.get(in.next());
+    }
+
+    /**
+     * A share of the operations replace values, keeping the keys of the
+     * tree the same.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object concurrentGetPut(Shared shared, Lookups in) {
+        Integer k = in.next();
+        if (in.i % 100 < WRITE_PERCENT) {
+            shared.C.put(k, in.i);
+            return k;
+        }
+        return shared.C.get(k);
+    }
+}
@@ -0,0 +1,325 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A cache of the pages of a memory-mapped file.
+ * <p>The file is mapped in segments of 16MB, each segment mapped once when
+ * one of its pages is first used, since every mapping is a system call and
+ * mappings are only released by the garbage collector. The operating system
+ * decides which parts of the segments stay in memory: its page cache is the
+ * real cache of the file, and the memory it uses is not bounded by the pool.
+ * <p>The pool tracks at most {@code capacity} pages, called frames. A frame
+ * is only a view of a page of a segment with its pin count and dirty bit,
+ * so evicting a page frees no memory, it drops the view and records which
+ * segment to force. {@code capacity} bounds the pages that are pinned or
+ * waiting for a flush, not the memory used by the file.
+ * A page is pinned while it is being used and can not be evicted until it
+ * is unpinned. When a page that is not cached is pinned and all frames are
+ * used, an unpinned page is evicted following the replacement policy:
+ * <ul>
+ *   <li>LRU evicts the least recently pinned page. The frames are kept in a
+ *       doubly linked list ordered by the time they were last pinned.
+ *   <li>CLOCK gives every page a reference bit set when it is pinned. A
+ *       hand sweeps the frames in a circle, clearing the set bits, and
+ *       evicts the first page whose bit is clear. It approximates LRU
+ *       without reordering a list on every hit.
+ * </ul>
+ * <p>Pinning a page that is not cached is the <em>DISK-READ</em> of the
+ * B-tree. Writes go to the mapped memory, which the operating system writes
+ * back to the file in the background; {@code flush} forces the segments
+ * holding dirty pages, including evicted ones, to the file. Forcing every
+ * dirty page when it is evicted would make each eviction wait for the disk.
+ */
+public class BufferPool {
+    public static enum Policy {
+        LRU,
+        CLOCK
+    }
+
+    private static final int NIL = -1;
+    private static final int SEGMENT_SIZE = 1 << 24;
+    private final FileChannel channel;
+    private final int pageSize;
+    private final int pagesPerSegment;
+    private final ArrayList<MappedByteBuffer> segments;
+    private final BitSet dirty; // the segments that have dirty pages
+    private final Policy policy;
+    private final Page[] frames; // the cached pages
+    private final int[] ids; // open addressing table of page ids, or NIL
+    private final int[] slots; // the frame of the page id in ids
+    private final int mask; // the table size - 1, a power of 2 - 1
+    private final int shift; // 32 - log2 of the table size
+    private final int[] prev; // LRU list links, towards the most recent
+    private final int[] next; // LRU list links, towards the least recent
+    private int head = NIL; // the most recently used frame
+    private int tail = NIL; // the least recently used frame
+    private int hand; // the clock hand
+    private int used; // the number of frames holding a page
+    private long hits;
+    private long misses;
+
+    /**
+     * A page of the file, a view of its part of a mapped segment.
+     */
+    public static class Page {
+        public final int id;
+        public final ByteBuffer buffer;
+        private final int segment;
+        private final int frame;
+        private int pins;
+        private boolean dirty;
+        private boolean referenced;
+
+        private Page(int id, int segment, ByteBuffer buffer, int frame) {
+            this.id = id;
+            this.segment = segment;
+            this.buffer = buffer;
+            this.frame = frame;
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param channel the file channel, opened for reading and writing.
+     * @param pageSize the number of bytes of a page.
+     * @param capacity the maximum number of cached pages.
+     * @param policy the page replacement policy.
+     * @throws IllegalArgumentException if pageSize is not a power of 2
+     *         between 1 and 16MB or capacity is less than 1.
+     */
+    public BufferPool(FileChannel channel, int pageSize, int capacity,
+            Policy policy) {
+        if (pageSize < 1 || pageSize > SEGMENT_SIZE
+                || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Invalid page: " + pageSize);
+        } else if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid size: " + capacity);
+        }
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.pagesPerSegment = SEGMENT_SIZE / pageSize;
+        this.segments = new ArrayList<>();
+        this.dirty = new BitSet();
+        this.policy = policy;
+        this.frames = new Page[capacity];
+        // at most half full, so probe sequences stay short
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 2;
+        this.ids = new int[size];
+        this.slots = new int[size];
+        this.mask = size - 1;
+        this.shift = Integer.numberOfLeadingZeros(size) + 1;
+        Arrays.fill(ids, NIL);
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+    }
+
+    /**
+     * Pins a page, caching it if it is not cached. Mapping a segment past
+     * the end of the file extends the file.
+     * @param id the page number.
+     * @return the pinned page.
+     * @throws IllegalStateException if all frames are pinned.
+     * @throws UncheckedIOException if the page can not be mapped.
+     */
+    public Page pin(int id) {
+        int frame = find(id);
+        if (frame != NIL) {
+            hits++;
+            Page page = frames[frame];
+            page.pins++;
+            touch(page);
+            return page;
+        }
+        misses++;
+        int f = used < frames.length ? used++ : evict();
+        int s = id / pagesPerSegment;
+        ByteBuffer buffer = segment(s).slice(
+                (id % pagesPerSegment) * pageSize, pageSize);
+        Page page = new Page(id, s, buffer, f);
+        page.pins = 1;
+        frames[f] = page;
+        insert(id, f);
+        if (policy == Policy.LRU) {
+            pushFront(f);
+        } else {
+            page.referenced = true;
+        }
+        return page;
+    }
+
+    /**
+     * Unpins a page.
+     * @param page the page.
+     * @param dirty true if the page was modified.
+     * @throws IllegalStateException if the page is not pinned.
+     */
+    public void unpin(Page page, boolean dirty) {
+        if (page.pins == 0) {
+            throw new IllegalStateException("page " + page.id + " not pinned");
+        }
+        page.pins--;
+        page.dirty |= dirty;
+    }
+
+    /**
+     * Forces all dirty pages to the file.
+     */
+    public void flush() {
+        for (int f = 0; f < used; f++) write(frames[f]);
+        for (int s = dirty.nextSetBit(0); s >= 0; s = dirty.nextSetBit(s + 1)) {
+            segments.get(s).force();
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Returns the number of pins of cached pages.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of pins of pages that were not cached.
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns a segment of the file, mapping it if it is not mapped yet.
+     */
+    private MappedByteBuffer segment(int s) {
+        while (segments.size() <= s) {
+            long position = (long) segments.size() * SEGMENT_SIZE;
+            try {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+                        position, SEGMENT_SIZE));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return segments.get(s);
+    }
+
+    /**
+     * Marks the segment of a dirty page to be forced by the next flush.
+     */
+    private void write(Page page) {
+        if (page.dirty) {
+            dirty.set(page.segment);
+            page.dirty = false;
+        }
+    }
+
+    /**
+     * Fibonacci hashing, the top bits of the page id times 2^32 / phi.
+     */
+    private int hash(int id) {
+        return (id * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Returns the frame of a page, NIL if the page is not cached.
+     */
+    private int find(int id) {
+        for (int i = hash(id); ids[i] != NIL; i = (i + 1) & mask) {
+            if (ids[i] == id) return slots[i];
+        }
+        return NIL;
+    }
+
+    private void insert(int id, int frame) {
+        int i = hash(id);
+        while (ids[i] != NIL) i = (i + 1) & mask;
+        ids[i] = id;
+        slots[i] = frame;
+    }
+
+    /**
+     * Removes a cached page from the table, moving back the following
+     * entries of its probe sequence into the hole so that no lookup stops
+     * early at it.
+     */
+    private void remove(int id) {
+        int i = hash(id);
+        while (ids[i] != id) i = (i + 1) & mask;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (ids[j] == NIL) break;
+            int k = hash(ids[j]);
+            // the entry at j can move to the hole at i unless its home k
+            // lies cyclically in (i, j]
+            if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) continue;
+            ids[i] = ids[j];
+            slots[i] = slots[j];
+            i = j;
+        }
+        ids[i] = NIL;
+    }
+
+    private void touch(Page page) {
+        if (policy == Policy.LRU) {
+            unlink(page.frame);
+            pushFront(page.frame);
+        } else {
+            page.referenced = true;
+        }
+    }
+
+    /**
+     * Evicts an unpinned page and returns its free frame.
+     */
+    private int evict() {
+        int f = policy == Policy.LRU ? lruVictim() : clockVictim();
+        Page victim = frames[f];
+        write(victim);
+        remove(victim.id);
+        frames[f] = null;
+        if (policy == Policy.LRU) unlink(f);
+        return f;
+    }
+
+    private int lruVictim() {
+        for (int f = tail; f != NIL; f = prev[f]) {
+            if (frames[f].pins == 0) return f;
+        }
+        throw new IllegalStateException("all pages are pinned");
+    }
+
+    private int clockVictim() {
+        // two full sweeps clear every reference bit, so if no page was
+        // found by then all of them are pinned
+        for (int i = 0; i < 2 * frames.length; i++) {
+            int f = hand;
+            hand = (hand + 1) % frames.length;
+            Page page = frames[f];
+            if (page.pins > 0) continue;
+            if (!page.referenced) return f;
+            page.referenced = false;
+        }
+        throw new IllegalStateException("all pages are pinned");
+    }
+
+    private void pushFront(int f) {
+        prev[f] = NIL;
+        next[f] = head;
+        if (head != NIL) prev[head] = f;
+        head = f;
+        if (tail == NIL) tail = f;
+    }
+
+    private void unlink(int f) {
+        if (prev[f] != NIL) next[prev[f]] = next[f];
+        else head = next[f];
+        if (next[f] != NIL) prev[next[f]] = prev[f];
+        else tail = prev[f];
+    }
+}
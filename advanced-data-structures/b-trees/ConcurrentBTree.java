@@ -0,0 +1,586 @@
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@code ConcurrentBTree} is a thread-safe B-tree using <b>optimistic lock
+ * coupling</b>, for maps shared by many threads where one lock around a
+ * {@code BTree} serializes every reader behind the writers.
+ *
+ * <h3>Structure:</h3>
+ * - The tree is a B+-tree: the entries are kept in the leaves and the keys
+ *   of the internal nodes only separate the key ranges of their children,
+ *   the keys of child i are less than the ith key and the keys of child
+ *   i + 1 are greater than or equal to it. Removing an entry never has to
+ *   replace a key of an internal node.
+ * - As in {@code BTree} every node has between {@code t - 1} and
+ *   {@code 2t - 1} keys except the root, full nodes are split on the way
+ *   down by put, and nodes with {@code t - 1} keys are filled by borrowing
+ *   from a sibling or merging with it on the way down by delete.
+ * - Keys are unique, putting a key that is in the tree replaces its value.
+ *
+ * <h3>Synchronization:</h3>
+ * - Every node has a {@code StampedLock} whose stamp is a version number,
+ *   changed every time the node is write-locked.
+ * - Readers take no lock. A reader remembers the version of each node it
+ *   reads and validates it after reading the node and the version of the
+ *   next node of the path. If a validation fails the node was modified
+ *   while being read and the operation restarts from the root. Readers
+ *   never block writers and never wait for a lock.
+ * - Writers descend the same way, and only write-lock the nodes they
+ *   modify: the leaf holding the key, or a node and its parent (and a
+ *   sibling) to split, borrow or merge, after which they restart. Write
+ *   locks are only taken by converting a validated version or by
+ *   {@code tryWriteLock}, and all held locks are released when one is not
+ *   available, so writers never wait holding a lock and can not deadlock.
+ * - A node removed by a merge stays write-locked forever, so every reader
+ *   that still reaches it restarts.
+ * - get, put and delete are linearizable: each one takes effect at the
+ *   last successful validation or write-lock of its leaf.
+ * - Nodes may be read while they are being modified, before validation
+ *   discards the result, so keys should be immutable.
+ */
+public class ConcurrentBTree<T extends Comparable<T>, V> {
+    private final int MIN_DEGREE; // the minimum degree of the tree t
+    private volatile Node<T, V> root; // the root node of the tree
+    private final AtomicLong num = new AtomicLong(); // the number of keys
+
+    private static class Node<T, V> {
+        private final StampedLock lock = new StampedLock();
+        private final boolean isLeaf;
+        private int n;
+        private final T[] keys;
+        private final V[] values; // the values of the keys of a leaf
+        private final Node<T, V>[] children; // the children of an inner node
+
+        @SuppressWarnings("unchecked")
+        private Node(int t, boolean isLeaf) {
+            this.isLeaf = isLeaf;
+            this.keys = (T[]) new Comparable<?>[2 * t];
+            this.values = isLeaf ? (V[]) new Object[2 * t] : null;
+            this.children = isLeaf ? null
+                    : (Node<T, V>[]) new Node<?, ?>[2 * t];
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param t the minimum degree of the tree.
+     * @throws IllegalArgumentException if t is less than 2.
+     */
+    public ConcurrentBTree(int t) {
+        if (t < 2) throw new IllegalArgumentException("Invalid degree: " + t);
+        this.MIN_DEGREE = t;
+        this.root = new Node<>(t, true);
+    }
+
+    /**
+     * Returns the value of a key, null if the key is not in the tree.
+     * @param k the key.
+     */
+    public V get(T k) {
+        if (k == null) throw new IllegalArgumentException("Invalid key");
+        restart:
+        while (true) {
+            Node<T, V> x = root;
+            long s = x.lock.tryOptimisticRead();
+            if (s == 0 || x != root) {
+                Thread.onSpinWait();
+                continue;
+            }
+            while (!x.isLeaf) {
+                Node<T, V> c = child(x, k);
+                long cs = c == null ? 0 : c.lock.tryOptimisticRead();
+                if (cs == 0 || !x.lock.validate(s)) {
+                    Thread.onSpinWait();
+                    continue restart;
+                }
+                x = c;
+                s = cs;
+            }
+            int i = lowerBound(x, k);
+            T key = i >= 0 && i < x.n ? x.keys[i] : null;
+            V value = key != null && key.compareTo(k) == 0
+                    ? x.values[i] : null;
+            if (i < 0 || !x.lock.validate(s)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Inserts a key, or replaces its value if it is in the tree.
+     * @param k the key.
+     * @param v the value.
+     */
+    public void put(T k, V v) {
+        if (k == null) throw new IllegalArgumentException("Invalid key");
+        restart:
+        while (true) {
+            Node<T, V> x = root;
+            long s = x.lock.tryOptimisticRead();
+            if (s == 0 || x != root) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (x.n == 2 * MIN_DEGREE - 1) {
+                // the root can not change while its version is the same
+                long w = x.lock.tryConvertToWriteLock(s);
+                if (w == 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                Node<T, V> r = new Node<>(MIN_DEGREE, false);
+                r.children[0] = x;
+                splitChild(r, 0);
+                this.root = r;
+                x.lock.unlockWrite(w);
+                continue;
+            }
+            while (!x.isLeaf) {
+                int i = upperBound(x, k);
+                Node<T, V> c = i < 0 ? null : x.children[i];
+                long cs = c == null ? 0 : c.lock.tryOptimisticRead();
+                if (cs == 0 || !x.lock.validate(s)) {
+                    Thread.onSpinWait();
+                    continue restart;
+                }
+                if (c.n == 2 * MIN_DEGREE - 1) {
+                    long w = x.lock.tryConvertToWriteLock(s);
+                    long cw = w == 0 ? 0 : c.lock.tryConvertToWriteLock(cs);
+                    if (cw != 0) {
+                        splitChild(x, i);
+                        c.lock.unlockWrite(cw);
+                    }
+                    if (w != 0) x.lock.unlockWrite(w);
+                    Thread.onSpinWait();
+                    continue restart;
+                }
+                x = c;
+                s = cs;
+            }
+            long w = x.lock.tryConvertToWriteLock(s);
+            if (w == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int i = lowerBound(x, k);
+            if (i < x.n && x.keys[i].compareTo(k) == 0) {
+                x.values[i] = v;
+            } else {
+                for (int j = x.n; j > i; j--) {
+                    x.keys[j] = x.keys[j - 1];
+                    x.values[j] = x.values[j - 1];
+                }
+                x.keys[i] = k;
+                x.values[i] = v;
+                x.n++;
+                num.incrementAndGet();
+            }
+            x.lock.unlockWrite(w);
+            return;
+        }
+    }
+
+    /**
+     * Removes a key.
+     * @param k the key.
+     * @return true if the key was in the tree.
+     */
+    public boolean delete(T k) {
+        if (k == null) throw new IllegalArgumentException("Invalid key");
+        restart:
+        while (true) {
+            Node<T, V> x = root;
+            long s = x.lock.tryOptimisticRead();
+            if (s == 0 || x != root) {
+                Thread.onSpinWait();
+                continue;
+            }
+            while (!x.isLeaf) {
+                int i = upperBound(x, k);
+                Node<T, V> c = i < 0 ? null : x.children[i];
+                long cs = c == null ? 0 : c.lock.tryOptimisticRead();
+                if (cs == 0 || !x.lock.validate(s)) {
+                    Thread.onSpinWait();
+                    continue restart;
+                }
+                if (c.n == MIN_DEGREE - 1) {
+                    fill(x, s, i, cs);
+                    Thread.onSpinWait();
+                    continue restart;
+                }
+                x = c;
+                s = cs;
+            }
+            long w = x.lock.tryConvertToWriteLock(s);
+            if (w == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int i = lowerBound(x, k);
+            boolean found = i < x.n && x.keys[i].compareTo(k) == 0;
+            if (found) {
+                for (int j = i; j < x.n - 1; j++) {
+                    x.keys[j] = x.keys[j + 1];
+                    x.values[j] = x.values[j + 1];
+                }
+                x.n--;
+                x.keys[x.n] = null;
+                x.values[x.n] = null;
+                num.decrementAndGet();
+            }
+            x.lock.unlockWrite(w);
+            return found;
+        }
+    }
+
+    /**
+     * Returns the number of keys in the tree.
+     */
+    public long size() {
+        return num.get();
+    }
+
+    /**
+     * Returns the child of an inner node to search for a key in, null if
+     * the node was seen in an inconsistent state.
+     */
+    private Node<T, V> child(Node<T, V> x, T k) {
+        int i = upperBound(x, k);
+        return i < 0 ? null : x.children[i];
+    }
+
+    /**
+     * Returns the index of the first key of a node that is not less than
+     * k, -1 if the node was seen in an inconsistent state.
+     */
+    private int lowerBound(Node<T, V> x, T k) {
+        int lo = 0;
+        int hi = x.n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            T key = x.keys[mid];
+            if (key == null) return -1;
+            if (key.compareTo(k) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the index of the first key of a node that is greater than k,
+     * -1 if the node was seen in an inconsistent state.
+     */
+    private int upperBound(Node<T, V> x, T k) {
+        int lo = 0;
+        int hi = x.n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            T key = x.keys[mid];
+            if (key == null) return -1;
+            if (key.compareTo(k) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Splits the full ith child of x, which are both write-locked or not
+     * reachable yet. A leaf keeps t keys and copies the first key of the
+     * new right leaf up to x; an inner node moves its middle key up.
+     */
+    private void splitChild(Node<T, V> x, int i) {
+        int t = MIN_DEGREE;
+        Node<T, V> y = x.children[i];
+        Node<T, V> z = new Node<>(t, y.isLeaf);
+        T up;
+        if (y.isLeaf) {
+            z.n = t - 1;
+            for (int j = 0; j < t - 1; j++) {
+                z.keys[j] = y.keys[t + j];
+                z.values[j] = y.values[t + j];
+                y.keys[t + j] = null;
+                y.values[t + j] = null;
+            }
+            y.n = t;
+            up = z.keys[0];
+        } else {
+            z.n = t - 1;
+            for (int j = 0; j < t - 1; j++) {
+                z.keys[j] = y.keys[t + j];
+                y.keys[t + j] = null;
+            }
+            for (int j = 0; j < t; j++) {
+                z.children[j] = y.children[t + j];
+                y.children[t + j] = null;
+            }
+            up = y.keys[t - 1];
+            y.keys[t - 1] = null;
+            y.n = t - 1;
+        }
+        for (int j = x.n; j > i; j--) {
+            x.keys[j] = x.keys[j - 1];
+            x.children[j + 1] = x.children[j];
+        }
+        x.keys[i] = up;
+        x.children[i + 1] = z;
+        x.n++;
+    }
+
+    /**
+     * Gives the ith child of x, which has t - 1 keys, one more key by
+     * borrowing from a sibling or merging with it. Does nothing if any of
+     * the nodes changed since their versions s and cs were read, or are
+     * locked.
+     */
+    private void fill(Node<T, V> x, long s, int i, long cs) {
+        long w = x.lock.tryConvertToWriteLock(s);
+        if (w == 0) return;
+        Node<T, V> c = x.children[i];
+        long cw = c.lock.tryConvertToWriteLock(cs);
+        if (cw == 0) {
+            x.lock.unlockWrite(w);
+            return;
+        }
+        // an inner node that is not the root has at least t keys here,
+        // and the root at least 1, so c has a sibling
+        int j = i > 0 ? i - 1 : i + 1;
+        Node<T, V> sibling = x.children[j];
+        long sw = sibling.lock.tryWriteLock();
+        if (sw == 0) {
+            c.lock.unlockWrite(cw);
+            x.lock.unlockWrite(w);
+            return;
+        }
+        int sep = Math.min(i, j); // the key of x between c and sibling
+        if (sibling.n >= MIN_DEGREE) {
+            if (j < i) borrowFromLeft(x, sep, sibling, c);
+            else borrowFromRight(x, sep, c, sibling);
+            sibling.lock.unlockWrite(sw);
+            c.lock.unlockWrite(cw);
+            x.lock.unlockWrite(w);
+            return;
+        }
+        Node<T, V> left = j < i ? sibling : c;
+        merge(x, sep);
+        // the right node is no longer in the tree, it stays locked
+        if (left == c) c.lock.unlockWrite(cw);
+        else sibling.lock.unlockWrite(sw);
+        if (x == root && x.n == 0) {
+            // the root lost its last key, its only child becomes the root
+            // and the old root stays locked
+            this.root = left;
+        } else {
+            x.lock.unlockWrite(w);
+        }
+    }
+
+    /**
+     * Moves the last key of the left sibling of y to y, through x if they
+     * are inner nodes.
+     */
+    private void borrowFromLeft(Node<T, V> x, int sep, Node<T, V> left,
+            Node<T, V> y) {
+        for (int j = y.n; j > 0; j--) y.keys[j] = y.keys[j - 1];
+        if (y.isLeaf) {
+            for (int j = y.n; j > 0; j--) y.values[j] = y.values[j - 1];
+            y.keys[0] = left.keys[left.n - 1];
+            y.values[0] = left.values[left.n - 1];
+            left.values[left.n - 1] = null;
+            x.keys[sep] = y.keys[0];
+        } else {
+            for (int j = y.n + 1; j > 0; j--) {
+                y.children[j] = y.children[j - 1];
+            }
+            y.keys[0] = x.keys[sep];
+            y.children[0] = left.children[left.n];
+            left.children[left.n] = null;
+            x.keys[sep] = left.keys[left.n - 1];
+        }
+        left.keys[left.n - 1] = null;
+        left.n--;
+        y.n++;
+    }
+
+    /**
+     * Moves the first key of the right sibling of y to y, through x if
+     * they are inner nodes.
+     */
+    private void borrowFromRight(Node<T, V> x, int sep, Node<T, V> y,
+            Node<T, V> right) {
+        if (y.isLeaf) {
+            y.keys[y.n] = right.keys[0];
+            y.values[y.n] = right.values[0];
+            for (int j = 0; j < right.n - 1; j++) {
+                right.values[j] = right.values[j + 1];
+            }
+            right.values[right.n - 1] = null;
+            x.keys[sep] = right.keys[1];
+        } else {
+            y.keys[y.n] = x.keys[sep];
+            y.children[y.n + 1] = right.children[0];
+            x.keys[sep] = right.keys[0];
+            for (int j = 0; j < right.n; j++) {
+                right.children[j] = right.children[j + 1];
+            }
+            right.children[right.n] = null;
+        }
+        for (int j = 0; j < right.n - 1; j++) right.keys[j] = right.keys[j + 1];
+        right.keys[right.n - 1] = null;
+        right.n--;
+        y.n++;
+    }
+
+    /**
+     * Merges the children of x around its key sep into the left one and
+     * removes the key, which moves down if they are inner nodes.
+     */
+    private void merge(Node<T, V> x, int sep) {
+        Node<T, V> y = x.children[sep];
+        Node<T, V> z = x.children[sep + 1];
+        int m = y.n;
+        if (y.isLeaf) {
+            for (int j = 0; j < z.n; j++) {
+                y.keys[m + j] = z.keys[j];
+                y.values[m + j] = z.values[j];
+            }
+            y.n += z.n;
+        } else {
+            y.keys[m++] = x.keys[sep];
+            for (int j = 0; j < z.n; j++) y.keys[m + j] = z.keys[j];
+            for (int j = 0; j <= z.n; j++) y.children[m + j] = z.children[j];
+            y.n += z.n + 1;
+        }
+        for (int j = sep; j < x.n - 1; j++) {
+            x.keys[j] = x.keys[j + 1];
+            x.children[j + 1] = x.children[j + 2];
+        }
+        x.n--;
+        x.keys[x.n] = null;
+        x.children[x.n + 1] = null;
+    }
+
+    /**
+     * Checks the structure of a quiescent tree, returning the height of
+     * the subtree of x.
+     */
+    private int check(Node<T, V> x, T lo, T hi) {
+        if (x != root && (x.n < MIN_DEGREE - 1 || x.n > 2 * MIN_DEGREE - 1)) {
+            throw new IllegalStateException("node with " + x.n + " keys");
+        }
+        for (int i = 0; i < x.n; i++) {
+            T k = x.keys[i];
+            if (i > 0 && x.keys[i - 1].compareTo(k) >= 0
+                    || lo != null && k.compareTo(lo) < 0
+                    || hi != null && k.compareTo(hi) >= 0) {
+                throw new IllegalStateException("key out of order " + k);
+            }
+        }
+        if (x.isLeaf) return 0;
+        int height = -1;
+        for (int i = 0; i <= x.n; i++) {
+            int h = check(x.children[i], i == 0 ? lo : x.keys[i - 1],
+                    i == x.n ? hi : x.keys[i]);
+            if (height >= 0 && h != height) {
+                throw new IllegalStateException("leaves at different depths");
+            }
+            height = h;
+        }
+        return height + 1;
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        // single thread against a TreeMap
+        Random rand = new Random(7);
+        for (int t = 2; t <= 4; t++) {
+            ConcurrentBTree<Integer, Integer> T = new ConcurrentBTree<>(t);
+            TreeMap<Integer, Integer> M = new TreeMap<>();
+            boolean ok = true;
+            for (int i = 0; i < 200000; i++) {
+                int k = rand.nextInt(5000);
+                int op = rand.nextInt(3);
+                if (op == 0) {
+                    T.put(k, i);
+                    M.put(k, i);
+                } else if (op == 1) {
+                    ok &= T.delete(k) == (M.remove(k) != null);
+                } else {
+                    ok &= M.get(k) == null ? T.get(k) == null
+                            : M.get(k).equals(T.get(k));
+                }
+            }
+            T.check(T.root, null, null);
+            ok &= T.size() == M.size();
+            System.out.println("t=" + t + " size=" + T.size() + " ok=" + ok);
+        }
+
+        // writers on disjoint keys and readers of keys nobody deletes
+        final int WRITERS = 4;
+        final int READERS = 4;
+        final int N = 20000;
+        final ConcurrentBTree<Integer, Integer> T = new ConcurrentBTree<>(3);
+        for (int k = N; k < 2 * N; k++) T.put(k, -k);
+        final ArrayList<TreeMap<Integer, Integer>> expected =
+                new ArrayList<>();
+        final boolean[] failed = new boolean[1];
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            final int id = w;
+            final TreeMap<Integer, Integer> M = new TreeMap<>();
+            expected.add(M);
+            threads.add(new Thread() {
+                public void run() {
+                    Random r = new Random(id);
+                    for (int i = 0; i < 200000; i++) {
+                        int k = r.nextInt(N / WRITERS) * WRITERS + id;
+                        if (r.nextInt(3) > 0) {
+                            T.put(k, i);
+                            M.put(k, i);
+                        } else if (T.delete(k) != (M.remove(k) != null)) {
+                            failed[0] = true;
+                        }
+                    }
+                }
+            });
+        }
+        for (int q = 0; q < READERS; q++) {
+            final int id = q;
+            threads.add(new Thread() {
+                public void run() {
+                    Random r = new Random(100 + id);
+                    for (int i = 0; i < 400000; i++) {
+                        int k = N + r.nextInt(N);
+                        Integer v = T.get(k);
+                        if (v == null || v != -k) failed[0] = true;
+                    }
+                }
+            });
+        }
+        for (Thread th : threads) th.start();
+        for (Thread th : threads) th.join();
+        T.check(T.root, null, null);
+        long size = N;
+        boolean ok = !failed[0];
+        for (TreeMap<Integer, Integer> M : expected) {
+            size += M.size();
+            for (Map.Entry<Integer, Integer> e : M.entrySet()) {
+                ok &= e.getValue().equals(T.get(e.getKey()));
+            }
+        }
+        for (int k = 0; k < N; k++) {
+            ok &= (T.get(k) != null)
+                    == expected.get(k % WRITERS).containsKey(k);
+        }
+        ok &= T.size() == size;
+        System.out.println("concurrent size=" + T.size() + " ok=" + ok);
+    }
+}
@@ -0,0 +1,719 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A B-tree stored in a memory-mapped file, for indexes larger than memory.
+ * <p>Every node is a fixed-size page of the file. Pages are accessed through
+ * a {@code BufferPool} which tracks a bounded number of them, so
+ * pinning a page is the <em>DISK-READ</em> of CLRS and evicting or flushing
+ * a dirty page is its <em>DISK-WRITE</em>. Keys and values are converted to
+ * bytes by fixed-size serializers and read directly from the pages, nodes
+ * are never copied to objects.
+ * <p>Page 0 holds the metadata of the tree. A node page holds:
+ * <pre>
+ *   n (int) | isLeaf (byte) | 3 unused bytes
+ *   2t - 1 entries, each one a key followed by its value
+ *   2t children page numbers (int)
+ * </pre>
+ * The minimum degree t is the largest one whose nodes fit in a page.
+ * Pages of merged nodes are kept in a free list and reused.
+ * <p>{@code put} and {@code delete} behave like the in-memory
+ * {@code BTree}: put always adds a new entry, even if the key is already in
+ * the tree, and delete removes one entry with the key.
+ * <p>The metadata is written by {@code flush} and {@code close}, with a
+ * clean flag that is cleared and forced to the file before the first
+ * modification after them. A tree whose flag is clear was not closed, or
+ * is still open, and its pages may be inconsistent, so it can not be
+ * opened.
+ */
+public class PagedBTree<T extends Comparable<T>, V> implements Closeable {
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final int MAGIC = 0x42545245;
+    private static final int META = 0; // the page of the metadata
+    private static final int CLEAN = 40; // offset of the clean flag in META
+    private static final int HEADER = 8; // the bytes before the entries
+    private static final int N = 0; // offset of the number of keys
+    private static final int LEAF = 4; // offset of the leaf flag
+    private final FileChannel channel;
+    private final BufferPool pool;
+    private final Serializer<T> keys;
+    private final Serializer<V> values;
+    private final int pageSize;
+    private final int entrySize; // the bytes of a key and its value
+    private final int childrenOffset; // the offset of the children
+    private final int MIN_DEGREE; // the minimum degree of the tree t
+    private final byte[] scratch; // buffer of entries moved between pages
+    private int root; // the page of the root node
+    private int pages; // the number of pages of the file
+    private int free; // the first page of the free list, META if empty
+    private long num; // the number of keys in the tree
+    private int height; // the height of the tree
+    private boolean clean; // true if the file matches the tree
+
+    /**
+     * Opens a tree with 4KB pages and 1024 cached pages, creating it if the
+     * file is empty or does not exist.
+     * @param file the file of the tree.
+     * @param keys the serializer of the keys.
+     * @param values the serializer of the values.
+     * @throws IOException if the file can not be opened.
+     */
+    public PagedBTree(Path file, Serializer<T> keys, Serializer<V> values)
+            throws IOException {
+        this(file, keys, values, DEFAULT_PAGE_SIZE, DEFAULT_CACHE_SIZE,
+                BufferPool.Policy.CLOCK);
+    }
+
+    /**
+     * Opens a tree, creating it if the file is empty or does not exist.
+     * @param file the file of the tree.
+     * @param keys the serializer of the keys.
+     * @param values the serializer of the values.
+     * @param pageSize the number of bytes of a page, a power of 2, ignored
+     *        if the tree exists.
+     * @param cacheSize the number of pages kept in memory.
+     * @param policy the page replacement policy of the cache.
+     * @throws IOException if the file can not be opened.
+     * @throws IllegalArgumentException if a page can not hold 3 entries,
+     *         cacheSize is less than 16, or the file is not a tree with the
+     *         same serializers.
+     * @throws IllegalStateException if the tree was not closed.
+     */
+    public PagedBTree(Path file, Serializer<T> keys, Serializer<V> values,
+            int pageSize, int cacheSize, BufferPool.Policy policy)
+            throws IOException {
+        if (cacheSize < 16) {
+            throw new IllegalArgumentException("Invalid cache: " + cacheSize);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.keys = keys;
+        this.values = values;
+        this.entrySize = keys.size() + values.size();
+        boolean exists = channel.size() > 0;
+        if (exists) {
+            ByteBuffer meta = ByteBuffer.allocate(CLEAN + 1);
+            channel.read(meta, 0);
+            if (meta.getInt(0) != MAGIC || meta.getInt(8) != keys.size()
+                    || meta.getInt(12) != values.size()) {
+                channel.close();
+                throw new IllegalArgumentException("not a compatible tree");
+            } else if (meta.get(CLEAN) == 0) {
+                channel.close();
+                throw new IllegalStateException("tree was not closed");
+            }
+            this.clean = true;
+            pageSize = meta.getInt(4);
+            this.root = meta.getInt(16);
+            this.pages = meta.getInt(20);
+            this.free = meta.getInt(24);
+            this.height = meta.getInt(28);
+            this.num = meta.getLong(32);
+        }
+        // 2t - 1 entries and 2t children must fit in a page
+        this.MIN_DEGREE = (pageSize - HEADER + entrySize)
+                / (2 * (entrySize + Integer.BYTES));
+        if (MIN_DEGREE < 2) {
+            channel.close();
+            throw new IllegalArgumentException("page size too small");
+        }
+        this.pageSize = pageSize;
+        this.childrenOffset = HEADER + (2 * MIN_DEGREE - 1) * entrySize;
+        this.scratch = new byte[pageSize];
+        this.pool = new BufferPool(channel, pageSize, cacheSize, policy);
+        if (!exists) {
+            this.pages = 1;
+            this.free = META;
+            this.root = allocate(true);
+            writeMeta();
+        }
+    }
+
+    /**
+     * Returns the value of a key, null if the key is not in the tree.
+     * Every node on the path is searched with binary search.
+     * @param k the key.
+     */
+    public V get(T k) {
+        if (k == null) throw new IllegalArgumentException("Invalid key");
+        BufferPool.Page x = pool.pin(root);
+        while (true) {
+            ByteBuffer b = x.buffer;
+            int i = lowerBound(b, k);
+            if (i < n(b) && compare(k, b, i) == 0) {
+                V v = value(b, i);
+                pool.unpin(x, false);
+                return v;
+            } else if (isLeaf(b)) {
+                pool.unpin(x, false);
+                return null;
+            }
+            int c = child(b, i);
+            pool.unpin(x, false);
+            x = pool.pin(c);
+        }
+    }
+
+    /**
+     * Adds a key and its value to the tree.
+     * @param key the key.
+     * @param value the value.
+     * @throws IllegalArgumentException if the key or value is null.
+     */
+    public void put(T key, V value) {
+        if (key == null) throw new IllegalArgumentException("Invalid key");
+        if (value == null) throw new IllegalArgumentException("Invalid value");
+        modify();
+        BufferPool.Page r = pool.pin(root);
+        if (n(r.buffer) == 2 * MIN_DEGREE - 1) {
+            // the root is full, split it under a new empty root
+            int id = allocate(false);
+            BufferPool.Page s = pool.pin(id);
+            setChild(s.buffer, 0, root);
+            splitChild(s, 0, r);
+            pool.unpin(r, true);
+            this.root = id;
+            height++;
+            r = s;
+        }
+        insertNonfull(r, key, value);
+        num++;
+    }
+
+    /**
+     * Inserts a key into the subtree rooted at the pinned node x, which is
+     * not full, and unpins x.
+     * Equal keys are inserted after the existing ones.
+     */
+    private void insertNonfull(BufferPool.Page x, T k, V v) {
+        while (true) {
+            ByteBuffer b = x.buffer;
+            int i = upperBound(b, k);
+            if (isLeaf(b)) {
+                moveEntries(b, i, i + 1, n(b) - i);
+                setEntry(b, i, k, v);
+                setN(b, n(b) + 1);
+                pool.unpin(x, true);
+                return;
+            }
+            BufferPool.Page y = pool.pin(child(b, i));
+            boolean dirty = false;
+            if (n(y.buffer) == 2 * MIN_DEGREE - 1) {
+                splitChild(x, i, y);
+                dirty = true;
+                if (compare(k, b, i) > 0) {
+                    pool.unpin(y, true);
+                    y = pool.pin(child(b, i + 1));
+                }
+            }
+            pool.unpin(x, dirty);
+            x = y;
+        }
+    }
+
+    /**
+     * Splits the full ith child y of x into two children with t - 1 keys
+     * and moves the median key up to x. Both x and y stay pinned.
+     */
+    private void splitChild(BufferPool.Page x, int i, BufferPool.Page y) {
+        ByteBuffer xb = x.buffer;
+        ByteBuffer yb = y.buffer;
+        int t = MIN_DEGREE;
+        int id = allocate(isLeaf(yb));
+        BufferPool.Page z = pool.pin(id);
+        ByteBuffer zb = z.buffer;
+        // the rightmost t - 1 keys and t children of y move to z
+        copyEntries(yb, t, zb, 0, t - 1);
+        if (!isLeaf(yb)) copyChildren(yb, t, zb, 0, t);
+        setN(zb, t - 1);
+        // make room for z and the median key of y in x
+        int n = n(xb);
+        moveChildren(xb, i + 1, i + 2, n - i);
+        setChild(xb, i + 1, id);
+        moveEntries(xb, i, i + 1, n - i);
+        copyEntries(yb, t - 1, xb, i, 1);
+        setN(xb, n + 1);
+        setN(yb, t - 1);
+        pool.unpin(z, true);
+    }
+
+    /**
+     * Deletes one entry with a key from the tree.
+     * @param key the key.
+     * @return true if an entry was deleted, false if the key was not found.
+     */
+    public boolean delete(T key) {
+        if (key == null) throw new IllegalArgumentException("Invalid key");
+        modify();
+        BufferPool.Page r = pool.pin(root);
+        boolean deleted = delete(r, key);
+        if (n(r.buffer) == 0 && !isLeaf(r.buffer)) {
+            // the root lost its last key in a merge, its only child becomes
+            // the new root
+            this.root = child(r.buffer, 0);
+            release(r);
+            height--;
+        } else {
+            pool.unpin(r, deleted);
+        }
+        if (deleted) num--;
+        return deleted;
+    }
+
+    /**
+     * Deletes a key from the subtree rooted at the pinned node x, which is
+     * the root or has at least t keys. x stays pinned.
+     * Before descending to a child, the child is given at least t keys so
+     * that deleting from it never leaves it with less than t - 1 keys.
+     */
+    private boolean delete(BufferPool.Page x, T k) {
+        ByteBuffer b = x.buffer;
+        int i = lowerBound(b, k);
+        if (i < n(b) && compare(k, b, i) == 0) {
+            if (isLeaf(b)) {
+                moveEntries(b, i + 1, i, n(b) - i - 1);
+                setN(b, n(b) - 1);
+                return true;
+            }
+            BufferPool.Page y = pool.pin(child(b, i));
+            if (n(y.buffer) >= MIN_DEGREE) {
+                // replace k by its predecessor
+                extract(y, true, b, i);
+                pool.unpin(y, true);
+                return true;
+            }
+            BufferPool.Page z = pool.pin(child(b, i + 1));
+            if (n(z.buffer) >= MIN_DEGREE) {
+                // replace k by its successor
+                extract(z, false, b, i);
+                pool.unpin(y, false);
+                pool.unpin(z, true);
+                return true;
+            }
+            // both children have t - 1 keys, merge them around k and
+            // delete k from the merged node
+            merge(x, i, y, z);
+            delete(y, k);
+            pool.unpin(y, true);
+            return true;
+        } else if (isLeaf(b)) {
+            return false;
+        }
+        BufferPool.Page y = fill(x, i);
+        boolean deleted = delete(y, k);
+        pool.unpin(y, deleted);
+        return deleted;
+    }
+
+    /**
+     * Removes the largest entry (max is true) or the smallest entry of the
+     * subtree rooted at the pinned node y, which has at least t keys, and
+     * stores it as the ith entry of dst. y stays pinned.
+     */
+    private void extract(BufferPool.Page y, boolean max, ByteBuffer dst,
+            int i) {
+        ByteBuffer b = y.buffer;
+        if (isLeaf(b)) {
+            int n = n(b);
+            if (max) {
+                copyEntries(b, n - 1, dst, i, 1);
+            } else {
+                copyEntries(b, 0, dst, i, 1);
+                moveEntries(b, 1, 0, n - 1);
+            }
+            setN(b, n - 1);
+            return;
+        }
+        BufferPool.Page c = fill(y, max ? n(b) : 0);
+        extract(c, max, dst, i);
+        pool.unpin(c, true);
+    }
+
+    /**
+     * Makes sure the ith child of the pinned node x has at least t keys,
+     * borrowing a key from an immediate sibling through x, or merging it
+     * with a sibling if both have t - 1 keys.
+     * @return the pinned child to descend to, which after merging with its
+     *         left sibling is that sibling.
+     */
+    private BufferPool.Page fill(BufferPool.Page x, int i) {
+        ByteBuffer b = x.buffer;
+        BufferPool.Page y = pool.pin(child(b, i));
+        ByteBuffer yb = y.buffer;
+        if (n(yb) >= MIN_DEGREE) return y;
+        int n = n(yb);
+        if (i > 0) {
+            BufferPool.Page z = pool.pin(child(b, i - 1));
+            ByteBuffer zb = z.buffer;
+            int m = n(zb);
+            if (m >= MIN_DEGREE) {
+                // the key x[i - 1] moves down to the front of y and the
+                // last key of the left sibling z moves up to x
+                moveEntries(yb, 0, 1, n);
+                copyEntries(b, i - 1, yb, 0, 1);
+                copyEntries(zb, m - 1, b, i - 1, 1);
+                if (!isLeaf(yb)) {
+                    moveChildren(yb, 0, 1, n + 1);
+                    setChild(yb, 0, child(zb, m));
+                }
+                setN(yb, n + 1);
+                setN(zb, m - 1);
+                pool.unpin(z, true);
+                return y;
+            }
+            if (i == n(b)) {
+                // no right sibling, merge y into its left sibling z
+                merge(x, i - 1, z, y);
+                return z;
+            }
+            pool.unpin(z, false);
+        }
+        BufferPool.Page z = pool.pin(child(b, i + 1));
+        ByteBuffer zb = z.buffer;
+        int m = n(zb);
+        if (m >= MIN_DEGREE) {
+            // the key x[i] moves down to the end of y and the first key of
+            // the right sibling z moves up to x
+            copyEntries(b, i, yb, n, 1);
+            copyEntries(zb, 0, b, i, 1);
+            moveEntries(zb, 1, 0, m - 1);
+            if (!isLeaf(yb)) {
+                setChild(yb, n + 1, child(zb, 0));
+                moveChildren(zb, 1, 0, m);
+            }
+            setN(yb, n + 1);
+            setN(zb, m - 1);
+            pool.unpin(z, true);
+            return y;
+        }
+        merge(x, i, y, z);
+        return y;
+    }
+
+    /**
+     * Merges the (i + 1)th child z of x into the ith child y with the ith
+     * key of x between them, and frees the page of z. y stays pinned, z is
+     * unpinned.
+     */
+    private void merge(BufferPool.Page x, int i, BufferPool.Page y,
+            BufferPool.Page z) {
+        ByteBuffer b = x.buffer;
+        ByteBuffer yb = y.buffer;
+        ByteBuffer zb = z.buffer;
+        int n = n(yb);
+        int m = n(zb);
+        copyEntries(b, i, yb, n, 1);
+        copyEntries(zb, 0, yb, n + 1, m);
+        if (!isLeaf(yb)) copyChildren(zb, 0, yb, n + 1, m + 1);
+        setN(yb, n + m + 1);
+        int k = n(b);
+        moveEntries(b, i + 1, i, k - i - 1);
+        moveChildren(b, i + 2, i + 1, k - i - 1);
+        setN(b, k - 1);
+        release(z);
+    }
+
+    /**
+     * Allocates a page for a new empty node, reusing freed pages first.
+     * @return the page number.
+     */
+    private int allocate(boolean leaf) {
+        int id;
+        BufferPool.Page page;
+        if (free != META) {
+            id = free;
+            page = pool.pin(id);
+            this.free = page.buffer.getInt(N);
+        } else {
+            id = pages++;
+            page = pool.pin(id);
+        }
+        setN(page.buffer, 0);
+        page.buffer.put(LEAF, (byte) (leaf ? 1 : 0));
+        pool.unpin(page, true);
+        return id;
+    }
+
+    /**
+     * Adds the page of a pinned node to the free list and unpins it.
+     */
+    private void release(BufferPool.Page page) {
+        page.buffer.putInt(N, free);
+        this.free = page.id;
+        pool.unpin(page, true);
+    }
+
+    private int n(ByteBuffer b) {
+        return b.getInt(N);
+    }
+
+    private void setN(ByteBuffer b, int n) {
+        b.putInt(N, n);
+    }
+
+    private boolean isLeaf(ByteBuffer b) {
+        return b.get(LEAF) != 0;
+    }
+
+    private int entry(int i) {
+        return HEADER + i * entrySize;
+    }
+
+    private T key(ByteBuffer b, int i) {
+        return keys.read(b, entry(i));
+    }
+
+    private V value(ByteBuffer b, int i) {
+        return values.read(b, entry(i) + keys.size());
+    }
+
+    private void setEntry(ByteBuffer b, int i, T k, V v) {
+        keys.write(b, entry(i), k);
+        values.write(b, entry(i) + keys.size(), v);
+    }
+
+    private int child(ByteBuffer b, int i) {
+        return b.getInt(childrenOffset + i * Integer.BYTES);
+    }
+
+    private void setChild(ByteBuffer b, int i, int id) {
+        b.putInt(childrenOffset + i * Integer.BYTES, id);
+    }
+
+    private int compare(T k, ByteBuffer b, int i) {
+        return k.compareTo(key(b, i));
+    }
+
+    /**
+     * Returns the index of the first key of a node greater or equal to k.
+     */
+    private int lowerBound(ByteBuffer b, T k) {
+        int lo = 0;
+        int hi = n(b);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(k, b, mid) > 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the index of the first key of a node greater than k.
+     */
+    private int upperBound(ByteBuffer b, T k) {
+        int lo = 0;
+        int hi = n(b);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(k, b, mid) >= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Copies count entries from index i of src to index j of dst.
+     */
+    private void copyEntries(ByteBuffer src, int i, ByteBuffer dst, int j,
+            int count) {
+        copy(src, entry(i), dst, entry(j), count * entrySize);
+    }
+
+    /**
+     * Moves count entries of a node from index i to index j.
+     */
+    private void moveEntries(ByteBuffer b, int i, int j, int count) {
+        copy(b, entry(i), b, entry(j), count * entrySize);
+    }
+
+    private void copyChildren(ByteBuffer src, int i, ByteBuffer dst, int j,
+            int count) {
+        copy(src, childrenOffset + i * Integer.BYTES,
+                dst, childrenOffset + j * Integer.BYTES,
+                count * Integer.BYTES);
+    }
+
+    private void moveChildren(ByteBuffer b, int i, int j, int count) {
+        copyChildren(b, i, b, j, count);
+    }
+
+    /**
+     * Copies bytes through the scratch array, which also handles
+     * overlapping ranges of the same page.
+     */
+    private void copy(ByteBuffer src, int from, ByteBuffer dst, int to,
+            int length) {
+        if (length <= 0) return;
+        src.get(from, scratch, 0, length);
+        dst.put(to, scratch, 0, length);
+    }
+
+    public long size() {
+        return num;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the minimum degree t computed from the page size.
+     */
+    public int minimumDegree() {
+        return MIN_DEGREE;
+    }
+
+    /**
+     * Returns the page cache of the tree, e.g. to read its hit counts.
+     */
+    public BufferPool pool() {
+        return pool;
+    }
+
+    /**
+     * Writes the metadata and all dirty pages to the file.
+     * @throws IOException if the file can not be written.
+     */
+    public void flush() throws IOException {
+        if (clean) return;
+        writeMeta();
+        pool.flush();
+        channel.force(false);
+        mark(true);
+    }
+
+    /**
+     * Clears the clean flag before the first modification since the tree
+     * was opened or flushed.
+     */
+    private void modify() {
+        if (clean) mark(false);
+    }
+
+    /**
+     * Sets or clears the clean flag and forces it to the file. The flag is
+     * set after the pages are forced and cleared before any of them can be
+     * written back, so a file with the flag set is never inconsistent.
+     */
+    private void mark(boolean clean) {
+        BufferPool.Page page = pool.pin(META);
+        page.buffer.put(CLEAN, (byte) (clean ? 1 : 0));
+        pool.unpin(page, true);
+        pool.flush();
+        this.clean = clean;
+    }
+
+    /**
+     * Writes the metadata with the clean flag clear.
+     */
+    private void writeMeta() {
+        BufferPool.Page page = pool.pin(META);
+        ByteBuffer b = page.buffer;
+        b.putInt(0, MAGIC);
+        b.putInt(4, pageSize);
+        b.putInt(8, keys.size());
+        b.putInt(12, values.size());
+        b.putInt(16, root);
+        b.putInt(20, pages);
+        b.putInt(24, free);
+        b.putInt(28, height);
+        b.putLong(32, num);
+        b.put(CLEAN, (byte) 0);
+        pool.unpin(page, true);
+    }
+
+    /**
+     * Flushes the tree and closes its file.
+     * @throws IOException if the file can not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("btree", ".db");
+        int n = 200000;
+        int[] counts = new int[n / 4]; // the number of entries of each key
+        Random rand = new Random();
+        for (BufferPool.Policy policy : BufferPool.Policy.values()) {
+            Files.deleteIfExists(file);
+            Arrays.fill(counts, 0);
+            // small pages and cache so nodes split, merge and get evicted
+            PagedBTree<Integer, Long> T = new PagedBTree<>(file,
+                    Serializers.INTEGER, Serializers.LONG, 256, 16, policy);
+            for (int i = 0; i < n; i++) {
+                int k = rand.nextInt(counts.length);
+                T.put(k, 10L * k);
+                counts[k]++;
+            }
+            boolean ok = T.size() == n;
+            for (int i = 0; i < n / 2; i++) {
+                int k = rand.nextInt(counts.length);
+                if (T.delete(k) != counts[k] > 0) ok = false;
+                if (counts[k] > 0) counts[k]--;
+            }
+            T.close();
+
+            T = new PagedBTree<>(file, Serializers.INTEGER, Serializers.LONG,
+                    256, 16, policy);
+            long size = 0;
+            for (int k = 0; k < counts.length; k++) {
+                Long v = T.get(k);
+                if (counts[k] == 0 ? v != null : v != 10L * k) ok = false;
+                size += counts[k];
+            }
+            if (T.size() != size) ok = false;
+            System.out.println(policy + ": t = " + T.minimumDegree()
+                    + ", height = " + T.height() + ", size = " + T.size()
+                    + ", hits = " + T.pool().hits()
+                    + ", misses = " + T.pool().misses() + ", ok = " + ok);
+            // deleting every entry leaves an empty root leaf
+            for (int k = 0; k < counts.length; k++) {
+                while (counts[k] > 0 && T.delete(k)) counts[k]--;
+            }
+            System.out.println("emptied: size = " + T.size()
+                    + ", height = " + T.height());
+            T.close();
+        }
+        Files.delete(file);
+
+        PagedBTree<String, String> st = new PagedBTree<>(file,
+                Serializers.string(32), Serializers.string(16));
+        st.put("www.cs.princeton.edu", "128.112.136.11");
+        st.put("www.princeton.edu",    "128.112.128.15");
+        st.put("www.yale.edu",         "130.132.143.21");
+        st.put("www.simpsons.com",     "209.052.165.60");
+        st.delete("www.yale.edu");
+        System.out.println("cs.princeton.edu: "
+                + st.get("www.cs.princeton.edu"));
+        System.out.println("yale.edu:         " + st.get("www.yale.edu"));
+        // a modified tree that is not closed can not be opened
+        try {
+            new PagedBTree<>(file, Serializers.string(32),
+                    Serializers.string(16));
+            System.out.println("not closed: opened");
+        } catch (IllegalStateException ex) {
+            System.out.println("not closed: " + ex.getMessage());
+        }
+        st.close();
+        st = new PagedBTree<>(file, Serializers.string(32),
+                Serializers.string(16));
+        System.out.println("reopened: size = " + st.size());
+        st.close();
+        Files.delete(file);
+    }
+}
@@ -0,0 +1,30 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Converts keys or values of a {@code PagedBTree} to and from bytes.
+ * <p>Every value takes the same number of bytes so a page holds a fixed
+ * number of keys and the minimum degree of the tree can be computed from
+ * the page size.
+ */
+public interface Serializer<T> {
+    /**
+     * Returns the number of bytes of every serialized value.
+     */
+    public int size();
+
+    /**
+     * Writes a value at an absolute offset of a buffer.
+     * @param buffer the buffer to write to.
+     * @param offset the offset of the first byte.
+     * @param value the value to write.
+     * @throws IllegalArgumentException if the value can not be serialized.
+     */
+    public void write(ByteBuffer buffer, int offset, T value);
+
+    /**
+     * Reads a value from an absolute offset of a buffer.
+     * @param buffer the buffer to read from.
+     * @param offset the offset of the first byte.
+     */
+    public T read(ByteBuffer buffer, int offset);
+}
@@ -0,0 +1,97 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializers of common key and value types.
+ */
+public class Serializers {
+    public static final Serializer<Integer> INTEGER =
+            new Serializer<Integer>() {
+        @Override
+        public int size() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Integer value) {
+            buffer.putInt(offset, value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    public static final Serializer<Long> LONG = new Serializer<Long>() {
+        @Override
+        public int size() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long value) {
+            buffer.putLong(offset, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    public static final Serializer<Double> DOUBLE = new Serializer<Double>() {
+        @Override
+        public int size() {
+            return Double.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Double value) {
+            buffer.putDouble(offset, value);
+        }
+
+        @Override
+        public Double read(ByteBuffer buffer, int offset) {
+            return buffer.getDouble(offset);
+        }
+    };
+
+    /**
+     * Returns a serializer of strings of at most maxBytes bytes in UTF-8.
+     * Every string takes 2 + maxBytes bytes: its length followed by its
+     * bytes.
+     * @param maxBytes the maximum length of the strings in bytes.
+     * @throws IllegalArgumentException if maxBytes is not between 1 and
+     *         65535.
+     */
+    public static Serializer<String> string(final int maxBytes) {
+        if (maxBytes < 1 || maxBytes > 0xFFFF) {
+            throw new IllegalArgumentException("Invalid length: " + maxBytes);
+        }
+        return new Serializer<String>() {
+            @Override
+            public int size() {
+                return Short.BYTES + maxBytes;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, String value) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > maxBytes) {
+                    throw new IllegalArgumentException(
+                            "string longer than " + maxBytes + " bytes");
+                }
+                buffer.putShort(offset, (short) bytes.length);
+                buffer.put(offset + Short.BYTES, bytes);
+            }
+
+            @Override
+            public String read(ByteBuffer buffer, int offset) {
+                byte[] bytes = new byte[buffer.getShort(offset) & 0xFFFF];
+                buffer.get(offset + Short.BYTES, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the disjoint-set forests with random unions followed by
+ * random connectivity queries, sequential and as parallel batches. Every
+ * invocation does n unions and n queries on a new forest.
+ * <p>Usage: {@code java -jar target/benchmarks.jar DisjointSetBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisjointSetBenchmark {
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"10000", "1000000"})
+        public int n;
+        int[] x;
+        int[] y;
+        int[] z; // x reversed
+        boolean[] connected;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            x = new int[n];
+            y = new int[n];
+            z = new int[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = rand.nextInt(n);
+                y[i] = rand.nextInt(n);
+            }
+            for (int i = 0; i < n; i++) z[i] = x[n - 1 - i];
+            connected = new boolean[n];
+        }
+    }
+
+    @Benchmark
+    public int disjointSetForests(Input in) {
+        DisjointSetForests S = new DisjointSetForests(in.n);
+        for (int i = 0; i < in.n; i++) S.union(in.x[i], in.y[i]);
+        int connected = 0;
+        for (int i = 0; i < in.n; i++) {
+            if (S.isConnected(in.y[i], in.z[i])) connected++;
+        }
+        return connected;
+    }
+
+    @Benchmark
+    public Object concurrentDisjointSets(Input in) {
+        ConcurrentDisjointSets S = new ConcurrentDisjointSets(in.n);
+        S.union(in.x, in.y, null);
+        S.isConnected(in.y, in.z, in.connected);
+        return in.connected;
+    }
+}
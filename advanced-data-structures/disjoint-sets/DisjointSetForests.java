@@ -14,11 +14,18 @@
  * rank points to the tree with the higher rank.
  * <p>Path-compression is also a highly affective approach, it is used during
  * {@code findSet} operations to make each node on the find path points
- * directly to the root.
+ * directly to the root. Here it is done by path halving: every other node
+ * on the find path is made to point to its grandparent, in the same loop
+ * which walks up to the root, so there is no recursion to overflow the
+ * stack on deep trees and no second pass. It has the same amortized
+ * running time as full compression.
+ * <p>The parents and ranks of the nodes are held in two flat int arrays
+ * indexed by node instead of one object per node.
  */
 public class DisjointSetForests {
     private final int n;
-    private final Node[] nodes;
+    private final int[] parent;
+    private final int[] rank;
 
     /**
      * Constructor. Initializes the sets by calling {@code makeSet}
@@ -32,7 +39,8 @@ public class DisjointSetForests {
         }
 
         this.n = n;
-        this.nodes = new Node[n];
+        this.parent = new int[n];
+        this.rank = new int[n];
         for (int i = 0; i < n; i++) {
             makeSet(i);
         }
@@ -48,10 +56,8 @@ public class DisjointSetForests {
             throw new IllegalArgumentException(x + " is out of bounds " + n);
         }
 
-        Node v = new Node();
-        v.p = x;
-        v.rank = 0;
-        nodes[x] = v;
+        parent[x] = x;
+        rank[x] = 0;
     }
 
     /**
@@ -62,14 +68,12 @@ public class DisjointSetForests {
      * @param rootY the root of the second tree.
      */
     private void link(int rootX, int rootY) {
-        Node x = nodes[rootX];
-        Node y = nodes[rootY];
-        if (x.rank > y.rank) {
-            y.p = rootX;
+        if (rank[rootX] > rank[rootY]) {
+            parent[rootY] = rootX;
         } else {
-            x.p = rootY;
-            if (x.rank == y.rank) {
-                y.rank++;
+            parent[rootX] = rootY;
+            if (rank[rootX] == rank[rootY]) {
+                rank[rootY]++;
             }
         }
     }
@@ -78,20 +82,24 @@ public class DisjointSetForests {
      * Merges two sets into one by linking their roots together.
      * @param x a member of the first set.
      * @param y a member of the second set.
+     * @return true if the sets were different, false if x and y were
+     *         already in the same set.
      * @throws IllegalArgumentException if rootX or rootY are invalid nodes.
      */
-    public void union(int x, int y) {
+    public boolean union(int x, int y) {
         if (!isValidNode(x)) {
             throw new IllegalArgumentException(x + " is out of bound " + n);
         } else if (!isValidNode(y)) {
             throw new IllegalArgumentException(y + " is out of bound " + n);
         }
 
-        int setX = findSet(x);
-        int setY = findSet(y);
-        if (setX != setY) {
-            link(setX, setY);
+        int setX = find(x);
+        int setY = find(y);
+        if (setX == setY) {
+            return false;
         }
+        link(setX, setY);
+        return true;
     }
 
     /**
@@ -104,11 +112,18 @@ public class DisjointSetForests {
             throw new IllegalArgumentException(ind + " is out of bounds " + n);
         }
 
-        Node x = nodes[ind];
-        if (x.p != ind) {
-            x.p = findSet(x.p);
+        return find(ind);
+    }
+
+    /**
+     * Finds the root of a valid node, halving the path to it.
+     */
+    private int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
         }
-        return x.p;
+        return x;
     }
 
     /**
@@ -124,7 +139,7 @@ public class DisjointSetForests {
             throw new IllegalArgumentException(y + " is out of bound " + n);
         }
 
-        return findSet(x) == findSet(y);
+        return find(x) == find(y);
     }
 
     /**
@@ -136,6 +151,16 @@ public class DisjointSetForests {
         return x >= 0 && x < n;
     }
 
+    /**
+     * Returns the number of links from a node to its root, without
+     * changing the path.
+     */
+    private int depth(int x) {
+        int d = 0;
+        for (; parent[x] != x; x = parent[x]) d++;
+        return d;
+    }
+
     public static void main(String[] args) {
         DisjointSetForests dsf = new DisjointSetForests(10);
         dsf.union(0, 1);
@@ -152,5 +177,23 @@ public class DisjointSetForests {
         System.out.println("connected 1, 4? " + dsf.isConnected(1, 4));
         System.out.println("connected 7, 8? " + dsf.isConnected(7, 8));
         System.out.println("connected 2, 9? " + dsf.isConnected(2, 9));
+        System.out.println("union 3, 2? " + dsf.union(3, 2));
+        // the deepest tree of 2^20 nodes, linking roots of equal ranks in
+        // rounds: the roots are the last nodes of blocks of 2^k nodes, and
+        // node 0 ends 20 links below the root. Finding it halves its path.
+        int lg = 20, n = 1 << lg;
+        dsf = new DisjointSetForests(n);
+        for (int k = 0; k < lg; k++) {
+            for (int i = 0; i < n; i += 2 << k) {
+                dsf.union(i + (1 << k) - 1, i + (2 << k) - 1);
+            }
+        }
+        int before = dsf.depth(0);
+        int root = dsf.findSet(0);
+        int after = dsf.depth(0);
+        boolean ok = before == lg && after == lg / 2 && root == n - 1;
+        for (int i = 0; i < n; i++) ok &= dsf.findSet(i) == root;
+        System.out.println("deep tree: depth " + before + ", " + after
+                + " after findSet" + (ok ? " ok" : " FAILED"));
     }
 }
@@ -1,7 +0,0 @@
-/**
- * A Disjoin-set node class used with forests implementaion.
- */
-public class Node {
-    public int p; // the parent node
-    public int rank; // the rank of the node
-}
@@ -1,388 +1,549 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
 
+/**
+ * Fibonacci min-heap.
+ * <p>A collection of heap-ordered trees whose roots are kept in a circular
+ * doubly linked root list. Insertion only adds a root, and decreasing a key
+ * cuts the node from its parent, so both take <em>O(1)</em> amortized time.
+ * The trees are only consolidated by {@code extractMin}, which links roots
+ * of the same degree until every root has a different degree, in
+ * <em>O(lg n)</em> amortized time.
+ * <p>The nodes are not objects: node h is the hth slot of parallel arrays
+ * holding the key, parent, child, siblings, degree and mark of every node,
+ * and h is the <b>handle</b> returned by {@code insert}. The caller keeps
+ * the handle to decrease the key of the node or delete it later. Slots of
+ * removed nodes are reused by later insertions, so a handle is only valid
+ * until its node is removed. The arrays grow by doubling when all slots
+ * are used, and consolidation reuses one buffer indexed by degree, so no
+ * other operation allocates memory.
+ */
 public class FibonacciHeap<T extends Comparable<T>> {
-    private static final boolean debug = false;
-    public int n;
-    public Node<T> min;
+    public static final int NIL = -1;
+    private static final int FREE = -2; // the parent of a free slot
+    private static final int DEFAULT_CAPACITY = 16;
+    // the degree of a node is at most log_phi(n) < 45 for any int n
+    private static final int MAX_DEGREE = 46;
+    private Object[] keys;
+    private int[] parent;
+    private int[] child; // any one of the children
+    private int[] left;
+    private int[] right; // the next free slot of a free slot
+    private int[] degree; // the number of children
+    private boolean[] mark; // lost a child since it became a child itself
+    private final int[] aux = new int[MAX_DEGREE]; // consolidation buffer
+    private int min = NIL; // the root with the minimum key
+    private int n; // the number of nodes
+    private int used; // the number of slots ever used
+    private int free = NIL; // the first free slot
 
-    public FibonacciHeap() {
-        this.n = 0;
-        this.min = null;
+    /**
+     * Constructor.
+     * @param capacity the initial number of node slots.
+     * @throws IllegalArgumentException if capacity is negative.
+     */
+    public FibonacciHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        allocate(Math.max(capacity, 1));
     }
 
-    private int maxDegree(int n) {
-        return (int) Math.floor(Math.log(n) / Math.log(2));
+    public FibonacciHeap() {
+        this(DEFAULT_CAPACITY);
     }
 
-    private static class Node<T extends Comparable<T>> {
-        public T key;
-        public int degree = 0;
-        public Node<T> p = null;
-        public Node<T> child = null;
-        public Node<T> right = null;
-        public Node<T> left = null;
-        public boolean mark = false;
-        public boolean isNegativeInfinity = false;
+    public int size() {
+        return n;
+    }
 
-        public Node(T key) {
-            this.key = key;
-        }
+    public boolean isEmpty() {
+        return n == 0;
+    }
 
-        public boolean lessThan(Node<T> that) {
-           if (that == null) throw new IllegalArgumentException("null arg");
-           if (this.isNegativeInfinity) return true;
-           return this.key.compareTo(that.key) < 0;
-        }
-        
-        public boolean moreThan(Node<T> that) {
-           if (that == null) throw new IllegalArgumentException("null arg");
-           if (this.isNegativeInfinity) return false;
-           return this.key.compareTo(that.key) > 0;
-        }
-        
-        public boolean equals(Node<T> that) {
-            if (that == null) return false;
-            if (that == this) return true;
-            return this.key.equals(that.key);
-        }
+    /**
+     * Checks if a handle refers to a node of the heap.
+     * @param h the handle.
+     */
+    public boolean contains(int h) {
+        return h >= 0 && h < used && parent[h] != FREE;
+    }
 
-        @Override
-        public String toString() {
-            //println("x = " + key);
-            StringBuilder builder = new StringBuilder();
-            builder.append("node[k:" + key + "][" + degree + "]");
-            if (mark) {
-                builder.append("[x]");
-            } else {
-                builder.append("[-]");
-            }
-            builder.append('\n');
-            if (p != null) builder.append("parent: " + p.key);
-            else builder.append("parent: null");
-            if (left != null) builder.append(" - left: " + left.key);
-            else builder.append(" - left: null");
-            if (right != null) builder.append(" - right: " + right.key);
-            else builder.append(" - right: null");
-            if (child != null) builder.append(" - child: " + child.key);
-            else builder.append(" - child: null");
-            builder.append('\n');
-            builder.append('\n');
-            //println("children = " + degree);
-            Node<T> next = child;
-            for (int i = degree; i > 0; i--) {
-                builder.append(next);
-                next = next.right;
-            }
-            return builder.toString();
-        }
+    /**
+     * Returns the key of a node.
+     * @param h the handle of the node.
+     * @throws NoSuchElementException if h is not a node of the heap.
+     */
+    @SuppressWarnings("unchecked")
+    public T key(int h) {
+        validateHandle(h);
+        return (T) keys[h];
     }
 
-    private void insert(Node<T> x) {
-        x.degree = 0;
-        x.p = null;
-        x.child = null;
-        x.mark = false;
-        if (min == null) {
-            x.left = x;
-            x.right = x;
-            this.min = x;
+    /**
+     * Inserts a key as a new root.
+     * @param key the key.
+     * @return the handle of the new node.
+     * @throws IllegalArgumentException if key is null.
+     */
+    public int insert(T key) {
+        if (key == null) throw new IllegalArgumentException("null key");
+        int x;
+        if (free != NIL) {
+            x = free;
+            free = right[free];
         } else {
-            x.left = min;
-            x.right = min.right;
-            min.right.left = x;
-            min.right = x;
-            if (x.lessThan(min)) {
-                this.min = x;
-            }
+            if (used == keys.length) allocate(2 * keys.length);
+            x = used++;
         }
+        keys[x] = key;
+        parent[x] = NIL;
+        child[x] = NIL;
+        degree[x] = 0;
+        mark[x] = false;
+        addRoot(x);
+        if (lessThan(x, min)) this.min = x;
         n++;
+        return x;
     }
 
-    public static <K extends Comparable<K>> FibonacciHeap<K> union(FibonacciHeap<K> h1, FibonacciHeap<K> h2) {
-        FibonacciHeap<K> h = new FibonacciHeap<>();
-        h.min = h1.min;
-        // (h2.min.left) ---> h1.min ---> h1.min.left <--> h2.min ---> h2.min.left ---> (h1.min)
-        Node<K> tmp = h1.min.left;
-        h1.min.left = h2.min.left;
-        h2.min.left = tmp;
-        h1.min.left.right = h2.min;
-        h2.min.left.right = h1.min;
-        if (h1.min == null || (h2.min != null && h2.min.lessThan(h1.min))) {
-            h.min = h2.min;
-        }
-        h.n = h1.n + h2.n;
-        return h;
+    /**
+     * Returns the handle of the node with the minimum key.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int minimum() {
+        if (min == NIL) throw new NoSuchElementException("heap is empty");
+        return min;
     }
 
-    public Node<T> extractMin() {
-        Node<T> z = min;
-        if (z != null) {
-            Node<T> x = z.child;
-            for (int i = z.degree; i > 0; i--) {
-                Node<T> next = x.right;
+    /**
+     * Removes the node with the minimum key, its handle becomes invalid.
+     * @return the minimum key.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T extractMin() {
+        int z = minimum();
+        T key = (T) keys[z];
+        // move the children of z to the root list
+        int x = child[z];
+        for (int i = degree[z]; i > 0; i--) {
+            int next = right[x];
+            parent[x] = NIL;
+            addRoot(x);
+            x = next;
+        }
+        // remove z from the root list
+        right[left[z]] = right[z];
+        left[right[z]] = left[z];
+        if (right[z] == z) {
+            this.min = NIL;
+        } else {
+            this.min = right[z];
+            consolidate();
+        }
+        release(z);
+        n--;
+        return key;
+    }
 
-                // add x to the root list
-                x.left = min;
-                x.right = min.right;
-                min.right = x;
-                min.right.left = x;
+    /**
+     * Decreases the key of a node. If the key becomes less than the key of
+     * its parent, the node is cut and added to the root list, then all its
+     * marked ancestors are cut too on the way up the tree.
+     * @param h the handle of the node.
+     * @param k the new key.
+     * @throws NoSuchElementException if h is not a node of the heap.
+     * @throws IllegalArgumentException if the new key is greater than the
+     *         current key.
+     */
+    @SuppressWarnings("unchecked")
+    public void decreaseKey(int h, T k) {
+        validateHandle(h);
+        if (k == null || k.compareTo((T) keys[h]) > 0) {
+            throw new IllegalArgumentException("new key > current key");
+        }
+        keys[h] = k;
+        int y = parent[h];
+        if (y != NIL && lessThan(h, y)) {
+            cut(h, y);
+            cascadeCut(y);
+        }
+        if (lessThan(h, min)) this.min = h;
+    }
 
-                x.p = null;
-                x = next;
-            }
-            // remove z from the root list 
-            z.right.left = z.left;
-            z.left.right = z.right;
-            z.degree = 0;
-            n--;
+    /**
+     * Removes a node, its handle becomes invalid. The node is cut as if
+     * its key were decreased to minus infinity, made the minimum, and
+     * extracted.
+     * @param h the handle of the node.
+     * @return the key of the node.
+     * @throws NoSuchElementException if h is not a node of the heap.
+     */
+    public T delete(int h) {
+        validateHandle(h);
+        int y = parent[h];
+        if (y != NIL) {
+            cut(h, y);
+            cascadeCut(y);
+        }
+        this.min = h;
+        return extractMin();
+    }
 
-            if (z.equals(z.right)) {
-                this.min = null;
+    /**
+     * Moves all nodes of another heap into this heap, leaving the other
+     * heap empty. The root lists are joined in constant time, but the node
+     * arrays of the other heap are copied in <em>O(h.used)</em>.
+     * @param h the other heap.
+     * @return the offset added to the handles of h, which are the handles
+     *         of its nodes in this heap.
+     * @throws IllegalArgumentException if h is this heap.
+     */
+    public int meld(FibonacciHeap<T> h) {
+        if (h == this) throw new IllegalArgumentException("meld with itself");
+        int offset = used;
+        if (used + h.used > keys.length) {
+            allocate(Math.max(2 * keys.length, used + h.used));
+        }
+        for (int i = 0; i < h.used; i++) {
+            int x = offset + i;
+            keys[x] = h.keys[i];
+            parent[x] = shift(h.parent[i], offset);
+            child[x] = shift(h.child[i], offset);
+            left[x] = shift(h.left[i], offset);
+            right[x] = shift(h.right[i], offset);
+            degree[x] = h.degree[i];
+            mark[x] = h.mark[i];
+        }
+        used += h.used;
+        // the free slots of h join the free list
+        int f = shift(h.free, offset);
+        while (f != NIL) {
+            int next = right[f];
+            right[f] = free;
+            free = f;
+            f = next;
+        }
+        if (h.min != NIL) {
+            int m = h.min + offset;
+            if (min == NIL) {
+                this.min = m;
             } else {
-                this.min = z.right;
-                consolidate();
+                // splice the root list of h after min
+                int last = left[m];
+                right[last] = right[min];
+                left[right[min]] = last;
+                right[min] = m;
+                left[m] = min;
+                if (lessThan(m, min)) this.min = m;
             }
         }
-        return z;
+        n += h.n;
+        h.clear();
+        return offset;
     }
 
+    /**
+     * Unites two heaps into h1, leaving h2 empty.
+     * @throws IllegalArgumentException if h1 is h2.
+     * @see #meld
+     */
+    public static <K extends Comparable<K>> FibonacciHeap<K> union(
+            FibonacciHeap<K> h1, FibonacciHeap<K> h2) {
+        h1.meld(h2);
+        return h1;
+    }
+
+    /**
+     * Removes all nodes, keeping the allocated arrays.
+     */
+    public void clear() {
+        for (int i = 0; i < used; i++) keys[i] = null;
+        this.n = 0;
+        this.used = 0;
+        this.min = NIL;
+        this.free = NIL;
+    }
+
+    /**
+     * Links the roots until no two roots have the same degree, and finds
+     * the new minimum. aux[d] is the root of degree d found so far.
+     */
     private void consolidate() {
-        //Node[] aux = (Node[]) new Object[maxDegree(n)];
-        println("n = " + n);
-        println("Max Degree = " + maxDegree(n));
-        List<Node<T>> aux = new ArrayList<>();
-        //for (int i = 0; i < aux.length; i++) aux[i] = null;
-        for (int i = 0; i <= maxDegree(n) + 1; i++) {
-            aux.add(i, null);
-        }
-        Node<T> w = min;
-        //while (!w.right.equals(w)) {
-        for (int i = n; i > 0; i--) {
-            println("w: " + w.key);
-            Node<T> x = w;
-            int d = x.degree;
-            println("x.degree = " + d);
-            //while (aux[d] != null) {
-            while (aux.get(d) != null) {
-                println("x: " + x.key);
-                //Node<T> y = (Node<T>) aux[d];
-                println("d = " + d);
-                println("aux[d] = " + aux.get(d));
-                Node<T> y = aux.get(d);
-                if (x.moreThan(y)) {
-                    println(x.key + " < " + y.key);
-                    Node<T> tmp = x;
+        int roots = 0;
+        int maxDegree = 0;
+        int w = min;
+        do {
+            roots++;
+            maxDegree = Math.max(maxDegree, degree[w]);
+            w = right[w];
+        } while (w != min);
+        // linking two roots of degree d makes one of degree d + 1, so the
+        // largest degree grows by at most lg(roots)
+        int size = Math.min(aux.length,
+                maxDegree + 33 - Integer.numberOfLeadingZeros(roots));
+        for (int d = 0; d < size; d++) aux[d] = NIL;
+        for (int i = 0; i < roots; i++) {
+            int x = w;
+            // w may become a child, the next root is saved first
+            w = right[w];
+            int d = degree[x];
+            while (aux[d] != NIL) {
+                int y = aux[d];
+                if (lessThan(y, x)) {
+                    int tmp = x;
                     x = y;
                     y = tmp;
                 }
-                println(x.key + " : " + y.key);
                 link(y, x);
-                //aux[d] = null;
-                aux.set(d, null);
+                aux[d] = NIL;
                 d++;
             }
-            //aux[d] = x;
-            aux.set(d, x);
-            w = w.right;
+            aux[d] = x;
         }
-        this.min = null;
-        //for (int i = 0; i < aux.length; i++) {
-        for (int i = 0; i < aux.size(); i++) {
-            //Node<T> t = aux[i];
-            Node<T> t = aux.get(i);
-            if (t != null) {
-                if (min == null) {
-                    this.min = t;
-                } else {
-                    t.left = min;
-                    t.right = min.right;
-                    min.right.left = t;
-                    min.right = t;
-                    if (t.lessThan(min)) {
-                        this.min = t;
-                    }
-                }
-            }
+        this.min = NIL;
+        for (int d = 0; d < size; d++) {
+            int x = aux[d];
+            if (x != NIL && (min == NIL || lessThan(x, min))) this.min = x;
         }
     }
 
     /**
-     * Make node y a child of node x.
-     * @param x parent node.
-     * @param y child node.
+     * Makes root y a child of root x.
      */
-    private void link(Node<T> y, Node<T> x) {
-        if (x == null && y == null) {
-            println("linking: null + null");
-        } else if (x == null) {
-            println("linking: " + x.key + " + null");
-        } else if (y == null) {
-            println("linking: null + " + y.key);
-        } else {
-            println("linking: " + x.key + " + " + y.key);
-        }
+    private void link(int y, int x) {
         // remove y from the root list
-        y.left.right = y.right;
-        y.right.left = y.left;
-        n--;
-        // if x has no children make y the only child of x
-        if (x.child == null) {
-            y.right = y;
-            y.left = y;
-            x.child = y;
-        // otherwise make y a sibling of x.child
+        right[left[y]] = right[y];
+        left[right[y]] = left[y];
+        int c = child[x];
+        if (c == NIL) {
+            left[y] = y;
+            right[y] = y;
+            child[x] = y;
         } else {
-            // [x.child] ---[y]--- [x.child.right]
-            y.left = x.child;
-            y.right = x.child.right;
-            x.child.right.left = y;
-            x.child.right = y;
+            left[y] = c;
+            right[y] = right[c];
+            left[right[c]] = y;
+            right[c] = y;
         }
-        x.degree++;
-        y.p = x;
-        y.mark = false;
+        parent[y] = x;
+        degree[x]++;
+        mark[y] = false;
     }
 
     /**
-     * Decreases the value of the key of a given node x to value k.
-     * If k is less than the parents key value, x is cut and added
-     * to the root list, then we cascade cut all marked parents on
-     * the way up the tree.
-     * It also updates the min node to x if k is less than min.key.
-     *
-     * @param x the node to decrease its key value.
-     * @param k the new key value.
-     * @throws IllegalArgumentException if the new key value k is larger
-     *         than the old key value x.key.
+     * Removes node x from the children of its parent y and adds it to the
+     * root list.
      */
-    public void decreaseKey(Node<T> x, T k) {
-        if (k.compareTo(x.key) > 0) {
-            throw new IllegalArgumentException("new key > current key");
-        }
-        println("decreasing key: " + x.key + " -> " + k);
-        println(x.toString());
-        x.key = k;
-        println(x.toString());
-        Node<T> y = x.p;
-        if (y != null && x.lessThan(y)) {
-            cut(x, y);
-            cascadeCut(y);
-        }
-        if (x.lessThan(min)) {
-            this.min = x;
+    private void cut(int x, int y) {
+        if (right[x] == x) {
+            child[y] = NIL;
+        } else {
+            if (child[y] == x) child[y] = right[x];
+            right[left[x]] = right[x];
+            left[right[x]] = left[x];
         }
+        degree[y]--;
+        parent[x] = NIL;
+        mark[x] = false;
+        addRoot(x);
     }
 
     /**
-     * removes a node x from its parent y and adds it to the root list
-     * after clearing the mark and paent attributes of node x.
-     *
-     * @param x The child node.
-     * @param y	The parent node.
+     * Cuts the marked ancestors of a node that lost a child, up to the
+     * first unmarked one, which gets marked unless it is a root.
      */
-    private void cut(Node<T> x, Node<T> y) {
-        if (x == null || y == null) {
-            String err = "parent and child can't be null: x=" + x + " y=" + y;
-            throw new IllegalArgumentException(err);
-        }
-        // remove x from child list of y
-        if (x.right.equals(x)) {
-            y.child = null;
-        } else {
-            if (y.child.equals(x)) {
-                y.child = x.right;
+    private void cascadeCut(int y) {
+        int z = parent[y];
+        while (z != NIL) {
+            if (!mark[y]) {
+                mark[y] = true;
+                return;
             }
-            x.left.right = x.right;
-            x.right.left = x.left;
+            cut(y, z);
+            y = z;
+            z = parent[y];
         }
-        y.degree--;
-        // add x to the root list
-        x.left = min;
-        x.right = min.right;
-        min.right.left = x;
-        min.right = x;
-        x.p = null;
-        x.mark = false;
-        n++;
     }
 
     /**
-     * Called after cutting a node, it makes sure that all marked 
-     * parents are also cut while recursing up the tree.
-     * It stops once it finds an unmarked parent.
-     *
-     * @param y the node to cascade on 
+     * Adds a node next to the minimum in the root list, or as the only
+     * root.
      */
-    private void cascadeCut(Node<T> y) {
-        Node<T> z = y.p;
-        if (z != null) {
-            if (y.mark == false) {
-                y.mark = true;
-            } else {
-                cut(y, z);
-                cascadeCut(z);
-            }
+    private void addRoot(int x) {
+        if (min == NIL) {
+            left[x] = x;
+            right[x] = x;
+        } else {
+            left[x] = min;
+            right[x] = right[min];
+            left[right[min]] = x;
+            right[min] = x;
         }
     }
 
     /**
-     * Delete a node from the fibonacci tree.
-     * @param x the node to be deleted.
-     * @throws IllegalArgumentException if x is null.
+     * Returns the slot of a removed node to the free list.
      */
-    private void delete(Node<T> x) {
-        if (x == null) throw new IllegalArgumentException("node is null");
-        x.isNegativeInfinity = true;
-        decreaseKey(x, x.key);
-        extractMin();
+    private void release(int x) {
+        keys[x] = null;
+        parent[x] = FREE;
+        right[x] = free;
+        free = x;
     }
 
-    private static void print(String msg) {
-        if (debug) System.out.print(msg);
+    @SuppressWarnings("unchecked")
+    private boolean lessThan(int x, int y) {
+        return y == NIL || ((T) keys[x]).compareTo((T) keys[y]) < 0;
     }
 
-    private static void println(String msg) {
-        if (debug) System.out.println(msg);
+    private static int shift(int x, int offset) {
+        return x < 0 ? x : x + offset;
+    }
+
+    private void validateHandle(int h) {
+        if (!contains(h)) {
+            throw new NoSuchElementException("invalid handle: " + h);
+        }
+    }
+
+    /**
+     * Grows the node arrays to a capacity.
+     */
+    private void allocate(int capacity) {
+        Object[] k = new Object[capacity];
+        int[] p = new int[capacity];
+        int[] c = new int[capacity];
+        int[] l = new int[capacity];
+        int[] r = new int[capacity];
+        int[] d = new int[capacity];
+        boolean[] m = new boolean[capacity];
+        if (keys != null) {
+            System.arraycopy(keys, 0, k, 0, used);
+            System.arraycopy(parent, 0, p, 0, used);
+            System.arraycopy(child, 0, c, 0, used);
+            System.arraycopy(left, 0, l, 0, used);
+            System.arraycopy(right, 0, r, 0, used);
+            System.arraycopy(degree, 0, d, 0, used);
+            System.arraycopy(mark, 0, m, 0, used);
+        }
+        this.keys = k;
+        this.parent = p;
+        this.child = c;
+        this.left = l;
+        this.right = r;
+        this.degree = d;
+        this.mark = m;
     }
 
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
-        builder.append("min: " + min.key);
-        builder.append('\n');
-        builder.append("n: " + n);
-        builder.append('\n');
-        builder.append("root list: ");
-        builder.append('\n');
-        Node<T> next = min;
-        for (int i = n; i > 0; i--) {
-            builder.append("root:");
-            builder.append('\n');
-            builder.append(next);
-            next = next.right;
-        }
+        builder.append("n: " + n + "\n");
+        if (min == NIL) return builder.toString();
+        builder.append("min: " + keys[min] + "\n");
+        int x = min;
+        do {
+            append(builder, x, 0);
+            x = right[x];
+        } while (x != min);
         return builder.toString();
     }
 
+    /**
+     * Appends a tree, one node per line indented by its depth, marked
+     * nodes followed by an x.
+     */
+    private void append(StringBuilder builder, int x, int depth) {
+        for (int i = 0; i < depth; i++) builder.append("  ");
+        builder.append(keys[x] + (mark[x] ? " x" : "") + "\n");
+        int c = child[x];
+        for (int i = degree[x]; i > 0; i--) {
+            append(builder, c, depth + 1);
+            c = right[c];
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
     public static void main(String[] args) {
-        FibonacciHeap<Integer> fib = new FibonacciHeap<>();
-        Node<Integer> node53 = new Node<>(53);
-        Node<Integer> node42 = new Node<>(42);
-        fib.insert(node42);
-        fib.insert(node53);
-        fib.insert(new Node<Integer>(23));
-        fib.insert(new Node<Integer>(6));
-        fib.insert(new Node<Integer>(1));
-        System.out.println("min: " + fib.min.key);
-        Node<Integer> m = fib.extractMin();
-        System.out.println("extracted min: " + m.key);
+        FibonacciHeap<Integer> fib = new FibonacciHeap<>(2);
+        int h42 = fib.insert(42);
+        int h53 = fib.insert(53);
+        fib.insert(23);
+        fib.insert(6);
+        fib.insert(1);
+        System.out.println("min: " + fib.key(fib.minimum()));
+        System.out.println("extracted min: " + fib.extractMin());
         System.out.println();
-        fib.insert(new Node<Integer>(8));
+        fib.insert(8);
         System.out.println(fib);
-        fib.decreaseKey(node53, 2);
+        fib.decreaseKey(h53, 2);
         System.out.println(fib);
-        fib.delete(node42);
+        fib.delete(h42);
         System.out.println(fib);
+
+        // random operations against a priority queue of the same keys
+        Random rand = new Random(7);
+        FibonacciHeap<Integer> H = new FibonacciHeap<>();
+        PriorityQueue<Integer> Q = new PriorityQueue<>();
+        int[] handles = new int[0];
+        int count = 0;
+        boolean ok = true;
+        for (int i = 0; i < 200000; i++) {
+            int op = rand.nextInt(10);
+            if (op < 4 || count == 0) {
+                int k = rand.nextInt(1000000);
+                if (count == handles.length) {
+                    handles = java.util.Arrays.copyOf(handles, 2 * count + 1);
+                }
+                handles[count++] = H.insert(k);
+                Q.add(k);
+            } else if (op < 7) {
+                int j = rand.nextInt(count);
+                int h = handles[j];
+                int k = H.key(h);
+                int smaller = k - rand.nextInt(1000);
+                H.decreaseKey(h, smaller);
+                Q.remove(k);
+                Q.add(smaller);
+            } else if (op < 8) {
+                int j = rand.nextInt(count);
+                int k = H.delete(handles[j]);
+                ok &= Q.remove(k);
+                handles[j] = handles[--count];
+            } else {
+                int h = H.minimum();
+                int k = H.extractMin();
+                ok &= Q.poll() == k;
+                for (int j = 0; j < count; j++) {
+                    if (handles[j] == h) {
+                        handles[j] = handles[--count];
+                        break;
+                    }
+                }
+            }
+            ok &= H.size() == Q.size();
+        }
+        FibonacciHeap<Integer> G = new FibonacciHeap<>();
+        for (int i = 0; i < 1000; i++) G.insert(-i);
+        G.extractMin();
+        int h = G.insert(5);
+        int offset = H.meld(G);
+        ok &= G.isEmpty() && H.key(h + offset) == 5;
+        try {
+            H.meld(H);
+            ok = false;
+        } catch (IllegalArgumentException ex) {
+            ok &= H.size() == Q.size() + 1000;
+        }
+        H.delete(h + offset);
+        for (int i = 0; i < 999; i++) Q.add(-i);
+        while (!Q.isEmpty()) ok &= Q.poll().equals(H.extractMin());
+        ok &= H.isEmpty();
+        System.out.println("random operations ok=" + ok);
     }
 }
@@ -0,0 +1,466 @@
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Van-Emde-Boas Tree for universes of up to 64 bits, allocated lazily.
+ * Supports the same operations as {@code VEBTree} on long keys from 0 to
+ * u - 1, where u is 2 to the power of {@code bits}, in O(lglgu) time, with
+ * space proportional to the number of keys instead of u.
+ * <ul>
+ *   <li>A node is created only when the first key is inserted in it, and
+ *       removed when its last key is deleted. An empty tree is one node.
+ *   <li>A node with at most 64 clusters keeps them in an array, allocated
+ *       with the first cluster. A node with more keeps them in a hash
+ *       table indexed by the high bits, so the space of a node is about
+ *       the number of its non-empty clusters, and the space of the tree is
+ *       O(n) for n keys. The hash tables make the running times expected
+ *       instead of worst-case.
+ *   <li>The universes of 64 keys or less are leaves of one long whose bits
+ *       are the keys, so the bottom six levels of recursion of
+ *       {@code VEBTree} are bit operations on one word.
+ * </ul>
+ * A node of w bits splits a key in its w - w/2 high bits and its w/2 low
+ * bits, except when w is at most 12, where the low bits are 6 so the
+ * clusters are leaves.
+ * <p>In the 64-bit universe the keys are unsigned, and u - 1, which is -1
+ * as a long, is {@code NIL} and can not be inserted.
+ */
+public class CompactVEBTree {
+    public static final long NIL = -1;
+    private static final int LEAF = 6; // the bits of a leaf
+    private final int bits;
+    private final Node root;
+    private long size;
+
+    /**
+     * The constructer. Creates an empty tree.
+     *
+     * @param bits the number of bits of the keys, from 1 to 64.
+     * @throws IllegalArgumentException if bits is not valid.
+     */
+    public CompactVEBTree(int bits) {
+        if (bits < 1 || bits > 64) {
+            throw new IllegalArgumentException("bits is not valid: " + bits);
+        }
+        this.bits = bits;
+        this.root = new Node(bits);
+    }
+
+    /**
+     * A vEB tree over w bits: a leaf of one word if w is at most 6.
+     */
+    private static final class Node {
+        final int w; // the bits of the universe
+        final int lo; // the bits of the clusters
+        long set; // the keys of a leaf
+        long min = NIL, max = NIL; // of a branch, min is not in a cluster
+        Node summary; // the high bits of the non-empty clusters
+        Node[] array; // the clusters by high bits, if at most 64
+        long[] keys; // or a hash table of the high bits of the clusters
+        Node[] values;
+        int count; // the number of clusters in the hash table
+
+        Node(int w) {
+            this.w = w;
+            this.lo = w <= LEAF ? 0 : w <= 2 * LEAF ? LEAF : w / 2;
+        }
+
+        boolean isLeaf() {
+            return w <= LEAF;
+        }
+
+        boolean isEmpty() {
+            return isLeaf() ? set == 0 : min == NIL;
+        }
+
+        long high(long x) {
+            return x >>> lo;
+        }
+
+        long low(long x) {
+            return x & ((1L << lo) - 1);
+        }
+
+        long index(long high, long low) {
+            return high << lo | low;
+        }
+
+        /**
+         * Returns the cluster of high bits h, or null if it is empty.
+         */
+        Node cluster(long h) {
+            if (array != null) return array[(int) h];
+            if (keys == null) return null;
+            int mask = keys.length - 1;
+            int i = hash(h, mask);
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == h) return values[i];
+            }
+            return null;
+        }
+
+        /**
+         * Creates the empty cluster of high bits h.
+         */
+        Node newCluster(long h) {
+            Node c = new Node(lo);
+            if (w - lo <= LEAF) {
+                if (array == null) array = new Node[1 << (w - lo)];
+                array[(int) h] = c;
+                return c;
+            }
+            if (keys == null || 2 * (count + 1) > keys.length) {
+                rehash(keys == null ? 4 : 2 * keys.length);
+            }
+            int mask = keys.length - 1;
+            int i = hash(h, mask);
+            while (values[i] != null) i = (i + 1) & mask;
+            keys[i] = h;
+            values[i] = c;
+            count++;
+            return c;
+        }
+
+        /**
+         * Removes the cluster of high bits h, which is empty.
+         */
+        void removeCluster(long h) {
+            if (array != null) {
+                array[(int) h] = null;
+                return;
+            }
+            int mask = keys.length - 1;
+            int i = hash(h, mask);
+            while (keys[i] != h || values[i] == null) i = (i + 1) & mask;
+            // shift back the following entries which probed past i
+            int j = (i + 1) & mask;
+            for (; values[j] != null; j = (j + 1) & mask) {
+                int k = hash(keys[j], mask);
+                if (((j - k) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            values[i] = null;
+            count--;
+            if (count == 0) {
+                keys = null;
+                values = null;
+            } else if (keys.length > 4 && 8 * count < keys.length) {
+                rehash(keys.length / 2);
+            }
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            Node[] oldValues = values;
+            keys = new long[capacity];
+            values = new Node[capacity];
+            if (oldKeys == null) return;
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] == null) continue;
+                int i = hash(oldKeys[j], mask);
+                while (values[i] != null) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int hash(long h, int mask) {
+            return (int) ((h * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+
+    private static boolean less(long x, long y) {
+        return Long.compareUnsigned(x, y) < 0;
+    }
+
+    private static long minimum(Node v) {
+        if (!v.isLeaf()) return v.min;
+        return v.set == 0 ? NIL : Long.numberOfTrailingZeros(v.set);
+    }
+
+    private static long maximum(Node v) {
+        if (!v.isLeaf()) return v.max;
+        return v.set == 0 ? NIL : 63 - Long.numberOfLeadingZeros(v.set);
+    }
+
+    private static boolean member(Node v, long x) {
+        while (!v.isLeaf()) {
+            if (x == v.min || x == v.max) return true;
+            if (v.min == NIL) return false;
+            Node c = v.cluster(v.high(x));
+            if (c == null) return false;
+            x = v.low(x);
+            v = c;
+        }
+        return (v.set & 1L << x) != 0;
+    }
+
+    /**
+     * Finds the successor of x within the node v, as {@code VEBTree}, or
+     * NIL.
+     */
+    private static long successor(Node v, long x) {
+        if (v.isLeaf()) {
+            long above = v.set & (-2L << x);
+            return above == 0 ? NIL : Long.numberOfTrailingZeros(above);
+        }
+        if (v.min == NIL) return NIL;
+        if (less(x, v.min)) return v.min;
+        long h = v.high(x);
+        Node c = v.cluster(h);
+        if (c != null && less(v.low(x), maximum(c))) {
+            return v.index(h, successor(c, v.low(x)));
+        }
+        if (v.summary == null) return NIL;
+        long next = successor(v.summary, h);
+        if (next == NIL) return NIL;
+        return v.index(next, minimum(v.cluster(next)));
+    }
+
+    /**
+     * Finds the predecessor of x within the node v, as {@code VEBTree}, or
+     * NIL.
+     */
+    private static long predecessor(Node v, long x) {
+        if (v.isLeaf()) {
+            long below = v.set & ((1L << x) - 1);
+            return below == 0 ? NIL : 63 - Long.numberOfLeadingZeros(below);
+        }
+        if (v.min == NIL) return NIL;
+        if (less(v.max, x)) return v.max;
+        long h = v.high(x);
+        Node c = v.cluster(h);
+        if (c != null && less(minimum(c), v.low(x))) {
+            return v.index(h, predecessor(c, v.low(x)));
+        }
+        long prev = v.summary == null ? NIL : predecessor(v.summary, h);
+        if (prev == NIL) return less(v.min, x) ? v.min : NIL;
+        return v.index(prev, maximum(v.cluster(prev)));
+    }
+
+    /**
+     * Inserts x in the node v, as {@code VEBTree}, creating the cluster of
+     * x and the summary when they are empty.
+     * @return false if x was already in v.
+     */
+    private static boolean insert(Node v, long x) {
+        if (v.isLeaf()) {
+            if ((v.set & 1L << x) != 0) return false;
+            v.set |= 1L << x;
+            return true;
+        }
+        if (v.min == NIL) {
+            v.min = x;
+            v.max = x;
+            return true;
+        }
+        if (x == v.min || x == v.max) return false;
+        if (less(x, v.min)) {
+            long tmp = v.min;
+            v.min = x;
+            x = tmp;
+        }
+        long h = v.high(x);
+        Node c = v.cluster(h);
+        if (c == null) {
+            if (v.summary == null) v.summary = new Node(v.w - v.lo);
+            insert(v.summary, h);
+            insert(v.newCluster(h), v.low(x));
+        } else if (!insert(c, v.low(x))) {
+            return false;
+        }
+        if (less(v.max, x)) v.max = x;
+        return true;
+    }
+
+    /**
+     * Deletes x from the node v, as {@code VEBTree}, removing the cluster
+     * of x and the summary when they become empty.
+     * @return false if x was not in v.
+     */
+    private static boolean delete(Node v, long x) {
+        if (v.isLeaf()) {
+            if ((v.set & 1L << x) == 0) return false;
+            v.set &= ~(1L << x);
+            return true;
+        }
+        if (v.min == NIL) return false;
+        if (v.min == v.max) {
+            if (x != v.min) return false;
+            v.min = NIL;
+            v.max = NIL;
+            return true;
+        }
+        if (x == v.min) {
+            long first = minimum(v.summary);
+            x = v.index(first, minimum(v.cluster(first)));
+            v.min = x;
+        }
+        long h = v.high(x);
+        Node c = v.cluster(h);
+        if (c == null || !delete(c, v.low(x))) return false;
+        if (c.isEmpty()) {
+            v.removeCluster(h);
+            delete(v.summary, h);
+            if (v.summary.isEmpty()) {
+                v.summary = null;
+                v.array = null;
+            }
+            if (x == v.max) {
+                long last = v.summary == null ? NIL : maximum(v.summary);
+                v.max = last == NIL ? v.min
+                        : v.index(last, maximum(v.cluster(last)));
+            }
+        } else if (x == v.max) {
+            v.max = v.index(h, maximum(c));
+        }
+        return true;
+    }
+
+    private void check(long x) {
+        if ((bits < 64 && (x >>> bits) != 0) || x == NIL) {
+            throw new IllegalArgumentException(x + " is out of the universe");
+        }
+    }
+
+    /**
+     * Returns the number of keys.
+     */
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long minimum() {
+        return minimum(root);
+    }
+
+    public long maximum() {
+        return maximum(root);
+    }
+
+    public boolean member(long x) {
+        check(x);
+        return member(root, x);
+    }
+
+    /**
+     * Returns the smallest key greater than x, or NIL.
+     * @throws IllegalArgumentException if x is not in the universe.
+     */
+    public long successor(long x) {
+        check(x);
+        return successor(root, x);
+    }
+
+    /**
+     * Returns the largest key less than x, or NIL.
+     * @throws IllegalArgumentException if x is not in the universe.
+     */
+    public long predecessor(long x) {
+        check(x);
+        return predecessor(root, x);
+    }
+
+    /**
+     * Inserts a key.
+     * @return false if x was already in the tree.
+     * @throws IllegalArgumentException if x is not in the universe.
+     */
+    public boolean insert(long x) {
+        check(x);
+        if (!insert(root, x)) return false;
+        size++;
+        return true;
+    }
+
+    /**
+     * Deletes a key.
+     * @return false if x was not in the tree.
+     * @throws IllegalArgumentException if x is not in the universe.
+     */
+    public boolean delete(long x) {
+        check(x);
+        if (!delete(root, x)) return false;
+        size--;
+        return true;
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        CompactVEBTree veb = new CompactVEBTree(4);
+        long[] keys = {2, 3, 4, 5, 7, 14, 15};
+        for (long x : keys) veb.insert(x);
+        System.out.println("Successor of 7: " + veb.successor(7)
+                + " expected 14");
+        System.out.println("Predecessor of 2: " + veb.predecessor(2)
+                + " expected -1");
+        // a 2^64 universe in a few kilobytes
+        veb = new CompactVEBTree(64);
+        veb.insert(0);
+        veb.insert(Long.MAX_VALUE);
+        veb.insert(-2);
+        System.out.println("Successor of 2^63-1: "
+                + Long.toUnsignedString(veb.successor(Long.MAX_VALUE))
+                + " expected 18446744073709551614");
+        // random operations against a sorted set, for every kind of node
+        Comparator<Long> unsigned = new Comparator<Long>() {
+            @Override
+            public int compare(Long x, Long y) {
+                return Long.compareUnsigned(x, y);
+            }
+        };
+        Random rand = new Random(9);
+        int failures = 0;
+        for (int bits : new int[] {1, 6, 7, 12, 13, 20, 32, 40, 64}) {
+            for (int t = 0; t < 3; t++) {
+                veb = new CompactVEBTree(bits);
+                TreeSet<Long> set = new TreeSet<>(unsigned);
+                // keys from a small random range, so the operations hit
+                // members, and from the whole universe
+                int n = 1 + rand.nextInt(2000);
+                long base = bits == 64 ? rand.nextLong() >>> 1
+                        : rand.nextLong() & ((1L << bits) - 1);
+                for (int k = 0; k < 20 * n; k++) {
+                    long x = rand.nextInt(4) == 0 ? rand.nextLong()
+                            : base + rand.nextInt(4 * n);
+                    if (bits < 64) x &= (1L << bits) - 1;
+                    if (x == NIL) continue;
+                    int op = rand.nextInt(5);
+                    boolean ok;
+                    if (op == 0) {
+                        ok = veb.insert(x) == set.add(x);
+                    } else if (op == 1) {
+                        ok = veb.delete(x) == set.remove(x);
+                    } else if (op == 2) {
+                        ok = veb.member(x) == set.contains(x);
+                    } else if (op == 3) {
+                        Long y = set.higher(x);
+                        ok = veb.successor(x) == (y == null ? NIL : y);
+                    } else {
+                        Long y = set.lower(x);
+                        ok = veb.predecessor(x) == (y == null ? NIL : y);
+                    }
+                    if (!ok || veb.size() != set.size()) failures++;
+                }
+                long min = set.isEmpty() ? NIL : set.first();
+                long max = set.isEmpty() ? NIL : set.last();
+                if (veb.minimum() != min || veb.maximum() != max) failures++;
+                for (long x : set) veb.delete(x);
+                if (!veb.isEmpty() || veb.root.summary != null) failures++;
+            }
+        }
+        System.out.println("random operations: " + failures + " differences"
+                + (failures == 0 ? " ok" : " FAILED"));
+    }
+}
@@ -1,5 +1,8 @@
-import java.util.List;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
 
 /**
  * Van-Emde-Boas Tree.
@@ -18,6 +21,12 @@ import java.util.ArrayList;
  * The minimum element of each vEB tree is stored in {@code min} which does
  * not appear in any of the vEB trees that the cluster array points to.
  * Space requirement is O(u).
+ * <p>Sorted arrays of keys can be inserted or deleted at once: the keys
+ * of the same cluster are passed down together, so the clusters and the
+ * summary are descended once per batch instead of once per key. The keys
+ * of a range are listed by one descent which visits the non-empty clusters
+ * of the range in order, which costs much less than a successor call per
+ * key, and a {@code Cursor} hands them out as ints, a block at a time.
  */
 public class VEBTree {
     public static final int NIL = -1;
@@ -336,31 +345,240 @@ public class VEBTree {
     }
 
     /**
-     * Unit Test helper function. Returns all members within a vEB tree.
-     *
-     * @param v the tree to find its members.
+     * Inserts the keys k[lo..hi) in the node v. The keys are increasing
+     * and not in v, and are replaced by their low bits as they are passed
+     * down, then by the high bits of the new clusters for the summary.
+     */
+    private void insert(VEBNode v, int[] k, int lo, int hi) {
+        if (lo >= hi) return;
+        if (v.u == 2) {
+            for (int i = lo; i < hi; i++) insert(v, k[i]);
+            return;
+        }
+        if (v.min == NIL) {
+            emptyTreeInsert(v, k[lo++]);
+            if (lo == hi) return;
+        } else if (k[lo] < v.min) {
+            // the old min goes down with the keys, in its sorted place
+            int x = v.min;
+            v.min = k[lo];
+            int i = lo + 1;
+            for (; i < hi && k[i] < x; i++) k[i - 1] = k[i];
+            k[i - 1] = x;
+        }
+        if (k[hi - 1] > v.max) v.max = k[hi - 1];
+        int g = lo; // the high bits of the new clusters go to k[lo..g)
+        for (int i = lo; i < hi; ) {
+            int h = v.high(k[i]);
+            int j = i;
+            for (; j < hi && v.high(k[j]) == h; j++) k[j] = v.low(k[j]);
+            boolean empty = minimum(v.cluster[h]) == NIL;
+            insert(v.cluster[h], k, i, j);
+            if (empty) k[g++] = h;
+            i = j;
+        }
+        insert(v.summary, k, lo, g);
+    }
+
+    /**
+     * Deletes the keys k[lo..hi) from the node v. The keys are increasing
+     * and in v, and are replaced as by {@code insert}. The min is deleted
+     * last, once the clusters are up to date.
      */
-    private List<Integer> members(VEBNode v) {
-        if (v.min == NIL) return null;
-        List<Integer> arr = new ArrayList<>();
-        arr.add(v.min);
+    private void delete(VEBNode v, int[] k, int lo, int hi) {
+        if (lo >= hi) return;
         if (v.u == 2) {
-            if (v.min != v.max) arr.add(v.max);
+            for (int i = lo; i < hi; i++) delete(v, k[i]);
+            return;
+        }
+        boolean min = k[lo] == v.min;
+        if (min) lo++;
+        int g = lo; // the high bits of the emptied clusters go to k[lo..g)
+        for (int i = lo; i < hi; ) {
+            int h = v.high(k[i]);
+            int j = i;
+            for (; j < hi && v.high(k[j]) == h; j++) k[j] = v.low(k[j]);
+            delete(v.cluster[h], k, i, j);
+            if (minimum(v.cluster[h]) == NIL) k[g++] = h;
+            i = j;
+        }
+        delete(v.summary, k, lo, g);
+        int summaryMax = maximum(v.summary);
+        if (summaryMax == NIL) {
+            v.max = v.min;
         } else {
-            for (int i = 0; i < v.size(); i++) {
-                List<Integer> elems = members(v.cluster[i]);
-                if (elems == null) continue;
-                for (int j : elems) {
-                    arr.add(v.index(i, j));
-                }
+            v.max = v.index(summaryMax, maximum(v.cluster[summaryMax]));
+        }
+        if (min) delete(v, v.min);
+    }
+
+    /**
+     * Lists the keys x of the node v with a <= x < b in increasing order,
+     * as offset + x, into out from position n until it is full.
+     * Only the non-empty clusters of the range are visited.
+     * @return the new number of keys in out.
+     */
+    private int fill(VEBNode v, int offset, int a, int b, int[] out, int n) {
+        if (v.min == NIL || v.min >= b || v.max < a) return n;
+        if (v.min >= a) out[n++] = offset + v.min;
+        if (v.u == 2) {
+            if (v.max != v.min && v.max < b && n < out.length) {
+                out[n++] = offset + v.max;
             }
+            return n;
+        }
+        int first = a > v.min ? v.high(a) : v.high(v.min);
+        int last = v.high(b - 1);
+        int h = minimum(v.cluster[first]) != NIL ? first
+                : successor(v.summary, first);
+        while (h != NIL && h <= last && n < out.length) {
+            int ca = h == v.high(a) ? v.low(a) : 0;
+            int cb = h == last ? v.low(b - 1) + 1 : v.index(1, 0);
+            n = fill(v.cluster[h], offset + v.index(h, 0), ca, cb, out, n);
+            h = successor(v.summary, h);
+        }
+        return n;
+    }
+
+    /**
+     * Counts the keys x of the node v with a <= x < b, visiting the same
+     * clusters as {@code fill}.
+     */
+    private int count(VEBNode v, int a, int b) {
+        if (v.min == NIL || v.min >= b || v.max < a) return 0;
+        int n = v.min >= a ? 1 : 0;
+        if (v.u == 2) {
+            return v.max != v.min && v.max < b ? n + 1 : n;
+        }
+        int first = a > v.min ? v.high(a) : v.high(v.min);
+        int last = v.high(b - 1);
+        int h = minimum(v.cluster[first]) != NIL ? first
+                : successor(v.summary, first);
+        while (h != NIL && h <= last) {
+            int ca = h == v.high(a) ? v.low(a) : 0;
+            int cb = h == last ? v.low(b - 1) + 1 : v.index(1, 0);
+            n += count(v.cluster[h], ca, cb);
+            h = successor(v.summary, h);
+        }
+        return n;
+    }
+
+    /**
+     * Checks that keys are increasing and in the universe, and returns a
+     * copy of them.
+     */
+    private int[] sortedCopy(int[] keys) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] < 0 || keys[i] >= root.u
+                    || (i > 0 && keys[i] <= keys[i - 1])) {
+                throw new IllegalArgumentException(
+                        "keys are not increasing in the universe");
+            }
+        }
+        return keys.clone();
+    }
+
+    private void checkRange(int lo, int hi) {
+        if (lo < 0 || hi > root.u || lo > hi) {
+            throw new IllegalArgumentException("invalid range [" + lo + ", "
+                    + hi + ")");
+        }
+    }
+
+    /**
+     * Inserts keys which are not in the tree.
+     * @param keys the keys, in increasing order.
+     * @throws IllegalArgumentException if the keys are not increasing or
+     *         not in the universe.
+     */
+    public void insert(int[] keys) {
+        int[] k = sortedCopy(keys);
+        insert(root, k, 0, k.length);
+    }
+
+    /**
+     * Deletes keys which are in the tree.
+     * @param keys the keys, in increasing order.
+     * @throws IllegalArgumentException if the keys are not increasing or
+     *         not in the universe.
+     */
+    public void delete(int[] keys) {
+        int[] k = sortedCopy(keys);
+        delete(root, k, 0, k.length);
+    }
+
+    /**
+     * Returns the number of keys x with lo <= x < hi.
+     * @throws IllegalArgumentException if the range is not valid.
+     */
+    public int count(int lo, int hi) {
+        checkRange(lo, hi);
+        if (lo == hi) return 0;
+        return count(root, lo, hi);
+    }
+
+    /**
+     * Returns a cursor over the keys x with lo <= x < hi, in increasing
+     * order.
+     * @throws IllegalArgumentException if the range is not valid.
+     */
+    public Cursor range(int lo, int hi) {
+        checkRange(lo, hi);
+        return new Cursor(lo, hi);
+    }
+
+    /**
+     * Returns a cursor over the keys greater than x, in increasing order:
+     * the successors of x, then their successors, and so on.
+     * @throws IllegalArgumentException if x is not in the universe.
+     */
+    public Cursor successors(int x) {
+        checkRange(x, x + 1);
+        return new Cursor(x + 1, root.u);
+    }
+
+    /**
+     * A cursor over the keys of a range, which lists them by blocks of
+     * {@code BLOCK} keys, one descent per block. Changes to the tree are
+     * seen from the next block on.
+     */
+    public class Cursor implements PrimitiveIterator.OfInt {
+        private static final int BLOCK = 64;
+        private final int[] block = new int[BLOCK];
+        private int pos, size;
+        private int next; // the start of the range of the next block
+        private final int hi;
+
+        private Cursor(int lo, int hi) {
+            this.next = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pos < size) return true;
+            if (next >= hi) return false;
+            size = fill(root, 0, next, hi, block, 0);
+            pos = 0;
+            next = size < BLOCK ? hi : block[size - 1] + 1;
+            return size > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return block[pos++];
         }
-        return arr;
     }
 
+    /**
+     * Unit Test helper function. Prints all members of the tree.
+     */
     public void members() {
         System.out.println("members: ");
-        for (int x : members(root)) System.out.println(x);
+        for (Cursor c = range(0, root.u); c.hasNext(); ) {
+            System.out.println(c.nextInt());
+        }
     }
 
     public static void main(String[] args) {
@@ -386,5 +604,55 @@ public class VEBTree {
         veb.delete(3);
         System.out.println("3 deleted.");
         veb.members();
+        // batches, counts and cursors against a sorted set
+        Random rand = new Random(4);
+        int failures = 0;
+        for (int t = 0; t < 30; t++) {
+            int u = 2 << rand.nextInt(16);
+            veb = new VEBTree(u);
+            TreeSet<Integer> set = new TreeSet<>();
+            for (int r = 0; r < 6; r++) {
+                int[] keys = new int[rand.nextInt(u / 2 + 1)];
+                int n = 0;
+                boolean insert = r % 2 == 0;
+                for (int i = 0; i < keys.length; i++) {
+                    int x = rand.nextInt(u);
+                    if (set.contains(x) != insert) keys[n++] = x;
+                }
+                keys = Arrays.copyOf(keys, n);
+                Arrays.sort(keys);
+                n = 0;
+                for (int i = 0; i < keys.length; i++) {
+                    if (i == 0 || keys[i] != keys[i - 1]) keys[n++] = keys[i];
+                }
+                keys = Arrays.copyOf(keys, n);
+                for (int x : keys) {
+                    if (insert) set.add(x);
+                    else set.remove(x);
+                }
+                if (insert) veb.insert(keys);
+                else veb.delete(keys);
+                int lo = rand.nextInt(u), hi = lo + rand.nextInt(u - lo + 1);
+                if (veb.count(lo, hi) != set.subSet(lo, hi).size()) {
+                    failures++;
+                }
+                Cursor c = veb.range(lo, hi);
+                for (int x : set.subSet(lo, hi)) {
+                    if (!c.hasNext() || c.nextInt() != x) failures++;
+                }
+                if (c.hasNext()) failures++;
+                int m = 0;
+                for (c = veb.successors(lo); c.hasNext(); c.nextInt()) m++;
+                if (m != set.tailSet(lo, false).size()) failures++;
+                for (int x = 0; x < u; x++) {
+                    if (veb.member(x) != set.contains(x)) failures++;
+                }
+                int min = set.isEmpty() ? NIL : set.first();
+                int max = set.isEmpty() ? NIL : set.last();
+                if (veb.minimum() != min || veb.maximum() != max) failures++;
+            }
+        }
+        System.out.println("batches and ranges: " + failures
+                + " differences" + (failures == 0 ? " ok" : " FAILED"));
     }
 }
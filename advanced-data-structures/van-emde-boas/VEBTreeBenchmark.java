@@ -0,0 +1,223 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the van Emde Boas tree operations on random keys.
+ * <p>The {@code Dense} cases work on about u/4 distinct random keys of a
+ * universe of 2^logU in random order, since the tree does not allow
+ * duplicates. The batches insert and delete the keys sorted, and the scans
+ * list or count all keys of the tree. The same cases run on the compact
+ * tree, and on it alone with 2^20 {@code Sparse} random keys in universes
+ * of 2^32 and 2^64.
+ * <p>Usage: {@code java -jar target/benchmarks.jar VEBTreeBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VEBTreeBenchmark {
+    @State(Scope.Thread)
+    public static class Dense {
+        @Param({"16", "20"})
+        public int logU;
+        int u;
+        int[] keys;
+        int[] sorted;
+        long[] longs;
+        VEBTree full;
+        CompactVEBTree compact;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            u = 1 << logU;
+            int[] sample = new int[u];
+            int m = 0;
+            for (int k = 0; k < u; k++) {
+                if (rand.nextInt(4) == 0) sample[m++] = k;
+            }
+            keys = new int[m];
+            for (int i = 0; i < m; i++) {
+                int j = rand.nextInt(i + 1);
+                keys[i] = keys[j];
+                keys[j] = sample[i];
+            }
+            sorted = keys.clone();
+            Arrays.sort(sorted);
+            longs = new long[m];
+            for (int i = 0; i < m; i++) longs[i] = keys[i];
+            full = new VEBTree(u);
+            for (int k : keys) full.insert(k);
+            compact = new CompactVEBTree(logU);
+            for (long k : longs) compact.insert(k);
+        }
+    }
+
+    /**
+     * Sparse keys in universes too large for {@code VEBTree}.
+     */
+    @State(Scope.Thread)
+    public static class Sparse {
+        @Param({"32", "64"})
+        public int bits;
+        long[] longs;
+        CompactVEBTree compact;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            longs = new long[1 << 20];
+            for (int i = 0; i < longs.length; i++) {
+                longs[i] = rand.nextLong() >>> (64 - bits);
+            }
+            compact = new CompactVEBTree(bits);
+            for (long k : longs) compact.insert(k);
+        }
+    }
+
+    @Benchmark
+    public Object insert(Dense in) {
+        VEBTree T = new VEBTree(in.u);
+        for (int k : in.keys) T.insert(k);
+        return T;
+    }
+
+    /**
+     * Member queries on the keys 0 to u-1 by steps of 3.
+     */
+    @Benchmark
+    public int member(Dense in) {
+        int found = 0;
+        for (int k = 0; k < in.u; k += 3) {
+            if (in.full.member(k)) found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int successorWalk(Dense in) {
+        int count = 0;
+        int x = in.full.minimum();
+        while (x != VEBTree.NIL) {
+            x = in.full.successor(x);
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Object insertDelete(Dense in) {
+        VEBTree T = new VEBTree(in.u);
+        for (int k : in.keys) T.insert(k);
+        for (int k : in.keys) T.delete(k);
+        return T;
+    }
+
+    @Benchmark
+    public Object insertBatch(Dense in) {
+        VEBTree T = new VEBTree(in.u);
+        T.insert(in.sorted);
+        return T;
+    }
+
+    @Benchmark
+    public Object insertDeleteBatch(Dense in) {
+        VEBTree T = new VEBTree(in.u);
+        T.insert(in.sorted);
+        T.delete(in.sorted);
+        return T;
+    }
+
+    @Benchmark
+    public int rangeScan(Dense in) {
+        int count = 0;
+        VEBTree.Cursor c = in.full.range(0, in.u);
+        while (c.hasNext()) {
+            c.nextInt();
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int count(Dense in) {
+        return in.full.count(0, in.u);
+    }
+
+    @Benchmark
+    public Object compactInsert(Dense in) {
+        return compactInsert(in.logU, in.longs);
+    }
+
+    @Benchmark
+    public int compactMember(Dense in) {
+        int found = 0;
+        for (int k = 0; k < in.u; k += 3) {
+            if (in.compact.member(k)) found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int compactSuccessors(Dense in) {
+        return successors(in.compact);
+    }
+
+    @Benchmark
+    public Object compactInsertDelete(Dense in) {
+        return compactInsertDelete(in.logU, in.longs);
+    }
+
+    @Benchmark
+    public Object sparseInsert(Sparse in) {
+        return compactInsert(in.bits, in.longs);
+    }
+
+    @Benchmark
+    public int sparseSuccessors(Sparse in) {
+        return successors(in.compact);
+    }
+
+    @Benchmark
+    public Object sparseInsertDelete(Sparse in) {
+        return compactInsertDelete(in.bits, in.longs);
+    }
+
+    private static CompactVEBTree compactInsert(int bits, long[] keys) {
+        CompactVEBTree T = new CompactVEBTree(bits);
+        for (long k : keys) T.insert(k);
+        return T;
+    }
+
+    private static CompactVEBTree compactInsertDelete(int bits,
+            long[] keys) {
+        CompactVEBTree T = compactInsert(bits, keys);
+        for (long k : keys) T.delete(k);
+        return T;
+    }
+
+    private static int successors(CompactVEBTree T) {
+        int count = 0;
+        long x = T.minimum();
+        while (x != CompactVEBTree.NIL) {
+            x = T.successor(x);
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Min-priority queue of integer elements with primitive {@code long} keys,
+ * where every element can be addressed to decrease its key.
+ * <p>The elements are the integers 0 to n-1 (vertex indexes) and each one
+ * can be in the queue at most once, so the element itself is the handle
+ * used to find it in the queue. The shortest-path and minimum-spanning-tree
+ * algorithms take any implementation:
+ * <ul>
+ *   <li>{@code IndexedDaryHeap}, <em>O(log_d(n))</em> insert and decrease,
+ *       the fastest on sparse graphs.
+ *   <li>{@code IndexedFibonacciHeap}, <em>O(1)</em> amortized insert and
+ *       decrease, the best bound when most edges decrease a key.
+ *   <li>{@code IndexedPairingHeap}, <em>O(1)</em> insert and
+ *       <em>o(lg n)</em> amortized decrease with much smaller constants
+ *       than the Fibonacci heap.
+ *   <li>{@code RadixHeap}, a monotone queue for non-negative integer keys
+ *       that never go below the last extracted minimum, as in Dijkstra's
+ *       algorithm, with <em>O(lg C)</em> amortized extraction where C is
+ *       the largest key.
+ * </ul>
+ */
+public interface AddressablePriorityQueue {
+    public static final int NIL = -1;
+
+    /**
+     * Removes all elements from the queue.
+     */
+    public void clear();
+
+    public int size();
+
+    public boolean isEmpty();
+
+    /**
+     * Checks if an element is in the queue.
+     * @param v the element.
+     */
+    public boolean contains(int v);
+
+    /**
+     * Returns the key of an element in the queue.
+     * @param v the element.
+     * @throws NoSuchElementException if v is not in the queue.
+     */
+    public long keyOf(int v);
+
+    /**
+     * Inserts an element to the queue.
+     * @param v the element.
+     * @param key the key of the element.
+     * @throws IllegalArgumentException if v is already in the queue.
+     */
+    public void insert(int v, long key);
+
+    /**
+     * Decreases the key of an element in the queue.
+     * @param v the element.
+     * @param key the new key.
+     * @throws NoSuchElementException if v is not in the queue.
+     * @throws IllegalArgumentException if the new key is greater.
+     */
+    public void decreaseKey(int v, long key);
+
+    /**
+     * Returns the element with the minimum key without removing it.
+     * @throws NoSuchElementException if the queue is empty.
+     */
+    public int minimum();
+
+    /**
+     * Removes and returns the element with the minimum key.
+     * @throws NoSuchElementException if the queue is empty.
+     */
+    public int extractMin();
+}
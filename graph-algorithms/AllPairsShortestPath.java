@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 /**
  * Computes shortest-paths between every two pairs of vertices in a given
  * weighted directed graph.
@@ -74,6 +76,76 @@ public class AllPairsShortestPath {
         return L;
     }
 
+    /**
+     * Faster algorithm specialized for {@code long} distances.
+     * <p>Same as above, on a graph in CSR format. The weights matrix is a
+     * flat array of V^2 distances, squared by the tiled and parallel
+     * product of {@code MatrixMultiplication} over the min-plus semiring,
+     * instead of matrices of vertex objects. Predecessors are not computed.
+     * <p>Unreachable pairs are left with {@code Long.MAX_VALUE}.
+     * <p>The running time is <em>O(V^3 lgV)</em>.
+     *
+     * @param G the graph in CSR format, weights are read as {@code long}
+     * @param D the array to store the distances in, of length V^2, the
+     *          distance from i to j at {@code D[i * V + j]}
+     * @throws IllegalArgumentException if D is not of length V^2
+     */
+    public static <T extends VertexInterface, E extends Number>
+            void fasterAllPairsShortestPaths(WeightedCSRGraph<T, E> G,
+                    long[] D) {
+        int n = G.V();
+        if (D.length != n * n) {
+            throw new IllegalArgumentException("D is not of length V^2");
+        }
+        long[] L = new long[n * n];
+        Arrays.fill(L, Semiring.INFINITY);
+        for (int u = 0; u < n; u++) {
+            L[u * n + u] = 0;
+            for (int i = G.begin(u); i < G.end(u); i++) {
+                int j = u * n + G.target(i);
+                L[j] = Math.min(L[j], G.longWeight(i));
+            }
+        }
+        for (int m = 1; m < n - 1; m = 2 * m) {
+            L = MatrixMultiplication.multiply(L, L, n, n, n,
+                    Semiring.MIN_PLUS);
+        }
+        System.arraycopy(L, 0, D, 0, L.length);
+    }
+
+    /**
+     * Faster algorithm specialized for {@code double} distances.
+     * <p>Same as above.
+     * <p>Unreachable pairs are left with {@code +Infinity}.
+     *
+     * @param G the graph in CSR format, weights are read as {@code double}
+     * @param D the array to store the distances in, of length V^2, the
+     *          distance from i to j at {@code D[i * V + j]}
+     * @throws IllegalArgumentException if D is not of length V^2
+     */
+    public static <T extends VertexInterface, E extends Number>
+            void fasterAllPairsShortestPaths(WeightedCSRGraph<T, E> G,
+                    double[] D) {
+        int n = G.V();
+        if (D.length != n * n) {
+            throw new IllegalArgumentException("D is not of length V^2");
+        }
+        double[] L = new double[n * n];
+        Arrays.fill(L, Double.POSITIVE_INFINITY);
+        for (int u = 0; u < n; u++) {
+            L[u * n + u] = 0;
+            for (int i = G.begin(u); i < G.end(u); i++) {
+                int j = u * n + G.target(i);
+                L[j] = Math.min(L[j], G.doubleWeight(i));
+            }
+        }
+        for (int m = 1; m < n - 1; m = 2 * m) {
+            L = MatrixMultiplication.multiply(L, L, n, n, n,
+                    Semiring.MIN_PLUS);
+        }
+        System.arraycopy(L, 0, D, 0, L.length);
+    }
+
     /**
      * Helper method for {@code slowAllPairsShortestPaths} and 
      * {@code fasterAllPairsShortestPaths} algorithms.
@@ -376,6 +448,24 @@ public class AllPairsShortestPath {
         System.out.println("Testing Faster-All-Pairs-Shortest-Paths:");
         ShortestPathVertex<Integer>[][] res2 = fasterAllPairsShortestPaths(G);
         System.out.println(toString(res2));
+        System.out.println("Testing Faster-All-Pairs-Shortest-Paths (CSR):");
+        WeightedCSRGraph<Vertex, Integer> CSR = new WeightedCSRGraph<>(G);
+        long[] D = new long[CSR.V() * CSR.V()];
+        double[] DD = new double[D.length];
+        fasterAllPairsShortestPaths(CSR, D);
+        fasterAllPairsShortestPaths(CSR, DD);
+        boolean same = true;
+        for (int i = 0; i < CSR.V(); i++) {
+            for (int j = 0; j < CSR.V(); j++) {
+                int x = i * CSR.V() + j;
+                NumericKey<Integer> d = new NumericKey<>((int) D[x]);
+                if (res2[i][j].compareTo(d) != 0 || DD[x] != D[x]) {
+                    same = false;
+                }
+            }
+        }
+        System.out.println(Arrays.toString(D));
+        System.out.println(same ? "same as above" : "FAILED");
         System.out.println("Testing Floyd-Warshal:");
         ShortestPathVertex<Integer>[][] res3 = FloydWarshall(G);
         System.out.println(toString(res3));
@@ -56,6 +56,39 @@ public class BreadthFirstSearch {
         process(G, G.getVertex(s));
     }
 
+    /**
+     * Runs BFS on a CSR graph using a given source index.
+     * <p>Walks the edge arrays of the graph directly and uses an array of
+     * vertex indexes as the queue, since every vertex is enqueued at most
+     * once.
+     * @param G the graph in CSR format.
+     * @param s the index of the source vertex.
+     * @throws IllegalArgumentException if source is an invalid vertex.
+     */
+    public static <T extends BFSVertex> void process(CSRGraph<T> G, int s) {
+        G.validateVertex(s);
+        T source = G.getVertex(s);
+        source.colour = T.Colour.GREY;
+        source.d = 0;
+        int[] Q = new int[G.V()];
+        int head = 0;
+        int tail = 0;
+        Q[tail++] = s;
+        while (head < tail) {
+            T u = G.getVertex(Q[head++]);
+            for (int i = G.begin(u.v), end = G.end(u.v); i < end; i++) {
+                T v = G.getVertex(G.target(i));
+                if (v.colour == T.Colour.WHITE) {
+                    v.colour = T.Colour.GREY;
+                    v.d = u.d + 1;
+                    v.pi = u;
+                    Q[tail++] = v.v;
+                }
+            }
+            u.colour = T.Colour.BLACK;
+        }
+    }
+
     /**
      * Unit tests.
      * 0--1  2--3
@@ -84,5 +117,12 @@ public class BreadthFirstSearch {
         BreadthFirstSearch.process(G, 1);
         System.out.println("after BFS: ");
         for (BFSVertex x : G.getVertices()) System.out.println(x);
+
+        // the same search on the CSR representation of the graph.
+        Graph<BFSVertex> GC = G.copy();
+        CSRGraph<BFSVertex> CSR = new CSRGraph<>(GC);
+        BreadthFirstSearch.process(CSR, 1);
+        System.out.println("after BFS (CSR): ");
+        for (BFSVertex x : CSR.getVertices()) System.out.println(x);
     }
 }
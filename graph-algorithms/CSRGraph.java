@@ -0,0 +1,292 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable unweighted graph stored in compressed-sparse-row (CSR) format.
+ * <p>Instead of an adjacency-list of linked nodes per vertex, all edges are
+ * stored in a single {@code int[] targets} array grouped by their source
+ * vertex. The edges leaving the vertex <em>u</em> are found between
+ * {@code offsets[u]} inclusive and {@code offsets[u + 1]} exclusive.
+ * <p>The graph is built from an existing {@code Graph} (directed or
+ * undirected) in <em>O(V + E)</em> and shares its vertex objects, therefore,
+ * algorithms that store their results in the vertices (BFS, DFS) can run on
+ * it directly. An undirected graph stores each edge twice, once for every
+ * direction, exactly like {@code Graph} does.
+ * <p>Memory usage is <em>4(V + 1) + 4E</em> bytes for the structure of the
+ * graph compared to one linked node object per edge in {@code Graph}, and
+ * iterating over the edges of a vertex reads a contiguous block of memory.
+ */
+public class CSRGraph<T extends VertexInterface> implements GraphInterface<T> {
+    protected final Class<T> C;
+    protected final int V;
+    protected final int E;
+    protected final T[] vertices;
+    protected int[] offsets; // edges of u are in [offsets[u], offsets[u + 1])
+    protected int[] targets; // the vertex each edge is incident to
+
+    /**
+     * Constructor. Converts an adjacency-list graph to CSR format.
+     * @param G the graph to convert.
+     */
+    public CSRGraph(Graph<T> G) {
+        this(G.C, G.vertices, G.E());
+        this.offsets = new int[V + 1];
+        for (int u = 0; u < V; u++) {
+            offsets[u + 1] = offsets[u] + G.adj[u].size();
+        }
+        this.targets = new int[offsets[V]];
+        for (int u = 0; u < V; u++) {
+            int i = offsets[u];
+            for (T v : G.adj[u]) targets[i++] = v.getVertex();
+        }
+    }
+
+    /**
+     * Constructor used by subclasses which fill {@code offsets} and
+     * {@code targets} themselves.
+     * @param C the class of the vertices, null if unknown.
+     * @param vertices the vertices of the graph.
+     * @param E the number of edges in the graph.
+     */
+    protected CSRGraph(Class<T> C, T[] vertices, int E) {
+        this.C = C;
+        this.V = vertices.length;
+        this.E = E;
+        this.vertices = vertices;
+    }
+
+    /**
+     * Copy constructor. The structure arrays are shared since they are
+     * never modified, only the vertices are replaced.
+     * @param that the graph to copy.
+     * @param vertices the new vertices.
+     */
+    protected CSRGraph(CSRGraph<T> that, T[] vertices) {
+        this(that.C, vertices, that.E);
+        this.offsets = that.offsets;
+        this.targets = that.targets;
+    }
+
+    /**
+     * Creates a new array of fresh vertices of class {@code C}.
+     * @throws UnsupportedOperationException if C is null.
+     */
+    @SuppressWarnings("unchecked")
+    protected T[] newVerticesArray() {
+        if (C == null) {
+            throw new UnsupportedOperationException("C is null");
+        }
+        T[] arr = (T[]) new VertexInterface[V];
+        for (int i = 0; i < V; i++) {
+            try {
+                arr[i] = C.getDeclaredConstructor(Integer.class).newInstance(i);
+            } catch (Exception ex) {
+                System.out.println(ex.toString());
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     * @Return V the number of vertices.
+     */
+    @Override
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     * @Return E the number of edges.
+     */
+    @Override
+    public int E() {
+        return E;
+    }
+
+    /**
+     * Returns the number of edges leaving a vertex.
+     * @param u the index of the vertex.
+     * @throws IllegalArgumentException if u is invalid.
+     */
+    public int degree(int u) {
+        validateVertex(u);
+        return offsets[u + 1] - offsets[u];
+    }
+
+    /**
+     * Returns the index of the first edge of the vertex u.
+     * <p>The edges of u are the indexes from {@code begin(u)} inclusive to
+     * {@code end(u)} exclusive, to be used with {@code target(i)}.
+     * @param u the index of the vertex.
+     */
+    public int begin(int u) {
+        return offsets[u];
+    }
+
+    /**
+     * Returns the index after the last edge of the vertex u.
+     * @param u the index of the vertex.
+     */
+    public int end(int u) {
+        return offsets[u + 1];
+    }
+
+    /**
+     * Returns the vertex an edge is incident to.
+     * @param i the index of the edge.
+     */
+    public int target(int i) {
+        return targets[i];
+    }
+
+    /**
+     * Returns an iterable of the adjacecy vertices of a vertex v.
+     * @param x the vertex to get the adjacency list for.
+     * @throws IllegalArgumentException if v is invalid.
+     */
+    @Override
+    public Iterable<T> adj(T x) {
+        return adj(x.getVertex());
+    }
+
+    /**
+     * Returns an iterable of the adjacecy vertices of a vertex v.
+     * @param v the vertex index to get the adjacency list for.
+     * @throws IllegalArgumentException if v is invalid.
+     */
+    public Iterable<T> adj(int v) {
+        validateVertex(v);
+        final int from = offsets[v];
+        final int to = offsets[v + 1];
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new AdjacencyIterator(from, to);
+            }
+        };
+    }
+
+    /**
+     * Iterates over the vertices stored in a block of the targets array.
+     */
+    private class AdjacencyIterator implements Iterator<T> {
+        private int i;
+        private final int to;
+
+        public AdjacencyIterator(int from, int to) {
+            this.i = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return i < to;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return vertices[targets[i++]];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * CSR graphs are immutable.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void addEdge(int x, int y) {
+        throw new UnsupportedOperationException("CSR graphs are immutable");
+    }
+
+    /**
+     * Clones the graph.
+     * Only the vertices are copied, the edge arrays are shared between the
+     * two graphs as they are never modified. Takes <em>O(V)</em>.
+     * @return a copy of the graph.
+     * @throws UnsupportedOperationException if C is null
+     */
+    @Override
+    public CSRGraph<T> copy() {
+        return new CSRGraph<>(this, newVerticesArray());
+    }
+
+    /**
+     * Validates vertices to be within valid values: 0 and V-1.
+     * @param v vertex to be validated.
+     * @throws IllegalArgumentException if v is invalid.
+     */
+    @Override
+    public void validateVertex(int v) {
+        if (v < 0 || v >= V) {
+            String err = "vertex " + v + " is not between 0 and " + (V - 1);
+            throw new IllegalArgumentException(err);
+        }
+    }
+
+    /**
+     * Gets the stored vertex at a given index.
+     * @param v the index of the vertex to find.
+     * @throws IllegalArgumentException if the index v is invalid.
+     */
+    @Override
+    public T getVertex(int v) {
+        validateVertex(v);
+        return vertices[v];
+    }
+
+    /**
+     * Returns an iterator which iterates over all the stored vertices.
+     * @return vertices array as a {@code List<T>}.
+     */
+    @Override
+    public Iterable<T> getVertices() {
+        return Arrays.asList(vertices);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("V: " + V + ", E: " + E + "\n");
+        for (int u = 0; u < V; u++) {
+            builder.append("[" + u + "]: ");
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                builder.append(vertices[targets[i]] + " ");
+            }
+            if (u < V - 1) builder.append("\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Unit tests.
+     * 0---1
+     * |  /|\
+     * | / | 2
+     * |/  |/
+     * 4---3
+     * Should have the same adjacency lists as the original graph.
+     */
+    public static void main(String[] args) {
+        Graph<Vertex> G = new Graph<>(Vertex.class, 5);
+        G.addEdge(0, 1);
+        G.addEdge(0, 4);
+        G.addEdge(1, 3);
+        G.addEdge(1, 4);
+        G.addEdge(2, 1);
+        G.addEdge(2, 3);
+        G.addEdge(3, 4);
+        System.out.println(G);
+        CSRGraph<Vertex> CSR = new CSRGraph<>(G);
+        System.out.println(CSR);
+        System.out.println("degree(1): " + CSR.degree(1));
+    }
+}
@@ -0,0 +1,332 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free disjoint-set forests, for unions and queries from many threads
+ * at once.
+ * <p>The parents of the nodes are held in an {@code AtomicIntegerArray}.
+ * A root is linked below another root by a compare-and-set of its parent
+ * from itself, which fails if another thread linked it first, in which
+ * case the union starts again from the new roots. A rank cannot be changed
+ * together with a parent by one compare-and-set, so the roots are linked
+ * by a fixed random priority instead, the root of lower priority below the
+ * other, which gives trees of expected logarithmic depth as well. The
+ * priority of node x mixes x with a random seed drawn for every instance
+ * by xor-shifts and multiplications by odd constants, as an unsigned int.
+ * Every step can be inverted, so the priorities of the nodes are all
+ * different, and since the seed is unknown in advance, no order of unions
+ * can build deep trees on purpose.
+ * <p>{@code findSet} halves the path to the root like
+ * {@link DisjointSetForests}, by compare-and-sets which may fail without
+ * harm: a node only ever moves closer to its root.
+ * <p>{@code union} and {@code isConnected} on the same sets from several
+ * threads are linearizable. The batch operations split arrays of pairs
+ * over a fork/join pool, in pieces of {@code GRAIN} pairs.
+ */
+public class ConcurrentDisjointSets {
+    static final int GRAIN = 1 << 12;
+    private final int n;
+    private final AtomicIntegerArray parent;
+    private final ForkJoinPool pool;
+    private final int seed; // the seed of the priorities
+
+    /**
+     * Constructor, runs the batch operations on the common fork/join pool.
+     * @param n the number of nodes.
+     * @throws IllegalArgumentException if n is less or equal to 0.
+     */
+    public ConcurrentDisjointSets(int n) {
+        this(n, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor. Every node starts in a set of its own.
+     * @param n the number of nodes.
+     * @param pool the pool running the batch operations.
+     * @throws IllegalArgumentException if n is less or equal to 0.
+     */
+    public ConcurrentDisjointSets(int n, ForkJoinPool pool) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Invalid n: " + n);
+        }
+        this.n = n;
+        this.pool = pool;
+        this.parent = new AtomicIntegerArray(n);
+        this.seed = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    /**
+     * Finds the representitive root of a tree set.
+     * @param x a member of the set.
+     * @throws IllegalArgumentException if x is an invalid node.
+     */
+    public int findSet(int x) {
+        check(x);
+        return find(x);
+    }
+
+    private int find(int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) {
+                return x;
+            }
+            int g = parent.get(p);
+            if (p != g) {
+                parent.compareAndSet(x, p, g);
+            }
+            x = g;
+        }
+    }
+
+    /**
+     * Merges two sets into one by linking their roots together.
+     * @param x a member of the first set.
+     * @param y a member of the second set.
+     * @return true if this call merged the sets, false if x and y were
+     *         already in the same set.
+     * @throws IllegalArgumentException if x or y are invalid nodes.
+     */
+    public boolean union(int x, int y) {
+        check(x);
+        check(y);
+        while (true) {
+            x = find(x);
+            y = find(y);
+            if (x == y) {
+                return false;
+            }
+            boolean below = Integer.compareUnsigned(priority(x),
+                    priority(y)) < 0;
+            if (below ? parent.compareAndSet(x, x, y)
+                    : parent.compareAndSet(y, y, x)) {
+                return true;
+            }
+        }
+    }
+
+    private int priority(int x) {
+        int h = (x ^ seed) * 0x9E3779B9;
+        h = (h ^ (h >>> 16)) * 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    /**
+     * Returns the number of links from a node to its root, without
+     * changing the path.
+     */
+    private int depth(int x) {
+        int d = 0;
+        for (int p; (p = parent.get(x)) != x; x = p) d++;
+        return d;
+    }
+
+    /**
+     * Tests if two nodes are within the same set.
+     * @param x the first node.
+     * @param y the second node.
+     * @throws IllegalArgumentException if x or y are invalid nodes.
+     */
+    public boolean isConnected(int x, int y) {
+        check(x);
+        check(y);
+        while (true) {
+            x = find(x);
+            y = find(y);
+            if (x == y) {
+                return true;
+            }
+            // x was still a root after y was found, so they were different
+            // sets at that moment
+            if (parent.get(x) == x) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Merges the sets of the pairs {@code (x[i], y[i])} in parallel.
+     * The pairs which merged two sets form a spanning forest of the pairs.
+     * @param x the first members of the pairs.
+     * @param y the second members of the pairs.
+     * @param merged set to true for the pairs which merged two sets, or
+     *        null.
+     * @throws IllegalArgumentException if the arrays are of different
+     *         lengths or hold an invalid node.
+     */
+    public void union(int[] x, int[] y, boolean[] merged) {
+        check(x, y, merged);
+        pool.invoke(new Batch(true, x, y, merged, 0, x.length));
+    }
+
+    /**
+     * Tests in parallel if the pairs {@code (x[i], y[i])} are within the
+     * same set, for instance to filter out the edges which would close a
+     * cycle before sorting the others.
+     * @param x the first members of the pairs.
+     * @param y the second members of the pairs.
+     * @param connected set to whether the members of a pair are connected.
+     * @throws IllegalArgumentException if the arrays are of different
+     *         lengths or hold an invalid node.
+     */
+    public void isConnected(int[] x, int[] y, boolean[] connected) {
+        if (connected == null) {
+            throw new IllegalArgumentException("no result array");
+        }
+        check(x, y, connected);
+        pool.invoke(new Batch(false, x, y, connected, 0, x.length));
+    }
+
+    /**
+     * Returns the number of sets. Not linearizable with concurrent unions.
+     */
+    public int count() {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (parent.get(i) == i) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void check(int x) {
+        if (x < 0 || x >= n) {
+            throw new IllegalArgumentException(x + " is out of bounds " + n);
+        }
+    }
+
+    private void check(int[] x, int[] y, boolean[] result) {
+        if (x.length != y.length
+                || (result != null && result.length != x.length)) {
+            throw new IllegalArgumentException("lengths do not match");
+        }
+    }
+
+    /**
+     * Unions or queries of the pairs lo to hi-1, divided in halves until a
+     * half holds about {@code GRAIN} pairs.
+     */
+    private final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final boolean union;
+        final int[] x, y;
+        final boolean[] result;
+        final int lo, hi;
+
+        Batch(boolean union, int[] x, int[] y, boolean[] result, int lo,
+                int hi) {
+            this.union = union;
+            this.x = x;
+            this.y = y;
+            this.result = result;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Batch(union, x, y, result, lo, mid),
+                        new Batch(union, x, y, result, mid, hi));
+                return;
+            }
+            for (int i = lo; i < hi; i++) {
+                boolean b = union ? union(x[i], y[i])
+                        : isConnected(x[i], y[i]);
+                if (result != null) {
+                    result[i] = b;
+                }
+            }
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        ConcurrentDisjointSets S = new ConcurrentDisjointSets(10);
+        S.union(0, 1);
+        S.union(0, 2);
+        S.union(2, 1);
+        S.union(1, 3);
+        S.union(4, 5);
+        S.union(4, 6);
+        S.union(7, 8);
+        System.out.println("connected 0, 3? " + S.isConnected(0, 3)
+                + " expected true");
+        System.out.println("connected 1, 4? " + S.isConnected(1, 4)
+                + " expected false");
+        System.out.println("sets: " + S.count() + " expected 4");
+        // random pairs on a pool of several workers, against the
+        // sequential forests
+        Random rand = new Random(7);
+        int n = 200000, m = 150000;
+        int[] x = new int[m];
+        int[] y = new int[m];
+        for (int i = 0; i < m; i++) {
+            x[i] = rand.nextInt(n);
+            y[i] = rand.nextInt(n);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        S = new ConcurrentDisjointSets(n, pool);
+        boolean[] merged = new boolean[m];
+        S.union(x, y, merged);
+        DisjointSetForests D = new DisjointSetForests(n);
+        int merges = 0, forest = 0;
+        for (int i = 0; i < m; i++) {
+            if (D.union(x[i], y[i])) merges++;
+            if (merged[i]) forest++;
+        }
+        // the merging pairs alone connect the same sets
+        DisjointSetForests F = new DisjointSetForests(n);
+        for (int i = 0; i < m; i++) {
+            if (merged[i]) F.union(x[i], y[i]);
+        }
+        boolean[] connected = new boolean[m];
+        int[] z = new int[m];
+        for (int i = 0; i < m; i++) z[i] = rand.nextInt(n);
+        S.isConnected(x, z, connected);
+        int failures = 0;
+        for (int i = 0; i < m; i++) {
+            boolean c = D.isConnected(x[i], z[i]);
+            if (connected[i] != c || F.isConnected(x[i], z[i]) != c) {
+                failures++;
+            }
+        }
+        if (forest != merges || S.count() != n - merges) failures++;
+        pool.shutdown();
+        System.out.println(merges + " merges, " + failures + " differences"
+                + (failures == 0 ? " ok" : " FAILED"));
+        // a chain of a million unions, each one linking the root of the
+        // chain so far with a new node, in increasing order of the fixed
+        // priorities x * 0x9E3779B9, so that every new node would become
+        // the root and the chain a path. The random priorities keep the
+        // tree shallow.
+        n = 1 << 20;
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (Integer.toUnsignedLong(i * 0x9E3779B9) << 32) | i;
+        }
+        Arrays.sort(order);
+        S = new ConcurrentDisjointSets(n);
+        int root = (int) order[0];
+        for (int i = 1; i < n; i++) {
+            int v = (int) order[i];
+            S.union(root, v);
+            if (S.parent.get(root) != root) root = v;
+        }
+        int height = 0;
+        for (int i = 0; i < n; i++) height = Math.max(height, S.depth(i));
+        System.out.println("chain: height " + height
+                + (height <= 3 * 20 ? " ok" : " FAILED"));
+    }
+}
@@ -412,6 +412,14 @@ public class DepthFirstSearch {
         System.out.println("After dfs:");
         for (DFSVertex v : G.getVertices()) System.out.println(v);
 
+        // Testing dfs on the CSR representation of the graph.
+        CSRGraph<DFSVertex> CSR = new CSRGraph<>(DG.copy());
+        DepthFirstSearch.process(CSR);
+        System.out.println("After dfs (CSR):");
+        for (DFSVertex v : CSR.getVertices()) System.out.println(v);
+        System.out.print("The CSR graph is: ");
+        System.out.println(isCyclic(CSR) ? "cyclic" : "acyclic");
+
         // Testing isCyclic with a cyclic graph.
         G = DG.copy();
         System.out.println(G.toString());
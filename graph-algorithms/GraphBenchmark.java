@@ -0,0 +1,255 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the graph algorithms on random graphs, comparing the
+ * adjacency-list graphs to their CSR representation, and the addressable
+ * priority queues used by Dijkstra's and Prim's algorithms.
+ * <p>Every graph has {@code DEGREE * V} random edges with weights between 1
+ * and 100. The radix heap only supports keys that never go below the last
+ * minimum, so Prim's algorithm does not run on it.
+ * <p>Usage: {@code java -jar target/benchmarks.jar GraphBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+    private static final int DEGREE = 8;
+    private static final int MAX_WEIGHT = 100;
+
+    /**
+     * The random edges, without self-loops which undirected graphs forbid.
+     */
+    @State(Scope.Thread)
+    public abstract static class Edges {
+        @Param({"1000", "10000"})
+        public int V;
+        int[] from;
+        int[] to;
+        int[] weight;
+
+        void generate() {
+            Random rand = new Random(42);
+            from = new int[DEGREE * V];
+            to = new int[DEGREE * V];
+            weight = new int[DEGREE * V];
+            for (int i = 0; i < from.length; i++) {
+                from[i] = rand.nextInt(V);
+                to[i] = rand.nextInt(V - 1);
+                if (to[i] >= from[i]) to[i]++;
+                weight[i] = 1 + rand.nextInt(MAX_WEIGHT);
+            }
+        }
+    }
+
+    /**
+     * An unweighted graph, and fresh copies of it made before every
+     * invocation since the search writes into its vertices.
+     */
+    @State(Scope.Thread)
+    public static class Unweighted extends Edges {
+        Graph<BFSVertex> G;
+        CSRGraph<BFSVertex> CSR;
+        ParallelBFS<BFSVertex> parallel;
+        Graph<BFSVertex> copy;
+        CSRGraph<BFSVertex> csrCopy;
+        int[] d;
+        int[] parent;
+
+        @Setup(Level.Trial)
+        public void build() {
+            generate();
+            G = new Graph<>(BFSVertex.class, V);
+            for (int i = 0; i < from.length; i++) G.addEdge(from[i], to[i]);
+            CSR = new CSRGraph<>(G);
+            parallel = new ParallelBFS<>(CSR);
+            d = new int[V];
+            parent = new int[V];
+        }
+
+        @Setup(Level.Invocation)
+        public void copy() {
+            copy = G.copy();
+            csrCopy = CSR.copy();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Directed extends Edges {
+        WeightedDirectedGraph<ShortestPathVertex<Integer>, Integer> G;
+        WeightedCSRGraph<ShortestPathVertex<Integer>, Integer> CSR;
+        long[] d;
+        int[] pi;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void build() {
+            generate();
+            ShortestPathVertex<Integer>[] vertices =
+                    (ShortestPathVertex<Integer>[]) new ShortestPathVertex[V];
+            for (int i = 0; i < V; i++) {
+                vertices[i] = new ShortestPathVertex<Integer>(i);
+            }
+            G = new WeightedDirectedGraph<>(vertices);
+            for (int i = 0; i < from.length; i++) {
+                G.addEdge(from[i], to[i], weight[i]);
+            }
+            CSR = new WeightedCSRGraph<>(G);
+            d = new long[V];
+            pi = new int[V];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DirectedQueue extends Directed {
+        @Param({"DARY", "FIBONACCI", "PAIRING", "RADIX"})
+        public String queue;
+        AddressablePriorityQueue Q;
+
+        @Setup(Level.Trial)
+        public void create() {
+            Q = queue(queue, V);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Undirected extends Edges {
+        WeightedGraph<Vertex, Integer> G;
+        WeightedCSRGraph<Vertex, Integer> CSR;
+        ParallelMST<Vertex, Integer> parallel;
+        int[] tree;
+
+        @Setup(Level.Trial)
+        public void build() {
+            generate();
+            G = new WeightedGraph<>(Vertex.class, V);
+            for (int i = 0; i < from.length; i++) {
+                G.addEdge(from[i], to[i], weight[i]);
+            }
+            CSR = new WeightedCSRGraph<>(G);
+            parallel = new ParallelMST<>(CSR);
+            tree = new int[V];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UndirectedQueue extends Undirected {
+        @Param({"DARY", "FIBONACCI", "PAIRING"})
+        public String queue;
+        AddressablePriorityQueue Q;
+
+        @Setup(Level.Trial)
+        public void create() {
+            Q = queue(queue, V);
+        }
+    }
+
+    /**
+     * Returns the queue of the given kind for n vertices.
+     */
+    private static AddressablePriorityQueue queue(String kind, int n) {
+        switch (kind) {
+            case "DARY":
+                return new IndexedDaryHeap(n);
+            case "FIBONACCI":
+                return new IndexedFibonacciHeap(n);
+            case "PAIRING":
+                return new IndexedPairingHeap(n);
+            case "RADIX":
+                return new RadixHeap(n);
+            default:
+                throw new IllegalArgumentException("Invalid queue: " + kind);
+        }
+    }
+
+    @Benchmark
+    public Object bfs(Unweighted in) {
+        BreadthFirstSearch.process(in.copy, 0);
+        return in.copy;
+    }
+
+    @Benchmark
+    public Object bfsCSR(Unweighted in) {
+        BreadthFirstSearch.process(in.csrCopy, 0);
+        return in.csrCopy;
+    }
+
+    @Benchmark
+    public Object bfsParallel(Unweighted in) {
+        return in.parallel.search(0, in.d, in.parent);
+    }
+
+    @Benchmark
+    public Object dijkstra(Directed in) {
+        ShortestPath.Dijkstra(in.G, 0);
+        return in.G;
+    }
+
+    @Benchmark
+    public Object dijkstraCSR(Directed in) {
+        ShortestPath.Dijkstra(in.CSR, 0);
+        return in.CSR;
+    }
+
+    @Benchmark
+    public Object dijkstraPrimitive(Directed in) {
+        ShortestPath.Dijkstra(in.CSR, 0, in.d, in.pi);
+        return in.d;
+    }
+
+    @Benchmark
+    public Object dijkstraQueue(DirectedQueue in) {
+        ShortestPath.Dijkstra(in.CSR, 0, in.d, in.pi, in.Q);
+        return in.d;
+    }
+
+    @Benchmark
+    public Object kruskal(Undirected in) {
+        return MinimumSpanningTree.kruskal(in.G);
+    }
+
+    @Benchmark
+    public Object kruskalCSR(Undirected in) {
+        return MinimumSpanningTree.kruskal(in.CSR);
+    }
+
+    @Benchmark
+    public Object prim(Undirected in) {
+        return MinimumSpanningTree.prim(in.G);
+    }
+
+    @Benchmark
+    public Object primCSR(Undirected in) {
+        return MinimumSpanningTree.prim(in.CSR);
+    }
+
+    @Benchmark
+    public Object primQueue(UndirectedQueue in) {
+        return MinimumSpanningTree.prim(in.CSR, in.Q);
+    }
+
+    @Benchmark
+    public Object boruvka(Undirected in) {
+        return in.parallel.boruvka(in.tree);
+    }
+
+    @Benchmark
+    public Object filterKruskal(Undirected in) {
+        return in.parallel.filterKruskal(in.tree);
+    }
+}
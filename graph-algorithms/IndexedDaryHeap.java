@@ -0,0 +1,227 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Indexed d-ary min-heap priority queue of integer elements with primitive
+ * {@code long} keys.
+ * <p>The elements are the integers 0 to n-1 (vertex indexes), each element
+ * can be in the queue at most once. The heap keeps the position of every
+ * element so {@code decreaseKey} can find it in constant time and let it
+ * swim up the heap.
+ * <p>All arrays are allocated by the constructor, no operation allocates
+ * memory afterwards.
+ * <p>A node at position i has the children d*i + 1 to d*i + d. A larger d
+ * makes the heap shallower, which speeds up {@code decreaseKey} at the cost
+ * of more comparisons in {@code extractMin}.
+ * <p>Running time of {@code insert} and {@code decreaseKey} is
+ * <em>O(log_d(n))</em>, and of {@code extractMin} <em>O(d log_d(n))</em>.
+ */
+public class IndexedDaryHeap implements AddressablePriorityQueue {
+    public static final int NIL = -1;
+    private static final int DEFAULT_ARITY = 4;
+    private final int d; // the number of children of each node
+    private final int[] heap; // the elements in heap order
+    private final int[] position; // position of each element in the heap
+    private final long[] keys; // key of each element
+    private int n; // the number of elements in the heap
+
+    /**
+     * Constructor.
+     * @param capacity the number of possible elements, 0 to capacity-1.
+     * @param d the number of children of each node.
+     * @throws IllegalArgumentException if capacity is negative or d < 2.
+     */
+    public IndexedDaryHeap(int capacity, int d) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        } else if (d < 2) {
+            throw new IllegalArgumentException("Invalid arity: " + d);
+        }
+        this.d = d;
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new long[capacity];
+        clear();
+    }
+
+    /**
+     * Constructor using a 4-ary heap.
+     * @param capacity the number of possible elements, 0 to capacity-1.
+     */
+    public IndexedDaryHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Removes all elements from the heap in <em>O(capacity)</em>.
+     */
+    public void clear() {
+        this.n = 0;
+        for (int i = 0; i < position.length; i++) position[i] = NIL;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Checks if an element is in the queue.
+     * @param v the element.
+     */
+    public boolean contains(int v) {
+        validateElement(v);
+        return position[v] != NIL;
+    }
+
+    /**
+     * Returns the key of an element in the queue.
+     * @param v the element.
+     * @throws NoSuchElementException if v is not in the queue.
+     */
+    public long keyOf(int v) {
+        if (!contains(v)) {
+            throw new NoSuchElementException(v + " is not in the queue");
+        }
+        return keys[v];
+    }
+
+    /**
+     * Inserts an element to the queue.
+     * @param v the element.
+     * @param key the key of the element.
+     * @throws IllegalArgumentException if v is already in the queue.
+     */
+    public void insert(int v, long key) {
+        if (contains(v)) {
+            throw new IllegalArgumentException(v + " is already in the queue");
+        }
+        keys[v] = key;
+        heap[n] = v;
+        position[v] = n;
+        n++;
+        swim(n - 1);
+    }
+
+    /**
+     * Decreases the key of an element in the queue.
+     * @param v the element.
+     * @param key the new key.
+     * @throws NoSuchElementException if v is not in the queue.
+     * @throws IllegalArgumentException if the new key is greater.
+     */
+    public void decreaseKey(int v, long key) {
+        if (key > keyOf(v)) {
+            throw new IllegalArgumentException("new key should be smaller");
+        }
+        keys[v] = key;
+        swim(position[v]);
+    }
+
+    /**
+     * Returns the element with the minimum key without removing it.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int minimum() {
+        if (n == 0) {
+            throw new NoSuchElementException("heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Removes and returns the element with the minimum key.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int extractMin() {
+        int min = minimum();
+        n--;
+        position[min] = NIL;
+        if (n > 0) {
+            heap[0] = heap[n];
+            position[heap[0]] = 0;
+            sink(0);
+        }
+        return min;
+    }
+
+    /**
+     * Moves the element at position i up until its parent is smaller.
+     * The element is held aside and parents are shifted down, which saves
+     * half the writes of swapping at every level.
+     */
+    private void swim(int i) {
+        int v = heap[i];
+        long key = keys[v];
+        while (i > 0) {
+            int p = (i - 1) / d;
+            int u = heap[p];
+            if (keys[u] <= key) break;
+            heap[i] = u;
+            position[u] = i;
+            i = p;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    /**
+     * Moves the element at position i down until all its children are
+     * greater.
+     */
+    private void sink(int i) {
+        int v = heap[i];
+        long key = keys[v];
+        while (true) {
+            int first = d * i + 1;
+            if (first >= n) break;
+            int last = Math.min(first + d, n);
+            int smallest = first;
+            for (int c = first + 1; c < last; c++) {
+                if (keys[heap[c]] < keys[heap[smallest]]) smallest = c;
+            }
+            int u = heap[smallest];
+            if (keys[u] >= key) break;
+            heap[i] = u;
+            position[u] = i;
+            i = smallest;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    private void validateElement(int v) {
+        if (v < 0 || v >= position.length) {
+            throw new IllegalArgumentException("invalid element: " + v);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("[element]: key\n");
+        for (int i = 0; i < n; i++) {
+            s.append("[" + heap[i] + "]: " + keys[heap[i]] + "\n");
+        }
+        return s.toString();
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        long[] keys = {7, 2, 8, 9, 10, 1, 3, 6, 4, 5};
+        IndexedDaryHeap Q = new IndexedDaryHeap(keys.length, 3);
+        for (int i = 0; i < keys.length; i++) Q.insert(i, keys[i]);
+        Q.decreaseKey(4, 0);
+        Q.decreaseKey(3, 2);
+        // keys should be printed in ascending order
+        while (!Q.isEmpty()) {
+            long key = Q.keyOf(Q.minimum());
+            System.out.print(Q.extractMin() + ":" + key + " ");
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,360 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Indexed Fibonacci min-heap of integer elements with primitive
+ * {@code long} keys.
+ * <p>The elements are the integers 0 to n-1 (vertex indexes), each element
+ * can be in the queue at most once, and the element is its own handle: the
+ * node of element v is the vth slot of parallel arrays holding the key,
+ * parent, child, siblings, degree and mark of every node.
+ * <p>The heap is a collection of heap-ordered trees with their roots in a
+ * circular doubly linked list. {@code insert} only adds a root and
+ * {@code decreaseKey} cuts the node from its parent and its marked
+ * ancestors, so both run in <em>O(1)</em> amortized time, which gives
+ * Dijkstra's and Prim's algorithms their <em>O(E + V lg V)</em> bound.
+ * {@code extractMin} links the roots of the same degree in
+ * <em>O(lg n)</em> amortized time.
+ * <p>All arrays are allocated by the constructor, consolidation reuses one
+ * buffer indexed by degree, and no operation allocates memory afterwards.
+ */
+public class IndexedFibonacciHeap implements AddressablePriorityQueue {
+    public static final int NIL = -1;
+    private static final int FREE = -2; // the parent of an absent element
+    // the degree of a node is at most log_phi(n) < 45 for any int n
+    private static final int MAX_DEGREE = 46;
+    private final long[] keys;
+    private final int[] parent;
+    private final int[] child; // any one of the children
+    private final int[] left;
+    private final int[] right;
+    private final int[] degree; // the number of children
+    private final boolean[] mark; // lost a child since it became a child
+    private final int[] aux = new int[MAX_DEGREE]; // consolidation buffer
+    private int min = NIL; // the root with the minimum key
+    private int n; // the number of elements in the heap
+
+    /**
+     * Constructor.
+     * @param capacity the number of possible elements, 0 to capacity-1.
+     * @throws IllegalArgumentException if capacity is negative.
+     */
+    public IndexedFibonacciHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.keys = new long[capacity];
+        this.parent = new int[capacity];
+        this.child = new int[capacity];
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.degree = new int[capacity];
+        this.mark = new boolean[capacity];
+        clear();
+    }
+
+    /**
+     * Removes all elements from the heap in <em>O(capacity)</em>.
+     */
+    public void clear() {
+        this.n = 0;
+        this.min = NIL;
+        for (int i = 0; i < parent.length; i++) parent[i] = FREE;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Checks if an element is in the queue.
+     * @param v the element.
+     */
+    public boolean contains(int v) {
+        validateElement(v);
+        return parent[v] != FREE;
+    }
+
+    /**
+     * Returns the key of an element in the queue.
+     * @param v the element.
+     * @throws NoSuchElementException if v is not in the queue.
+     */
+    public long keyOf(int v) {
+        if (!contains(v)) {
+            throw new NoSuchElementException(v + " is not in the queue");
+        }
+        return keys[v];
+    }
+
+    /**
+     * Inserts an element to the queue as a new root.
+     * @param v the element.
+     * @param key the key of the element.
+     * @throws IllegalArgumentException if v is already in the queue.
+     */
+    public void insert(int v, long key) {
+        if (contains(v)) {
+            throw new IllegalArgumentException(v + " is already in the queue");
+        }
+        keys[v] = key;
+        parent[v] = NIL;
+        child[v] = NIL;
+        degree[v] = 0;
+        mark[v] = false;
+        addRoot(v);
+        if (min == NIL || key < keys[min]) this.min = v;
+        n++;
+    }
+
+    /**
+     * Decreases the key of an element in the queue. If the key becomes less
+     * than the key of its parent, the node is cut and added to the root
+     * list, then all its marked ancestors are cut too.
+     * @param v the element.
+     * @param key the new key.
+     * @throws NoSuchElementException if v is not in the queue.
+     * @throws IllegalArgumentException if the new key is greater.
+     */
+    public void decreaseKey(int v, long key) {
+        if (key > keyOf(v)) {
+            throw new IllegalArgumentException("new key should be smaller");
+        }
+        keys[v] = key;
+        int y = parent[v];
+        if (y != NIL && key < keys[y]) {
+            cut(v, y);
+            cascadeCut(y);
+        }
+        if (key < keys[min]) this.min = v;
+    }
+
+    /**
+     * Returns the element with the minimum key without removing it.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int minimum() {
+        if (n == 0) {
+            throw new NoSuchElementException("heap is empty");
+        }
+        return min;
+    }
+
+    /**
+     * Removes and returns the element with the minimum key.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int extractMin() {
+        int z = minimum();
+        // move the children of z to the root list
+        int x = child[z];
+        for (int i = degree[z]; i > 0; i--) {
+            int next = right[x];
+            parent[x] = NIL;
+            addRoot(x);
+            x = next;
+        }
+        // remove z from the root list
+        right[left[z]] = right[z];
+        left[right[z]] = left[z];
+        if (right[z] == z) {
+            this.min = NIL;
+        } else {
+            this.min = right[z];
+            consolidate();
+        }
+        parent[z] = FREE;
+        n--;
+        return z;
+    }
+
+    /**
+     * Removes an element from the queue, as if its key were decreased to
+     * minus infinity and extracted.
+     * @param v the element.
+     * @throws NoSuchElementException if v is not in the queue.
+     */
+    public void delete(int v) {
+        if (!contains(v)) {
+            throw new NoSuchElementException(v + " is not in the queue");
+        }
+        int y = parent[v];
+        if (y != NIL) {
+            cut(v, y);
+            cascadeCut(y);
+        }
+        this.min = v;
+        extractMin();
+    }
+
+    /**
+     * Links the roots until no two roots have the same degree, and finds
+     * the new minimum. aux[d] is the root of degree d found so far.
+     */
+    private void consolidate() {
+        int roots = 0;
+        int maxDegree = 0;
+        int w = min;
+        do {
+            roots++;
+            maxDegree = Math.max(maxDegree, degree[w]);
+            w = right[w];
+        } while (w != min);
+        // linking two roots of degree d makes one of degree d + 1, so the
+        // largest degree grows by at most lg(roots)
+        int size = Math.min(aux.length,
+                maxDegree + 33 - Integer.numberOfLeadingZeros(roots));
+        for (int d = 0; d < size; d++) aux[d] = NIL;
+        for (int i = 0; i < roots; i++) {
+            int x = w;
+            // w may become a child, the next root is saved first
+            w = right[w];
+            int d = degree[x];
+            while (aux[d] != NIL) {
+                int y = aux[d];
+                if (keys[y] < keys[x]) {
+                    int tmp = x;
+                    x = y;
+                    y = tmp;
+                }
+                link(y, x);
+                aux[d] = NIL;
+                d++;
+            }
+            aux[d] = x;
+        }
+        this.min = NIL;
+        for (int d = 0; d < size; d++) {
+            int x = aux[d];
+            if (x != NIL && (min == NIL || keys[x] < keys[min])) this.min = x;
+        }
+    }
+
+    /**
+     * Makes root y a child of root x.
+     */
+    private void link(int y, int x) {
+        right[left[y]] = right[y];
+        left[right[y]] = left[y];
+        int c = child[x];
+        if (c == NIL) {
+            left[y] = y;
+            right[y] = y;
+            child[x] = y;
+        } else {
+            left[y] = c;
+            right[y] = right[c];
+            left[right[c]] = y;
+            right[c] = y;
+        }
+        parent[y] = x;
+        degree[x]++;
+        mark[y] = false;
+    }
+
+    /**
+     * Removes node x from the children of its parent y and adds it to the
+     * root list.
+     */
+    private void cut(int x, int y) {
+        if (right[x] == x) {
+            child[y] = NIL;
+        } else {
+            if (child[y] == x) child[y] = right[x];
+            right[left[x]] = right[x];
+            left[right[x]] = left[x];
+        }
+        degree[y]--;
+        parent[x] = NIL;
+        mark[x] = false;
+        addRoot(x);
+    }
+
+    /**
+     * Cuts the marked ancestors of a node that lost a child, up to the
+     * first unmarked one, which gets marked unless it is a root.
+     */
+    private void cascadeCut(int y) {
+        int z = parent[y];
+        while (z != NIL) {
+            if (!mark[y]) {
+                mark[y] = true;
+                return;
+            }
+            cut(y, z);
+            y = z;
+            z = parent[y];
+        }
+    }
+
+    /**
+     * Adds a node next to the minimum in the root list, or as the only
+     * root.
+     */
+    private void addRoot(int x) {
+        if (min == NIL) {
+            left[x] = x;
+            right[x] = x;
+        } else {
+            left[x] = min;
+            right[x] = right[min];
+            left[right[min]] = x;
+            right[min] = x;
+        }
+    }
+
+    private void validateElement(int v) {
+        if (v < 0 || v >= parent.length) {
+            throw new IllegalArgumentException("invalid element: " + v);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("[element]: key\n");
+        if (min == NIL) return s.toString();
+        int x = min;
+        do {
+            append(s, x, 0);
+            x = right[x];
+        } while (x != min);
+        return s.toString();
+    }
+
+    /**
+     * Appends a tree, one node per line indented by its depth.
+     */
+    private void append(StringBuilder s, int x, int depth) {
+        for (int i = 0; i < depth; i++) s.append("  ");
+        s.append("[" + x + "]: " + keys[x] + "\n");
+        int c = child[x];
+        for (int i = degree[x]; i > 0; i--) {
+            append(s, c, depth + 1);
+            c = right[c];
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        long[] keys = {7, 2, 8, 9, 10, 1, 3, 6, 4, 5};
+        IndexedFibonacciHeap Q = new IndexedFibonacciHeap(keys.length);
+        for (int i = 0; i < keys.length; i++) Q.insert(i, keys[i]);
+        System.out.println(Q.extractMin() + ":1 extracted");
+        Q.decreaseKey(4, 0);
+        Q.decreaseKey(3, 2);
+        Q.delete(0);
+        System.out.print(Q);
+        // keys should be printed in ascending order, without 1 and 7
+        while (!Q.isEmpty()) {
+            long key = Q.keyOf(Q.minimum());
+            System.out.print(Q.extractMin() + ":" + key + " ");
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,235 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Indexed pairing min-heap of integer elements with primitive {@code long}
+ * keys.
+ * <p>The heap is one heap-ordered tree of any shape. Every node keeps its
+ * first child, its next sibling, and its previous sibling or its parent if
+ * it is a first child, in arrays indexed by element, so the element is the
+ * handle of its node.
+ * <p>Two trees are melded by making the root with the larger key the first
+ * child of the other root. {@code insert} melds a new single node with the
+ * root, and {@code decreaseKey} cuts the subtree of the node and melds it
+ * with the root, both in <em>O(1)</em> time. {@code extractMin} removes the
+ * root and melds its children in two passes: pairs from left to right,
+ * then the pairs from right to left, in <em>O(lg n)</em> amortized time.
+ * Decreasing a key takes <em>o(lg n)</em> amortized time, and pairing heaps
+ * are faster than Fibonacci heaps in practice because they do less work
+ * per operation.
+ * <p>All arrays are allocated by the constructor, the two passes reuse one
+ * buffer, and no operation allocates memory afterwards.
+ */
+public class IndexedPairingHeap implements AddressablePriorityQueue {
+    public static final int NIL = -1;
+    private static final int ABSENT = -2; // the prev of an absent element
+    private final long[] keys;
+    private final int[] child; // the first child
+    private final int[] next; // the next sibling
+    private final int[] prev; // the previous sibling, or the parent
+    private final int[] pairs; // the trees of the first pass
+    private int root = NIL;
+    private int n; // the number of elements in the heap
+
+    /**
+     * Constructor.
+     * @param capacity the number of possible elements, 0 to capacity-1.
+     * @throws IllegalArgumentException if capacity is negative.
+     */
+    public IndexedPairingHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.keys = new long[capacity];
+        this.child = new int[capacity];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.pairs = new int[capacity];
+        clear();
+    }
+
+    /**
+     * Removes all elements from the heap in <em>O(capacity)</em>.
+     */
+    public void clear() {
+        this.n = 0;
+        this.root = NIL;
+        for (int i = 0; i < prev.length; i++) prev[i] = ABSENT;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Checks if an element is in the queue.
+     * @param v the element.
+     */
+    public boolean contains(int v) {
+        validateElement(v);
+        return prev[v] != ABSENT;
+    }
+
+    /**
+     * Returns the key of an element in the queue.
+     * @param v the element.
+     * @throws NoSuchElementException if v is not in the queue.
+     */
+    public long keyOf(int v) {
+        if (!contains(v)) {
+            throw new NoSuchElementException(v + " is not in the queue");
+        }
+        return keys[v];
+    }
+
+    /**
+     * Inserts an element to the queue.
+     * @param v the element.
+     * @param key the key of the element.
+     * @throws IllegalArgumentException if v is already in the queue.
+     */
+    public void insert(int v, long key) {
+        if (contains(v)) {
+            throw new IllegalArgumentException(v + " is already in the queue");
+        }
+        keys[v] = key;
+        child[v] = NIL;
+        next[v] = NIL;
+        prev[v] = NIL;
+        this.root = root == NIL ? v : meld(root, v);
+        n++;
+    }
+
+    /**
+     * Decreases the key of an element in the queue, cutting its subtree
+     * from its parent and melding it with the root.
+     * @param v the element.
+     * @param key the new key.
+     * @throws NoSuchElementException if v is not in the queue.
+     * @throws IllegalArgumentException if the new key is greater.
+     */
+    public void decreaseKey(int v, long key) {
+        if (key > keyOf(v)) {
+            throw new IllegalArgumentException("new key should be smaller");
+        }
+        keys[v] = key;
+        if (v == root) return;
+        int p = prev[v];
+        if (child[p] == v) child[p] = next[v];
+        else next[p] = next[v];
+        if (next[v] != NIL) prev[next[v]] = p;
+        next[v] = NIL;
+        prev[v] = NIL;
+        this.root = meld(root, v);
+    }
+
+    /**
+     * Returns the element with the minimum key without removing it.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int minimum() {
+        if (n == 0) {
+            throw new NoSuchElementException("heap is empty");
+        }
+        return root;
+    }
+
+    /**
+     * Removes and returns the element with the minimum key.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int extractMin() {
+        int min = minimum();
+        // first pass: meld the children in pairs from left to right
+        int m = 0;
+        int x = child[min];
+        while (x != NIL) {
+            int y = next[x];
+            if (y == NIL) {
+                pairs[m++] = x;
+                break;
+            }
+            int z = next[y];
+            pairs[m++] = meld(x, y);
+            x = z;
+        }
+        // second pass: meld the pairs from right to left
+        int r = NIL;
+        for (int i = m - 1; i >= 0; i--) {
+            r = r == NIL ? pairs[i] : meld(pairs[i], r);
+        }
+        if (r != NIL) prev[r] = NIL;
+        this.root = r;
+        prev[min] = ABSENT;
+        n--;
+        return min;
+    }
+
+    /**
+     * Melds two trees and returns the root of the result. Their roots are
+     * detached from any siblings.
+     */
+    private int meld(int x, int y) {
+        if (keys[y] < keys[x]) {
+            int tmp = x;
+            x = y;
+            y = tmp;
+        }
+        // y becomes the first child of x
+        int c = child[x];
+        next[y] = c;
+        if (c != NIL) prev[c] = y;
+        prev[y] = x;
+        child[x] = y;
+        next[x] = NIL;
+        prev[x] = NIL;
+        return x;
+    }
+
+    private void validateElement(int v) {
+        if (v < 0 || v >= prev.length) {
+            throw new IllegalArgumentException("invalid element: " + v);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("[element]: key\n");
+        if (root != NIL) append(s, root, 0);
+        return s.toString();
+    }
+
+    /**
+     * Appends a tree, one node per line indented by its depth.
+     */
+    private void append(StringBuilder s, int x, int depth) {
+        for (int i = 0; i < depth; i++) s.append("  ");
+        s.append("[" + x + "]: " + keys[x] + "\n");
+        for (int c = child[x]; c != NIL; c = next[c]) {
+            append(s, c, depth + 1);
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        long[] keys = {7, 2, 8, 9, 10, 1, 3, 6, 4, 5};
+        IndexedPairingHeap Q = new IndexedPairingHeap(keys.length);
+        for (int i = 0; i < keys.length; i++) Q.insert(i, keys[i]);
+        System.out.println(Q.extractMin() + ":1 extracted");
+        Q.decreaseKey(4, 0);
+        Q.decreaseKey(3, 2);
+        System.out.print(Q);
+        // keys should be printed in ascending order
+        while (!Q.isEmpty()) {
+            long key = Q.keyOf(Q.minimum());
+            System.out.print(Q.extractMin() + ":" + key + " ");
+        }
+        System.out.println();
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 /**
  * Minimum spanning tree algorithms.
  * Works only on weighted, connected, undirected graphs.
@@ -26,15 +28,83 @@ public class MinimumSpanningTree {
         for (WeightedEdge<T, E> e : G.sortedEdges()) {
             int u = e.incidentFrom();
             int v = e.incidentTo();
-            // same as {@code if (!UF.isConnected(u, v))}
-            if (UF.findSet(u) != UF.findSet(v)) {
+            // union merges the sets only if u and v are not connected
+            if (UF.union(u, v)) {
                 MST.addEdge(u, v, e.getWeight());
-                UF.union(u, v);
             }
         }
         return MST;
     }
 
+    /**
+     * Kruskal minimum-spanning-tree algorithm on a graph in CSR format.
+     * Every undirected edge is stored twice in the graph, only the copy
+     * incident from the smaller vertex is sorted and scanned. The edges
+     * are sorted as indexes into the edge arrays of the graph, by their
+     * weights as longs, so nothing is allocated per edge.
+     * Running time <em>O(ElgV)</em>.
+     * @param G the weighted undirected graph in CSR format.
+     * @return {@code WeightedGraph<T, E>} the minimum-spanning-tree.
+     */
+    public static <T extends VertexInterface, E extends Number>
+            WeightedGraph<T, E> kruskal(WeightedCSRGraph<T, E> G) {
+        WeightedGraph<T, E> MST = G.newInstance();
+        int n = G.V();
+        int size = n == 0 ? 0 : G.end(n - 1);
+        int[] from = new int[size];
+        long[] key = new long[size];
+        int[] edges = new int[size];
+        int m = 0;
+        for (int u = 0; u < n; u++) {
+            for (int i = G.begin(u); i < G.end(u); i++) {
+                from[i] = u;
+                if (u < G.target(i)) {
+                    key[i] = sortableWeight(G, i);
+                    edges[m++] = i;
+                }
+            }
+        }
+        edges = sortByKey(edges, m, key);
+        DisjointSetForests UF = new DisjointSetForests(n);
+        for (int k = 0; k < m; k++) {
+            int i = edges[k];
+            int u = from[i];
+            int v = G.target(i);
+            if (UF.union(u, v)) {
+                MST.addEdge(u, v, G.weight(i));
+            }
+        }
+        return MST;
+    }
+
+    /**
+     * Sorts the first m edge indexes of an array by their keys with a
+     * bottom-up merge sort.
+     * @param a the edge indexes.
+     * @param m the number of edges to sort.
+     * @param key the keys of the edges, by edge index.
+     * @return the sorted edges, a or a new array.
+     */
+    private static int[] sortByKey(int[] a, int m, long[] key) {
+        int[] b = new int[m];
+        for (int width = 1; width < m; width *= 2) {
+            for (int lo = 0; lo < m; lo += 2 * width) {
+                int mid = Math.min(lo + width, m);
+                int hi = Math.min(lo + 2 * width, m);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    b[k++] = key[a[j]] < key[a[i]] ? a[j++] : a[i++];
+                }
+                while (i < mid) b[k++] = a[i++];
+                while (j < hi) b[k++] = a[j++];
+            }
+            int[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        return a;
+    }
+
     /**
      * Prim's algorithm for finding minimum spanning tree of a weighted graph.
      * It starts from an arbirary vertex and grows until it span all vertices
@@ -57,7 +127,7 @@ public class MinimumSpanningTree {
                 (WeightedVertex<T, E>[]) new WeightedVertex[n];
         for (int i = 0; i < n; i++) {
             WeightedVertex<T, E> v = new WeightedVertex<>(G.getVertex(i));
-            v.setKey(WeightedVertex.POSITIVE_INFINITY);
+            v.setKey(new NumericKey<E>(WeightedVertex.POSITIVE_INFINITY));
             v.parent = WeightedVertex.NIL;
             vertices[i] = v;
         }
@@ -71,7 +141,9 @@ public class MinimumSpanningTree {
         WeightedGraph<T, E> MST = G.newInstance();
         for (int i = 0; i < n; i++) {
             WeightedVertex<T, E> x = vertices[i];
-            if (x.parent != WeightedVertex.NIL) MST.addEdge(x.parent, i, x.key);
+            if (x.parent != WeightedVertex.NIL) {
+                MST.addEdge(x.parent, i, x.getWeight());
+            }
         }
         return MST;
     }
@@ -83,7 +155,7 @@ public class MinimumSpanningTree {
             void prim(WeightedGraph<T, E> G, 
                     WeightedVertex<T, E>[] vertices, int n, int r) {
         // set the weight of the source vertex to min value -inf
-        vertices[r].setKey(WeightedVertex.NEGATIVE_INFINITY);
+        vertices[r].setKey(new NumericKey<E>(WeightedVertex.NEGATIVE_INFINITY));
         // add all vertices to the priority queue and run prim algorithm
         // decreasing the weights of the stored vertices whenever we find
         // a smaller weight edge incident to them.
@@ -96,12 +168,95 @@ public class MinimumSpanningTree {
                 WeightedVertex<T, E> v = vertices[w.getVertex()];
                 if (Q.inQueue(v) && w.compareTo(v) == -1) {
                     v.parent = u.getVertex();
-                    Q.decreaseKey(v, w.key);
+                    Q.decreaseKey(v, w.getWeight());
                 }
             }
         }
     }
 
+    /**
+     * Prim's algorithm on a graph in CSR format.
+     * Same as above, but walks the edge arrays of the graph to find the
+     * light edges incident to each extracted vertex, with an
+     * {@code IndexedDaryHeap} of primitive keys.
+     * Running time <em>O(ElgV)</em>
+     * @param G the weighted undirected graph in CSR format.
+     * @return the minimum-spanning-tree of the graph.
+     */
+    public static <T extends VertexInterface, E extends Number>
+            WeightedGraph<T, E> prim(WeightedCSRGraph<T, E> G) {
+        return prim(G, new IndexedDaryHeap(G.V()));
+    }
+
+    /**
+     * Prim's algorithm on a graph in CSR format using any addressable
+     * priority queue.
+     * Works on vertex indexes and primitive keys: the queue holds the
+     * vertices reached but not yet in the tree, keyed by the weight of
+     * their lightest edge to the tree, and {@code edge} keeps the index of
+     * that edge. With an {@code IndexedFibonacciHeap} every lighter edge
+     * found decreases a key in <em>O(1)</em> amortized time.
+     * Double weights are queued by their IEEE bits with the magnitude bits
+     * of negative weights flipped, which orders them as the weights.
+     * The keys are not monotone, so a {@code RadixHeap} can not be used.
+     * The queue is supplied by the caller, with a capacity of at least V,
+     * so it can be reused; it is cleared first.
+     * Running time <em>O(E + VlgV)</em> with a Fibonacci heap,
+     * <em>O(ElgV)</em> with a binary heap.
+     * @param G the weighted undirected graph in CSR format.
+     * @param Q the queue.
+     * @return the minimum-spanning-tree of the graph.
+     */
+    public static <T extends VertexInterface, E extends Number>
+            WeightedGraph<T, E> prim(WeightedCSRGraph<T, E> G,
+                    AddressablePriorityQueue Q) {
+        int n = G.V();
+        int[] parent = new int[n];
+        int[] edge = new int[n];
+        boolean[] inTree = new boolean[n];
+        Arrays.fill(parent, NIL);
+        Arrays.fill(edge, NIL);
+        Q.clear();
+        for (int r = 0; r < n; r++) {
+            if (inTree[r]) continue;
+            Q.insert(r, Long.MIN_VALUE);
+            while (!Q.isEmpty()) {
+                int u = Q.extractMin();
+                inTree[u] = true;
+                for (int i = G.begin(u); i < G.end(u); i++) {
+                    int v = G.target(i);
+                    if (inTree[v]) continue;
+                    long w = sortableWeight(G, i);
+                    if (!Q.contains(v)) {
+                        Q.insert(v, w);
+                    } else if (w < Q.keyOf(v)) {
+                        Q.decreaseKey(v, w);
+                    } else {
+                        continue;
+                    }
+                    parent[v] = u;
+                    edge[v] = i;
+                }
+            }
+        }
+        WeightedGraph<T, E> MST = G.newInstance();
+        for (int v = 0; v < n; v++) {
+            if (parent[v] != NIL) MST.addEdge(parent[v], v, G.weight(edge[v]));
+        }
+        return MST;
+    }
+
+    /**
+     * Returns the weight of the ith edge as a long in the same order as the
+     * weights.
+     */
+    static <T extends VertexInterface, E extends Number>
+            long sortableWeight(WeightedCSRGraph<T, E> G, int i) {
+        if (G.isIntegral()) return G.longWeight(i);
+        long bits = Double.doubleToLongBits(G.doubleWeight(i));
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
     /**
      * Unit tests.
      */
@@ -145,5 +300,41 @@ public class MinimumSpanningTree {
         System.out.println(MinimumSpanningTree.kruskal(G));
         System.out.println("Minimum spanning tree (Prim): ");
         System.out.println(MinimumSpanningTree.prim(G));
+        WeightedCSRGraph<Vertex, Integer> CSR = new WeightedCSRGraph<>(G);
+        System.out.println("Minimum spanning tree (Kruskal, CSR): ");
+        System.out.println(MinimumSpanningTree.kruskal(CSR));
+        System.out.println("Minimum spanning tree (Prim, CSR): ");
+        System.out.println(MinimumSpanningTree.prim(CSR));
+        AddressablePriorityQueue[] queues = {
+            new IndexedDaryHeap(CSR.V()),
+            new IndexedFibonacciHeap(CSR.V()),
+            new IndexedPairingHeap(CSR.V())
+        };
+        for (AddressablePriorityQueue Q : queues) {
+            System.out.println("Minimum spanning tree (Prim, "
+                    + Q.getClass().getSimpleName() + "): ");
+            System.out.println(MinimumSpanningTree.prim(CSR, Q));
+        }
+        // testing a forest of two trees, every algorithm should find the
+        // edges 0-2, 1-2, 3-5 and 4-5
+        //        5           7
+        //     0-----1     3-----4
+        //      \   /       \   /
+        //      2\ /1       3\ /1
+        //        2           5
+        WeightedGraph<Vertex, Integer> F = new WeightedGraph<>(Vertex.class, 6);
+        F.addEdge(0, 1, 5);
+        F.addEdge(1, 2, 1);
+        F.addEdge(0, 2, 2);
+        F.addEdge(3, 4, 7);
+        F.addEdge(4, 5, 1);
+        F.addEdge(3, 5, 3);
+        WeightedCSRGraph<Vertex, Integer> FCSR = new WeightedCSRGraph<>(F);
+        System.out.println("Minimum spanning forest (Kruskal): ");
+        System.out.println(MinimumSpanningTree.kruskal(F));
+        System.out.println("Minimum spanning forest (Kruskal, CSR): ");
+        System.out.println(MinimumSpanningTree.kruskal(FCSR));
+        System.out.println("Minimum spanning forest (Prim, CSR): ");
+        System.out.println(MinimumSpanningTree.prim(FCSR));
     }
 }
@@ -55,6 +55,41 @@ public class NumberUtility {
         return Integer.valueOf(0);
     }
 
+    /**
+     * Checks if a {@code Number} type reference holds whole numbers only.
+     * @return false for {@code Double} and {@code Float}, true otherwise.
+     */
+    public static <E extends Number> boolean isIntegral(E typeReference) {
+        return !(typeReference instanceof Double)
+                && !(typeReference instanceof Float);
+    }
+
+    /**
+     * Converts a primitive value to the type of a {@code Number} type
+     * reference. {@code Integer} is used if the reference is null.
+     */
+    public static <E extends Number> Number valueOf(long value,
+            E typeReference) {
+        if (typeReference instanceof Long) return Long.valueOf(value);
+        if (typeReference instanceof Short) return Short.valueOf((short) value);
+        if (typeReference instanceof Double) return Double.valueOf(value);
+        if (typeReference instanceof Float) return Float.valueOf(value);
+        return Integer.valueOf((int) value);
+    }
+
+    /**
+     * Converts a primitive value to the type of a {@code Number} type
+     * reference. {@code Double} is used if the reference is null.
+     */
+    public static <E extends Number> Number valueOf(double value,
+            E typeReference) {
+        if (typeReference == null || typeReference instanceof Double) {
+            return Double.valueOf(value);
+        }
+        if (typeReference instanceof Float) return Float.valueOf((float) value);
+        return valueOf((long) value, typeReference);
+    }
+
     private static Float toFloat(Number a) {
         return Float.valueOf(a.floatValue());
     }
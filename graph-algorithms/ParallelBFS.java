@@ -0,0 +1,363 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous parallel breadth-first-search on an undirected graph
+ * in CSR format, switching between top-down and bottom-up steps.
+ * <p>The graph is only read, and the distances and parents are written to
+ * arrays supplied by the caller instead of the vertices, so any number of
+ * searches can run on the same graph at once.
+ * <p>Every step visits the vertices of the next level, from the frontier
+ * of the current level, in one of two ways:
+ * <ul>
+ *   <li>top-down, the vertices of the frontier, held in an array, scan
+ *       their edges and claim the unvisited neighbours by a compare-and-set
+ *       on a bitmap of the visited vertices. It costs the number of edges
+ *       of the frontier.
+ *   <li>bottom-up, every unvisited vertex scans its edges until it finds a
+ *       neighbour in the frontier, held in a bitmap. It costs at most the
+ *       number of edges of the unvisited vertices, but a vertex stops at
+ *       its first parent, so when the frontier holds a large part of the
+ *       graph most scans stop early.
+ * </ul>
+ * The search starts top-down and goes bottom-up when the edges of the
+ * frontier are more than 1/{@code ALPHA} of those of the unvisited
+ * vertices while the frontier grows, then top-down again when the
+ * frontier holds less than 1/{@code BETA} of the vertices while it
+ * shrinks. On graphs of small diameter the few large middle levels are
+ * then searched bottom-up, which skips most edges.
+ * <p>The steps split the frontier or the vertices in pieces of
+ * {@code GRAIN} over a fork/join pool. The bottom-up pieces start at
+ * multiples of 64, so every word of the bitmaps of the next level is
+ * written by one task only.
+ */
+public class ParallelBFS<T extends VertexInterface> {
+    public static final int INFINITY = Integer.MAX_VALUE;
+    public static final int NIL = -1;
+    static final int ALPHA = 14;
+    static final int BETA = 24;
+    static final int GRAIN = 1 << 12;
+    // the vertices found by a top-down piece are appended in blocks
+    private static final int BLOCK = 256;
+    private final CSRGraph<T> G;
+    private final int n;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor, runs on the common fork/join pool.
+     * @param G the undirected graph in CSR format.
+     */
+    public ParallelBFS(CSRGraph<T> G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor.
+     * @param G the undirected graph in CSR format.
+     * @param pool the pool running the tasks.
+     */
+    public ParallelBFS(CSRGraph<T> G, ForkJoinPool pool) {
+        this.G = G;
+        this.n = G.V();
+        this.pool = pool;
+    }
+
+    /**
+     * Searches the graph from a source vertex.
+     * @param s the index of the source vertex.
+     * @param d set to the distance of every vertex from s, or
+     *        {@code INFINITY} if it is not reachable.
+     * @param parent set to the parent of every vertex in the
+     *        breadth-first-tree, or {@code NIL} for s and the vertices not
+     *        reachable.
+     * @return the number of vertices reachable from s.
+     * @throws IllegalArgumentException if s is an invalid vertex or an
+     *         array is shorter than V.
+     */
+    public int search(int s, int[] d, int[] parent) {
+        G.validateVertex(s);
+        if (d.length < n || parent.length < n) {
+            throw new IllegalArgumentException("arrays shorter than " + n);
+        }
+        return new Search(d, parent).run(s);
+    }
+
+    /**
+     * The state of one search.
+     */
+    private final class Search {
+        final int[] d, parent;
+        final AtomicLongArray visited;
+        int[] queue, next; // the frontier and the next level, top-down
+        long[] frontier, found; // the same as bitmaps, bottom-up
+        final AtomicInteger tail = new AtomicInteger();
+        final AtomicLong edges = new AtomicLong();
+        int level;
+
+        Search(int[] d, int[] parent) {
+            this.d = d;
+            this.parent = parent;
+            int words = (n + 63) >>> 6;
+            this.visited = new AtomicLongArray(words);
+            this.queue = new int[n];
+            this.next = new int[n];
+            this.frontier = new long[words];
+            this.found = new long[words];
+        }
+
+        int run(int s) {
+            Arrays.fill(d, 0, n, INFINITY);
+            Arrays.fill(parent, 0, n, NIL);
+            d[s] = 0;
+            visited.set(s >>> 6, 1L << s);
+            queue[0] = s;
+            int size = 1, reached = 1;
+            long frontierEdges = G.degree(s);
+            long unvisitedEdges = G.end(n - 1) - frontierEdges;
+            boolean bottomUp = false, growing = true;
+            while (size > 0) {
+                if (!bottomUp && growing
+                        && frontierEdges > unvisitedEdges / ALPHA) {
+                    bottomUp = true;
+                    Arrays.fill(frontier, 0);
+                    for (int i = 0; i < size; i++) {
+                        frontier[queue[i] >>> 6] |= 1L << queue[i];
+                    }
+                } else if (bottomUp && !growing && size < n / BETA) {
+                    bottomUp = false;
+                    int k = 0;
+                    for (int w = 0; w < frontier.length; w++) {
+                        for (long b = frontier[w]; b != 0; b &= b - 1) {
+                            queue[k++] = w << 6
+                                    | Long.numberOfTrailingZeros(b);
+                        }
+                    }
+                }
+                tail.set(0);
+                edges.set(0);
+                if (bottomUp) {
+                    step(new Step(true, 0, n), n);
+                    long[] t = frontier;
+                    frontier = found;
+                    found = t;
+                } else {
+                    step(new Step(false, 0, size), size);
+                    int[] t = queue;
+                    queue = next;
+                    next = t;
+                }
+                growing = tail.get() > size;
+                size = tail.get();
+                reached += size;
+                frontierEdges = edges.get();
+                unvisitedEdges -= frontierEdges;
+                level++;
+            }
+            return reached;
+        }
+
+        /**
+         * Runs a step, in this thread if it holds one piece.
+         */
+        private void step(Step step, int size) {
+            if (size <= GRAIN) {
+                step.compute();
+            } else {
+                pool.invoke(step);
+            }
+        }
+
+        /**
+         * Claims an unvisited vertex, returns false if it was visited.
+         */
+        private boolean claim(int v) {
+            int w = v >>> 6;
+            long bit = 1L << v;
+            while (true) {
+                long old = visited.get(w);
+                if ((old & bit) != 0) return false;
+                if (visited.compareAndSet(w, old, old | bit)) return true;
+            }
+        }
+
+        /**
+         * One step over the frontier lo to hi-1, top-down, or over the
+         * vertices lo to hi-1, bottom-up, divided in halves at multiples of
+         * {@code GRAIN} until a half holds one piece.
+         */
+        private final class Step extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            final boolean bottomUp;
+            final int lo, hi;
+
+            Step(boolean bottomUp, int lo, int hi) {
+                this.bottomUp = bottomUp;
+                this.lo = lo;
+                this.hi = hi;
+            }
+
+            @Override
+            protected void compute() {
+                if (hi - lo > GRAIN) {
+                    int pieces = (hi - lo + GRAIN - 1) / GRAIN;
+                    int mid = lo + pieces / 2 * GRAIN;
+                    invokeAll(new Step(bottomUp, lo, mid),
+                            new Step(bottomUp, mid, hi));
+                } else if (bottomUp) {
+                    bottomUp();
+                } else {
+                    topDown();
+                }
+            }
+
+            private void topDown() {
+                int[] block = new int[BLOCK];
+                int k = 0;
+                long e = 0;
+                for (int i = lo; i < hi; i++) {
+                    int u = queue[i];
+                    for (int j = G.begin(u), end = G.end(u); j < end; j++) {
+                        int v = G.target(j);
+                        if (!claim(v)) continue;
+                        d[v] = level + 1;
+                        parent[v] = u;
+                        e += G.degree(v);
+                        block[k++] = v;
+                        if (k == BLOCK) {
+                            System.arraycopy(block, 0, next,
+                                    tail.getAndAdd(k), k);
+                            k = 0;
+                        }
+                    }
+                }
+                System.arraycopy(block, 0, next, tail.getAndAdd(k), k);
+                edges.addAndGet(e);
+            }
+
+            private void bottomUp() {
+                // the words lo/64 to hi/64 belong to this piece
+                int first = lo >>> 6, last = (hi + 63) >>> 6;
+                Arrays.fill(found, first, last, 0);
+                int k = 0;
+                long e = 0;
+                for (int v = lo; v < hi; v++) {
+                    if ((visited.get(v >>> 6) & 1L << v) != 0) continue;
+                    for (int j = G.begin(v), end = G.end(v); j < end; j++) {
+                        int u = G.target(j);
+                        if ((frontier[u >>> 6] & 1L << u) != 0) {
+                            d[v] = level + 1;
+                            parent[v] = u;
+                            found[v >>> 6] |= 1L << v;
+                            e += G.degree(v);
+                            k++;
+                            break;
+                        }
+                    }
+                }
+                for (int w = first; w < last; w++) {
+                    visited.set(w, visited.get(w) | found[w]);
+                }
+                tail.addAndGet(k);
+                edges.addAndGet(e);
+            }
+        }
+    }
+
+    /**
+     * Unit tests.
+     * 0--1  2--3
+     * |  | /| /|
+     * |  |/ |/ |
+     * 4  5--6--7
+     */
+    public static void main(String[] args) {
+        Graph<BFSVertex> G = new Graph<>(BFSVertex.class, 9);
+        G.addEdge(0, 1);
+        G.addEdge(0, 4);
+        G.addEdge(1, 5);
+        G.addEdge(2, 5);
+        G.addEdge(2, 6);
+        G.addEdge(2, 3);
+        G.addEdge(3, 6);
+        G.addEdge(3, 7);
+        G.addEdge(5, 6);
+        G.addEdge(6, 7);
+        ParallelBFS<BFSVertex> bfs = new ParallelBFS<>(new CSRGraph<>(G));
+        int[] d = new int[9];
+        int[] parent = new int[9];
+        int reached = bfs.search(1, d, parent);
+        System.out.println("reached " + reached + ", d = "
+                + Arrays.toString(d).replace("" + INFINITY, "inf"));
+        System.out.println("expected 8, d = [1, 0, 2, 3, 2, 1, 2, 3, inf]");
+        // random graphs of growing degree, which search the middle levels
+        // bottom-up, against the sequential search, on several workers
+        Random rand = new Random(5);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int failures = 0;
+        for (int t = 0; t < 20; t++) {
+            int V = 1 + rand.nextInt(t < 10 ? 100 : 100000);
+            int E = rand.nextInt((t % 5 + 1) * 4 * V);
+            Graph<BFSVertex> H = new Graph<>(BFSVertex.class, V);
+            for (int i = 0; i < E && V > 1; i++) {
+                int u = rand.nextInt(V), v = rand.nextInt(V);
+                if (u != v) H.addEdge(u, v);
+            }
+            CSRGraph<BFSVertex> CSR = new CSRGraph<>(H);
+            final ParallelBFS<BFSVertex> P = new ParallelBFS<>(CSR, pool);
+            final int s = rand.nextInt(V);
+            BreadthFirstSearch.process(CSR, s);
+            final int[] dist = new int[V];
+            final int[] pi = new int[V];
+            int r = P.search(s, dist, pi);
+            for (int v = 0; v < V; v++) {
+                BFSVertex x = CSR.getVertex(v);
+                if (x.d != dist[v]) failures++;
+                if (x.d != INFINITY) r--;
+                if (v != s && dist[v] != INFINITY
+                        && (dist[pi[v]] != dist[v] - 1 || !adjacent(CSR, v,
+                                pi[v]))) {
+                    failures++;
+                }
+            }
+            if (r != 0) failures++;
+            // the same search from several threads at once
+            final int[] errors = new int[4];
+            Thread[] threads = new Thread[4];
+            for (int k = 0; k < threads.length; k++) {
+                final int id = k;
+                threads[k] = new Thread() {
+                    public void run() {
+                        int[] e = new int[dist.length];
+                        int[] p = new int[dist.length];
+                        P.search(s, e, p);
+                        if (!Arrays.equals(e, dist)) errors[id]++;
+                    }
+                };
+                threads[k].start();
+            }
+            for (int k = 0; k < threads.length; k++) {
+                try {
+                    threads[k].join();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                failures += errors[k];
+            }
+        }
+        pool.shutdown();
+        System.out.println("random graphs: " + failures + " differences"
+                + (failures == 0 ? " ok" : " FAILED"));
+    }
+
+    private static boolean adjacent(CSRGraph<?> G, int u, int v) {
+        for (int i = G.begin(u); i < G.end(u); i++) {
+            if (G.target(i) == v) return true;
+        }
+        return false;
+    }
+}
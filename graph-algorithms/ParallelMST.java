@@ -0,0 +1,414 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Minimum spanning forests of large graphs in CSR format on several cores.
+ * <p>The forest is returned as a compact edge list: an int array holding
+ * the CSR indexes of its edges, so the ith edge goes from
+ * {@code source(tree[i])} to {@code G.target(tree[i])} with weight
+ * {@code G.doubleWeight(tree[i])}. The caller supplies the array, of length
+ * at least V - 1. Every undirected edge is stored twice in the graph, only
+ * the copy incident from the smaller vertex is used.
+ * <p>The edges are ordered by weight, as by {@code MinimumSpanningTree},
+ * and edges of equal weight by index. The order is total, so the minimum
+ * spanning forest is unique and both algorithms find the same one.
+ * <p>{@code boruvka} runs rounds in which every component picks its
+ * lightest edge to another component, and all picked edges are added at
+ * once. Every round at least halves the number of components, so there are
+ * at most lgV rounds. A round is two parallel passes: over the edges
+ * still between components, which drops the others and offers each edge to
+ * both its components by a compare-and-set minimum, then over the
+ * vertices, which joins the picked edges in a {@code
+ * ConcurrentDisjointSets}. Running time <em>O((V + E)lgV / P)</em> on P
+ * cores.
+ * <p>{@code filterKruskal} is Kruskal's algorithm on a quicksort which
+ * only sorts what it must: the edges are partitioned around a pivot, the
+ * lighter part is processed first, then the edges of the heavier part
+ * which would close a cycle are filtered out in parallel before it is
+ * partitioned in turn. On dense graphs most edges are filtered out before
+ * they are sorted. Expected running time <em>O(E + VlgVlg(E/V))</em> on
+ * random weights.
+ * <p>The parallel passes split the edges in pieces of {@code GRAIN}.
+ */
+public class ParallelMST<T extends VertexInterface, E extends Number> {
+    static final int GRAIN = 1 << 12;
+    // ranges of at most SORT edges are sorted by insertion
+    static final int SORT = 16;
+    private static final int NIL = -1;
+    private final WeightedCSRGraph<T, E> G;
+    private final int n;
+    private final int m; // the number of undirected edges
+    private final int[] from; // the source of every edge
+    private final long[] key; // the weight of every edge, as a long
+    private final int[] edges; // the edges incident from the smaller vertex
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor, runs on the common fork/join pool.
+     * @param G the weighted undirected graph in CSR format.
+     */
+    public ParallelMST(WeightedCSRGraph<T, E> G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor.
+     * @param G the weighted undirected graph in CSR format.
+     * @param pool the pool running the tasks.
+     */
+    public ParallelMST(WeightedCSRGraph<T, E> G, ForkJoinPool pool) {
+        this.G = G;
+        this.n = G.V();
+        this.pool = pool;
+        int size = n == 0 ? 0 : G.end(n - 1);
+        this.from = new int[size];
+        this.key = new long[size];
+        int m = 0;
+        for (int u = 0; u < n; u++) {
+            for (int i = G.begin(u); i < G.end(u); i++) {
+                from[i] = u;
+                key[i] = MinimumSpanningTree.sortableWeight(G, i);
+                if (u < G.target(i)) m++;
+            }
+        }
+        this.m = m;
+        this.edges = new int[m];
+        for (int i = 0, k = 0; i < size; i++) {
+            if (from[i] < G.target(i)) edges[k++] = i;
+        }
+    }
+
+    /**
+     * Returns the vertex an edge is incident from.
+     * @param i the index of the edge.
+     */
+    public int source(int i) {
+        return from[i];
+    }
+
+    /**
+     * Boruvka's algorithm.
+     * @param tree filled with the edges of the forest.
+     * @return the number of edges of the forest.
+     */
+    public int boruvka(int[] tree) {
+        if (m == 0) return 0;
+        ConcurrentDisjointSets S = new ConcurrentDisjointSets(n, pool);
+        AtomicIntegerArray best = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) best.set(v, NIL);
+        AtomicInteger size = new AtomicInteger();
+        int[] alive = edges.clone();
+        int[] buffer = new int[m];
+        int count = m;
+        while (true) {
+            count = filter(Step.OFFER, S, best, alive, buffer, 0, count);
+            if (count == 0) return size.get();
+            pool.invoke(new Step(Step.JOIN, S, best, tree, size, null, null,
+                    null, 0, n));
+        }
+    }
+
+    /**
+     * Filter-Kruskal algorithm.
+     * @param tree filled with the edges of the forest.
+     * @return the number of edges of the forest.
+     */
+    public int filterKruskal(int[] tree) {
+        if (m == 0) return 0;
+        ConcurrentDisjointSets S = new ConcurrentDisjointSets(n, pool);
+        return filterKruskal(S, edges.clone(), new int[m], 0, m, tree, 0);
+    }
+
+    private int filterKruskal(ConcurrentDisjointSets S, int[] a,
+            int[] buffer, int lo, int hi, int[] tree, int size) {
+        // the lighter part is processed by recursion, the heavier in the
+        // loop, so the stack is as deep as the partitions are unbalanced
+        while (hi - lo > SORT) {
+            if (size == n - 1) return size;
+            int k = partition(a, lo, hi);
+            size = filterKruskal(S, a, buffer, lo, k, tree, size);
+            hi = k + filter(Step.FILTER, S, null, a, buffer, k, hi);
+            lo = k;
+        }
+        for (int i = lo + 1; i < hi; i++) {
+            int e = a[i];
+            int j = i;
+            for (; j > lo && less(e, a[j - 1]); j--) a[j] = a[j - 1];
+            a[j] = e;
+        }
+        for (int i = lo; i < hi; i++) {
+            if (S.union(from[a[i]], G.target(a[i]))) tree[size++] = a[i];
+        }
+        return size;
+    }
+
+    /**
+     * Partitions the edges lo to hi-1 around the median of three random
+     * edges, and returns the start of the heavier part. Both parts are
+     * not empty.
+     */
+    private int partition(int[] a, int lo, int hi) {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        int x = a[rand.nextInt(lo, hi)];
+        int y = a[rand.nextInt(lo, hi)];
+        int z = a[rand.nextInt(lo, hi)];
+        if (less(y, x)) {
+            int t = x;
+            x = y;
+            y = t;
+        }
+        int pivot = less(z, x) ? x : less(z, y) ? z : y;
+        int i = lo, j = hi - 1;
+        while (true) {
+            while (less(a[i], pivot)) i++;
+            while (less(pivot, a[j])) j--;
+            if (i >= j) {
+                // a[lo..j] <= pivot <= a[j+1..hi-1]
+                return j == hi - 1 ? j : j + 1;
+            }
+            int t = a[i];
+            a[i++] = a[j];
+            a[j--] = t;
+        }
+    }
+
+    /**
+     * Returns true if edge e comes before edge f.
+     */
+    private boolean less(int e, int f) {
+        return key[e] < key[f] || (key[e] == key[f] && e < f);
+    }
+
+    /**
+     * Keeps the edges lo to hi-1 of a whose ends are in different sets and
+     * moves them to the start of the range, with the step {@code OFFER} or
+     * {@code FILTER}, in parallel pieces of {@code GRAIN} edges which are
+     * compacted in the buffer then moved back.
+     * @return the number of edges kept.
+     */
+    private int filter(int op, ConcurrentDisjointSets S,
+            AtomicIntegerArray best, int[] a, int[] buffer, int lo, int hi) {
+        int pieces = (hi - lo + GRAIN - 1) / GRAIN;
+        int[] counts = new int[pieces + 1];
+        Step step = new Step(op, S, best, a, null, buffer, counts, null, lo,
+                hi);
+        if (pieces <= 1) {
+            // one piece runs here, without a task
+            step.compute();
+            System.arraycopy(buffer, lo, a, lo, counts[0]);
+            return counts[0];
+        }
+        pool.invoke(step);
+        // counts[p] becomes the offset of piece p
+        int total = 0;
+        for (int p = 0; p <= pieces; p++) {
+            int c = counts[p];
+            counts[p] = total;
+            total += c;
+        }
+        int[] source = {lo};
+        pool.invoke(new Step(Step.MOVE, S, best, a, null, buffer, counts,
+                source, lo, hi));
+        return total;
+    }
+
+    /**
+     * One step over the edges or vertices lo to hi-1, divided in halves at
+     * multiples of {@code GRAIN} until a half holds one piece.
+     */
+    private final class Step extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        // keep the edges between components and offer them to both
+        static final int OFFER = 0;
+        // keep the edges between components
+        static final int FILTER = 1;
+        // move the pieces kept in the buffer back to the edges
+        static final int MOVE = 2;
+        // join the lightest edge of every component
+        static final int JOIN = 3;
+        final int op;
+        final ConcurrentDisjointSets S;
+        final AtomicIntegerArray best;
+        final int[] a, buffer, counts, base;
+        final AtomicInteger size;
+        final int lo, hi;
+
+        Step(int op, ConcurrentDisjointSets S, AtomicIntegerArray best,
+                int[] a, AtomicInteger size, int[] buffer, int[] counts,
+                int[] base, int lo, int hi) {
+            this.op = op;
+            this.S = S;
+            this.best = best;
+            this.a = a;
+            this.size = size;
+            this.buffer = buffer;
+            this.counts = counts;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            // the pieces start at multiples of GRAIN from the first edge,
+            // which is lo or, for the halves of a range, base[0]
+            int first = base == null ? lo : base[0];
+            if (hi - lo > GRAIN) {
+                int pieces = (hi - lo + GRAIN - 1) / GRAIN;
+                int mid = lo + pieces / 2 * GRAIN;
+                int[] b = base == null ? new int[] {lo} : base;
+                invokeAll(new Step(op, S, best, a, size, buffer, counts, b,
+                        lo, mid),
+                        new Step(op, S, best, a, size, buffer, counts, b,
+                                mid, hi));
+                return;
+            }
+            if (op == JOIN) {
+                for (int v = lo; v < hi; v++) {
+                    int e = best.get(v);
+                    if (e == NIL) continue;
+                    best.set(v, NIL);
+                    if (S.union(from[e], G.target(e))) {
+                        a[size.getAndIncrement()] = e;
+                    }
+                }
+                return;
+            }
+            int p = (lo - first) / GRAIN;
+            if (op == MOVE) {
+                System.arraycopy(buffer, lo, a, first + counts[p],
+                        counts[p + 1] - counts[p]);
+                return;
+            }
+            int k = lo;
+            for (int i = lo; i < hi; i++) {
+                int e = a[i];
+                int u = S.findSet(from[e]);
+                int v = S.findSet(G.target(e));
+                if (u == v) continue;
+                buffer[k++] = e;
+                if (op == OFFER) {
+                    offer(u, e);
+                    offer(v, e);
+                }
+            }
+            counts[p] = k - lo;
+        }
+
+        /**
+         * Makes e the lightest edge of component r if it is lighter.
+         */
+        private void offer(int r, int e) {
+            while (true) {
+                int f = best.get(r);
+                if (f != NIL && !less(e, f)) return;
+                if (best.compareAndSet(r, f, e)) return;
+            }
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        WeightedGraph<Vertex, Integer> G = new WeightedGraph<>(Vertex.class, 9);
+        G.addEdge(0, 1, 4);
+        G.addEdge(0, 7, 8);
+        G.addEdge(1, 2, 8);
+        G.addEdge(1, 7, 11);
+        G.addEdge(2, 3, 7);
+        G.addEdge(2, 5, 4);
+        G.addEdge(2, 8, 2);
+        G.addEdge(3, 4, 9);
+        G.addEdge(3, 5, 14);
+        G.addEdge(4, 5, 10);
+        G.addEdge(5, 6, 2);
+        G.addEdge(6, 7, 1);
+        G.addEdge(6, 8, 6);
+        G.addEdge(7, 8, 7);
+        WeightedCSRGraph<Vertex, Integer> CSR = new WeightedCSRGraph<>(G);
+        ParallelMST<Vertex, Integer> mst = new ParallelMST<>(CSR);
+        int[] tree = new int[CSR.V()];
+        int count = mst.boruvka(tree);
+        System.out.println("Boruvka: " + count + " edges, weight "
+                + weight(CSR, tree, count) + " expected 8 edges, weight 37");
+        count = mst.filterKruskal(tree);
+        System.out.println("Filter-Kruskal: " + count + " edges, weight "
+                + weight(CSR, tree, count) + " expected 8 edges, weight 37");
+        // random graphs, some disconnected, with few distinct weights or
+        // double weights, against Kruskal and Prim, on several workers
+        Random rand = new Random(3);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int failures = 0;
+        for (int t = 0; t < 40; t++) {
+            int V = 1 + rand.nextInt(t < 20 ? 50 : 20000);
+            int E = rand.nextInt(8 * V + 1);
+            double w = 0;
+            int edges = 0;
+            WeightedCSRGraph<Vertex, ?> H;
+            if (t % 2 == 0) {
+                WeightedGraph<Vertex, Integer> W =
+                        new WeightedGraph<>(Vertex.class, V);
+                for (int i = 0; i < E && V > 1; i++) {
+                    int u = rand.nextInt(V), v = rand.nextInt(V);
+                    if (u != v) W.addEdge(u, v, rand.nextInt(10));
+                }
+                WeightedCSRGraph<Vertex, Integer> WCSR =
+                        new WeightedCSRGraph<>(W);
+                WeightedGraph<Vertex, Integer> K =
+                        MinimumSpanningTree.kruskal(WCSR);
+                for (WeightedEdge<Vertex, Integer> e : K.getEdges()) {
+                    w += e.getWeight().doubleValue() / 2;
+                    edges++;
+                }
+                // and Prim's algorithm, which restarts in every tree
+                double p = 0;
+                for (WeightedEdge<Vertex, Integer> e
+                        : MinimumSpanningTree.prim(WCSR).getEdges()) {
+                    p += e.getWeight().doubleValue() / 2;
+                }
+                if (p != w) failures++;
+                H = WCSR;
+            } else {
+                WeightedGraph<Vertex, Double> W =
+                        new WeightedGraph<>(Vertex.class, V);
+                for (int i = 0; i < E && V > 1; i++) {
+                    int u = rand.nextInt(V), v = rand.nextInt(V);
+                    if (u != v) W.addEdge(u, v, rand.nextGaussian());
+                }
+                WeightedCSRGraph<Vertex, Double> WCSR =
+                        new WeightedCSRGraph<>(W);
+                for (WeightedEdge<Vertex, Double> e
+                        : MinimumSpanningTree.kruskal(WCSR).getEdges()) {
+                    w += e.getWeight() / 2;
+                    edges++;
+                }
+                H = WCSR;
+            }
+            edges /= 2;
+            ParallelMST<Vertex, ?> P = new ParallelMST<>(H, pool);
+            tree = new int[V];
+            for (int a = 0; a < 2; a++) {
+                count = a == 0 ? P.boruvka(tree) : P.filterKruskal(tree);
+                if (count != edges
+                        || Math.abs(weight(H, tree, count) - w) > 1e-6) {
+                    failures++;
+                }
+            }
+        }
+        pool.shutdown();
+        System.out.println("random graphs: " + failures + " differences"
+                + (failures == 0 ? " ok" : " FAILED"));
+    }
+
+    private static double weight(WeightedCSRGraph<?, ?> G, int[] tree,
+            int count) {
+        double w = 0;
+        for (int i = 0; i < count; i++) w += G.doubleWeight(tree[i]);
+        return w;
+    }
+}
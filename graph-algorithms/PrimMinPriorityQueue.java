@@ -162,12 +162,13 @@ public class PrimMinPriorityQueue
             throw new IllegalArgumentException("element is not in the queue");
         } else if (i > n) {
             throw new IllegalArgumentException("Invalid index: " + i);
-        } else if (heap[i].key != INFINITY && greater(key, heap[i].key)) {
-            System.out.println("Old key: " + v.key);
+        } else if (heap[i].getKey().infinity == NumericKey.NONE
+                && greater(key, heap[i].getWeight())) {
+            System.out.println("Old key: " + v.getKey());
             System.out.println("New key: " + key);
             throw new IllegalArgumentException("new key should be smaller");
         }
-        heap[i].setKey(key);
+        heap[i].setKey(new NumericKey<E>(key));
         while (i > 1 && heap[parent(i)].compareTo(heap[i]) == 1) {
             switchWeightedVertexs(i, parent(i));
             i = parent(i);
@@ -221,15 +222,7 @@ public class PrimMinPriorityQueue
         s.append("============================\n");
         for (int i = 0; i < n; i++) {
             WeightedVertex<T, E> v = heap[heapIndex[i]];
-            E key = v.key;
-            String k;
-            if (v.infinity == WeightedVertex.POSITIVE_INFINITY) {
-                k = "positive infinity";
-            } else if (v.infinity == WeightedVertex.NEGATIVE_INFINITY) {
-                k = "negative infinity";
-            } else {
-                k = key.toString();
-            }
+            String k = v.getKey().toString();
             s.append("[" + i + "]: " + heapIndex[i] + " -> " + k + "\n");
         }
         return s.toString();
@@ -246,14 +239,14 @@ public class PrimMinPriorityQueue
             WeightedVertex<Vertex, Integer> v = 
                     new WeightedVertex<>(new Vertex(i));
             v.parent = WeightedVertex.NIL;
-            v.setKey(keys[i]);
+            v.setWeight(keys[i]);
             items.add(v);
         }
         PrimMinPriorityQueue<Vertex, Integer> Q = 
                 new PrimMinPriorityQueue<>(items, 10);
         System.out.println(Q);
         while (!Q.isEmpty()) {
-            System.out.println("Extract min: " + Q.extractMin().key);
+            System.out.println("Extract min: " + Q.extractMin().getKey());
         }
     }
 }
@@ -0,0 +1,246 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Monotone radix heap of integer elements with non-negative {@code long}
+ * keys.
+ * <p>The heap remembers the last extracted minimum {@code last}, and only
+ * accepts keys greater than or equal to it, which holds for the distances
+ * of Dijkstra's algorithm with non-negative weights. An element with key k
+ * is kept in bucket 0 if k equals {@code last}, otherwise in bucket b where
+ * b - 1 is the highest bit in which k differs from {@code last}. Bucket 0
+ * holds the minimum keys. When it is empty, the first non-empty bucket is
+ * emptied: its minimum becomes {@code last} and its elements move to lower
+ * buckets, since they agree with the new {@code last} in more bits. Every
+ * element moves down at most 64 times, so {@code extractMin} takes
+ * <em>O(lg C)</em> amortized time where C is the largest key, and
+ * {@code insert} and {@code decreaseKey} take <em>O(1)</em>.
+ * <p>The buckets are doubly linked lists in arrays indexed by element, all
+ * allocated by the constructor, and no operation allocates memory
+ * afterwards.
+ */
+public class RadixHeap implements AddressablePriorityQueue {
+    public static final int NIL = -1;
+    private static final int ABSENT = -1; // the bucket of an absent element
+    private static final int BUCKETS = 65;
+    private final long[] keys;
+    private final int[] bucket; // the bucket of each element
+    private final int[] next; // the next element in the bucket
+    private final int[] prev; // the previous element in the bucket
+    private final int[] head = new int[BUCKETS]; // the first of each bucket
+    private long last; // the last extracted minimum
+    private int n; // the number of elements in the heap
+
+    /**
+     * Constructor.
+     * @param capacity the number of possible elements, 0 to capacity-1.
+     * @throws IllegalArgumentException if capacity is negative.
+     */
+    public RadixHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.keys = new long[capacity];
+        this.bucket = new int[capacity];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        clear();
+    }
+
+    /**
+     * Removes all elements from the heap in <em>O(capacity)</em>, and
+     * resets the last minimum to 0.
+     */
+    public void clear() {
+        this.n = 0;
+        this.last = 0;
+        for (int i = 0; i < bucket.length; i++) bucket[i] = ABSENT;
+        for (int b = 0; b < BUCKETS; b++) head[b] = NIL;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Checks if an element is in the queue.
+     * @param v the element.
+     */
+    public boolean contains(int v) {
+        validateElement(v);
+        return bucket[v] != ABSENT;
+    }
+
+    /**
+     * Returns the key of an element in the queue.
+     * @param v the element.
+     * @throws NoSuchElementException if v is not in the queue.
+     */
+    public long keyOf(int v) {
+        if (!contains(v)) {
+            throw new NoSuchElementException(v + " is not in the queue");
+        }
+        return keys[v];
+    }
+
+    /**
+     * Inserts an element to the queue.
+     * @param v the element.
+     * @param key the key of the element.
+     * @throws IllegalArgumentException if v is already in the queue, or
+     *         the key is less than the last extracted minimum.
+     */
+    public void insert(int v, long key) {
+        if (contains(v)) {
+            throw new IllegalArgumentException(v + " is already in the queue");
+        }
+        validateKey(key);
+        keys[v] = key;
+        add(v);
+        n++;
+    }
+
+    /**
+     * Decreases the key of an element in the queue, moving it to the
+     * bucket of the new key.
+     * @param v the element.
+     * @param key the new key.
+     * @throws NoSuchElementException if v is not in the queue.
+     * @throws IllegalArgumentException if the new key is greater, or less
+     *         than the last extracted minimum.
+     */
+    public void decreaseKey(int v, long key) {
+        if (key > keyOf(v)) {
+            throw new IllegalArgumentException("new key should be smaller");
+        }
+        validateKey(key);
+        remove(v);
+        keys[v] = key;
+        add(v);
+    }
+
+    /**
+     * Returns the element with the minimum key without removing it.
+     * Empties the first non-empty bucket into the lower buckets if bucket 0
+     * is empty.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int minimum() {
+        if (n == 0) {
+            throw new NoSuchElementException("heap is empty");
+        }
+        if (head[0] == NIL) {
+            int b = 1;
+            while (head[b] == NIL) b++;
+            long min = Long.MAX_VALUE;
+            for (int x = head[b]; x != NIL; x = next[x]) {
+                min = Math.min(min, keys[x]);
+            }
+            this.last = min;
+            int x = head[b];
+            head[b] = NIL;
+            while (x != NIL) {
+                int y = next[x];
+                add(x);
+                x = y;
+            }
+        }
+        return head[0];
+    }
+
+    /**
+     * Removes and returns the element with the minimum key.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int extractMin() {
+        int min = minimum();
+        remove(min);
+        n--;
+        return min;
+    }
+
+    /**
+     * Returns the bucket of a key, relative to the last minimum.
+     */
+    private int bucketOf(long key) {
+        return 64 - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    /**
+     * Adds an element to the front of the bucket of its key.
+     */
+    private void add(int v) {
+        int b = bucketOf(keys[v]);
+        bucket[v] = b;
+        prev[v] = NIL;
+        next[v] = head[b];
+        if (head[b] != NIL) prev[head[b]] = v;
+        head[b] = v;
+    }
+
+    /**
+     * Unlinks an element from its bucket.
+     */
+    private void remove(int v) {
+        if (prev[v] != NIL) next[prev[v]] = next[v];
+        else head[bucket[v]] = next[v];
+        if (next[v] != NIL) prev[next[v]] = prev[v];
+        bucket[v] = ABSENT;
+    }
+
+    private void validateKey(long key) {
+        if (key < last) {
+            throw new IllegalArgumentException("key " + key
+                    + " is less than the last minimum " + last);
+        }
+    }
+
+    private void validateElement(int v) {
+        if (v < 0 || v >= bucket.length) {
+            throw new IllegalArgumentException("invalid element: " + v);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("last: " + last + "\n");
+        for (int b = 0; b < BUCKETS; b++) {
+            if (head[b] == NIL) continue;
+            s.append("bucket " + b + ":");
+            for (int x = head[b]; x != NIL; x = next[x]) {
+                s.append(" [" + x + "]: " + keys[x]);
+            }
+            s.append("\n");
+        }
+        return s.toString();
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        long[] keys = {7, 2, 8, 9, 10, 1, 3, 6, 4, 5};
+        RadixHeap Q = new RadixHeap(keys.length);
+        for (int i = 0; i < keys.length; i++) Q.insert(i, keys[i]);
+        System.out.println(Q.extractMin() + ":1 extracted");
+        Q.decreaseKey(4, 1);
+        Q.decreaseKey(3, 2);
+        System.out.print(Q);
+        // keys should be printed in ascending order
+        while (!Q.isEmpty()) {
+            long key = Q.keyOf(Q.minimum());
+            System.out.print(Q.extractMin() + ":" + key + " ");
+        }
+        System.out.println();
+        try {
+            Q.insert(0, 0);
+            System.out.println("failed: inserted a key below the minimum");
+        } catch (IllegalArgumentException ex) {
+            System.out.println("rejected: " + ex.getMessage());
+        }
+    }
+}
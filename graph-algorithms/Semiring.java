@@ -0,0 +1,215 @@
+/**
+ * The two operations a matrix product is computed with.
+ * <p>A semiring has an addition {@code plus}, associative and commutative
+ * with the identity {@code zero}, and a multiplication {@code times},
+ * associative, which distributes over the addition and is annulled by
+ * {@code zero}. The product of matrices over any semiring,
+ * {@code C[i][j] = plus_k times(A[i][k], B[k][j])}, is associative, so it
+ * can be computed by the same tiled and parallel algorithms, and powers
+ * can be computed by repeated squaring:
+ * <ul>
+ *   <li>{@link #ARITHMETIC}, + and x, the usual product.
+ *   <li>{@link #MIN_PLUS}, min and +, whose kth power of the weight matrix
+ *       of a graph holds the weights of the shortest paths of at most k
+ *       edges.
+ *   <li>{@link #BOOLEAN}, or and and on 0 and 1, whose kth power of the
+ *       adjacency matrix tells which vertices are connected by paths of at
+ *       most k edges.
+ * </ul>
+ * Every operation is defined on {@code long} and {@code double} entries.
+ * The inner loops of a product call {@code multiplyAdd} once per entry of
+ * A, which the semirings override with loops of their own operators, so
+ * the operators are not called through the class for every entry of C.
+ */
+public abstract class Semiring {
+    /** The infinity of {@code long} entries of the min-plus semiring. */
+    public static final long INFINITY = Long.MAX_VALUE;
+
+    /**
+     * Addition and multiplication.
+     */
+    public static final Semiring ARITHMETIC = new Semiring() {
+        public long zero() {
+            return 0;
+        }
+
+        public double doubleZero() {
+            return 0;
+        }
+
+        public long plus(long a, long b) {
+            return a + b;
+        }
+
+        public double plus(double a, double b) {
+            return a + b;
+        }
+
+        public long times(long a, long b) {
+            return a * b;
+        }
+
+        public double times(double a, double b) {
+            return a * b;
+        }
+
+        public void multiplyAdd(long a, long[] B, int b, long[] C, int c,
+                int len) {
+            if (a == 0) return;
+            for (int j = 0; j < len; j++) C[c + j] += a * B[b + j];
+        }
+
+        public void multiplyAdd(double a, double[] B, int b, double[] C,
+                int c, int len) {
+            if (a == 0) return;
+            for (int j = 0; j < len; j++) C[c + j] += a * B[b + j];
+        }
+
+        public String toString() {
+            return "arithmetic";
+        }
+    };
+
+    /**
+     * Minimum as the addition and addition as the multiplication, with
+     * {@code INFINITY} or {@code Double.POSITIVE_INFINITY} as the zero.
+     * Sums of {@code long} entries with an infinite entry are infinite.
+     */
+    public static final Semiring MIN_PLUS = new Semiring() {
+        public long zero() {
+            return INFINITY;
+        }
+
+        public double doubleZero() {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        public long plus(long a, long b) {
+            return Math.min(a, b);
+        }
+
+        public double plus(double a, double b) {
+            return Math.min(a, b);
+        }
+
+        public long times(long a, long b) {
+            return a == INFINITY || b == INFINITY ? INFINITY : a + b;
+        }
+
+        public double times(double a, double b) {
+            return a + b;
+        }
+
+        public void multiplyAdd(long a, long[] B, int b, long[] C, int c,
+                int len) {
+            if (a == INFINITY) return;
+            for (int j = 0; j < len; j++) {
+                long x = B[b + j];
+                if (x != INFINITY && a + x < C[c + j]) C[c + j] = a + x;
+            }
+        }
+
+        public void multiplyAdd(double a, double[] B, int b, double[] C,
+                int c, int len) {
+            if (a == Double.POSITIVE_INFINITY) return;
+            for (int j = 0; j < len; j++) {
+                C[c + j] = Math.min(C[c + j], a + B[b + j]);
+            }
+        }
+
+        public String toString() {
+            return "min-plus";
+        }
+    };
+
+    /**
+     * Or as the addition and and as the multiplication, on the entries 0
+     * and 1.
+     */
+    public static final Semiring BOOLEAN = new Semiring() {
+        public long zero() {
+            return 0;
+        }
+
+        public double doubleZero() {
+            return 0;
+        }
+
+        public long plus(long a, long b) {
+            return a | b;
+        }
+
+        public double plus(double a, double b) {
+            return a != 0 || b != 0 ? 1 : 0;
+        }
+
+        public long times(long a, long b) {
+            return a & b;
+        }
+
+        public double times(double a, double b) {
+            return a != 0 && b != 0 ? 1 : 0;
+        }
+
+        public void multiplyAdd(long a, long[] B, int b, long[] C, int c,
+                int len) {
+            if (a == 0) return;
+            for (int j = 0; j < len; j++) C[c + j] |= B[b + j];
+        }
+
+        public String toString() {
+            return "boolean";
+        }
+    };
+
+    /**
+     * Returns the identity of the addition of {@code long} entries.
+     */
+    public abstract long zero();
+
+    /**
+     * Returns the identity of the addition of {@code double} entries.
+     */
+    public abstract double doubleZero();
+
+    public abstract long plus(long a, long b);
+
+    public abstract double plus(double a, double b);
+
+    public abstract long times(long a, long b);
+
+    public abstract double times(double a, double b);
+
+    /**
+     * Adds a times a row of B to a row of C:
+     * {@code C[c+j] = plus(C[c+j], times(a, B[b+j]))} for j < len.
+     * @param a the entry of A.
+     * @param B the right matrix.
+     * @param b the position of the row of B.
+     * @param C the product.
+     * @param c the position of the row of C.
+     * @param len the number of entries.
+     */
+    public void multiplyAdd(long a, long[] B, int b, long[] C, int c,
+            int len) {
+        for (int j = 0; j < len; j++) {
+            C[c + j] = plus(C[c + j], times(a, B[b + j]));
+        }
+    }
+
+    /**
+     * Adds a times a row of B to a row of C, for {@code double} entries.
+     * @param a the entry of A.
+     * @param B the right matrix.
+     * @param b the position of the row of B.
+     * @param C the product.
+     * @param c the position of the row of C.
+     * @param len the number of entries.
+     */
+    public void multiplyAdd(double a, double[] B, int b, double[] C, int c,
+            int len) {
+        for (int j = 0; j < len; j++) {
+            C[c + j] = plus(C[c + j], times(a, B[b + j]));
+        }
+    }
+}
@@ -41,6 +41,40 @@ public class ShortestPath {
         return true;
     }
 
+    /**
+     * Bellman-Ford algorithm on a graph in CSR format.
+     * <p>Same as above, but relaxes the edges by walking the edge arrays of
+     * the graph instead of building a list of {@code WeightedEdge} objects
+     * on every pass.
+     * <p>Running time is <em>O(EV)</em>.
+     *
+     * @param G the weighted directed graph in CSR format
+     * @param s the source vertex
+     * @return false if the graph contians negative weight cycles
+     */
+    public static <E extends Number, T extends ShortestPathVertex<E>>
+            boolean BellmanFord(WeightedCSRGraph<T, E> G, int s) {
+        initializeSingleSource(G, s);
+        for (int i = 0; i < G.V(); i++) {
+            for (int u = 0; u < G.V(); u++) {
+                for (int j = G.begin(u); j < G.end(u); j++) {
+                    T v = G.getVertex(G.target(j));
+                    relax(G.getVertex(u), v, G.getKey(j));
+                }
+            }
+        }
+        for (int u = 0; u < G.V(); u++) {
+            for (int j = G.begin(u); j < G.end(u); j++) {
+                T v = G.getVertex(G.target(j));
+                if (!triangleInequality(G.getVertex(u), v, G.getKey(j))) {
+                    // negative weight cycle detected
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * DAG-Shortest-Path Single source Shortest Path algorithm.
      * <p>Works only on directed weighted acyclic graphs which (being acyclic)
@@ -75,7 +109,8 @@ public class ShortestPath {
      * <p>Running time depends on the queue implementation:
      *    - using a simple array = <em>O(V^2 + E)</em>
      *    - using minimum-heap priority-queue = <em>O(ElogV)</em>
-     *    - using Fibonacci-heap = <em>O(VlgV + E)</em>
+     *    - using Fibonacci-heap = <em>O(VlgV + E)</em>, see the
+     *      {@code AddressablePriorityQueue} overloads below
      *
      * @param G the graph to perform the algorithm on
      * @param s source vertex to use to find shortest paths to other vertices
@@ -93,6 +128,176 @@ public class ShortestPath {
         }
     }
 
+    /**
+     * Dijkstra algorithm on a graph in CSR format.
+     * <p>Same as above, but walks the edge arrays of the graph to find the
+     * outgoing edges of each extracted vertex.
+     *
+     * @param G the graph in CSR format to perform the algorithm on
+     * @param s source vertex to use to find shortest paths to other vertices
+     */
+    public static <E extends Number, T extends ShortestPathVertex<E>>
+                void Dijkstra(WeightedCSRGraph<T, E> G, int s) {
+        initializeSingleSource(G, s);
+        MinPriorityQueue<T> Q = new MinPriorityQueue<>(G.getVertices(), G.V());
+        while (!Q.isEmpty()) {
+            T u = Q.extractMin();
+            int x = u.getVertex();
+            for (int i = G.begin(x); i < G.end(x); i++) {
+                T v = G.getVertex(G.target(i));
+                relax(u, v, G.getKey(i));
+            }
+        }
+    }
+
+    /**
+     * Dijkstra algorithm specialized for {@code long} distances.
+     * <p>Works on vertex indexes and primitive arrays only: the distances
+     * and predecessors are written to the arrays {@code d} and {@code pi}
+     * supplied by the caller, and the queue is an {@code IndexedDaryHeap}
+     * which is told about every decreased distance. Nothing is allocated
+     * per relaxation, and the graph itself is not modified.
+     * <p>Vertices are inserted to the queue when first reached, so the queue
+     * only holds the frontier of the search.
+     * <p>Unreachable vertices are left with {@code d = Long.MAX_VALUE} and
+     * {@code pi = NIL}.
+     * <p>Running time <em>O(E log_d(V))</em> for a d-ary heap.
+     *
+     * @param G the graph in CSR format, weights are read as {@code long}
+     * @param s the source vertex
+     * @param d the array to store the distances in, of length V
+     * @param pi the array to store the predecessors in, of length V
+     * @throws IllegalArgumentException if a reached edge weight is negative
+     */
+    public static <T extends VertexInterface, E extends Number>
+            void Dijkstra(WeightedCSRGraph<T, E> G, int s, long[] d, int[] pi) {
+        Dijkstra(G, s, d, pi, new IndexedDaryHeap(G.V()));
+    }
+
+    /**
+     * Dijkstra algorithm specialized for {@code long} distances, using any
+     * addressable priority queue.
+     * <p>Same as above. The queue is supplied by the caller, with a
+     * capacity of at least V, so it can be reused by later searches; it is
+     * cleared first. The running time depends on the queue:
+     *    - {@code IndexedDaryHeap} = <em>O(E log_d(V))</em>
+     *    - {@code IndexedFibonacciHeap} = <em>O(E + VlgV)</em>, every
+     *      decreased distance costs <em>O(1)</em> amortized time, which
+     *      pays off on dense graphs where most relaxations decrease a key
+     *    - {@code IndexedPairingHeap} = <em>O(E + VlgV)</em> for the
+     *      insertions and extractions, and <em>o(lgV)</em> amortized per
+     *      decreased distance
+     *    - {@code RadixHeap} = <em>O(E + V lgC)</em> where C is the
+     *      largest distance, since the extracted distances never decrease
+     *
+     * @param G the graph in CSR format, weights are read as {@code long}
+     * @param s the source vertex
+     * @param d the array to store the distances in, of length V
+     * @param pi the array to store the predecessors in, of length V
+     * @param Q the queue
+     * @throws IllegalArgumentException if a reached edge weight is negative
+     */
+    public static <T extends VertexInterface, E extends Number>
+            void Dijkstra(WeightedCSRGraph<T, E> G, int s, long[] d, int[] pi,
+                    AddressablePriorityQueue Q) {
+        G.validateVertex(s);
+        int n = G.V();
+        for (int v = 0; v < n; v++) {
+            d[v] = Long.MAX_VALUE;
+            pi[v] = ShortestPathVertex.NIL;
+        }
+        d[s] = 0;
+        Q.clear();
+        Q.insert(s, 0);
+        while (!Q.isEmpty()) {
+            int u = Q.extractMin();
+            for (int i = G.begin(u); i < G.end(u); i++) {
+                long w = G.longWeight(i);
+                if (w < 0) {
+                    throw new IllegalArgumentException("negative edge weight");
+                }
+                int v = G.target(i);
+                long dv = d[u] + w;
+                if (dv < d[v]) {
+                    if (d[v] == Long.MAX_VALUE) {
+                        Q.insert(v, dv);
+                    } else {
+                        Q.decreaseKey(v, dv);
+                    }
+                    d[v] = dv;
+                    pi[v] = u;
+                }
+            }
+        }
+    }
+
+    /**
+     * Dijkstra algorithm specialized for {@code double} distances.
+     * <p>Same as above, using an {@code IndexedDaryHeap}.
+     * <p>Unreachable vertices are left with {@code d = +Infinity} and
+     * {@code pi = NIL}.
+     *
+     * @param G the graph in CSR format, weights are read as {@code double}
+     * @param s the source vertex
+     * @param d the array to store the distances in, of length V
+     * @param pi the array to store the predecessors in, of length V
+     * @throws IllegalArgumentException if a reached edge weight is negative
+     */
+    public static <T extends VertexInterface, E extends Number>
+            void Dijkstra(WeightedCSRGraph<T, E> G, int s, double[] d,
+                    int[] pi) {
+        Dijkstra(G, s, d, pi, new IndexedDaryHeap(G.V()));
+    }
+
+    /**
+     * Dijkstra algorithm specialized for {@code double} distances, using
+     * any addressable priority queue.
+     * <p>Same as above. The queue keys are the bits of the distances given
+     * by {@code Double.doubleToLongBits}, which sort in the same order as
+     * the distances themselves because they are never negative, so even a
+     * {@code RadixHeap} can be used.
+     *
+     * @param G the graph in CSR format, weights are read as {@code double}
+     * @param s the source vertex
+     * @param d the array to store the distances in, of length V
+     * @param pi the array to store the predecessors in, of length V
+     * @param Q the queue, cleared first
+     * @throws IllegalArgumentException if a reached edge weight is negative
+     */
+    public static <T extends VertexInterface, E extends Number>
+            void Dijkstra(WeightedCSRGraph<T, E> G, int s, double[] d,
+                    int[] pi, AddressablePriorityQueue Q) {
+        G.validateVertex(s);
+        int n = G.V();
+        for (int v = 0; v < n; v++) {
+            d[v] = Double.POSITIVE_INFINITY;
+            pi[v] = ShortestPathVertex.NIL;
+        }
+        d[s] = 0;
+        Q.clear();
+        Q.insert(s, Double.doubleToLongBits(0.0));
+        while (!Q.isEmpty()) {
+            int u = Q.extractMin();
+            for (int i = G.begin(u); i < G.end(u); i++) {
+                double w = G.doubleWeight(i);
+                if (w < 0) {
+                    throw new IllegalArgumentException("negative edge weight");
+                }
+                int v = G.target(i);
+                double dv = d[u] + w;
+                if (dv < d[v]) {
+                    if (d[v] == Double.POSITIVE_INFINITY) {
+                        Q.insert(v, Double.doubleToLongBits(dv));
+                    } else {
+                        Q.decreaseKey(v, Double.doubleToLongBits(dv));
+                    }
+                    d[v] = dv;
+                    pi[v] = u;
+                }
+            }
+        }
+    }
+
     /**
      * Initializes single source predecessors and distances to default.
      * @param G the graph to run shortest path algorithms on
@@ -291,5 +496,44 @@ public class ShortestPath {
         //        2-------->3
         //       (5)   2   (7)
         //
+        System.out.println("Testing Dijkstra (CSR):");
+        WeightedCSRGraph<ShortestPathVertex<Integer>, Integer> CSR =
+                new WeightedCSRGraph<>(G);
+        Dijkstra(CSR, 4);
+        for (ShortestPathVertex<Integer> v : CSR.getVertices()) {
+            System.out.println(v);
+        }
+        System.out.println("Testing Bellman-Ford (CSR):");
+        if (BellmanFord(CSR, 4)) {
+            for (ShortestPathVertex<Integer> v : CSR.getVertices()) {
+                System.out.println(v);
+            }
+        }
+        System.out.println("Testing Dijkstra (long distances):");
+        long[] d = new long[CSR.V()];
+        int[] pi = new int[CSR.V()];
+        Dijkstra(CSR, 4, d, pi);
+        for (int v = 0; v < CSR.V(); v++) {
+            System.out.println("[" + v + "][" + pi[v] + "][" + d[v] + "]");
+        }
+        System.out.println("Testing Dijkstra (double distances):");
+        double[] dd = new double[CSR.V()];
+        Dijkstra(CSR, 4, dd, pi);
+        for (int v = 0; v < CSR.V(); v++) {
+            System.out.println("[" + v + "][" + pi[v] + "][" + dd[v] + "]");
+        }
+        AddressablePriorityQueue[] queues = {
+            new IndexedFibonacciHeap(CSR.V()),
+            new IndexedPairingHeap(CSR.V()),
+            new RadixHeap(CSR.V())
+        };
+        for (AddressablePriorityQueue Q : queues) {
+            System.out.println("Testing Dijkstra ("
+                    + Q.getClass().getSimpleName() + "):");
+            Dijkstra(CSR, 4, d, pi, Q);
+            for (int v = 0; v < CSR.V(); v++) {
+                System.out.println("[" + v + "][" + pi[v] + "][" + d[v] + "]");
+            }
+        }
     }
 }
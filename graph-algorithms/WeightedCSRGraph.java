@@ -0,0 +1,218 @@
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable weighted graph stored in compressed-sparse-row (CSR) format.
+ * <p>Extends {@code CSRGraph} with a weight for every entry of the targets
+ * array. Weights are kept in a primitive array instead of {@code NumericKey}
+ * objects: {@code long[]} for {@code Integer}, {@code Long} and {@code Short}
+ * weights, {@code double[]} for {@code Double} and {@code Float} weights.
+ * <p>It can be built from a {@code WeightedGraph} (each undirected edge is
+ * stored in both directions) or from a {@code WeightedDirectedGraph}.
+ * Infinite weights are not allowed.
+ */
+public class WeightedCSRGraph<T extends VertexInterface, E extends Number>
+        extends CSRGraph<T> {
+    private E typeReference; // the first weight, used to restore E values
+    private long[] longWeights; // weights of integral graphs
+    private double[] doubleWeights; // weights of floating-point graphs
+
+    /**
+     * Constructor. Converts an undirected weighted graph to CSR format.
+     * @param G the graph to convert.
+     * @throws IllegalArgumentException if an edge has an infinite weight.
+     */
+    public WeightedCSRGraph(WeightedGraph<T, E> G) {
+        super(G.C, G.vertices, G.E());
+        init(G.adj);
+    }
+
+    /**
+     * Constructor. Converts a directed weighted graph to CSR format.
+     * @param G the graph to convert.
+     * @throws IllegalArgumentException if an edge has an infinite weight.
+     */
+    public WeightedCSRGraph(WeightedDirectedGraph<T, E> G) {
+        super(G.C, G.vertices, G.E());
+        init(G.adjVertices);
+    }
+
+    private WeightedCSRGraph(WeightedCSRGraph<T, E> that, T[] vertices) {
+        super(that, vertices);
+        this.typeReference = that.typeReference;
+        this.longWeights = that.longWeights;
+        this.doubleWeights = that.doubleWeights;
+    }
+
+    /**
+     * Fills the edge and weight arrays from weighted adjacency-lists.
+     * @param adj the adjacency-lists of the original graph.
+     */
+    private void init(LinkedList<WeightedVertex<T, E>>[] adj) {
+        this.offsets = new int[V + 1];
+        for (int u = 0; u < V; u++) {
+            offsets[u + 1] = offsets[u] + adj[u].size();
+            if (typeReference == null) {
+                for (WeightedVertex<T, E> w : adj[u]) {
+                    if (w.getKey().infinity == NumericKey.NONE) {
+                        this.typeReference = w.getWeight();
+                        break;
+                    }
+                }
+            }
+        }
+        this.targets = new int[offsets[V]];
+        if (NumberUtility.isIntegral(typeReference)) {
+            this.longWeights = new long[offsets[V]];
+        } else {
+            this.doubleWeights = new double[offsets[V]];
+        }
+        for (int u = 0; u < V; u++) {
+            int i = offsets[u];
+            for (WeightedVertex<T, E> w : adj[u]) {
+                targets[i] = w.getVertex();
+                NumericKey<E> key = w.getKey();
+                if (key.infinity == NumericKey.NONE && key.key != null) {
+                    if (longWeights != null) {
+                        longWeights[i] = key.key.longValue();
+                    } else {
+                        doubleWeights[i] = key.key.doubleValue();
+                    }
+                } else if (key.infinity != NumericKey.ZERO) {
+                    String err = "edge (" + u + ", " + w.getVertex() + ") "
+                            + "has no finite weight";
+                    throw new IllegalArgumentException(err);
+                }
+                i++;
+            }
+        }
+    }
+
+    /**
+     * creates an adjacency-list graph containing only the vertices of this
+     * graph but no edges.
+     */
+    public WeightedGraph<T, E> newInstance() {
+        if (C == null) {
+            return new WeightedGraph<T, E>(vertices);
+        }
+        return new WeightedGraph<T, E>(C, V);
+    }
+
+    /**
+     * Checks if the weights are whole numbers.
+     * @return true if the weights are stored as {@code long} values.
+     */
+    public boolean isIntegral() {
+        return longWeights != null;
+    }
+
+    /**
+     * Returns the weight of an edge as a {@code long}.
+     * @param i the index of the edge.
+     */
+    public long longWeight(int i) {
+        if (longWeights != null) return longWeights[i];
+        return (long) doubleWeights[i];
+    }
+
+    /**
+     * Returns the weight of an edge as a {@code double}.
+     * @param i the index of the edge.
+     */
+    public double doubleWeight(int i) {
+        if (longWeights != null) return longWeights[i];
+        return doubleWeights[i];
+    }
+
+    /**
+     * Returns the weight of an edge using the graph's weight type.
+     * @param i the index of the edge.
+     */
+    @SuppressWarnings("unchecked")
+    public E weight(int i) {
+        if (longWeights != null) {
+            return (E) NumberUtility.valueOf(longWeights[i], typeReference);
+        }
+        return (E) NumberUtility.valueOf(doubleWeights[i], typeReference);
+    }
+
+    /**
+     * Returns the weight of an edge as a {@code NumericKey}.
+     * @param i the index of the edge.
+     */
+    public NumericKey<E> getKey(int i) {
+        return new NumericKey<E>(weight(i));
+    }
+
+    /**
+     * Returns the index of the edge (u, v).
+     * @param u the vertex the edge is incident from.
+     * @param v the vertex the edge is incident to.
+     * @throws NoSuchElementException if the edge does not exist.
+     */
+    public int edge(int u, int v) {
+        validateVertex(u);
+        for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+            if (targets[i] == v) return i;
+        }
+        throw new NoSuchElementException("no edge (" + u + ", " + v + ")");
+    }
+
+    /**
+     * Clones the graph.
+     * Only the vertices are copied, the edge and weight arrays are shared
+     * between the two graphs as they are never modified.
+     * @return a copy of the graph.
+     * @throws UnsupportedOperationException if C is null
+     */
+    @Override
+    public WeightedCSRGraph<T, E> copy() {
+        return new WeightedCSRGraph<>(this, newVerticesArray());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("V: " + V + ", E: " + E + "\n");
+        for (int u = 0; u < V; u++) {
+            builder.append("[" + u + "]: ");
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                builder.append(targets[i] + ":" + weight(i) + " ");
+            }
+            if (u < V - 1) builder.append("\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        //    3
+        //  0---1
+        //  |  /|\7
+        // 5|4/3| 2
+        //  |/  |/9
+        //  4---3
+        //    2
+        WeightedGraph<Vertex, Integer> G = new WeightedGraph<>(Vertex.class, 5);
+        G.addEdge(0, 1, 3);
+        G.addEdge(0, 4, 5);
+        G.addEdge(1, 3, 3);
+        G.addEdge(1, 4, 4);
+        G.addEdge(2, 1, 7);
+        G.addEdge(2, 3, 9);
+        G.addEdge(3, 4, 2);
+        System.out.println(G);
+        System.out.println(new WeightedCSRGraph<>(G));
+
+        WeightedDirectedGraph<Vertex, Double> DG =
+                new WeightedDirectedGraph<>(Vertex.class, 3);
+        DG.addEdge(0, 1, 0.5);
+        DG.addEdge(1, 2, 1.25);
+        DG.addEdge(2, 0, 2.0);
+        WeightedCSRGraph<Vertex, Double> CSR = new WeightedCSRGraph<>(DG);
+        System.out.println(CSR);
+        System.out.println("w(1, 2): " + CSR.weight(CSR.edge(1, 2)));
+    }
+}
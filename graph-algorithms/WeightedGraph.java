@@ -140,7 +140,8 @@ public class WeightedGraph<T extends VertexInterface, E extends Number>
         List<WeightedEdge<T, E>> edges = new ArrayList<>();
         for (int u = 0; u < V; u++) {
             for (WeightedVertex<T, E> v : adj[u]) {
-                edges.add(new WeightedEdge<>(vertices[u], v.vertex, v.key));
+                T x = vertices[u];
+                edges.add(new WeightedEdge<>(x, v.vertex, v.getKey()));
             }
         }
         return edges;
@@ -188,7 +189,8 @@ public class WeightedGraph<T extends VertexInterface, E extends Number>
         int E = 0;
         for (int u = 0; u < V; u++) {
             for (WeightedVertex<T, E> v : edges[u]) {
-                this.adj[u].add(new WeightedVertex<T, E>(v.vertex, v.key));
+                E w = v.getWeight();
+                this.adj[u].add(new WeightedVertex<T, E>(v.vertex, w));
                 E++;
             }
         }
@@ -246,7 +248,7 @@ public class WeightedGraph<T extends VertexInterface, E extends Number>
         for (int v = 0; v < V; v++) {
             builder.append("[" + v + "]: ");
             for (WeightedVertex<T, E> x : adj[v]) {
-                builder.append(x.vertex + ":" + x.key + " ");
+                builder.append(x.vertex + ":" + x.getKey() + " ");
             }
             if (v < V - 1) builder.append("\n");
         }
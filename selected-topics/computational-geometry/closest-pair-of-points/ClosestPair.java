@@ -28,7 +28,6 @@ public class ClosestPair {
      */
     private static Pair findRecursive(Point[] X, Point[] Y, int p, int q) {
         int n = q - p;
-        System.out.println(p + ":" + q);
         if (n <= 3) {
             return bruteForceFind(X, p, q);
         }
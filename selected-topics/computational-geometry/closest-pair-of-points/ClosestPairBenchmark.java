@@ -0,0 +1,118 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the closest-pair algorithms on random points uniformly
+ * distributed in a square. {@code ClosestPair.find} only runs on
+ * {@code Small} inputs. The parallel engine runs on pools of 1 and 4
+ * workers, with and without its setup, and also searches the k closest
+ * pairs, k up to 100000, many more than a sequential subproblem has.
+ * <p>Usage: {@code java -jar target/benchmarks.jar ClosestPairBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClosestPairBenchmark {
+    @State(Scope.Thread)
+    public static class Small {
+        @Param({"10000"})
+        public int n;
+        Point[] points;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            points = new Point[n];
+            for (int i = 0; i < n; i++) {
+                points[i] = new Point(rand.nextDouble(), rand.nextDouble());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"10000", "100000", "1000000"})
+        public int n;
+        @Param({"1", "4"})
+        public int threads;
+        double[] xs;
+        double[] ys;
+        ForkJoinPool pool;
+        ParallelClosestPair cp;
+        int[] pair = new int[2];
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            xs = new double[n];
+            ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = rand.nextDouble();
+                ys[i] = rand.nextDouble();
+            }
+            pool = new ForkJoinPool(threads);
+            cp = new ParallelClosestPair(xs, ys, pool);
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown() {
+            pool.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Pairs {
+        @Param({"1000", "100000"})
+        public int k;
+        int[] first;
+        int[] second;
+        double[] distance;
+
+        @Setup(Level.Trial)
+        public void allocate() {
+            first = new int[k];
+            second = new int[k];
+            distance = new double[k];
+        }
+    }
+
+    @Benchmark
+    public Object closestPair(Small in) {
+        return ClosestPair.find(in.points);
+    }
+
+    /**
+     * Builds the engine and finds the closest pair.
+     */
+    @Benchmark
+    public double parallelSetupFind(Input in) {
+        return new ParallelClosestPair(in.xs, in.ys, in.pool).find(in.pair);
+    }
+
+    @Benchmark
+    public double parallelFind(Input in) {
+        return in.cp.find(in.pair);
+    }
+
+    @Benchmark
+    public int parallelClosest(Input in, Pairs out) {
+        return in.cp.closest(out.k, out.first, out.second, out.distance);
+    }
+}
@@ -0,0 +1,582 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closest pairs of points on primitive coordinate arrays, by divide and
+ * conquer on several cores.
+ * <p>The points are sorted by x coordinates once, into the arrays
+ * {@code px} and {@code py} indexed by rank, so the recursion reads
+ * coordinates sequentially and never touches a point object. A subproblem
+ * is a range of ranks [p, q), split at its middle rank. The ranks are also
+ * presorted by y coordinates once, and every subproblem splits its y-order
+ * by rank into the y-orders of its halves with one stable pass, instead of
+ * filtering the points of the whole set. When the halves are solved their
+ * y-orders are merged back, and the points within delta of the middle
+ * line are gathered in y order into the scratch array, free at that
+ * point, which is the only strip buffer. The y-order and the scratch array
+ * swap roles at every level, so after the setup nothing is allocated but
+ * the tasks and their heaps.
+ * <p>Distances are compared squared, the square root is only taken for
+ * the results. The best pairs are kept in a max-heap of k entries, so the
+ * same recursion finds the closest pair, with k = 1, or the k closest
+ * pairs: only pairs with one point in each half are checked in the strip,
+ * while their difference of y coordinates is less than the largest
+ * distance in the heap.
+ * <p>The two halves of ranges of more than max({@code GRAIN}, k) points
+ * are solved in parallel on a fork/join pool, each with its own heap, and
+ * the heaps are merged before the strip. A range of at least k points
+ * fills its heap with the pairs of its smallest subproblems, before its
+ * first strip. The strips also skip the pairs farther than a bound on the
+ * kth distance shared by the tasks, first the kth smallest distance
+ * between points of adjacent ranks, then the smallest largest distance of
+ * a full heap, so no strip keeps every point while its heap is not full
+ * and every task gains from the pairs found by the others. Work is
+ * <em>O(nlgn)</em> for the closest pair and <em>O(nlgn + nk lgk)</em> for
+ * k pairs, the span is <em>O(n + k lgk)</em>, spent in the merges and the
+ * strips of the top levels and in the bound.
+ * <p>An instance holds five arrays of n entries and runs one search at a
+ * time.
+ */
+public class ParallelClosestPair {
+    static final int GRAIN = 1 << 13; // points of the sequential subproblems
+    private static final int BRUTE = 8; // points compared pairwise
+    private static final int SORT = 16; // keys sorted by insertion
+    private static final long INFINITY =
+            Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+    private final int n;
+    private final double[] px, py; // the coordinates by rank in x order
+    private final int[] id; // the index of every rank in the input
+    private final int[] Y; // the ranks in y order
+    private final int[] T; // scratch array and strip buffer
+    private final ForkJoinPool pool;
+    // the bits of the smallest squared distance known to be at least the
+    // kth smallest, shared by the tasks of a search
+    private final AtomicLong bound = new AtomicLong(INFINITY);
+
+    /**
+     * Constructor, runs on the common fork/join pool.
+     * @param xs the x coordinates of the points.
+     * @param ys the y coordinates of the points.
+     * @throws IllegalArgumentException if the arrays have different lengths
+     *         or hold NaN.
+     */
+    public ParallelClosestPair(double[] xs, double[] ys) {
+        this(xs, ys, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor. Sorts the points by x and by y coordinates in parallel.
+     * @param xs the x coordinates of the points.
+     * @param ys the y coordinates of the points.
+     * @param pool the pool running the tasks.
+     * @throws IllegalArgumentException if the arrays have different lengths
+     *         or hold NaN.
+     */
+    public ParallelClosestPair(double[] xs, double[] ys, ForkJoinPool pool) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("coordinates of different "
+                    + "lengths: " + xs.length + " and " + ys.length);
+        }
+        this.n = xs.length;
+        this.pool = pool;
+        this.px = new double[n];
+        this.py = new double[n];
+        this.id = new int[n];
+        this.Y = new int[n];
+        this.T = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (Double.isNaN(xs[i]) || Double.isNaN(ys[i])) {
+                throw new IllegalArgumentException("NaN coordinate at " + i);
+            }
+            px[i] = xs[i];
+            py[i] = ys[i];
+            id[i] = i;
+            Y[i] = i;
+        }
+        // the indexes in y order, with px and T as scratch arrays, then
+        // the indexes in x order with py and T
+        pool.invoke(new SortTask(py, Y, px, T, 0, n, false));
+        System.arraycopy(xs, 0, px, 0, n);
+        pool.invoke(new SortTask(px, id, py, T, 0, n, false));
+        for (int r = 0; r < n; r++) {
+            py[r] = ys[id[r]];
+            T[id[r]] = r; // the rank of every index
+        }
+        for (int i = 0; i < n; i++) Y[i] = T[Y[i]];
+    }
+
+    /**
+     * Finds the closest pair of points.
+     * @param pair receives the indexes of the two points.
+     * @return the distance between them.
+     * @throws IllegalArgumentException if there are less than two points.
+     */
+    public double find(int[] pair) {
+        double[] distance = new double[1];
+        int[] second = new int[1];
+        if (closest(1, pair, second, distance) == 0) {
+            throw new IllegalArgumentException("less than two points");
+        }
+        pair[1] = second[0];
+        return distance[0];
+    }
+
+    /**
+     * Finds the k closest pairs of points. Pairs at the same distance are
+     * found in no specific order.
+     * @param k the number of pairs.
+     * @param first receives the indexes of the first points of the pairs.
+     * @param second receives the indexes of the second points.
+     * @param distance receives the distances, in increasing order.
+     * @return the number of pairs found, k or the number of pairs if less.
+     * @throws IllegalArgumentException if k is not positive or an array is
+     *         shorter than the number of pairs.
+     */
+    public int closest(int k, int[] first, int[] second, double[] distance) {
+        if (k <= 0) throw new IllegalArgumentException("k is not positive");
+        long pairs = (long) n * (n - 1) / 2;
+        int m = (int) Math.min(k, pairs);
+        if (m == 0) return 0;
+        if (first.length < m || second.length < m || distance.length < m) {
+            throw new IllegalArgumentException("arrays shorter than " + m);
+        }
+        Heap heap;
+        int grain = Math.max(GRAIN, m);
+        if (n <= grain || pool.getParallelism() == 1) {
+            bound.set(INFINITY);
+            heap = new Heap(m);
+            solve(0, n, Y, T, heap);
+        } else {
+            // the kth smallest of the n - 1 distances between adjacent
+            // ranks, the next double so that pairs at the bound are kept
+            Heap adjacent = new Heap(m);
+            for (int r = 0; r + 1 < n; r++) {
+                adjacent.offer(r, r + 1, d2(r, r + 1));
+            }
+            bound.set(Double.doubleToLongBits(Math.nextUp(adjacent.top())));
+            SearchTask task = new SearchTask(0, n, Y, T, m, grain);
+            pool.invoke(task);
+            heap = task.heap;
+        }
+        // extract the pairs from the largest distance
+        for (int i = heap.size - 1; i >= 0; i--) {
+            first[i] = id[heap.a[0]];
+            second[i] = id[heap.b[0]];
+            distance[i] = Math.sqrt(heap.d2[0]);
+            heap.poll();
+        }
+        return m;
+    }
+
+    /**
+     * Finds the closest pairs of ranks in [p, q), on entry in[p..q) holds
+     * them in y order, and it holds them again on return. out[p..q) is
+     * scratch.
+     */
+    private void solve(int p, int q, int[] in, int[] out, Heap heap) {
+        if (q - p <= BRUTE) {
+            for (int i = p; i < q; i++) {
+                for (int j = i + 1; j < q; j++) heap.offer(i, j, d2(i, j));
+            }
+            return;
+        }
+        int mid = (p + q) >>> 1;
+        split(p, q, mid, in, out);
+        solve(p, mid, out, in, heap);
+        solve(mid, q, out, in, heap);
+        merge(p, q, mid, out, in);
+        strip(p, q, mid, in, out, heap);
+    }
+
+    private double d2(int i, int j) {
+        double dx = px[i] - px[j], dy = py[i] - py[j];
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Copies the y-order in[p..q) to out[p..mid) and out[mid..q), the
+     * ranks less than mid first, keeping their order.
+     */
+    private static void split(int p, int q, int mid, int[] in, int[] out) {
+        int l = p, r = mid;
+        for (int i = p; i < q; i++) {
+            int x = in[i];
+            if (x < mid) out[l++] = x;
+            else out[r++] = x;
+        }
+    }
+
+    /**
+     * Merges the y-orders in[p..mid) and in[mid..q) into out[p..q).
+     */
+    private void merge(int p, int q, int mid, int[] in, int[] out) {
+        int i = p, j = mid, k = p;
+        while (i < mid && j < q) {
+            out[k++] = py[in[j]] < py[in[i]] ? in[j++] : in[i++];
+        }
+        while (i < mid) out[k++] = in[i++];
+        while (j < q) out[k++] = in[j++];
+    }
+
+    /**
+     * Checks the pairs across the middle line of [p, q) which may be closer
+     * than the pairs in the heap and the shared bound, and lowers the bound
+     * to the largest distance in the heap if it is full. in[p..q) is the
+     * y-order and out[p..q) receives the strip.
+     */
+    private void strip(int p, int q, int mid, int[] in, int[] out,
+            Heap heap) {
+        double xm = px[mid];
+        double shared = Double.longBitsToDouble(bound.get());
+        double top = Math.min(heap.top(), shared);
+        int m = p;
+        for (int i = p; i < q; i++) {
+            double dx = px[in[i]] - xm;
+            if (dx * dx < top) out[m++] = in[i];
+        }
+        for (int i = p; i < m; i++) {
+            int a = out[i];
+            boolean left = a < mid;
+            double y = py[a];
+            for (int j = i + 1; j < m; j++) {
+                int b = out[j];
+                double dy = py[b] - y;
+                if (dy * dy >= top) break;
+                if ((b < mid) == left) continue;
+                double d = d2(a, b);
+                if (d < top) {
+                    heap.offer(a, b, d);
+                    top = Math.min(top, heap.top());
+                }
+            }
+        }
+        // squared distances are not negative, so their bits order them
+        if (top < shared) bound.accumulateAndGet(
+                Double.doubleToLongBits(top), Math::min);
+    }
+
+    /**
+     * Solves a range of ranks, its halves in parallel if it is larger than
+     * grain, and leaves its best pairs in its heap.
+     */
+    private final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int p, q, k, grain;
+        private final int[] in, out;
+        Heap heap;
+
+        SearchTask(int p, int q, int[] in, int[] out, int k, int grain) {
+            this.p = p;
+            this.q = q;
+            this.in = in;
+            this.out = out;
+            this.k = k;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (q - p <= grain) {
+                heap = new Heap(k);
+                solve(p, q, in, out, heap);
+                return;
+            }
+            int mid = (p + q) >>> 1;
+            split(p, q, mid, in, out);
+            SearchTask left = new SearchTask(p, mid, out, in, k, grain);
+            SearchTask right = new SearchTask(mid, q, out, in, k, grain);
+            left.fork();
+            right.compute();
+            left.join();
+            heap = left.heap;
+            heap.addAll(right.heap);
+            merge(p, q, mid, out, in);
+            strip(p, q, mid, in, out, heap);
+        }
+    }
+
+    /**
+     * A max-heap of at most k pairs of ranks by squared distance.
+     */
+    private static final class Heap {
+        final double[] d2;
+        final int[] a, b;
+        int size;
+
+        Heap(int k) {
+            this.d2 = new double[k];
+            this.a = new int[k];
+            this.b = new int[k];
+        }
+
+        /**
+         * Returns the largest squared distance if the heap is full, the
+         * bound of the pairs which may enter it.
+         */
+        double top() {
+            return size < d2.length ? Double.POSITIVE_INFINITY : d2[0];
+        }
+
+        void offer(int i, int j, double d) {
+            if (size < d2.length) {
+                int c = size++;
+                while (c > 0) {
+                    int parent = (c - 1) / 2;
+                    if (d2[parent] >= d) break;
+                    set(c, parent);
+                    c = parent;
+                }
+                d2[c] = d;
+                a[c] = i;
+                b[c] = j;
+            } else if (d < d2[0]) {
+                sift(i, j, d);
+            }
+        }
+
+        void addAll(Heap that) {
+            for (int i = 0; i < that.size; i++) {
+                offer(that.a[i], that.b[i], that.d2[i]);
+            }
+        }
+
+        /**
+         * Removes the largest entry.
+         */
+        void poll() {
+            size--;
+            if (size > 0) sift(a[size], b[size], d2[size]);
+        }
+
+        /**
+         * Replaces the root by a pair and moves it down.
+         */
+        private void sift(int i, int j, double d) {
+            int c = 0;
+            while (2 * c + 1 < size) {
+                int child = 2 * c + 1;
+                if (child + 1 < size && d2[child + 1] > d2[child]) child++;
+                if (d2[child] <= d) break;
+                set(c, child);
+                c = child;
+            }
+            d2[c] = d;
+            a[c] = i;
+            b[c] = j;
+        }
+
+        private void set(int to, int from) {
+            d2[to] = d2[from];
+            a[to] = a[from];
+            b[to] = b[from];
+        }
+    }
+
+    /**
+     * Sorts the keys of [p, r) with their values, stably. The sorted range
+     * is left in key and value if toBuffer is false, otherwise in the
+     * buffers. The halves are sorted in parallel into the other arrays and
+     * merged into the wanted ones.
+     */
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double[] key, keyBuffer;
+        private final int[] value, valueBuffer;
+        private final int p, r;
+        private final boolean toBuffer;
+
+        SortTask(double[] key, int[] value, double[] keyBuffer,
+                int[] valueBuffer, int p, int r, boolean toBuffer) {
+            this.key = key;
+            this.value = value;
+            this.keyBuffer = keyBuffer;
+            this.valueBuffer = valueBuffer;
+            this.p = p;
+            this.r = r;
+            this.toBuffer = toBuffer;
+        }
+
+        @Override
+        protected void compute() {
+            if (r - p <= GRAIN) {
+                sort(key, value, keyBuffer, valueBuffer, p, r, toBuffer);
+                return;
+            }
+            int q = (p + r) >>> 1;
+            SortTask left = new SortTask(key, value, keyBuffer, valueBuffer,
+                    p, q, !toBuffer);
+            SortTask right = new SortTask(key, value, keyBuffer, valueBuffer,
+                    q, r, !toBuffer);
+            left.fork();
+            right.compute();
+            left.join();
+            if (toBuffer) {
+                merge(key, value, keyBuffer, valueBuffer, p, q, r);
+            } else {
+                merge(keyBuffer, valueBuffer, key, value, p, q, r);
+            }
+        }
+    }
+
+    /**
+     * Sequential version of {@code SortTask}.
+     */
+    private static void sort(double[] key, int[] value, double[] keyBuffer,
+            int[] valueBuffer, int p, int r, boolean toBuffer) {
+        if (r - p <= SORT) {
+            for (int i = p + 1; i < r; i++) {
+                double k = key[i];
+                int v = value[i];
+                int j = i - 1;
+                for (; j >= p && key[j] > k; j--) {
+                    key[j + 1] = key[j];
+                    value[j + 1] = value[j];
+                }
+                key[j + 1] = k;
+                value[j + 1] = v;
+            }
+            if (toBuffer) {
+                System.arraycopy(key, p, keyBuffer, p, r - p);
+                System.arraycopy(value, p, valueBuffer, p, r - p);
+            }
+            return;
+        }
+        int q = (p + r) >>> 1;
+        sort(key, value, keyBuffer, valueBuffer, p, q, !toBuffer);
+        sort(key, value, keyBuffer, valueBuffer, q, r, !toBuffer);
+        if (toBuffer) merge(key, value, keyBuffer, valueBuffer, p, q, r);
+        else merge(keyBuffer, valueBuffer, key, value, p, q, r);
+    }
+
+    /**
+     * Merges the sorted ranges [p, q) and [q, r) of key and value into
+     * the range [p, r) of the other arrays.
+     */
+    private static void merge(double[] key, int[] value, double[] toKey,
+            int[] toValue, int p, int q, int r) {
+        int i = p, j = q, k = p;
+        while (i < q && j < r) {
+            if (key[j] < key[i]) {
+                toKey[k] = key[j];
+                toValue[k++] = value[j++];
+            } else {
+                toKey[k] = key[i];
+                toValue[k++] = value[i++];
+            }
+        }
+        while (i < q) {
+            toKey[k] = key[i];
+            toValue[k++] = value[i++];
+        }
+        while (j < r) {
+            toKey[k] = key[j];
+            toValue[k++] = value[j++];
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        double[] xs = {-13, -2, 20, -1, -18, 9, -11, 13, -18, 7,
+                13, -9, 1, -6, 10, -4, -1, 0, 6, 20};
+        double[] ys = {-15, 19, 13, 3, -9, 17, 2, -13, -4, 7,
+                -8, -16, 10, -14, -10, -15, 14, 10, -7, -10};
+        int[] pair = new int[2];
+        double d = new ParallelClosestPair(xs, ys).find(pair);
+        System.out.println("closest pair: " + pair[0] + ", " + pair[1]
+                + " at " + d + " expected 12 and 17 at 1.0");
+        // random points, with duplicates and on a line, against every
+        // pair, on one and four workers
+        Random rand = new Random(5);
+        ForkJoinPool[] pools = {new ForkJoinPool(1), new ForkJoinPool(4)};
+        int failures = 0;
+        for (int t = 0; t < 60; t++) {
+            int n = 2 + rand.nextInt(t < 50 ? 300 : 3 * GRAIN);
+            int grid = t % 3 == 0 ? 20 : 0;
+            xs = new double[n];
+            ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = grid > 0 ? rand.nextInt(grid) : rand.nextDouble();
+                ys[i] = t % 5 == 0 ? 1 : grid > 0 ? rand.nextInt(grid)
+                        : rand.nextDouble();
+            }
+            int k = 1 + rand.nextInt(t % 2 == 0 ? 3 : 500);
+            // the k smallest squared distances by brute force
+            double[] all = new double[Math.min(k, n * (n - 1) / 2)];
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double dx = xs[i] - xs[j], dy = ys[i] - ys[j];
+                    double e = dx * dx + dy * dy;
+                    if (m < all.length) {
+                        all[m++] = e;
+                        Arrays.sort(all, 0, m);
+                    } else if (e < all[m - 1]) {
+                        int c = m - 1;
+                        for (; c > 0 && all[c - 1] > e; c--) {
+                            all[c] = all[c - 1];
+                        }
+                        all[c] = e;
+                    }
+                }
+            }
+            for (ForkJoinPool pool : pools) {
+                ParallelClosestPair cp = new ParallelClosestPair(xs, ys, pool);
+                int[] first = new int[k], second = new int[k];
+                double[] dist = new double[k];
+                int found = cp.closest(k, first, second, dist);
+                if (found != m) failures++;
+                for (int i = 0; i < found && i < m; i++) {
+                    double dx = xs[first[i]] - xs[second[i]];
+                    double dy = ys[first[i]] - ys[second[i]];
+                    if (first[i] == second[i] || dist[i] != Math.sqrt(all[i])
+                            || dx * dx + dy * dy != all[i]) {
+                        failures++;
+                    }
+                }
+                if (cp.find(pair) != Math.sqrt(all[0])) failures++;
+            }
+        }
+        System.out.println("random points: " + failures + " differences"
+                + (failures == 0 ? " ok" : " FAILED"));
+        // many more pairs than a leaf of GRAIN points has, on one worker,
+        // which is sequential, and on four
+        int k = 10 * GRAIN;
+        int n = 4 * k;
+        int[][] first = new int[2][k], second = new int[2][k];
+        double[][] dist = new double[2][k];
+        failures = 0;
+        for (int t = 0; t < 2; t++) {
+            xs = new double[n];
+            ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = t == 0 ? rand.nextDouble() : 1; // or a vertical line
+                ys[i] = rand.nextDouble();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < pools.length; i++) {
+                ParallelClosestPair cp = new ParallelClosestPair(xs, ys,
+                        pools[i]);
+                if (cp.closest(k, first[i], second[i], dist[i]) != k) {
+                    failures++;
+                }
+            }
+            if (!Arrays.equals(dist[0], dist[1])) failures++;
+            for (int i = 0; i < k; i++) {
+                double dx = xs[first[1][i]] - xs[second[1][i]];
+                double dy = ys[first[1][i]] - ys[second[1][i]];
+                if (Math.sqrt(dx * dx + dy * dy) != dist[1][i]) failures++;
+            }
+            System.out.println((t == 0 ? "uniform" : "vertical line")
+                    + ", n = " + n + ", k = " + k + ": "
+                    + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+        for (ForkJoinPool pool : pools) pool.shutdown();
+        System.out.println("large k: " + failures + " differences"
+                + (failures == 0 ? " ok" : " FAILED"));
+    }
+}
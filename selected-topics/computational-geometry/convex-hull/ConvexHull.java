@@ -121,8 +121,8 @@ public class ConvexHull {
                 Point p2 = a[i + 1];
                 if (p0.squareDistanceTo(p2) > p0.squareDistanceTo(p1)) {
                     p1 = p2;
-                    i++;
                 }
+                i++;
             }
             a[j++] = p1;
         }
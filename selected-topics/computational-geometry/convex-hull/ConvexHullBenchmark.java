@@ -0,0 +1,94 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the convex-hull algorithms on random points uniformly
+ * distributed in a square and in a disk. Points in a disk give larger
+ * hulls, which slows down Jarvis's march and Chan's algorithm.
+ * <p>{@code ConvexHull} sorts its input, so it runs on a fresh copy of the
+ * points made before every invocation.
+ * <p>Usage: {@code java -jar target/benchmarks.jar ConvexHullBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvexHullBenchmark {
+    private static final int RANGE = 1 << 20;
+
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"1000", "100000"})
+        public int n;
+        @Param({"true", "false"})
+        public boolean disk;
+        Point[] points;
+        Point[] Q;
+        ParallelConvexHull hull;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            points = new Point[n];
+            double[] xs = new double[n], ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                if (disk) {
+                    double r = RANGE / 2 * Math.sqrt(rand.nextDouble());
+                    double theta = 2 * Math.PI * rand.nextDouble();
+                    points[i] = new Point(Math.round(r * Math.cos(theta)),
+                            Math.round(r * Math.sin(theta)));
+                } else {
+                    points[i] = new Point(rand.nextInt(RANGE),
+                            rand.nextInt(RANGE));
+                }
+                xs[i] = points[i].x;
+                ys[i] = points[i].y;
+            }
+            hull = new ParallelConvexHull(xs, ys);
+        }
+
+        @Setup(Level.Invocation)
+        public void copy() {
+            Q = points.clone();
+        }
+    }
+
+    @Benchmark
+    public Object grahamScan(Input in) {
+        return ConvexHull.grahamScan(in.Q);
+    }
+
+    @Benchmark
+    public Object jarvisMarch(Input in) {
+        return ConvexHull.jarvisMarch(in.Q);
+    }
+
+    @Benchmark
+    public Object monotoneChain(Input in) {
+        return in.hull.monotoneChain();
+    }
+
+    @Benchmark
+    public Object divideAndConquer(Input in) {
+        return in.hull.divideAndConquer();
+    }
+
+    @Benchmark
+    public Object chan(Input in) {
+        return in.hull.chan();
+    }
+}
@@ -0,0 +1,755 @@
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Convex hulls of points on primitive coordinate arrays, on several cores.
+ * <p>The hull is returned as the indexes of its vertices in
+ * counter-clockwise order, from the lowest of the leftmost points. Points
+ * inside the hull or in the interior of its edges are not vertices, and a
+ * point given more than once is a vertex at most once, so every edge turns
+ * left. The hull of collinear points is their two end-points and the hull
+ * of equal points is one of them. The coordinate arrays are only read,
+ * unlike {@code ConvexHull} which sorts its input.
+ * <p>Every algorithm starts with the Akl-Toussaint heuristic: the extreme
+ * points in eight directions, the axes and the diagonals, are found with
+ * a parallel reduction and the points strictly inside their hull, which
+ * are most of the points of uniform distributions, are filtered out in
+ * parallel. Then
+ * <ul>
+ * <li>{@code monotoneChain} sorts the remaining points by x coordinates,
+ * then y, with a parallel merge sort and builds the lower and the upper
+ * chains of the hull with Andrew's algorithm, in <em>O(nlgn)</em>.</li>
+ * <li>{@code divideAndConquer} sorts them the same way, builds the chains
+ * of ranges of {@code GRAIN} points in parallel and merges the chains of
+ * adjacent ranges, which are separated by a vertical line, with one more
+ * pass of Andrew's algorithm over the vertices of both.</li>
+ * <li>{@code chan} is Chan's output-sensitive algorithm: the points are
+ * split into groups of m points whose hulls are built in parallel, then
+ * at most m steps of Jarvis's march are taken from hull to hull, finding
+ * the tangent from the current vertex to every group hull by binary
+ * search. Starting with m = 4, m is squared until the march closes, in
+ * <em>O(nlgh)</em> for h vertices.</li>
+ * </ul>
+ * <p>Orientations are evaluated in floating point with a bound on their
+ * error and again in exact {@code BigDecimal} arithmetic only if the result
+ * is within the bound, so the hulls are exact for any finite coordinates.
+ * <p>An instance holds three arrays of n entries and runs one algorithm at
+ * a time. The coordinates must not change while it runs.
+ */
+public class ParallelConvexHull {
+    static final int GRAIN = 1 << 13; // points of the sequential subproblems
+    private static final int SORT = 16; // indexes sorted by insertion
+    private static final int SCAN = 8; // group hulls searched linearly
+    private static final double EPS = 0x1p-53; // the unit roundoff
+    // the relative error bound of orientations of double points
+    private static final double ORIENT_BOUND = (3 + 16 * EPS) * EPS;
+    // the eight directions of the extreme points, counter-clockwise
+    private static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] DY = {0, 1, 1, 1, 0, -1, -1, -1};
+    private final int n;
+    private final double[] xs, ys;
+    private final int[] idx; // the points left by the filter
+    private final int[] buf; // sort scratch, lower chains and group hulls
+    private final int[] up; // upper chains and the march of Chan
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor, runs on the common fork/join pool.
+     * @param xs the x coordinates of the points.
+     * @param ys the y coordinates of the points.
+     * @throws IllegalArgumentException if the arrays have different lengths
+     *         or hold coordinates which are not finite.
+     */
+    public ParallelConvexHull(double[] xs, double[] ys) {
+        this(xs, ys, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor.
+     * @param xs the x coordinates of the points.
+     * @param ys the y coordinates of the points.
+     * @param pool the pool running the tasks.
+     * @throws IllegalArgumentException if the arrays have different lengths
+     *         or hold coordinates which are not finite.
+     */
+    public ParallelConvexHull(double[] xs, double[] ys, ForkJoinPool pool) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("coordinates of different "
+                    + "lengths: " + xs.length + " and " + ys.length);
+        }
+        for (int i = 0; i < xs.length; i++) {
+            if (Double.isNaN(xs[i] - xs[i]) || Double.isNaN(ys[i] - ys[i])) {
+                throw new IllegalArgumentException("coordinate at " + i
+                        + " is not finite");
+            }
+        }
+        this.n = xs.length;
+        this.xs = xs;
+        this.ys = ys;
+        this.pool = pool;
+        this.idx = new int[n];
+        this.buf = new int[n];
+        this.up = new int[n];
+    }
+
+    /**
+     * Andrew's monotone chain algorithm after a parallel sort.
+     * Running time is <em>O(nlgn)</em>.
+     * @return the indexes of the vertices in counter-clockwise order.
+     */
+    public int[] monotoneChain() {
+        if (n == 0) return new int[0];
+        int m = filter();
+        sort(m);
+        int l = chain(idx, 0, m, buf, 0, 1);
+        int u = chain(idx, 0, m, up, 0, -1);
+        return hull(l, u);
+    }
+
+    /**
+     * Andrew's algorithm on ranges of points in parallel, whose chains are
+     * merged two by two. Work is <em>O(nlgn)</em>, dominated by the sort.
+     * @return the indexes of the vertices in counter-clockwise order.
+     */
+    public int[] divideAndConquer() {
+        if (n == 0) return new int[0];
+        int m = filter();
+        sort(m);
+        ChainTask task = new ChainTask(0, m);
+        if (m <= GRAIN) task.compute();
+        else pool.invoke(task);
+        return hull(task.lower, task.upper);
+    }
+
+    /**
+     * Chan's algorithm. Running time is <em>O(nlgh)</em> where h is the
+     * number of vertices.
+     * @return the indexes of the vertices in counter-clockwise order.
+     */
+    public int[] chan() {
+        if (n == 0) return new int[0];
+        int m = filter();
+        int first = idx[0];
+        for (int i = 1; i < m; i++) {
+            if (less(idx[i], first)) first = idx[i];
+        }
+        for (int t = 1; ; t++) {
+            int size = t >= 5 ? m : Math.min(m, 1 << (1 << t));
+            int groups = (m + size - 1) / size;
+            int[] sizes = new int[groups];
+            GroupTask task = new GroupTask(size, m, sizes, 0, groups);
+            if (groups == 1 || m <= GRAIN) task.compute();
+            else pool.invoke(task);
+            int h = march(first, size, sizes);
+            if (h > 0) return Arrays.copyOf(up, h);
+        }
+    }
+
+    /**
+     * The Akl-Toussaint heuristic, leaves in idx the points which are not
+     * strictly inside the hull of the extreme points, in index order.
+     * @return the number of points left.
+     */
+    private int filter() {
+        int[] e = n <= GRAIN ? extremes(0, n)
+                : pool.invoke(new ExtremeTask(0, n));
+        // the hull of the extreme points, which may repeat
+        for (int i = 1; i < e.length; i++) {
+            int v = e[i], j = i - 1;
+            for (; j >= 0 && less(v, e[j]); j--) e[j + 1] = e[j];
+            e[j + 1] = v;
+        }
+        int[] lower = new int[e.length], upper = new int[e.length];
+        int l = chain(e, 0, e.length, lower, 0, 1);
+        int u = chain(e, 0, e.length, upper, 0, -1);
+        int[] q = new int[l + u - 2];
+        if (q.length < 3) {
+            for (int i = 0; i < n; i++) idx[i] = i;
+            return n;
+        }
+        System.arraycopy(lower, 0, q, 0, l);
+        for (int i = u - 2, k = l; i > 0; i--) q[k++] = upper[i];
+        int chunks = (n + GRAIN - 1) / GRAIN;
+        int[] counts = new int[chunks];
+        if (chunks == 1) counts[0] = keep(q, 0, n);
+        else pool.invoke(new FilterTask(q, counts, 0, chunks));
+        int m = counts[0];
+        for (int c = 1; c < chunks; c++) {
+            System.arraycopy(idx, c * GRAIN, idx, m, counts[c]);
+            m += counts[c];
+        }
+        return m;
+    }
+
+    /**
+     * Finds the extreme points of [lo, hi) in the eight directions, the
+     * ties broken by the next direction.
+     */
+    private int[] extremes(int lo, int hi) {
+        int[] e = new int[DX.length];
+        Arrays.fill(e, lo);
+        for (int i = lo + 1; i < hi; i++) {
+            for (int k = 0; k < DX.length; k++) {
+                if (beats(k, i, e[k])) e[k] = i;
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Checks if point i is further than point j in direction k.
+     */
+    private boolean beats(int k, int i, int j) {
+        double a = DX[k] * xs[i] + DY[k] * ys[i];
+        double b = DX[k] * xs[j] + DY[k] * ys[j];
+        if (a != b) return a > b;
+        k = (k + 1) % DX.length;
+        return DX[k] * xs[i] + DY[k] * ys[i] > DX[k] * xs[j] + DY[k] * ys[j];
+    }
+
+    /**
+     * Copies the points of [lo, hi) which are not strictly inside the
+     * counter-clockwise polygon q to idx[lo..).
+     * @return the number of points copied.
+     */
+    private int keep(int[] q, int lo, int hi) {
+        int k = lo;
+        for (int i = lo; i < hi; i++) {
+            int j = 0;
+            while (j < q.length
+                    && orient(q[j], q[j + 1 == q.length ? 0 : j + 1], i) > 0) {
+                j++;
+            }
+            if (j < q.length) idx[k++] = i;
+        }
+        return k - lo;
+    }
+
+    /**
+     * Finds the extreme points of a range, its halves in parallel if it is
+     * larger than {@code GRAIN}.
+     */
+    private final class ExtremeTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+        private final int lo, hi;
+
+        ExtremeTask(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (hi - lo <= GRAIN) return extremes(lo, hi);
+            int mid = (lo + hi) >>> 1;
+            ExtremeTask left = new ExtremeTask(lo, mid);
+            left.fork();
+            int[] e = new ExtremeTask(mid, hi).compute();
+            int[] l = left.join();
+            for (int k = 0; k < e.length; k++) {
+                if (!beats(k, e[k], l[k])) e[k] = l[k];
+            }
+            return e;
+        }
+    }
+
+    /**
+     * Filters the chunks [lo, hi) of {@code GRAIN} points, each into its
+     * own range of idx, and stores their counts.
+     */
+    private final class FilterTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] q, counts;
+        private final int lo, hi;
+
+        FilterTask(int[] q, int[] counts, int lo, int hi) {
+            this.q = q;
+            this.counts = counts;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                counts[lo] = keep(q, lo * GRAIN, Math.min(n, hi * GRAIN));
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            FilterTask left = new FilterTask(q, counts, lo, mid);
+            left.fork();
+            new FilterTask(q, counts, mid, hi).compute();
+            left.join();
+        }
+    }
+
+    /**
+     * Builds a chain of Andrew's algorithm from the points in[from..to),
+     * sorted by x then y, into out[o..): the lower chain if side is 1, the
+     * upper chain if it is -1, both from left to right.
+     * @return the number of vertices.
+     */
+    private int chain(int[] in, int from, int to, int[] out, int o,
+            int side) {
+        int k = o;
+        for (int i = from; i < to; i++) {
+            int c = in[i];
+            if (k > o && same(out[k - 1], c)) continue;
+            while (k - o >= 2 && side * orient(out[k - 2], out[k - 1], c) <= 0) {
+                k--;
+            }
+            out[k++] = c;
+        }
+        return k - o;
+    }
+
+    /**
+     * Merges the chains a[p..p+l) and a[mid..mid+r) of points separated by
+     * a vertical line, the left one first, into a[p..), in place.
+     * @return the number of vertices.
+     */
+    private int merge(int[] a, int p, int l, int mid, int r, int side) {
+        int k = p + l;
+        for (int i = mid; i < mid + r; i++) {
+            int c = a[i];
+            if (same(a[k - 1], c)) continue;
+            while (k - p >= 2 && side * orient(a[k - 2], a[k - 1], c) <= 0) {
+                k--;
+            }
+            a[k++] = c;
+        }
+        return k - p;
+    }
+
+    /**
+     * Joins the lower chain buf[0..l) and the upper chain up[0..u), which
+     * have the same end-points, in counter-clockwise order.
+     */
+    private int[] hull(int l, int u) {
+        if (l == 1) return new int[] {buf[0]};
+        int[] h = Arrays.copyOf(buf, l + u - 2);
+        for (int i = u - 2, k = l; i > 0; i--) h[k++] = up[i];
+        return h;
+    }
+
+    /**
+     * Builds the chains of a range of sorted points, the chains of its
+     * halves in parallel and merged if it is larger than {@code GRAIN}.
+     */
+    private final class ChainTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int p, q;
+        int lower, upper;
+
+        ChainTask(int p, int q) {
+            this.p = p;
+            this.q = q;
+        }
+
+        @Override
+        protected void compute() {
+            if (q - p <= GRAIN) {
+                lower = chain(idx, p, q, buf, p, 1);
+                upper = chain(idx, p, q, up, p, -1);
+                return;
+            }
+            int mid = (p + q) >>> 1;
+            ChainTask left = new ChainTask(p, mid);
+            ChainTask right = new ChainTask(mid, q);
+            left.fork();
+            right.compute();
+            left.join();
+            lower = merge(buf, p, left.lower, mid, right.lower, 1);
+            upper = merge(up, p, left.upper, mid, right.upper, -1);
+        }
+    }
+
+    /**
+     * Builds the hulls of the groups [lo, hi) of size points of idx, each
+     * in counter-clockwise order in the range of the group in buf, and
+     * stores their sizes.
+     */
+    private final class GroupTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int size, m, lo, hi;
+        private final int[] sizes;
+
+        GroupTask(int size, int m, int[] sizes, int lo, int hi) {
+            this.size = size;
+            this.m = m;
+            this.sizes = sizes;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1 || (hi - lo) * size <= GRAIN) {
+                for (int g = lo; g < hi; g++) group(g);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            GroupTask left = new GroupTask(size, m, sizes, lo, mid);
+            left.fork();
+            new GroupTask(size, m, sizes, mid, hi).compute();
+            left.join();
+        }
+
+        private void group(int g) {
+            int p = g * size, q = Math.min(m, p + size);
+            sort(idx, buf, p, q, false);
+            int l = chain(idx, p, q, buf, p, 1);
+            int u = chain(idx, p, q, up, p, -1);
+            int k = p + l;
+            if (l > 1) {
+                for (int i = p + u - 2; i > p; i--) buf[k++] = up[i];
+            }
+            sizes[g] = k - p;
+        }
+    }
+
+    /**
+     * Jarvis's march over the group hulls from the point first, into up.
+     * @return the number of vertices, or 0 if there are more than size.
+     */
+    private int march(int first, int size, int[] sizes) {
+        int groups = sizes.length;
+        int pg = 0; // the group and the position of the current vertex
+        while (!same(buf[pg * size], first)) pg++;
+        int pi = 0;
+        int h = 0;
+        do {
+            if (h == size) return 0;
+            int p = buf[pg * size + pi];
+            up[h++] = p;
+            int best = -1, bg = 0, bi = 0;
+            for (int g = 0; g < groups; g++) {
+                int base = g * size, len = sizes[g];
+                int i = g == pg ? (pi + 1) % len : tangent(p, base, len);
+                int c = buf[base + i];
+                if (same(c, p)) continue;
+                if (best < 0 || better(p, c, best)) {
+                    best = c;
+                    bg = g;
+                    bi = i;
+                }
+            }
+            if (best < 0) break; // the points are all equal
+            pg = bg;
+            pi = bi;
+        } while (!same(buf[pg * size + pi], first));
+        return h;
+    }
+
+    /**
+     * Finds the position of the vertex of the group hull buf[base..base+len)
+     * such that no point of the group is on the right of the line from p to
+     * it, the farthest from p if two are. p is outside the group hull or
+     * one of its vertices.
+     * <p>Seen from p, the directions of the vertices increase from the
+     * searched vertex to the opposite tangent and decrease back. The
+     * searched position is the first one in [1, len) where they increase
+     * and which is before the first vertex if they increase at the first
+     * vertex, or after it otherwise. The search only uses orientations, so
+     * a few steps to better neighbours fix its result when p is aligned
+     * with an edge.
+     */
+    private int tangent(int p, int base, int len) {
+        int b = 0;
+        if (len <= SCAN) {
+            for (int i = 1; i < len; i++) {
+                if (better(p, buf[base + i], buf[base + b])) b = i;
+            }
+            return b;
+        }
+        int h0 = buf[base];
+        if (same(p, h0)) return 1;
+        boolean rising0 = rising(p, base, len, 0);
+        if (!rising0 || rising(p, base, len, len - 1)) {
+            int lo = 1, hi = len;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                boolean r = rising(p, base, len, mid);
+                int o = orient(p, h0, buf[base + mid]);
+                if (rising0 ? r && o < 0 : r || o > 0) hi = mid;
+                else lo = mid + 1;
+            }
+            b = lo == len ? 0 : lo;
+        }
+        while (true) {
+            int prev = b == 0 ? len - 1 : b - 1;
+            int next = b == len - 1 ? 0 : b + 1;
+            if (better(p, buf[base + prev], buf[base + b])) b = prev;
+            else if (better(p, buf[base + next], buf[base + b])) b = next;
+            else return b;
+        }
+    }
+
+    /**
+     * Checks if the next vertex of a group hull is counter-clockwise from
+     * vertex i, seen from p.
+     */
+    private boolean rising(int p, int base, int len, int i) {
+        int next = i == len - 1 ? 0 : i + 1;
+        return orient(p, buf[base + i], buf[base + next]) > 0;
+    }
+
+    /**
+     * Checks if u is a better next vertex than v after the hull vertex p:
+     * if v is p, u is clockwise from v seen from p, or they are aligned
+     * with p and u is farther.
+     */
+    private boolean better(int p, int u, int v) {
+        if (same(u, p)) return false;
+        if (same(v, p)) return true;
+        int o = orient(p, v, u);
+        if (o != 0) return o < 0;
+        if (xs[v] != xs[p]) {
+            return xs[v] > xs[p] ? xs[u] > xs[v] : xs[u] < xs[v];
+        }
+        return ys[v] > ys[p] ? ys[u] > ys[v] : ys[u] < ys[v];
+    }
+
+    private boolean same(int a, int b) {
+        return xs[a] == xs[b] && ys[a] == ys[b];
+    }
+
+    /**
+     * Orders the points by x coordinates then y.
+     */
+    private boolean less(int a, int b) {
+        return xs[a] < xs[b] || (xs[a] == xs[b] && ys[a] < ys[b]);
+    }
+
+    /**
+     * Returns 1 if the points a, b and c turn left, -1 if they turn right
+     * or 0 if they are collinear.
+     */
+    private int orient(int a, int b, int c) {
+        double acx = xs[a] - xs[c], bcx = xs[b] - xs[c];
+        double acy = ys[a] - ys[c], bcy = ys[b] - ys[c];
+        double left = acx * bcy, right = acy * bcx;
+        double det = left - right;
+        double bound = ORIENT_BOUND * (Math.abs(left) + Math.abs(right));
+        if (det > bound) return 1;
+        if (-det > bound) return -1;
+        BigDecimal cx = new BigDecimal(xs[c]), cy = new BigDecimal(ys[c]);
+        BigDecimal ax = new BigDecimal(xs[a]).subtract(cx);
+        BigDecimal ay = new BigDecimal(ys[a]).subtract(cy);
+        BigDecimal bx = new BigDecimal(xs[b]).subtract(cx);
+        BigDecimal by = new BigDecimal(ys[b]).subtract(cy);
+        return ax.multiply(by).subtract(ay.multiply(bx)).signum();
+    }
+
+    /**
+     * Sorts the first m points of idx by x coordinates then y, in parallel
+     * if there are more than {@code GRAIN}.
+     */
+    private void sort(int m) {
+        if (m <= GRAIN) sort(idx, buf, 0, m, false);
+        else pool.invoke(new SortTask(0, m, false));
+    }
+
+    /**
+     * Sorts the indexes of [p, r) of idx, stably. The sorted range is left
+     * in idx if toBuffer is false, otherwise in buf. The halves are sorted
+     * in parallel into the other array and merged into the wanted one.
+     */
+    private final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int p, r;
+        private final boolean toBuffer;
+
+        SortTask(int p, int r, boolean toBuffer) {
+            this.p = p;
+            this.r = r;
+            this.toBuffer = toBuffer;
+        }
+
+        @Override
+        protected void compute() {
+            if (r - p <= GRAIN) {
+                sort(idx, buf, p, r, toBuffer);
+                return;
+            }
+            int q = (p + r) >>> 1;
+            SortTask left = new SortTask(p, q, !toBuffer);
+            SortTask right = new SortTask(q, r, !toBuffer);
+            left.fork();
+            right.compute();
+            left.join();
+            if (toBuffer) merge(idx, buf, p, q, r);
+            else merge(buf, idx, p, q, r);
+        }
+    }
+
+    /**
+     * Sequential version of {@code SortTask}.
+     */
+    private void sort(int[] a, int[] buffer, int p, int r, boolean toBuffer) {
+        if (r - p <= SORT) {
+            for (int i = p + 1; i < r; i++) {
+                int v = a[i], j = i - 1;
+                for (; j >= p && less(v, a[j]); j--) a[j + 1] = a[j];
+                a[j + 1] = v;
+            }
+            if (toBuffer) System.arraycopy(a, p, buffer, p, r - p);
+            return;
+        }
+        int q = (p + r) >>> 1;
+        sort(a, buffer, p, q, !toBuffer);
+        sort(a, buffer, q, r, !toBuffer);
+        if (toBuffer) merge(a, buffer, p, q, r);
+        else merge(buffer, a, p, q, r);
+    }
+
+    /**
+     * Merges the sorted ranges [p, q) and [q, r) of a into the range
+     * [p, r) of to.
+     */
+    private void merge(int[] a, int[] to, int p, int q, int r) {
+        int i = p, j = q, k = p;
+        while (i < q && j < r) to[k++] = less(a[j], a[i]) ? a[j++] : a[i++];
+        while (i < q) to[k++] = a[i++];
+        while (j < r) to[k++] = a[j++];
+    }
+
+    /**
+     * Checks that h is the hull of the points: its vertices are distinct
+     * points turning left, and no point is on the right of an edge. Takes
+     * <em>O(nh)</em> time.
+     */
+    private static boolean isHull(double[] xs, double[] ys, int[] h) {
+        ParallelConvexHull c = new ParallelConvexHull(xs, ys);
+        int n = xs.length;
+        if (n == 0) return h.length == 0;
+        if (h.length == 1) {
+            for (int i = 0; i < n; i++) {
+                if (!c.same(i, h[0])) return false;
+            }
+            return true;
+        }
+        for (int e = 0; e < h.length; e++) {
+            int a = h[e], b = h[(e + 1) % h.length];
+            if (c.same(a, b)) return false;
+            if (h.length > 2 && c.orient(a, b, h[(e + 2) % h.length]) <= 0) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                int o = c.orient(a, b, i);
+                if (o < 0) return false;
+                // collinear points are between the two vertices
+                if (o == 0 && h.length == 2 && !c.same(i, a) && !c.same(i, b)
+                        && (c.better(a, i, b) || c.better(b, i, a))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares a hull with the output of {@code ConvexHull.grahamScan} as
+     * sets of points.
+     */
+    private static boolean sameAsGraham(double[] xs, double[] ys, int[] h) {
+        Point[] points = new Point[xs.length];
+        for (int i = 0; i < xs.length; i++) points[i] = new Point(xs[i], ys[i]);
+        int k = 0;
+        for (Point p : ConvexHull.grahamScan(points)) {
+            if (k == h.length) return false;
+            boolean found = false;
+            for (int v : h) found |= xs[v] == p.x && ys[v] == p.y;
+            if (!found) return false;
+            k++;
+        }
+        return k == h.length;
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        double[] xs = {-7, -4, 2, 6, 8, 7, 4, 8, 0, 3,
+                6, 0, -9, -8, -8, -10, -2, -10};
+        double[] ys = {8, 6, 6, 4, 6, -2, -6, -7, 0, -2,
+                -10, -6, -5, -2, 0, 3, 2, 4};
+        int[] h = new ParallelConvexHull(xs, ys).chan();
+        StringBuilder s = new StringBuilder();
+        for (int v : h) s.append(" ").append(v);
+        System.out.println("convex hull:" + s + " expected 15 12 10 7 4 0 17");
+        // random points in a square, in a disk and on a circle, on a small
+        // grid with duplicates, on a line, exactly or rounded, and at one
+        // point, against a brute force check and Graham's scan, on one and
+        // four workers
+        Random rand = new Random(7);
+        ForkJoinPool[] pools = {new ForkJoinPool(1), new ForkJoinPool(4)};
+        int failures = 0;
+        for (int t = 0; t < 280; t++) {
+            int n = 1 + rand.nextInt(t < 270 ? 200 : 4 * GRAIN);
+            int shape = t % 6;
+            xs = new double[n];
+            ys = new double[n];
+            for (int i = 0; i < n; i++) {
+                double r = 1000, theta = 2 * Math.PI * rand.nextDouble();
+                if (shape == 0) {
+                    xs[i] = rand.nextDouble();
+                    ys[i] = rand.nextDouble();
+                } else if (shape == 1) {
+                    r *= Math.sqrt(rand.nextDouble());
+                    xs[i] = Math.round(r * Math.cos(theta));
+                    ys[i] = Math.round(r * Math.sin(theta));
+                } else if (shape == 2) {
+                    xs[i] = Math.round(r * Math.cos(theta));
+                    ys[i] = Math.round(r * Math.sin(theta));
+                } else if (shape == 3) {
+                    xs[i] = rand.nextInt(8);
+                    ys[i] = rand.nextInt(8);
+                } else if (shape == 4) {
+                    xs[i] = rand.nextInt(1000);
+                    ys[i] = t % 12 == 4 ? 3 * xs[i] + 7 : 0.1 * xs[i] + 7;
+                } else {
+                    xs[i] = 3;
+                    ys[i] = -1;
+                }
+            }
+            int lowest = 0, copies = 0;
+            for (int i = 0; i < n; i++) {
+                if (ys[i] < ys[lowest]
+                        || (ys[i] == ys[lowest] && xs[i] < xs[lowest])) {
+                    lowest = i;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                if (xs[i] == xs[lowest] && ys[i] == ys[lowest]) copies++;
+            }
+            int[] expected = null;
+            for (ForkJoinPool pool : pools) {
+                ParallelConvexHull c = new ParallelConvexHull(xs, ys, pool);
+                int[][] hulls = {c.monotoneChain(), c.divideAndConquer(),
+                        c.chan()};
+                if (expected == null) {
+                    expected = hulls[0];
+                    if (!isHull(xs, ys, expected)) failures++;
+                    // Graham's scan needs a lowest point given once and a
+                    // hull of three vertices or more, and its floating-point
+                    // orientations fail on the rounded line
+                    if (copies == 1 && expected.length > 2 && shape != 4
+                            && !sameAsGraham(xs, ys, expected)) {
+                        failures++;
+                    }
+                }
+                for (int[] hull : hulls) {
+                    if (!Arrays.equals(hull, expected)) failures++;
+                }
+            }
+        }
+        for (ForkJoinPool pool : pools) pool.shutdown();
+        System.out.println("random points: " + failures + " differences"
+                + (failures == 0 ? " ok" : " FAILED"));
+    }
+}
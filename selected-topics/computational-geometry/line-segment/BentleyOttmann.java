@@ -0,0 +1,817 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Bentley-Ottmann sweep which reports all the intersections of a set of
+ * segments.
+ * <p>A vertical sweep line passes through the event points from left to
+ * right, and through the event points of the same x coordinate from bottom
+ * to top. The event points are the end-points of the segments, kept as
+ * {@code SegmentPoint}s in a binary min-heap, and the crossings of
+ * segments which are neighbours in the sweep-line-status, pushed to the
+ * heap as they are found. The sweep-line-status is the red-black tree of
+ * the segments crossing the sweep line, ordered from bottom to top.
+ * <p>At an event point p, the segments of the status which contain p are
+ * next to each other. They are found by inserting a probe point at p,
+ * removed, and inserted back with the segments starting at p in their
+ * order just after p, so the segments which cross at p swap places. Only
+ * the lowest and the highest segments through p get new neighbours, and
+ * only they are checked for crossings. Every point contained in two
+ * segments or more is reported once, with all its segments.
+ * <p>The order of two segments depends on the position of the sweep line,
+ * so the status compares its segments at the current event point p:
+ * <ul>
+ *   <li>by their y coordinates at the x coordinate of p.
+ *   <li>if they meet at a point below p, the meeting has been swept, and
+ *       they are ordered as just after it, by increasing slopes. If they
+ *       meet above p they are ordered as just before it, by decreasing
+ *       slopes. If they meet at p they are ordered as just before p while
+ *       they are removed, and as just after p when they are inserted back.
+ *   <li>a vertical segment is taken as the point p, so it is above the
+ *       segments through p after p and below them before p.
+ *   <li>collinear segments by their index in the input.
+ * </ul>
+ * <p>The order is only consistent if it is exact, otherwise segments may
+ * not be found in the tree. The coordinates of the end-points are doubles,
+ * while the crossings are rational numbers, with a numerator of degree 3
+ * and a denominator of degree 2 in the coordinates. Every predicate is
+ * evaluated in floating point with a bound on its error, and again in
+ * exact {@code BigDecimal} arithmetic only if the result is within the
+ * bound, which is rare apart from the ties of degenerate inputs.
+ * <p>Vertical segments, segments with common end-points, segments through
+ * the end-points of others, several segments through the same point and
+ * collinear overlapping segments are all handled. The points of an
+ * overlap which are reported are its end-points.
+ * <p>Running time is <em>O((n + k)lgn)</em> for n segments and k
+ * intersection points, counted with the number of segments through them.
+ * The heap may hold a crossing more than once if its segments become
+ * neighbours again before it, which happens at most once per event, so it
+ * holds O(n + k) events.
+ */
+public class BentleyOttmann {
+    private static final double EPS = 0x1p-53; // the unit roundoff
+    // the relative error bound of orientations of double points
+    private static final double ORIENT_BOUND = (3 + 16 * EPS) * EPS;
+    private static final BigDecimal ZERO = BigDecimal.ZERO;
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+    private final Status[] segments;
+    private final Status probe = new Status();
+    private final RedBlackTree<Status> T = new RedBlackTree<>();
+    private SegmentPoint[] heap = new SegmentPoint[16];
+    private int size;
+    private SegmentPoint event; // the current event point
+    private boolean after; // whether the status is ordered as after event
+    private int stamp; // the number of the current event
+    private Status[] found = new Status[16]; // the status through event
+    private Status[] started = new Status[16]; // the segments starting at it
+    private int[] report = new int[16];
+    private final double[] point = new double[2]; // the reported point
+
+    /**
+     * Receives the intersection points. The coordinates of crossings are
+     * the exact ones correctly rounded, so that the x coordinates received
+     * never decrease, and a point is received once.
+     */
+    public interface Sink {
+        /**
+         * Receives an intersection point.
+         * @param x the x coordinate, correctly rounded for crossings.
+         * @param y the y coordinate, correctly rounded for crossings.
+         * @param segments the indexes of the segments through the point in
+         *        {@code segments[0..n)}, in no specific order. The array is
+         *        reused for the next point.
+         * @param n the number of segments, at least 2.
+         */
+        void intersection(double x, double y, int[] segments, int n);
+    }
+
+    /**
+     * A segment in the sweep-line-status, or the probe which finds the
+     * segments through the current event point.
+     */
+    private final class Status implements Comparable<Status> {
+        final int id; // the index of the segment, -1 for the probe
+        final double lx, ly, rx, ry; // the left and right end-points
+        final double dx, dy, slope; // rounded
+        final boolean vertical;
+        final Endpoint right;
+        int stamp; // the last event at which it was inserted
+
+        Status() {
+            this.id = -1;
+            this.lx = this.ly = this.rx = this.ry = 0;
+            this.dx = this.dy = this.slope = 0;
+            this.vertical = false;
+            this.right = null;
+        }
+
+        Status(int id, Segment s) {
+            this.id = id;
+            SegmentPoint l = s.leftEndpoint();
+            SegmentPoint r = s.rightEndpoint();
+            this.lx = l.x;
+            this.ly = l.y;
+            this.rx = r.x;
+            this.ry = r.y;
+            this.dx = rx - lx;
+            this.dy = ry - ly;
+            this.vertical = lx == rx;
+            this.slope = vertical ? 0 : dy / dx;
+            this.right = new Endpoint(this, s, r, false);
+        }
+
+        boolean isPoint() {
+            return lx == rx && ly == ry;
+        }
+
+        @Override
+        public int compareTo(Status that) {
+            return order(this, that);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + lx + ", " + ly + ") -> (" + rx + ", " + ry + ")";
+        }
+    }
+
+    /**
+     * The end-point of a segment as an event.
+     */
+    private static final class Endpoint extends SegmentPoint {
+        final Status s;
+
+        Endpoint(Status s, Segment segment, SegmentPoint p, boolean left) {
+            super(segment, new Point(p.x, p.y), left);
+            this.s = s;
+        }
+    }
+
+    /**
+     * The crossing of two segments as an event. Its coordinates are the
+     * rounded values of exact fractions X/D and Y/D, within errX and errY,
+     * which are 0 if they are exact. The fractions are computed when they
+     * are needed.
+     */
+    private static final class Crossing extends SegmentPoint {
+        final Status a, b;
+        final double errX, errY;
+        private final boolean rounded; // whether x and y are correctly rounded
+        private BigDecimal[] exact;
+
+        private Crossing(Status a, Status b, double x, double y, double errX,
+                double errY, BigDecimal[] exact) {
+            super(null, new Point(x, y), false);
+            this.a = a;
+            this.b = b;
+            this.errX = errX;
+            this.errY = errY;
+            this.rounded = exact != null;
+            this.exact = exact;
+        }
+
+        /**
+         * Creates the crossing of the segments a and b, which cross at one
+         * point inside both of them.
+         */
+        static Crossing of(Status a, Status b) {
+            // a.l + t(a.r - a.l) with t = (q x s) / (r x s), where
+            // r = a.r - a.l, s = b.r - b.l and q = b.l - a.l
+            double d1 = a.dx * b.dy, d2 = a.dy * b.dx;
+            double d = d1 - d2;
+            double errD = 8 * EPS * (Math.abs(d1) + Math.abs(d2));
+            double qx = b.lx - a.lx, qy = b.ly - a.ly;
+            double t1 = qx * b.dy, t2 = qy * b.dx;
+            double tn = t1 - t2;
+            double errTn = 8 * EPS * (Math.abs(t1) + Math.abs(t2));
+            if (Math.abs(d) > 4 * errD) {
+                double t = tn / d;
+                double errT = (errTn + Math.abs(t) * errD)
+                        / (Math.abs(d) - errD) + 2 * EPS * Math.abs(t);
+                double x = a.lx + t * a.dx, y = a.ly + t * a.dy;
+                double errX = 2 * (errT * Math.abs(a.dx)
+                        + 4 * EPS * (Math.abs(a.lx) + Math.abs(t * a.dx)));
+                double errY = 2 * (errT * Math.abs(a.dy)
+                        + 4 * EPS * (Math.abs(a.ly) + Math.abs(t * a.dy)));
+                // exact on vertical and horizontal segments
+                if (a.vertical || b.vertical) {
+                    x = a.vertical ? a.lx : b.lx;
+                    errX = 0;
+                }
+                if (a.dy == 0 || b.dy == 0) {
+                    y = a.dy == 0 ? a.ly : b.ly;
+                    errY = 0;
+                }
+                return new Crossing(a, b, x, y, errX, errY, null);
+            }
+            // nearly parallel, round the exact coordinates
+            BigDecimal[] p = exact(a, b);
+            double x = quotient(p[0], p[2]), y = quotient(p[1], p[2]);
+            return new Crossing(a, b, x, y, 2 * Math.ulp(x), 2 * Math.ulp(y),
+                    p);
+        }
+
+        /**
+         * Stores the coordinates correctly rounded in p. They are evaluated
+         * again in double-double arithmetic, with about 106 bits, whose
+         * error is below 32 EPS times the one of the doubles, and from the
+         * exact fractions only if they are too close to the midpoint of two
+         * doubles.
+         */
+        void round(double[] p) {
+            p[0] = x;
+            p[1] = y;
+            if (rounded || (errX == 0 && errY == 0)) return;
+            // D = r x s and t = (q x s) / D, the differences are exact
+            double rx = a.dx, rxl = sumError(a.rx, -a.lx, rx);
+            double ry = a.dy, ryl = sumError(a.ry, -a.ly, ry);
+            double sx = b.dx, sxl = sumError(b.rx, -b.lx, sx);
+            double sy = b.dy, syl = sumError(b.ry, -b.ly, sy);
+            double qx = b.lx - a.lx, qxl = sumError(b.lx, -a.lx, qx);
+            double qy = b.ly - a.ly, qyl = sumError(b.ly, -a.ly, qy);
+            double p1 = rx * sy;
+            double p1l = Math.fma(rx, sy, -p1) + (rx * syl + rxl * sy);
+            double p2 = ry * sx;
+            double p2l = Math.fma(ry, sx, -p2) + (ry * sxl + ryl * sx);
+            double d = p1 - p2;
+            double dl = sumError(p1, -p2, d) + (p1l - p2l);
+            p1 = qx * sy;
+            p1l = Math.fma(qx, sy, -p1) + (qx * syl + qxl * sy);
+            p2 = qy * sx;
+            p2l = Math.fma(qy, sx, -p2) + (qy * sxl + qyl * sx);
+            double tn = p1 - p2;
+            double tnl = sumError(p1, -p2, tn) + (p1l - p2l);
+            double t1 = tn / d;
+            double pr = t1 * d, prl = Math.fma(t1, d, -pr) + t1 * dl;
+            double rem = tn - pr;
+            double reml = sumError(tn, -pr, rem) + tnl - prl;
+            double t2 = (rem + reml) / d;
+            double t = t1 + t2, tl = t2 - (t - t1);
+            if (errX > 0) {
+                p[0] = nearest(a.lx, rx, rxl, t, tl, 32 * EPS * errX);
+                if (Double.isNaN(p[0])) {
+                    p[0] = quotient(exact()[0], exact()[2]);
+                }
+            }
+            if (errY > 0) {
+                p[1] = nearest(a.ly, ry, ryl, t, tl, 32 * EPS * errY);
+                if (Double.isNaN(p[1])) {
+                    p[1] = quotient(exact()[1], exact()[2]);
+                }
+            }
+        }
+
+        /**
+         * Returns l + d t rounded to the nearest double, where d and t are
+         * double-doubles, or NaN if it is within err of a midpoint.
+         */
+        private static double nearest(double l, double d, double dl,
+                double t, double tl, double err) {
+            double m = d * t;
+            double ml = Math.fma(d, t, -m) + (d * tl + dl * t);
+            double s = l + m;
+            double e = sumError(l, m, s) + ml;
+            double v = s + e, vl = e - (v - s);
+            double gap = vl >= 0 ? Math.nextUp(v) - v : v - Math.nextDown(v);
+            return gap / 2 - Math.abs(vl) > err ? v : Double.NaN;
+        }
+
+        /**
+         * Returns {X, Y, D}.
+         */
+        BigDecimal[] exact() {
+            if (exact == null) exact = exact(a, b);
+            return exact;
+        }
+
+        private static BigDecimal[] exact(Status a, Status b) {
+            BigDecimal ax = BentleyOttmann.exact(a.lx);
+            BigDecimal ay = BentleyOttmann.exact(a.ly);
+            BigDecimal rx = BentleyOttmann.exact(a.rx).subtract(ax);
+            BigDecimal ry = BentleyOttmann.exact(a.ry).subtract(ay);
+            BigDecimal bx = BentleyOttmann.exact(b.lx);
+            BigDecimal by = BentleyOttmann.exact(b.ly);
+            BigDecimal sx = BentleyOttmann.exact(b.rx).subtract(bx);
+            BigDecimal sy = BentleyOttmann.exact(b.ry).subtract(by);
+            BigDecimal qx = bx.subtract(ax), qy = by.subtract(ay);
+            BigDecimal D = rx.multiply(sy).subtract(ry.multiply(sx));
+            BigDecimal t = qx.multiply(sy).subtract(qy.multiply(sx));
+            BigDecimal X = ax.multiply(D).add(t.multiply(rx));
+            BigDecimal Y = ay.multiply(D).add(t.multiply(ry));
+            if (D.signum() < 0) {
+                D = D.negate();
+                X = X.negate();
+                Y = Y.negate();
+            }
+            return new BigDecimal[] {X, Y, D};
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param segments the segments.
+     */
+    private BentleyOttmann(Segment[] segments) {
+        this.segments = new Status[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            Status s = new Status(i, segments[i]);
+            this.segments[i] = s;
+            push(new Endpoint(s, segments[i], segments[i].leftEndpoint(),
+                    true));
+            if (!s.isPoint()) push(s.right);
+        }
+    }
+
+    /**
+     * Finds all the intersection points of a set of segments.
+     * @param segments the segments, which may be vertical or points.
+     * @param sink receives the intersection points in increasing order of
+     *        x, then y coordinates, with the segments through them.
+     * @return the number of intersection points.
+     */
+    public static long intersections(Segment[] segments, Sink sink) {
+        return new BentleyOttmann(segments).sweep(sink);
+    }
+
+    /**
+     * Runs the sweep.
+     */
+    private long sweep(Sink sink) {
+        long count = 0;
+        while (size > 0) {
+            SegmentPoint e = pop();
+            event = e;
+            stamp++;
+            int nStarted = 0;
+            while (true) {
+                if (e instanceof Endpoint) {
+                    event = e; // its exact coordinates are cheaper
+                    if (e.isLeftEndpoint()) {
+                        started = add(started, nStarted++, ((Endpoint) e).s);
+                    }
+                }
+                if (size == 0 || compareEvents(heap[0], event) != 0) break;
+                e = pop();
+            }
+            // the segments of the status through the event
+            after = false;
+            int nFound = 0;
+            T.insert(probe);
+            Status below = T.predecessor(probe);
+            Status above = T.successor(probe);
+            while (above != null && (above.vertical || side(above) == 0)) {
+                found = add(found, nFound++, above);
+                above = T.successor(above);
+            }
+            T.delete(probe);
+            if (nFound + nStarted >= 2) {
+                if (report.length < nFound + nStarted) {
+                    report = new int[2 * (nFound + nStarted)];
+                }
+                for (int i = 0; i < nFound; i++) report[i] = found[i].id;
+                for (int i = 0; i < nStarted; i++) {
+                    report[nFound + i] = started[i].id;
+                }
+                point[0] = event.x;
+                point[1] = event.y;
+                if (event instanceof Crossing) ((Crossing) event).round(point);
+                sink.intersection(point[0], point[1], report,
+                        nFound + nStarted);
+                count++;
+            }
+            for (int i = 0; i < nFound; i++) T.delete(found[i]);
+            // insert them back as after the event, with the new segments
+            after = true;
+            Status inserted = null;
+            for (int i = 0; i < nFound; i++) {
+                Status s = found[i];
+                if (compareEvents(s.right, event) == 0) continue;
+                s.stamp = stamp;
+                T.insert(s);
+                inserted = s;
+            }
+            for (int i = 0; i < nStarted; i++) {
+                Status s = started[i];
+                if (s.isPoint()) continue;
+                s.stamp = stamp;
+                T.insert(s);
+                inserted = s;
+            }
+            if (inserted == null) {
+                // the neighbours of the removed segments meet
+                check(below, above);
+            } else {
+                Status lowest = inserted, highest = inserted;
+                below = T.predecessor(lowest);
+                while (below != null && below.stamp == stamp) {
+                    lowest = below;
+                    below = T.predecessor(lowest);
+                }
+                above = T.successor(highest);
+                while (above != null && above.stamp == stamp) {
+                    highest = above;
+                    above = T.successor(highest);
+                }
+                check(below, lowest);
+                check(highest, above);
+            }
+        }
+        return count;
+    }
+
+    private static Status[] add(Status[] a, int n, Status s) {
+        if (n == a.length) {
+            Status[] b = new Status[2 * n];
+            System.arraycopy(a, 0, b, 0, n);
+            a = b;
+        }
+        a[n] = s;
+        return a;
+    }
+
+    /**
+     * Pushes the crossing of two neighbours in the status to the heap if
+     * they cross inside both segments after the current event. Touching
+     * segments meet at an end-point, which is an event already.
+     */
+    private void check(Status a, Status b) {
+        if (a == null || b == null) return;
+        int d1 = orient(b.lx, b.ly, b.rx, b.ry, a.lx, a.ly);
+        int d2 = orient(b.lx, b.ly, b.rx, b.ry, a.rx, a.ry);
+        if (d1 == 0 || d2 == 0 || d1 == d2) return;
+        int d3 = orient(a.lx, a.ly, a.rx, a.ry, b.lx, b.ly);
+        int d4 = orient(a.lx, a.ly, a.rx, a.ry, b.rx, b.ry);
+        if (d3 == 0 || d4 == 0 || d3 == d4) return;
+        Crossing c = Crossing.of(a, b);
+        if (compareEvents(c, event) > 0) push(c);
+    }
+
+    /**
+     * Orders the segments of the status at the current event, see the
+     * class comment.
+     */
+    private int order(Status a, Status b) {
+        if (a == b) return 0;
+        if (a == probe) return b.vertical ? -1 : side(b) > 0 ? 1 : -1;
+        if (b == probe) return -order(b, a);
+        if (a.vertical && b.vertical) return Integer.compare(a.id, b.id);
+        if (a.vertical) {
+            int c = side(b);
+            if (c != 0) return c;
+            return after ? 1 : -1;
+        }
+        if (b.vertical) return -order(b, a);
+        int c = compareAt(a, b);
+        if (c != 0) return c;
+        int slope = compareSlopes(a, b);
+        if (slope == 0) return Integer.compare(a.id, b.id);
+        int meet = side(a); // 1 if they meet below the event
+        return meet > 0 || (meet == 0 && after) ? slope : -slope;
+    }
+
+    /**
+     * Returns 1 if the current event is above the line of a non-vertical
+     * segment s, -1 if it is below or 0 if it is on it.
+     */
+    private int side(Status s) {
+        SegmentPoint e = event;
+        if (e instanceof Crossing) {
+            if (((Crossing) e).a == s || ((Crossing) e).b == s) return 0;
+        } else if ((e.x == s.lx && e.y == s.ly)
+                || (e.x == s.rx && e.y == s.ry)) {
+            return 0;
+        }
+        double acx = s.lx - e.x, bcx = s.rx - e.x;
+        double acy = s.ly - e.y, bcy = s.ry - e.y;
+        double left = acx * bcy, right = acy * bcx;
+        double det = left - right;
+        double bound = ORIENT_BOUND * (Math.abs(left) + Math.abs(right));
+        if (e instanceof Crossing) {
+            Crossing c = (Crossing) e;
+            bound = 2 * (bound + Math.abs(s.dy) * c.errX
+                    + Math.abs(s.dx) * c.errY);
+        }
+        if (det > bound) return 1;
+        if (-det > bound) return -1;
+        // (r - l) x (e - l) with e = (X/D, Y/D), D > 0
+        BigDecimal[] p = exact(e);
+        BigDecimal lx = exact(s.lx), ly = exact(s.ly);
+        BigDecimal dx = exact(s.rx).subtract(lx);
+        BigDecimal dy = exact(s.ry).subtract(ly);
+        return dx.multiply(p[1].subtract(ly.multiply(p[2])))
+                .subtract(dy.multiply(p[0].subtract(lx.multiply(p[2]))))
+                .signum();
+    }
+
+    /**
+     * Compares the y coordinates of two non-vertical segments at the x
+     * coordinate of the current event.
+     */
+    private int compareAt(Status a, Status b) {
+        SegmentPoint e = event;
+        double err = e instanceof Crossing ? ((Crossing) e).errX : 0;
+        double ta = (e.x - a.lx) * a.slope, ya = a.ly + ta;
+        double tb = (e.x - b.lx) * b.slope, yb = b.ly + tb;
+        double bound = Math.abs(a.slope) * (err + 8 * EPS
+                * (Math.abs(e.x) + Math.abs(a.lx)))
+                + 8 * EPS * (Math.abs(a.ly) + Math.abs(ta))
+                + Math.abs(b.slope) * (err + 8 * EPS
+                * (Math.abs(e.x) + Math.abs(b.lx)))
+                + 8 * EPS * (Math.abs(b.ly) + Math.abs(tb));
+        double diff = ya - yb;
+        if (diff > 2 * bound) return 1;
+        if (-diff > 2 * bound) return -1;
+        if (side(a) == 0 && side(b) == 0) return 0;
+        // y(X/D) = (ly dx D + dy (X - lx D)) / (dx D)
+        BigDecimal[] p = exact(e);
+        BigDecimal alx = exact(a.lx), aly = exact(a.ly);
+        BigDecimal adx = exact(a.rx).subtract(alx);
+        BigDecimal ady = exact(a.ry).subtract(aly);
+        BigDecimal blx = exact(b.lx), bly = exact(b.ly);
+        BigDecimal bdx = exact(b.rx).subtract(blx);
+        BigDecimal bdy = exact(b.ry).subtract(bly);
+        BigDecimal A = aly.multiply(adx).multiply(p[2])
+                .add(ady.multiply(p[0].subtract(alx.multiply(p[2]))))
+                .multiply(bdx);
+        BigDecimal B = bly.multiply(bdx).multiply(p[2])
+                .add(bdy.multiply(p[0].subtract(blx.multiply(p[2]))))
+                .multiply(adx);
+        return A.compareTo(B);
+    }
+
+    /**
+     * Compares the slopes of two non-vertical segments.
+     */
+    private static int compareSlopes(Status a, Status b) {
+        double l = a.dy * b.dx, r = b.dy * a.dx;
+        double bound = 8 * EPS * (Math.abs(l) + Math.abs(r));
+        if (l - r > bound) return 1;
+        if (r - l > bound) return -1;
+        BigDecimal adx = exact(a.rx).subtract(exact(a.lx));
+        BigDecimal ady = exact(a.ry).subtract(exact(a.ly));
+        BigDecimal bdx = exact(b.rx).subtract(exact(b.lx));
+        BigDecimal bdy = exact(b.ry).subtract(exact(b.ly));
+        return ady.multiply(bdx).compareTo(bdy.multiply(adx));
+    }
+
+    /**
+     * Returns the sign of the orientation of the points a, b and c: 1 if c
+     * is to the left of ab, -1 if it is to the right, 0 if the three points
+     * are collinear.
+     */
+    static int orient(double ax, double ay, double bx, double by,
+            double cx, double cy) {
+        double left = (ax - cx) * (by - cy);
+        double right = (ay - cy) * (bx - cx);
+        double det = left - right;
+        double bound = ORIENT_BOUND * (Math.abs(left) + Math.abs(right));
+        if (det > bound) return 1;
+        if (-det > bound) return -1;
+        BigDecimal x = exact(cx), y = exact(cy);
+        return exact(ax).subtract(x).multiply(exact(by).subtract(y))
+                .subtract(exact(ay).subtract(y).multiply(exact(bx)
+                .subtract(x))).signum();
+    }
+
+    /**
+     * Orders two events by x, then y coordinates.
+     */
+    private static int compareEvents(SegmentPoint e, SegmentPoint f) {
+        if (e == f) return 0;
+        boolean exact = e instanceof Endpoint && f instanceof Endpoint;
+        if (exact) {
+            if (e.x != f.x) return e.x < f.x ? -1 : 1;
+            if (e.y != f.y) return e.y < f.y ? -1 : 1;
+            return 0;
+        }
+        double errX = 0, errY = 0;
+        if (e instanceof Crossing) {
+            errX += ((Crossing) e).errX;
+            errY += ((Crossing) e).errY;
+        }
+        if (f instanceof Crossing) {
+            errX += ((Crossing) f).errX;
+            errY += ((Crossing) f).errY;
+        }
+        if (Math.abs(e.x - f.x) > errX) return e.x < f.x ? -1 : 1;
+        if (e instanceof Crossing && f instanceof Crossing) {
+            Crossing c = (Crossing) e, d = (Crossing) f;
+            if ((c.a == d.a && c.b == d.b) || (c.a == d.b && c.b == d.a)) {
+                return 0;
+            }
+        }
+        BigDecimal[] p = null, q = null;
+        if (errX > 0) {
+            p = exact(e);
+            q = exact(f);
+            int c = p[0].multiply(q[2]).compareTo(q[0].multiply(p[2]));
+            if (c != 0) return c;
+        } else if (e.x != f.x) {
+            return e.x < f.x ? -1 : 1;
+        }
+        if (Math.abs(e.y - f.y) > errY) return e.y < f.y ? -1 : 1;
+        if (errY == 0) return e.y < f.y ? -1 : e.y > f.y ? 1 : 0;
+        if (p == null) {
+            p = exact(e);
+            q = exact(f);
+        }
+        return p[1].multiply(q[2]).compareTo(q[1].multiply(p[2]));
+    }
+
+    private static BigDecimal exact(double x) {
+        return x == 0 ? ZERO : new BigDecimal(x);
+    }
+
+    /**
+     * Returns the double nearest to N/D with D > 0, ties to even. The
+     * quotient rounded to 34 digits is within one ulp of it, and is moved
+     * while N/D is not between the midpoints with its neighbours.
+     */
+    private static double quotient(BigDecimal N, BigDecimal D) {
+        double q = N.divide(D, MathContext.DECIMAL128).doubleValue();
+        while (true) {
+            double down = Math.nextDown(q), up = Math.nextUp(q);
+            int lo = N.compareTo(D.multiply(midpoint(down, q)));
+            int hi = N.compareTo(D.multiply(midpoint(q, up)));
+            if (lo < 0 || (lo == 0 && isOdd(q))) {
+                q = down;
+            } else if (hi > 0 || (hi == 0 && isOdd(q))) {
+                q = up;
+            } else {
+                return q;
+            }
+        }
+    }
+
+    /**
+     * Returns the rounding error of the sum s of a and b, so that a + b is
+     * exactly s plus the error.
+     */
+    private static double sumError(double a, double b, double s) {
+        double bb = s - a;
+        return (a - (s - bb)) + (b - bb);
+    }
+
+    private static BigDecimal midpoint(double a, double b) {
+        return exact(a).add(exact(b)).multiply(HALF);
+    }
+
+    private static boolean isOdd(double x) {
+        return (Double.doubleToRawLongBits(x) & 1) != 0;
+    }
+
+    /**
+     * Returns the exact coordinates of an event as X/D and Y/D with D > 0.
+     */
+    private static BigDecimal[] exact(SegmentPoint e) {
+        if (e instanceof Crossing) return ((Crossing) e).exact();
+        return new BigDecimal[] {exact(e.x), exact(e.y), BigDecimal.ONE};
+    }
+
+    private void push(SegmentPoint e) {
+        if (size == heap.length) {
+            SegmentPoint[] h = new SegmentPoint[2 * size];
+            System.arraycopy(heap, 0, h, 0, size);
+            heap = h;
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (compareEvents(heap[parent], e) <= 0) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = e;
+    }
+
+    private SegmentPoint pop() {
+        SegmentPoint min = heap[0];
+        SegmentPoint e = heap[--size];
+        heap[size] = null;
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size
+                    && compareEvents(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if (compareEvents(e, heap[child]) <= 0) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (size > 0) heap[i] = e;
+        return min;
+    }
+
+    /**
+     * Returns the pairs of intersecting segments as a matrix, with the sweep
+     * or by trying every pair.
+     */
+    private static boolean[][] pairs(Segment[] S, boolean sweep) {
+        final boolean[][] m = new boolean[S.length][S.length];
+        if (sweep) {
+            intersections(S, new Sink() {
+                public void intersection(double x, double y, int[] s, int n) {
+                    for (int i = 0; i < n; i++) {
+                        for (int j = 0; j < n; j++) {
+                            if (s[i] != s[j]) m[s[i]][s[j]] = true;
+                        }
+                    }
+                }
+            });
+        } else {
+            for (int i = 0; i < S.length; i++) {
+                for (int j = 0; j < S.length; j++) {
+                    if (i == j) continue;
+                    m[i][j] = LineSegment.segmentsIntersect(S[i].p1, S[i].p2,
+                            S[j].p1, S[j].p2);
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Checks the points received: the x coordinates never decrease and no
+     * point is received twice.
+     */
+    private static final class Checker implements Sink {
+        long points;
+        int failures;
+        double lastX = Double.NEGATIVE_INFINITY;
+        final HashSet<String> seen = new HashSet<>();
+
+        public void intersection(double x, double y, int[] s, int n) {
+            points++;
+            if (x < lastX) failures++;
+            lastX = x;
+            if (!seen.add(x + " " + y)) failures++;
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        Segment[] segments = new Segment[6];
+        segments[0] = new Segment(new Point(1, 7), new Point(6, 5));
+        segments[1] = new Segment(new Point(2, 1), new Point(18, 6));
+        segments[2] = new Segment(new Point(3, 3), new Point(10, 4));
+        segments[3] = new Segment(new Point(4, 7), new Point(17, 3));
+        segments[4] = new Segment(new Point(8, 7), new Point(16, 4));
+        segments[5] = new Segment(new Point(11, 3), new Point(15, 2));
+        Sink print = new Sink() {
+            public void intersection(double x, double y, int[] s, int n) {
+                StringBuilder b = new StringBuilder();
+                b.append("(" + x + ", " + y + "):");
+                for (int i = 0; i < n; i++) b.append(" " + s[i]);
+                System.out.println(b);
+            }
+        };
+        long k = intersections(segments, print);
+        System.out.println(k + " intersections, expected 2");
+        // a star of segments through one point with a vertical one
+        segments = new Segment[4];
+        segments[0] = new Segment(new Point(0, 0), new Point(4, 4));
+        segments[1] = new Segment(new Point(0, 4), new Point(4, 0));
+        segments[2] = new Segment(new Point(2, 0), new Point(2, 4));
+        segments[3] = new Segment(new Point(0, 2), new Point(2, 2));
+        k = intersections(segments, print);
+        System.out.println(k + " intersections, expected 1");
+        // random segments on a small grid, with many vertical, collinear,
+        // touching and concurrent segments, and random segments with
+        // double coordinates, against every pair
+        Random rand = new Random(11);
+        int failures = 0;
+        for (int t = 0; t < 400; t++) {
+            int n = 1 + rand.nextInt(40);
+            int grid = t % 2 == 0 ? 1 + rand.nextInt(8) : 0;
+            Segment[] S = new Segment[n];
+            for (int i = 0; i < n; i++) {
+                Point p, q;
+                if (grid > 0) {
+                    p = new Point(rand.nextInt(grid), rand.nextInt(grid));
+                    q = new Point(rand.nextInt(grid), rand.nextInt(grid));
+                    if (rand.nextInt(4) == 0) q.x = p.x;
+                } else {
+                    p = new Point(rand.nextDouble(), rand.nextDouble());
+                    q = new Point(rand.nextDouble(), rand.nextDouble());
+                }
+                S[i] = new Segment(p, q);
+            }
+            boolean[][] a = pairs(S, true), b = pairs(S, false);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (a[i][j] != b[i][j]) failures++;
+                }
+            }
+            Checker checker = new Checker();
+            if (intersections(S, checker) != checker.points) failures++;
+            failures += checker.failures;
+        }
+        System.out.println("random segments: " + failures + " differences"
+                + (failures == 0 ? " ok" : " FAILED"));
+    }
+}
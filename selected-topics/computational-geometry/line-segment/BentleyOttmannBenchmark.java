@@ -0,0 +1,63 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the Bentley-Ottmann sweep on random segments in the
+ * unit square. The segments are short, like the edges of a map, with
+ * lengths of about 4/sqrt(n), so there are O(n) intersections. A tenth of
+ * them are vertical.
+ * <p>Usage: {@code java -jar target/benchmarks.jar BentleyOttmannBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BentleyOttmannBenchmark {
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"1000", "10000", "100000"})
+        public int n;
+        Segment[] segments;
+        long points; // the intersections reported to the sink
+        BentleyOttmann.Sink sink;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            segments = new Segment[n];
+            double length = 4 / Math.sqrt(n);
+            for (int i = 0; i < n; i++) {
+                double x = rand.nextDouble(), y = rand.nextDouble();
+                double dx = length * (rand.nextDouble() - 0.5);
+                double dy = length * (rand.nextDouble() - 0.5);
+                if (i % 10 == 0) dx = 0;
+                segments[i] = new Segment(new Point(x, y),
+                        new Point(x + dx, y + dy));
+            }
+            sink = new BentleyOttmann.Sink() {
+                public void intersection(double x, double y, int[] s, int m) {
+                    points++;
+                }
+            };
+        }
+    }
+
+    @Benchmark
+    public Object intersections(Input in) {
+        return BentleyOttmann.intersections(in.segments, in.sink);
+    }
+}
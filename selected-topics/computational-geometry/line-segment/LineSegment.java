@@ -61,7 +61,7 @@ public class LineSegment {
      * is reflexive and transitive but not symmetric or anti-symmetric).
      * Assumes that no three segments intersect and no vertical segments exist.
      * Can not find all intersections and the the intersections it finds are
-     * not in left-to-right order.
+     * not in left-to-right order, {@code BentleyOttmann} finds them all.
      * Uses red-black-tree to maintain above/below order of segments because
      * red-black-trees are efficient for insert, delete, predecessor and 
      * seccessor operations which all cost only O(lgn) time each.
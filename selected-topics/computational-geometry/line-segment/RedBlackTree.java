@@ -586,6 +586,9 @@ public class RedBlackTree<T extends Comparable<T>> {
 
     /**
      * Red-Black tree's node class.
+     * Nodes are equal only if they are the same node, since the order of
+     * the keys may be costly to evaluate, as in the sweep-line-status of
+     * {@code BentleyOttmann}, and equal keys may be in different nodes.
      */
     private class Node {
         public Node parent = NIL;
@@ -597,18 +600,6 @@ public class RedBlackTree<T extends Comparable<T>> {
         public Node(T key) {
             this.key = key;
         }
-
-        @Override
-        @SuppressWarnings("unchecked")
-        public boolean equals(Object obj) {
-            if (obj == null) return false;
-            if (obj == this) return true;
-            if (this.getClass() != obj.getClass()) return false;
-            Node that = (Node) obj;
-            if (this.key == null && that.key == null) return true;
-            if (this.key == null || that.key == null) return false;
-            return this.key.compareTo(that.key) == 0;
-        }
     }
 
     /**
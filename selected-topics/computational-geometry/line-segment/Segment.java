@@ -13,23 +13,25 @@ public class Segment implements Comparable<Segment> {
     }
 
     /**
-     * Returns left end point of the segment.
+     * Returns left end point of the segment, the lower one if the segment
+     * is vertical.
      */
     public SegmentPoint leftEndpoint() {
-        if (p1.x < p2.x) {
+        if (p1.x < p2.x || (p1.x == p2.x && p1.y <= p2.y)) {
             return new SegmentPoint(this, p1, true);
         }
-        return new SegmentPoint(this, p2, false);
+        return new SegmentPoint(this, p2, true);
     }
 
     /**
-     * Returns right end point of the segment.
+     * Returns right end point of the segment, the upper one if the segment
+     * is vertical.
      */
     public SegmentPoint rightEndpoint() {
-        if (p1.x > p2.x) {
-            return new SegmentPoint(this, p1, true);
+        if (p1.x < p2.x || (p1.x == p2.x && p1.y <= p2.y)) {
+            return new SegmentPoint(this, p2, false);
         }
-        return new SegmentPoint(this, p2, false);
+        return new SegmentPoint(this, p1, false);
     }
 
     /**
@@ -0,0 +1,293 @@
+import java.util.Arrays;
+
+/**
+ * Sparse LU factorization of a simplex basis, with product-form updates.
+ * <p>The basis is the m x m matrix B whose columns are m columns of
+ * [A I], where A is an m x n sparse matrix held by columns: column j < n
+ * has the entries {@code value[p]} in the rows {@code index[p]} for
+ * {@code start[j] <= p < start[j+1]}, and column n + i is the ith column
+ * of the identity, the column of a slack variable.
+ * <p>{@code factor} computes B Q = L U column by column, left-looking,
+ * in order of increasing number of nonzeros so the slack columns come
+ * first and are pivoted without fill. Every column is reduced by the
+ * columns of L computed so far and pivots on its largest remaining entry.
+ * L and U are kept as sparse columns. Running time is <em>O(m^2)</em> plus
+ * the operations on the nonzeros.
+ * <p>When the variable at position r of the basis is replaced, the new
+ * basis is B E, where E is the identity with column r replaced by
+ * {@code alpha = B^-1 a}, the column of the entering variable. The update
+ * only appends alpha to a list of etas; the solves apply the inverses of
+ * the etas after those of L and U, and the basis is factored again when
+ * the list gets long, which also clears the rounding errors.
+ */
+public class BasisFactorization {
+    // the smallest pivot of a nonsingular basis
+    private static final double SINGULAR = 1e-11;
+    private final int m;
+    private final int n;
+    private final int[] start;
+    private final int[] index;
+    private final double[] value;
+    private final int[] prow; // the pivot row of step k
+    private final int[] pcol; // the basis position factored at step k
+    private final int[] step; // the step at which a row was pivoted
+    private final double[] diag; // the diagonal of U
+    private int[] Lstart, Lindex; // column k of L below the diagonal
+    private double[] Lvalue;
+    private int[] Ustart, Uindex; // column k of U above the diagonal
+    private double[] Uvalue;
+    private int etas;
+    private int[] etaRow, etaStart, etaIndex;
+    private double[] etaPivot, etaValue;
+    private final double[] work;
+
+    /**
+     * Constructor.
+     * @param m the number of rows.
+     * @param n the number of columns of A.
+     * @param start the start of every column of A in index and value, and
+     *        the number of nonzeros at n.
+     * @param index the rows of the nonzeros.
+     * @param value the nonzeros.
+     */
+    public BasisFactorization(int m, int n, int[] start, int[] index,
+            double[] value) {
+        this.m = m;
+        this.n = n;
+        this.start = start;
+        this.index = index;
+        this.value = value;
+        this.prow = new int[m];
+        this.pcol = new int[m];
+        this.step = new int[m];
+        this.diag = new double[m];
+        this.Lstart = new int[m + 1];
+        this.Ustart = new int[m + 1];
+        this.Lindex = new int[Math.max(16, m)];
+        this.Lvalue = new double[Lindex.length];
+        this.Uindex = new int[Math.max(16, m)];
+        this.Uvalue = new double[Uindex.length];
+        this.etaRow = new int[16];
+        this.etaPivot = new double[16];
+        this.etaStart = new int[17];
+        this.etaIndex = new int[Math.max(16, m)];
+        this.etaValue = new double[etaIndex.length];
+        this.work = new double[m];
+    }
+
+    /**
+     * Returns the number of updates since the last factorization.
+     */
+    public int updates() {
+        return etas;
+    }
+
+    /**
+     * Factors a basis and clears the updates.
+     * @param basis the column of [A I] at every position of the basis.
+     * @throws IllegalStateException if the basis is singular.
+     */
+    public void factor(int[] basis) {
+        etas = 0;
+        // order the positions by number of nonzeros, by counting sort
+        int[] count = new int[m + 2];
+        for (int r = 0; r < m; r++) count[nonzeros(basis[r]) + 1]++;
+        for (int i = 1; i < count.length; i++) count[i] += count[i - 1];
+        int[] order = new int[m];
+        for (int r = 0; r < m; r++) order[count[nonzeros(basis[r])]++] = r;
+        Arrays.fill(step, -1);
+        int lsize = 0, usize = 0;
+        for (int k = 0; k < m; k++) {
+            int r = order[k];
+            int j = basis[r];
+            if (j < n) {
+                for (int p = start[j]; p < start[j + 1]; p++) {
+                    work[index[p]] = value[p];
+                }
+            } else {
+                work[j - n] = 1;
+            }
+            // reduce by the columns of L so far
+            for (int s = 0; s < k; s++) {
+                double t = work[prow[s]];
+                if (t == 0) continue;
+                for (int p = Lstart[s]; p < Lstart[s + 1]; p++) {
+                    work[Lindex[p]] -= Lvalue[p] * t;
+                }
+            }
+            int pivot = -1;
+            double max = SINGULAR;
+            for (int i = 0; i < m; i++) {
+                if (step[i] < 0 && Math.abs(work[i]) > max) {
+                    max = Math.abs(work[i]);
+                    pivot = i;
+                }
+            }
+            if (pivot < 0) {
+                Arrays.fill(work, 0);
+                throw new IllegalStateException("singular basis");
+            }
+            double u = work[pivot];
+            if (usize + k > Uindex.length) {
+                Uindex = Arrays.copyOf(Uindex, 2 * (usize + k));
+                Uvalue = Arrays.copyOf(Uvalue, Uindex.length);
+            }
+            for (int s = 0; s < k; s++) {
+                double t = work[prow[s]];
+                if (t != 0) {
+                    Uindex[usize] = s;
+                    Uvalue[usize++] = t;
+                    work[prow[s]] = 0;
+                }
+            }
+            Ustart[k + 1] = usize;
+            work[pivot] = 0;
+            if (lsize + m > Lindex.length) {
+                Lindex = Arrays.copyOf(Lindex, 2 * (lsize + m));
+                Lvalue = Arrays.copyOf(Lvalue, Lindex.length);
+            }
+            for (int i = 0; i < m; i++) {
+                if (work[i] != 0) {
+                    Lindex[lsize] = i;
+                    Lvalue[lsize++] = work[i] / u;
+                    work[i] = 0;
+                }
+            }
+            Lstart[k + 1] = lsize;
+            diag[k] = u;
+            prow[k] = pivot;
+            pcol[k] = r;
+            step[pivot] = k;
+        }
+    }
+
+    private int nonzeros(int j) {
+        return j < n ? start[j + 1] - start[j] : 1;
+    }
+
+    /**
+     * Replaces the column at a position of the basis.
+     * @param r the position.
+     * @param alpha the new column solved by {@code ftran}, indexed by
+     *        position.
+     */
+    public void update(int r, double[] alpha) {
+        if (etas + 1 >= etaRow.length) {
+            etaRow = Arrays.copyOf(etaRow, 2 * etaRow.length);
+            etaPivot = Arrays.copyOf(etaPivot, etaRow.length);
+            etaStart = Arrays.copyOf(etaStart, etaRow.length + 1);
+        }
+        int size = etaStart[etas];
+        if (size + m > etaIndex.length) {
+            etaIndex = Arrays.copyOf(etaIndex, 2 * (size + m));
+            etaValue = Arrays.copyOf(etaValue, etaIndex.length);
+        }
+        for (int i = 0; i < m; i++) {
+            if (i != r && alpha[i] != 0) {
+                etaIndex[size] = i;
+                etaValue[size++] = alpha[i];
+            }
+        }
+        etaRow[etas] = r;
+        etaPivot[etas] = alpha[r];
+        etaStart[++etas] = size;
+    }
+
+    /**
+     * Solves B x = a in place.
+     * @param a the right-hand side indexed by row, replaced by the solution
+     *        indexed by position in the basis.
+     */
+    public void ftran(double[] a) {
+        for (int k = 0; k < m; k++) {
+            double t = a[prow[k]];
+            if (t == 0) continue;
+            for (int p = Lstart[k]; p < Lstart[k + 1]; p++) {
+                a[Lindex[p]] -= Lvalue[p] * t;
+            }
+        }
+        for (int k = 0; k < m; k++) work[k] = a[prow[k]];
+        for (int k = m - 1; k >= 0; k--) {
+            double t = work[k] / diag[k];
+            work[k] = t;
+            if (t == 0) continue;
+            for (int p = Ustart[k]; p < Ustart[k + 1]; p++) {
+                work[Uindex[p]] -= Uvalue[p] * t;
+            }
+        }
+        for (int k = 0; k < m; k++) {
+            a[pcol[k]] = work[k];
+            work[k] = 0;
+        }
+        for (int e = 0; e < etas; e++) {
+            int r = etaRow[e];
+            double t = a[r] / etaPivot[e];
+            a[r] = t;
+            if (t == 0) continue;
+            for (int p = etaStart[e]; p < etaStart[e + 1]; p++) {
+                a[etaIndex[p]] -= etaValue[p] * t;
+            }
+        }
+    }
+
+    /**
+     * Solves y^T B = c^T in place.
+     * @param c the right-hand side indexed by position in the basis,
+     *        replaced by the solution indexed by row.
+     */
+    public void btran(double[] c) {
+        for (int e = etas - 1; e >= 0; e--) {
+            int r = etaRow[e];
+            double s = c[r];
+            for (int p = etaStart[e]; p < etaStart[e + 1]; p++) {
+                s -= etaValue[p] * c[etaIndex[p]];
+            }
+            c[r] = s / etaPivot[e];
+        }
+        for (int k = 0; k < m; k++) {
+            double s = c[pcol[k]];
+            for (int p = Ustart[k]; p < Ustart[k + 1]; p++) {
+                s -= Uvalue[p] * work[Uindex[p]];
+            }
+            work[k] = s / diag[k];
+        }
+        for (int k = m - 1; k >= 0; k--) {
+            double s = work[k];
+            for (int p = Lstart[k]; p < Lstart[k + 1]; p++) {
+                s -= Lvalue[p] * c[Lindex[p]];
+            }
+            c[prow[k]] = s;
+            work[k] = 0;
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        // A = [[2, 0, 1], [1, 3, 0], [0, 1, 4]], basis columns 2, 0, slack 1
+        int[] start = {0, 2, 4, 6};
+        int[] index = {0, 1, 1, 2, 0, 2};
+        double[] value = {2, 1, 3, 1, 1, 4};
+        BasisFactorization F = new BasisFactorization(3, 3, start, index,
+                value);
+        int[] basis = {2, 0, 4};
+        F.factor(basis);
+        double[] x = {3, 2, 8};
+        F.ftran(x);
+        System.out.println(Arrays.toString(x) + " expected [2.0, 0.5, 1.5]");
+        double[] y = {1, 5, 3};
+        F.btran(y);
+        System.out.println(Arrays.toString(y) + " expected [1.0, 3.0, 0.0]");
+        // replace position 2 (slack 1) by column 1, B = [a2 a0 a1]
+        double[] alpha = {0, 3, 1};
+        F.ftran(alpha);
+        F.update(2, alpha);
+        x = new double[] {3, 4, 5};
+        F.ftran(x);
+        System.out.println(Arrays.toString(x) + " expected [1.0, 1.0, 1.0]");
+        y = new double[] {5, 3, 4};
+        F.btran(y);
+        System.out.println(Arrays.toString(y) + " expected [1.0, 1.0, 1.0]");
+    }
+}
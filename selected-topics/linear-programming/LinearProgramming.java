@@ -82,6 +82,23 @@ public class LinearProgramming {
         return x;
     }
 
+    /**
+     * The revised simplex algorithm.
+     * Same as above, but pivots on a sparse factorization of the basis
+     * instead of a dense copy of the linear system, see
+     * {@code RevisedSimplex}. Faster on large and sparse linear systems.
+     *
+     * @param ls linear system matrix of n variables and m constraints
+     * @param bs the basic solution to the linear system
+     * @param of the objective function
+     * @return optimal solution to the linear system
+     * @throws IllegalArgumentException if system is infeasible or unbounded
+     */
+    public static double[] revisedSimplex(double[][] ls, double[] bs,
+            double[] of) {
+        return new RevisedSimplex(ls, bs, of).solve();
+    }
+
     /**
      * Test whether the linear program is feasible and construct a slack
      * form with a feasible basic solution.
@@ -483,5 +500,35 @@ public class LinearProgramming {
             ex.printStackTrace();
         }
         System.out.println("--------------------\n");
+
+        // revised simplex on the same tests
+        double[][][] As = {
+            {{1, 1, 3}, {2, 2, 5}, {4, 1, 2}},
+            {{-2, -7.5, -3}, {-20, -5, -10}},
+            {{1, -1}, {-1, -1}, {-1, 4}},
+            {{1, 2}, {-2, -6}, {0, 1}},
+            {{-1, 1}, {-1, -1}, {-1, 4}}
+        };
+        double[][] bs = {
+            {30, 24, 36}, {-10000, -30000}, {8, -3, 2}, {4, -12, 1},
+            {-1, -3, 2}
+        };
+        double[][] cs = {{3, 1, 2}, {-1, -1, -1}, {1, 3}, {1, -2}, {1, 3}};
+        for (int t = 0; t < As.length; t++) {
+            String expected, result;
+            try {
+                expected = Arrays.toString(simplex(As[t], bs[t], cs[t]));
+            } catch (IllegalArgumentException ex) {
+                expected = ex.getMessage();
+            }
+            try {
+                result = Arrays.toString(revisedSimplex(As[t], bs[t], cs[t]));
+            } catch (IllegalArgumentException ex) {
+                result = ex.getMessage();
+            }
+            System.out.println("revised simplex test " + (t + 1) + ": "
+                    + result + (result.equals(expected) ? " ok"
+                    : " expected " + expected));
+        }
     }
 }
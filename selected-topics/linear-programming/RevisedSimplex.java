@@ -0,0 +1,944 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The revised simplex method, for sparse linear programs with bounded
+ * variables.
+ * <p>Maximizes c^T x subject to Ax <= b and l <= x <= u, where A is an
+ * m x n sparse matrix held by columns. Every constraint gets a slack
+ * variable {@code s_i = b_i - (Ax)_i >= 0}, so the variables are x_1 to
+ * x_n followed by the m slacks, as in {@code LinearProgramming.simplex},
+ * and the constraints become [A I] (x, s) = b. By default every x_j is
+ * bounded by 0 below and unbounded above.
+ * <p>Instead of pivoting a dense tableau, the revised method keeps a
+ * {@link BasisFactorization} of the basis B, the columns of the m basic
+ * variables, and computes only what a pivot needs from it: the column
+ * {@code B^-1 a_q} of the entering variable by a forward solve, and the
+ * row {@code e_r^T B^-1 [A I]} of the leaving variable by a backward solve
+ * and a product with the sparse columns. A pivot costs about the number
+ * of nonzeros of A instead of <em>O(mn)</em>. The factorization is updated
+ * after every pivot and computed again every {@code REFACTOR} pivots.
+ * <p>A nonbasic variable is at one of its bounds, or at 0 if it is free,
+ * so upper bounds need no constraints of their own. When the entering
+ * variable reaches its other bound before any basic variable reaches one
+ * of its bounds, it just moves to that bound and the basis is unchanged.
+ * If the first basic solution violates bounds, phase one maximizes minus
+ * the sum of the violations until it is feasible, then phase two
+ * maximizes the objective.
+ * <p>The entering variable is chosen by the pricing rule among the
+ * variables whose reduced cost d_j improves the objective:
+ * <ul>
+ *   <li>{@code DANTZIG}, the largest |d_j|.
+ *   <li>{@code STEEPEST_EDGE}, the largest |d_j| / ||B^-1 a_j||, the
+ *       largest improvement per unit of distance moved along the edge,
+ *       with the norms updated exactly at every pivot.
+ *   <li>{@code DEVEX}, the same with approximate norms, which are cheaper
+ *       to update.
+ * </ul>
+ * After {@code CYCLING} pivots in a row which do not move the solution,
+ * Bland's rule chooses the entering and leaving variables of the smallest
+ * index, which cannot cycle, until a pivot moves the solution again.
+ * <p>The position of every variable in the basis is held in an array
+ * indexed by variable, so no pivot scans the basis.
+ * <p>The object is a model which keeps its last basis: right-hand sides
+ * and objective coefficients can be changed and constraints added between
+ * solves, and the next solve starts from that basis instead of the slacks.
+ * A new objective leaves the basic solution feasible, so the primal
+ * simplex goes on from it. New right-hand sides or constraints leave the
+ * reduced costs optimal, so the dual simplex moves the basic variables
+ * back within their bounds, usually in a few pivots.
+ */
+public class RevisedSimplex {
+    /**
+     * The rules choosing the entering variable.
+     */
+    public static enum Pricing { DANTZIG, DEVEX, STEEPEST_EDGE }
+
+    // the largest violation of a bound by a feasible solution
+    private static final double FEASIBILITY = 1e-9;
+    // the smallest reduced cost which improves the objective
+    private static final double OPTIMALITY = 1e-9;
+    // the smallest pivot
+    private static final double PIVOT = 1e-9;
+    // the number of updates after which the basis is factored again
+    private static final int REFACTOR = 100;
+    // the number of pivots in a row without progress before Bland's rule
+    private static final int CYCLING = 50;
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private int m; // the number of constraints
+    private final int n; // the number of variables without the slacks
+    private int[] start; // the columns of A
+    private int[] index;
+    private double[] value;
+    private double[] b;
+    private final double[] c;
+    private double[] lower; // the bounds of all n+m variables
+    private double[] upper;
+    private double[] x; // the values of all n+m variables
+    private int[] basis; // the variable at every position
+    private int[] position; // the position of a variable, or -1
+    private double[] d; // the reduced costs
+    private double[] weight; // the norms of the pricing rule
+    private double[] alpha; // the column of the entering variable
+    private double[] row; // the row of the leaving variable
+    private double[] rho; // e_r^T B^-1, then B^-T alpha
+    private BasisFactorization F;
+    private boolean started; // true once there is a basis to start from
+    private boolean factored; // false until F holds the basis
+    private Pricing pricing = Pricing.STEEPEST_EDGE;
+    private int iterations;
+    private double objective;
+    // the result of the ratio test
+    private double step;
+    private double bound;
+
+    /**
+     * Constructor from a dense matrix.
+     * @param A the m x n matrix of the constraints.
+     * @param b the right-hand sides of the m constraints.
+     * @param c the coefficients of the n variables in the objective.
+     * @throws IllegalArgumentException if the dimensions do not match.
+     */
+    public RevisedSimplex(double[][] A, double[] b, double[] c) {
+        this(A.length, c.length, starts(A, c.length), rows(A, c.length),
+                nonzeros(A, c.length), b, c);
+    }
+
+    /**
+     * Constructor.
+     * @param m the number of constraints.
+     * @param n the number of variables.
+     * @param start the start of every column of A in index and value, and
+     *        the number of nonzeros at n.
+     * @param index the rows of the nonzeros of A.
+     * @param value the nonzeros of A.
+     * @param b the right-hand sides of the m constraints.
+     * @param c the coefficients of the n variables in the objective.
+     * @throws IllegalArgumentException if the dimensions do not match.
+     */
+    public RevisedSimplex(int m, int n, int[] start, int[] index,
+            double[] value, double[] b, double[] c) {
+        if (b.length != m || c.length != n || start.length != n + 1
+                || start[n] > index.length || start[n] > value.length) {
+            throw new IllegalArgumentException("dimensions do not match");
+        }
+        for (int p = 0; p < start[n]; p++) {
+            if (index[p] < 0 || index[p] >= m) {
+                throw new IllegalArgumentException("invalid row: "
+                        + index[p]);
+            }
+        }
+        this.m = m;
+        this.n = n;
+        this.start = start;
+        this.index = index;
+        this.value = value;
+        this.b = b.clone();
+        this.c = c.clone();
+        this.lower = new double[n + m];
+        this.upper = new double[n + m];
+        Arrays.fill(upper, INFINITY);
+        this.x = new double[n + m];
+        this.basis = new int[m];
+        this.position = new int[n + m];
+        this.d = new double[n + m];
+        this.weight = new double[n + m];
+        this.alpha = new double[m];
+        this.row = new double[n + m];
+        this.rho = new double[m];
+        this.F = new BasisFactorization(m, n, start, index, value);
+    }
+
+    /**
+     * Returns the start of every column of a dense matrix in the arrays of
+     * its nonzeros.
+     */
+    private static int[] starts(double[][] A, int n) {
+        int[] start = new int[n + 1];
+        for (double[] a : A) {
+            if (a.length != n) {
+                throw new IllegalArgumentException("dimensions do not match");
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            start[j + 1] = start[j];
+            for (double[] a : A) if (a[j] != 0) start[j + 1]++;
+        }
+        return start;
+    }
+
+    /**
+     * Returns the rows of the nonzeros of a dense matrix, column by column.
+     */
+    private static int[] rows(double[][] A, int n) {
+        int[] index = new int[starts(A, n)[n]];
+        for (int j = 0, p = 0; j < n; j++) {
+            for (int i = 0; i < A.length; i++) if (A[i][j] != 0) index[p++] = i;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the nonzeros of a dense matrix, column by column.
+     */
+    private static double[] nonzeros(double[][] A, int n) {
+        double[] value = new double[starts(A, n)[n]];
+        for (int j = 0, p = 0; j < n; j++) {
+            for (double[] a : A) if (a[j] != 0) value[p++] = a[j];
+        }
+        return value;
+    }
+
+    /**
+     * Sets the bounds of a variable.
+     * @param j the variable, from 0 to n-1.
+     * @param lower the lower bound, may be {@code -Infinity}.
+     * @param upper the upper bound, may be {@code Infinity}.
+     * @throws IllegalArgumentException if lower is larger than upper.
+     */
+    public void setBounds(int j, double lower, double upper) {
+        if (j < 0 || j >= n) {
+            throw new IllegalArgumentException("invalid variable: " + j);
+        } else if (!(lower <= upper)) {
+            throw new IllegalArgumentException("invalid bounds: " + lower
+                    + " > " + upper);
+        }
+        this.lower[j] = lower;
+        this.upper[j] = upper;
+    }
+
+    /**
+     * Sets the right-hand side of a constraint. The next solve starts from
+     * the last basis, which stays dual feasible, by the dual simplex.
+     * @param i the constraint, from 0 to m-1.
+     * @param rhs the right-hand side.
+     */
+    public void setRHS(int i, double rhs) {
+        if (i < 0 || i >= m) {
+            throw new IllegalArgumentException("invalid constraint: " + i);
+        }
+        b[i] = rhs;
+    }
+
+    /**
+     * Sets the coefficient of a variable in the objective. The next solve
+     * starts from the last basis, which stays primal feasible, by the
+     * primal simplex.
+     * @param j the variable, from 0 to n-1.
+     * @param cj the coefficient.
+     */
+    public void setObjective(int j, double cj) {
+        if (j < 0 || j >= n) {
+            throw new IllegalArgumentException("invalid variable: " + j);
+        }
+        c[j] = cj;
+    }
+
+    /**
+     * Adds the constraint {@code a^T x <= rhs} given by its nonzeros. The
+     * slack of the new constraint joins the last basis, which stays dual
+     * feasible, so the next solve runs the dual simplex.
+     * @param columns the variables with a nonzero coefficient.
+     * @param coefficients the coefficients of the variables.
+     * @param rhs the right-hand side.
+     * @throws IllegalArgumentException if a variable is invalid or given
+     *         twice.
+     */
+    public void addConstraint(int[] columns, double[] coefficients,
+            double rhs) {
+        if (columns.length != coefficients.length) {
+            throw new IllegalArgumentException("dimensions do not match");
+        }
+        boolean[] seen = new boolean[n];
+        for (int j : columns) {
+            if (j < 0 || j >= n || seen[j]) {
+                throw new IllegalArgumentException("invalid variable: " + j);
+            }
+            seen[j] = true;
+        }
+        double[] a = new double[n];
+        for (int k = 0; k < columns.length; k++) {
+            a[columns[k]] = coefficients[k];
+        }
+        int[] start = new int[n + 1];
+        for (int j = 0; j < n; j++) {
+            start[j + 1] = start[j] + this.start[j + 1] - this.start[j]
+                    + (a[j] != 0 ? 1 : 0);
+        }
+        int[] index = new int[start[n]];
+        double[] value = new double[start[n]];
+        for (int j = 0; j < n; j++) {
+            int p = start[j];
+            for (int q = this.start[j]; q < this.start[j + 1]; q++, p++) {
+                index[p] = this.index[q];
+                value[p] = this.value[q];
+            }
+            if (a[j] != 0) {
+                index[p] = m;
+                value[p] = a[j];
+            }
+        }
+        this.start = start;
+        this.index = index;
+        this.value = value;
+        int v = n + m; // the new slack
+        m++;
+        b = Arrays.copyOf(b, m);
+        b[m - 1] = rhs;
+        lower = Arrays.copyOf(lower, n + m);
+        upper = Arrays.copyOf(upper, n + m);
+        upper[v] = INFINITY;
+        x = Arrays.copyOf(x, n + m);
+        d = Arrays.copyOf(d, n + m);
+        weight = Arrays.copyOf(weight, n + m);
+        weight[v] = 1;
+        position = Arrays.copyOf(position, n + m);
+        basis = Arrays.copyOf(basis, m);
+        basis[m - 1] = v;
+        position[v] = m - 1;
+        row = new double[n + m];
+        alpha = new double[m];
+        rho = new double[m];
+        F = new BasisFactorization(m, n, start, index, value);
+        factored = false;
+    }
+
+    /**
+     * Adds the constraint {@code a^T x <= rhs}.
+     * @param a the coefficients of the n variables.
+     * @param rhs the right-hand side.
+     * @throws IllegalArgumentException if a is not of length n.
+     */
+    public void addConstraint(double[] a, double rhs) {
+        if (a.length != n) {
+            throw new IllegalArgumentException("dimensions do not match");
+        }
+        int count = 0;
+        for (double aj : a) if (aj != 0) count++;
+        int[] columns = new int[count];
+        double[] coefficients = new double[count];
+        for (int j = 0, k = 0; j < n; j++) {
+            if (a[j] != 0) {
+                columns[k] = j;
+                coefficients[k++] = a[j];
+            }
+        }
+        addConstraint(columns, coefficients, rhs);
+    }
+
+    /**
+     * Returns the number of constraints.
+     */
+    public int constraints() {
+        return m;
+    }
+
+    /**
+     * Forgets the last basis, so the next solve starts from the basis of
+     * the slack variables.
+     */
+    public void reset() {
+        started = false;
+    }
+
+    /**
+     * Sets the pricing rule, {@code STEEPEST_EDGE} by default.
+     */
+    public void setPricing(Pricing pricing) {
+        this.pricing = pricing;
+    }
+
+    /**
+     * Returns the number of pivots and bound flips of the last solve.
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the optimal objective value found by the last solve.
+     */
+    public double objective() {
+        return objective;
+    }
+
+    /**
+     * Solves the linear program from the last basis, or from the basis of
+     * the slack variables on the first solve or after a reset.
+     * <p>If the basic solution is feasible, it is optimized by the primal
+     * simplex. If it is not but the reduced costs are optimal, which is
+     * the case after changes to the right-hand sides and added
+     * constraints, the dual simplex makes it feasible while keeping them
+     * optimal. Otherwise phase one of the primal simplex makes it feasible
+     * first.
+     * @return the values of the n variables followed by the m slacks.
+     * @throws IllegalArgumentException if the linear program is infeasible
+     *         or unbounded.
+     */
+    public double[] solve() {
+        iterations = 0;
+        if (!started) {
+            slackBasis();
+            started = true;
+        } else {
+            // nonbasic variables whose bounds changed move to a bound
+            for (int j = 0; j < n; j++) {
+                if (position[j] < 0 && x[j] != lower[j] && x[j] != upper[j]) {
+                    x[j] = lower[j] > -INFINITY ? lower[j]
+                            : upper[j] < INFINITY ? upper[j] : 0;
+                }
+            }
+        }
+        if (!factored || F.updates() >= REFACTOR) {
+            F.factor(basis);
+            factored = true;
+        }
+        basicValues();
+        reducedCosts(false);
+        if (!primalFeasible() && price(false) < 0) dualSimplex();
+        primalSimplex();
+        basicValues();
+        objective = 0;
+        for (int j = 0; j < n; j++) objective += c[j] * x[j];
+        return x.clone();
+    }
+
+    /**
+     * Makes the slacks basic and the other variables nonbasic at a bound.
+     */
+    private void slackBasis() {
+        for (int i = 0; i < m; i++) {
+            basis[i] = n + i;
+            position[n + i] = i;
+            weight[n + i] = 1;
+        }
+        for (int j = 0; j < n; j++) {
+            position[j] = -1;
+            x[j] = lower[j] > -INFINITY ? lower[j]
+                    : upper[j] < INFINITY ? upper[j] : 0;
+            // the norms of the edges are those of the columns of A, since
+            // the basis of the slacks is the identity
+            weight[j] = 1;
+            if (pricing == Pricing.STEEPEST_EDGE) {
+                for (int p = start[j]; p < start[j + 1]; p++) {
+                    weight[j] += value[p] * value[p];
+                }
+            }
+        }
+        factored = false;
+    }
+
+    /**
+     * The primal simplex, with phase one if the basic solution is not
+     * feasible.
+     */
+    private void primalSimplex() {
+        boolean phase1 = true;
+        int degenerate = 0; // the number of pivots without progress
+        while (true) {
+            if (phase1) {
+                phase1 = reducedCosts(true);
+                if (!phase1) reducedCosts(false);
+            }
+            int q = price(degenerate >= CYCLING);
+            if (q < 0) {
+                if (phase1) throw new IllegalArgumentException("infeasible");
+                return;
+            }
+            double dir = d[q] > 0 ? 1 : -1;
+            column(q, alpha);
+            F.ftran(alpha);
+            int r = ratioTest(dir, degenerate >= CYCLING);
+            double range = upper[q] - lower[q];
+            if (range < INFINITY && range <= step) {
+                // the entering variable reaches its other bound first
+                step = range;
+                r = -1;
+            } else if (r < 0) {
+                throw new IllegalArgumentException("Unbounded");
+            }
+            iterations++;
+            degenerate = step > FEASIBILITY ? 0 : degenerate + 1;
+            for (int i = 0; i < m; i++) {
+                if (alpha[i] != 0) x[basis[i]] -= step * dir * alpha[i];
+            }
+            x[q] += step * dir;
+            if (r < 0) continue;
+            x[basis[r]] = bound;
+            pivotRow(r);
+            pivot(q, r, phase1);
+        }
+    }
+
+    /**
+     * The dual simplex. Every pivot moves the basic variable with the
+     * largest violation of a bound to that bound, and the entering
+     * variable is the one whose reduced cost first becomes zero, so the
+     * reduced costs stay optimal. With Bland's rule, the variables of the
+     * smallest index.
+     * @throws IllegalArgumentException if the linear program is infeasible.
+     */
+    private void dualSimplex() {
+        int degenerate = 0; // the number of pivots without progress
+        while (true) {
+            boolean bland = degenerate >= CYCLING;
+            int r = -1;
+            double worst = FEASIBILITY;
+            for (int i = 0; i < m; i++) {
+                int j = basis[i];
+                double v = Math.max(lower[j] - x[j], x[j] - upper[j]);
+                if (v > FEASIBILITY && (bland ? r < 0 || j < basis[r]
+                        : v > worst)) {
+                    worst = v;
+                    r = i;
+                }
+            }
+            if (r < 0) return;
+            int l = basis[r];
+            // the leaving variable increases to its lower bound, or
+            // decreases to its upper bound
+            double s = x[l] < lower[l] ? 1 : -1;
+            double target = s > 0 ? lower[l] : upper[l];
+            pivotRow(r);
+            int q = dualRatioTest(s, bland);
+            if (q < 0) throw new IllegalArgumentException("infeasible");
+            column(q, alpha);
+            F.ftran(alpha);
+            double dx = (x[l] - target) / alpha[r];
+            for (int i = 0; i < m; i++) {
+                if (alpha[i] != 0) x[basis[i]] -= dx * alpha[i];
+            }
+            x[q] += dx;
+            x[l] = target;
+            iterations++;
+            degenerate = Math.abs(d[q]) > OPTIMALITY ? 0 : degenerate + 1;
+            pivot(q, r, false);
+        }
+    }
+
+    /**
+     * Returns the entering variable of the dual simplex, among those which
+     * move the leaving variable in the direction s, or -1 if none does.
+     * Harris' ratio test finds the largest dual step which makes no
+     * reduced cost worse than {@code OPTIMALITY}, then picks the largest
+     * pivot among the variables reaching 0 within that step.
+     */
+    private int dualRatioTest(double s, boolean bland) {
+        double max = INFINITY;
+        for (int j = 0; j < n + m; j++) {
+            if (eligible(j, s)) {
+                double a = Math.abs(row[j]);
+                max = Math.min(max, (Math.abs(d[j]) + OPTIMALITY) / a);
+            }
+        }
+        int q = -1;
+        double best = 0, min = INFINITY;
+        for (int j = 0; j < n + m; j++) {
+            if (!eligible(j, s)) continue;
+            double a = Math.abs(row[j]);
+            double ratio = Math.abs(d[j]) / a;
+            if (bland) {
+                if (ratio < min) {
+                    min = ratio;
+                    q = j;
+                }
+            } else if (ratio <= max && a > best) {
+                best = a;
+                q = j;
+            }
+        }
+        return q;
+    }
+
+    /**
+     * Returns true if a nonbasic variable can move within its bounds in
+     * the direction which moves the leaving variable in the direction s.
+     */
+    private boolean eligible(int j, double s) {
+        if (position[j] >= 0 || Math.abs(row[j]) <= PIVOT) return false;
+        // the leaving variable changes by -row[j] times the change of j
+        boolean up = row[j] * s < 0;
+        return up ? x[j] < upper[j] : x[j] > lower[j];
+    }
+
+    /**
+     * Computes the row of the basic variable at position r, for the
+     * nonbasic variables.
+     */
+    private void pivotRow(int r) {
+        Arrays.fill(rho, 0);
+        rho[r] = 1;
+        F.btran(rho);
+        for (int j = 0; j < n + m; j++) {
+            row[j] = position[j] < 0 ? dot(rho, j) : 0;
+        }
+    }
+
+    /**
+     * Replaces the basic variable at position r by the variable q, whose
+     * column is alpha, and updates the reduced costs and the norms of the
+     * pricing rule from the row of the leaving variable.
+     */
+    private void pivot(int q, int r, boolean phase1) {
+        int l = basis[r];
+        double p = alpha[r];
+        row[q] = 0;
+        if (!phase1) {
+            double t = d[q] / p;
+            for (int j = 0; j < n + m; j++) {
+                if (row[j] != 0) d[j] -= t * row[j];
+            }
+            d[l] = -t;
+            d[q] = 0;
+        }
+        if (pricing == Pricing.DEVEX) {
+            for (int j = 0; j < n + m; j++) {
+                if (row[j] == 0) continue;
+                double a = row[j] / p;
+                weight[j] = Math.max(weight[j], a * a * weight[q]);
+            }
+            weight[l] = Math.max(weight[q] / (p * p), 1);
+        } else if (pricing == Pricing.STEEPEST_EDGE) {
+            double gamma = 1;
+            for (int i = 0; i < m; i++) gamma += alpha[i] * alpha[i];
+            System.arraycopy(alpha, 0, rho, 0, m);
+            F.btran(rho);
+            for (int j = 0; j < n + m; j++) {
+                if (row[j] == 0) continue;
+                double a = row[j] / p;
+                double w = weight[j] - 2 * a * dot(rho, j) + a * a * gamma;
+                weight[j] = Math.max(w, 1 + a * a);
+            }
+            weight[l] = Math.max(gamma / (p * p), 1);
+        }
+        basis[r] = q;
+        position[q] = r;
+        position[l] = -1;
+        F.update(r, alpha);
+        if (F.updates() >= REFACTOR) {
+            F.factor(basis);
+            basicValues();
+            if (!phase1) reducedCosts(false);
+        }
+    }
+
+    /**
+     * Computes the values of the basic variables from those of the
+     * nonbasic ones, which clears the rounding errors of the updates.
+     */
+    private void basicValues() {
+        System.arraycopy(b, 0, alpha, 0, m);
+        for (int j = 0; j < n + m; j++) {
+            if (position[j] >= 0 || x[j] == 0) continue;
+            if (j >= n) {
+                alpha[j - n] -= x[j];
+            } else {
+                for (int p = start[j]; p < start[j + 1]; p++) {
+                    alpha[index[p]] -= value[p] * x[j];
+                }
+            }
+        }
+        F.ftran(alpha);
+        for (int i = 0; i < m; i++) x[basis[i]] = alpha[i];
+    }
+
+    /**
+     * Returns true if no basic variable violates a bound.
+     */
+    private boolean primalFeasible() {
+        for (int i = 0; i < m; i++) {
+            int j = basis[i];
+            if (x[j] < lower[j] - FEASIBILITY
+                    || x[j] > upper[j] + FEASIBILITY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the reduced costs of the objective, or in phase one those
+     * of minus the sum of the violations of the bounds.
+     * @return true if a basic variable violates a bound.
+     */
+    private boolean reducedCosts(boolean phase1) {
+        boolean infeasible = false;
+        for (int i = 0; i < m; i++) {
+            int j = basis[i];
+            if (phase1) {
+                rho[i] = x[j] < lower[j] - FEASIBILITY ? 1
+                        : x[j] > upper[j] + FEASIBILITY ? -1 : 0;
+                if (rho[i] != 0) infeasible = true;
+            } else {
+                rho[i] = j < n ? c[j] : 0;
+            }
+        }
+        F.btran(rho);
+        for (int j = 0; j < n + m; j++) {
+            if (position[j] >= 0) d[j] = 0;
+            else d[j] = (phase1 || j >= n ? 0 : c[j]) - dot(rho, j);
+        }
+        return infeasible;
+    }
+
+    /**
+     * Returns the nonbasic variable chosen by the pricing rule, or by
+     * Bland's rule, or -1 if none improves the objective.
+     */
+    private int price(boolean bland) {
+        int q = -1;
+        double best = 0;
+        for (int j = 0; j < n + m; j++) {
+            if (position[j] >= 0) continue;
+            double dj = d[j];
+            if ((dj > OPTIMALITY && x[j] < upper[j])
+                    || (dj < -OPTIMALITY && x[j] > lower[j])) {
+                if (bland) return j;
+                double score = pricing == Pricing.DANTZIG ? dj * dj
+                        : dj * dj / weight[j];
+                if (score > best) {
+                    best = score;
+                    q = j;
+                }
+            }
+        }
+        return q;
+    }
+
+    /**
+     * Returns the position of the basic variable which first reaches a
+     * bound when the entering variable moves in the direction dir, or -1 if
+     * none does, and sets {@code step} to the distance moved and
+     * {@code bound} to the bound reached.
+     * <p>Harris' ratio test first finds the largest step which violates no
+     * bound by more than {@code FEASIBILITY}, then picks among the variables
+     * reaching a bound within that step the one with the largest pivot,
+     * which keeps the factorization accurate. With Bland's rule, the
+     * variable of the smallest index among those reaching a bound first.
+     */
+    private int ratioTest(double dir, boolean bland) {
+        double max = INFINITY;
+        for (int i = 0; i < m; i++) {
+            double delta = -dir * alpha[i];
+            if (Math.abs(delta) <= PIVOT) continue;
+            double t = target(basis[i], delta);
+            if (Double.isNaN(t)) continue;
+            double room = (t - x[basis[i]]) / delta;
+            max = Math.min(max, room + FEASIBILITY / Math.abs(delta));
+        }
+        step = INFINITY;
+        if (max == INFINITY) return -1;
+        int r = -1;
+        double best = 0;
+        for (int i = 0; i < m; i++) {
+            double delta = -dir * alpha[i];
+            if (Math.abs(delta) <= PIVOT) continue;
+            int j = basis[i];
+            double t = target(j, delta);
+            if (Double.isNaN(t)) continue;
+            double room = Math.max(0, (t - x[j]) / delta);
+            if (bland) {
+                if (room < step || (room == step && j < basis[r])) {
+                    r = i;
+                    step = room;
+                    bound = t;
+                }
+            } else if (room <= max && Math.abs(delta) > best) {
+                r = i;
+                best = Math.abs(delta);
+                step = room;
+                bound = t;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the bound a basic variable reaches when it changes in the
+     * direction of delta, or NaN if there is none. A variable violating a
+     * bound stops when it reaches that bound, in phase one.
+     */
+    private double target(int j, double delta) {
+        if (delta < 0) {
+            if (x[j] > upper[j] + FEASIBILITY) return upper[j];
+            if (x[j] < lower[j] - FEASIBILITY || lower[j] == -INFINITY) {
+                return Double.NaN;
+            }
+            return lower[j];
+        }
+        if (x[j] < lower[j] - FEASIBILITY) return lower[j];
+        if (x[j] > upper[j] + FEASIBILITY || upper[j] == INFINITY) {
+            return Double.NaN;
+        }
+        return upper[j];
+    }
+
+    /**
+     * Stores the column of a variable in a, indexed by row.
+     */
+    private void column(int j, double[] a) {
+        Arrays.fill(a, 0);
+        if (j >= n) {
+            a[j - n] = 1;
+        } else {
+            for (int p = start[j]; p < start[j + 1]; p++) {
+                a[index[p]] = value[p];
+            }
+        }
+    }
+
+    /**
+     * Returns the product of a vector indexed by row with the column of a
+     * variable.
+     */
+    private double dot(double[] y, int j) {
+        if (j >= n) return y[j - n];
+        double s = 0;
+        for (int p = start[j]; p < start[j + 1]; p++) {
+            s += y[index[p]] * value[p];
+        }
+        return s;
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        // bounded variables: max x1 + x2, x1 + 2 x2 <= 4, x1 <= 3, x2 <= 1
+        RevisedSimplex lp = new RevisedSimplex(new double[][] {{1, 2}},
+                new double[] {4}, new double[] {1, 1});
+        lp.setBounds(0, 0, 3);
+        lp.setBounds(1, 0, 1);
+        double[] x = lp.solve();
+        System.out.println(Arrays.toString(x) + " expected [3.0, 0.5, 0.0]");
+        // a free variable and a negative lower bound:
+        // max -x1 - x2, x1 - x2 <= 1, -x1 - x2 <= 2, x1 free, x2 >= -5
+        lp = new RevisedSimplex(new double[][] {{1, -1}, {-1, -1}},
+                new double[] {1, 2}, new double[] {-1, -1});
+        lp.setBounds(0, -INFINITY, INFINITY);
+        lp.setBounds(1, -5, INFINITY);
+        lp.solve();
+        System.out.println(lp.objective() + " expected 2.0");
+        // random programs against the tableau simplex, by every rule. The
+        // auxiliary program of the tableau simplex stops as unbounded on
+        // some degenerate programs, so those are only compared between the
+        // rules
+        Random rand = new Random(11);
+        int failures = 0, solved = 0;
+        for (int t = 0; t < 300; t++) {
+            int rows = 1 + rand.nextInt(8), cols = 1 + rand.nextInt(8);
+            double[][] A = new double[rows][cols];
+            double[] b = new double[rows];
+            double[] c = new double[cols];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    // sparse, with degenerate ties between small integers
+                    if (rand.nextInt(3) > 0) A[i][j] = rand.nextInt(9) - 3;
+                }
+                b[i] = rand.nextInt(20) - 4;
+            }
+            for (int j = 0; j < cols; j++) c[j] = rand.nextInt(9) - 4;
+            String expected;
+            double v = 0;
+            try {
+                double[] y = LinearProgramming.simplex(A, b, c);
+                for (int j = 0; j < cols; j++) v += c[j] * y[j];
+                expected = "optimal";
+            } catch (IllegalArgumentException e) {
+                expected = e.getMessage();
+            }
+            boolean compare = !expected.equals("Unbounded");
+            for (Pricing p : Pricing.values()) {
+                lp = new RevisedSimplex(A, b, c);
+                lp.setPricing(p);
+                String result;
+                try {
+                    lp.solve();
+                    result = "optimal";
+                } catch (IllegalArgumentException e) {
+                    result = e.getMessage();
+                }
+                if (!compare) {
+                    // the first rule gives the result of the others
+                    expected = result;
+                    v = lp.objective();
+                    compare = true;
+                }
+                if (!result.equals(expected) || (result.equals("optimal")
+                        && Math.abs(lp.objective() - v) > 1e-6)) {
+                    failures++;
+                }
+            }
+            if (expected.equals("optimal")) solved++;
+        }
+        System.out.println(solved + " optimal of 300, " + failures
+                + " differences" + (failures == 0 ? " ok" : " FAILED"));
+        // warm starts after changes to b, c and added constraints, against
+        // solves from the slack basis
+        failures = 0;
+        int warm = 0, cold = 0;
+        for (int t = 0; t < 50; t++) {
+            int rows = 20, cols = 20;
+            double[][] A = new double[rows][cols];
+            double[] b = new double[rows];
+            double[] c = new double[cols];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    if (rand.nextInt(4) == 0) A[i][j] = 1 + rand.nextInt(9);
+                }
+                b[i] = 10 + rand.nextInt(100);
+            }
+            for (int j = 0; j < cols; j++) c[j] = rand.nextInt(20) - 2;
+            RevisedSimplex model = new RevisedSimplex(A, b, c);
+            for (int j = 0; j < cols; j++) model.setBounds(j, 0, 20);
+            model.solve();
+            for (int k = 0; k < 20; k++) {
+                int change = rand.nextInt(3);
+                if (change == 0) {
+                    int i = rand.nextInt(A.length);
+                    b[i] = rand.nextInt(100) - 5;
+                    model.setRHS(i, b[i]);
+                } else if (change == 1) {
+                    int j = rand.nextInt(cols);
+                    c[j] = rand.nextInt(20) - 5;
+                    model.setObjective(j, c[j]);
+                } else {
+                    double[] a = new double[cols];
+                    for (int j = 0; j < cols; j++) {
+                        if (rand.nextInt(3) == 0) a[j] = rand.nextInt(9) - 2;
+                    }
+                    A = Arrays.copyOf(A, A.length + 1);
+                    A[A.length - 1] = a;
+                    b = Arrays.copyOf(b, b.length + 1);
+                    b[b.length - 1] = 20 + rand.nextInt(100);
+                    model.addConstraint(a, b[b.length - 1]);
+                }
+                String expected, result;
+                lp = new RevisedSimplex(A, b, c);
+                for (int j = 0; j < cols; j++) lp.setBounds(j, 0, 20);
+                try {
+                    lp.solve();
+                    expected = "optimal";
+                } catch (IllegalArgumentException e) {
+                    expected = e.getMessage();
+                }
+                try {
+                    model.solve();
+                    result = "optimal";
+                } catch (IllegalArgumentException e) {
+                    result = e.getMessage();
+                }
+                warm += model.iterations();
+                cold += lp.iterations();
+                if (!result.equals(expected) || (result.equals("optimal")
+                        && Math.abs(lp.objective() - model.objective())
+                        > 1e-6)) {
+                    failures++;
+                }
+            }
+        }
+        System.out.println(warm + " warm pivots, " + cold + " cold pivots, "
+                + failures + " differences"
+                + (failures == 0 ? " ok" : " FAILED"));
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the tableau and revised simplex algorithms on random
+ * sparse linear programs of n constraints and n variables.
+ * <p>Every variable has about {@code NONZEROS} nonzero coefficients between
+ * 1 and 9 in random constraints, and the right-hand sides are between 10
+ * and 109, so the origin is feasible. The tableau only runs on
+ * {@code Small} programs. The re-solves change one right-hand side or
+ * objective coefficient and solve again from the last basis.
+ * <p>Usage: {@code java -jar target/benchmarks.jar SimplexBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimplexBenchmark {
+    private static final int NONZEROS = 4;
+
+    @State(Scope.Thread)
+    public abstract static class Program {
+        double[][] A;
+        double[] b;
+        double[] c;
+
+        void generate(int n) {
+            Random rand = new Random(42);
+            A = new double[n][n];
+            b = new double[n];
+            c = new double[n];
+            for (int j = 0; j < n; j++) {
+                for (int k = 0; k < NONZEROS; k++) {
+                    A[rand.nextInt(n)][j] = 1 + rand.nextInt(9);
+                }
+                c[j] = 1 + rand.nextInt(20);
+            }
+            for (int i = 0; i < n; i++) b[i] = 10 + rand.nextInt(100);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Small extends Program {
+        @Param({"100", "300"})
+        public int n;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Input extends Program {
+        @Param({"100", "300", "1000"})
+        public int n;
+        @Param({"DANTZIG", "DEVEX", "STEEPEST_EDGE"})
+        public RevisedSimplex.Pricing pricing;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n);
+        }
+    }
+
+    /**
+     * A solved model and the number of re-solves so far, which picks the
+     * coefficient to change.
+     */
+    @State(Scope.Thread)
+    public static class Model extends Program {
+        @Param({"100", "300", "1000"})
+        public int n;
+        RevisedSimplex model;
+        int k;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n);
+            model = new RevisedSimplex(A, b, c);
+            model.solve();
+        }
+    }
+
+    @Benchmark
+    public Object simplex(Small in) {
+        return LinearProgramming.simplex(in.A, in.b, in.c);
+    }
+
+    @Benchmark
+    public Object revised(Input in) {
+        RevisedSimplex lp = new RevisedSimplex(in.A, in.b, in.c);
+        lp.setPricing(in.pricing);
+        return lp.solve();
+    }
+
+    @Benchmark
+    public Object resolveRHS(Model in) {
+        int i = in.k++ % in.b.length;
+        in.model.setRHS(i, in.k % 2 == 0 ? in.b[i] : in.b[i] / 2);
+        return in.model.solve();
+    }
+
+    @Benchmark
+    public Object resolveObjective(Model in) {
+        int j = in.k++ % in.c.length;
+        in.model.setObjective(j, in.k % 2 == 0 ? in.c[j] : 2 * in.c[j]);
+        return in.model.solve();
+    }
+}
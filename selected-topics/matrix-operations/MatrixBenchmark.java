@@ -0,0 +1,120 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the matrix decompositions and products on random dense
+ * square matrices of n rows.
+ * <p>The decompositions in place run on fresh copies of the matrix made
+ * before every invocation.
+ * <p>Usage: {@code java -jar target/benchmarks.jar MatrixBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"100", "500", "1000"})
+        public int n;
+        double[][] input;
+        double[] flat;
+        double[] other;
+        double[] LU;
+        int[] pi;
+        double[] b;
+        long[] W;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            input = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) input[i][j] = rand.nextDouble();
+                // diagonally dominant so LUDecompose never meets a 0 pivot
+                input[i][i] += n;
+            }
+            flat = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(input[i], 0, flat, i * n, n);
+            }
+            LU = flat.clone();
+            pi = MatrixOperations.LUPDecompose(LU, n);
+            b = new double[n];
+            for (int i = 0; i < n; i++) b[i] = rand.nextDouble();
+            other = new double[n * n];
+            for (int i = 0; i < other.length; i++) other[i] = rand.nextDouble();
+            W = new long[n * n];
+            for (int i = 0; i < W.length; i++) W[i] = rand.nextInt(100);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Copy {
+        double[][] A;
+        double[] flat;
+
+        @Setup(Level.Invocation)
+        public void copy(Input in) {
+            A = new double[in.n][];
+            for (int i = 0; i < in.n; i++) A[i] = in.input[i].clone();
+            flat = in.flat.clone();
+        }
+    }
+
+    @Benchmark
+    public Object LUDecompose(Input in) {
+        return MatrixOperations.LUDecompose(in.input);
+    }
+
+    @Benchmark
+    public Object LUPDecompose(Copy c) {
+        return MatrixOperations.LUPDecompose(c.A);
+    }
+
+    @Benchmark
+    public Object LUPDecomposeBlocked(Input in, Copy c) {
+        return MatrixOperations.LUPDecompose(c.flat, in.n);
+    }
+
+    @Benchmark
+    public Object LUPSolve(Input in) {
+        return MatrixOperations.LUPSolve(in.LU, in.pi, in.b);
+    }
+
+    @Benchmark
+    public Object inverse(Input in) {
+        return MatrixOperations.inverse(in.flat, in.n);
+    }
+
+    @Benchmark
+    public Object multiplyTiled(Input in) {
+        return MatrixMultiplication.multiply(in.flat, in.other, in.n, in.n,
+                in.n, Semiring.ARITHMETIC);
+    }
+
+    @Benchmark
+    public Object multiplyStrassen(Input in) {
+        return MatrixMultiplication.strassen(in.flat, in.other, in.n);
+    }
+
+    @Benchmark
+    public Object multiplyMinPlus(Input in) {
+        return MatrixMultiplication.multiply(in.W, in.W, in.n, in.n, in.n,
+                Semiring.MIN_PLUS);
+    }
+}
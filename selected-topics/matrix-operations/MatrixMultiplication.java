@@ -0,0 +1,392 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Dense matrix multiplication over flat row-major arrays.
+ * <p>An n x m matrix is held in an array of nm entries, entry (i, j) at
+ * index {@code i * m + j}. The product C = AB of an n x m matrix A by an
+ * m x p matrix B is computed over tiles of C in parallel on the common
+ * fork/join pool. Each tile walks the inner dimension in slices of
+ * {@code DEPTH} rows of B, so the slice of B and the tile of C stay in the
+ * cache while every row of the tile is updated, and the innermost loop
+ * walks along rows of B and C.
+ * <p>The entries are added and multiplied by a {@link Semiring}, so the
+ * same kernels compute the usual product, the min-plus products of the
+ * shortest-path algorithms and the boolean products of the transitive
+ * closure. The usual product of square matrices of size at least
+ * {@code STRASSEN_CUTOFF} runs Strassen's algorithm, which needs the
+ * subtraction of a ring and so is not used for the other semirings.
+ */
+public class MatrixMultiplication {
+    // the smallest size multiplied by Strassen's algorithm, measured with
+    // MatrixBenchmark: the tiled product and Strassen with leaves of 512 are
+    // as fast at 1024, and Strassen is 25% faster at 2048
+    static final int STRASSEN_CUTOFF = 1024;
+    // the largest number of entries of a tile of C computed by one task
+    private static final int TILE = 1 << 14;
+    // the number of rows of B a tile is updated with in one pass
+    private static final int DEPTH = 128;
+    // the smallest product, in multiply-adds, computed in parallel
+    private static final long PARALLEL = 1 << 18;
+
+    /**
+     * Multiplies an n x m matrix by an m x p matrix, by Strassen's
+     * algorithm if the matrices are square and large, and by the tiled
+     * product otherwise.
+     * Running time is <em>O(nmp)</em>, or <em>O(n^lg7)</em> for square
+     * matrices.
+     * @param A the n x m matrix.
+     * @param B the m x p matrix.
+     * @param n the number of rows of A.
+     * @param m the number of columns of A and rows of B.
+     * @param p the number of columns of B.
+     * @return the n x p product.
+     * @throws IllegalArgumentException if the arrays do not match the
+     *         dimensions.
+     */
+    public static double[] multiply(double[] A, double[] B, int n, int m,
+            int p) {
+        if (n == m && m == p && n >= STRASSEN_CUTOFF) return strassen(A, B, n);
+        return multiply(A, B, n, m, p, Semiring.ARITHMETIC);
+    }
+
+    /**
+     * Multiplies an n x m matrix by an m x p matrix over a semiring, by the
+     * tiled product.
+     * Running time is <em>THETA(nmp)</em>.
+     * @param A the n x m matrix.
+     * @param B the m x p matrix.
+     * @param n the number of rows of A.
+     * @param m the number of columns of A and rows of B.
+     * @param p the number of columns of B.
+     * @param S the semiring.
+     * @return the n x p product.
+     * @throws IllegalArgumentException if the arrays do not match the
+     *         dimensions.
+     */
+    public static double[] multiply(double[] A, double[] B, int n, int m,
+            int p, Semiring S) {
+        validate(A.length, B.length, n, m, p);
+        double[] C = new double[n * p];
+        double zero = S.doubleZero();
+        if (zero != 0) Arrays.fill(C, zero);
+        run(new Tile(S, A, B, C, null, null, null, m, p, 0, n, 0, p), n, m, p);
+        return C;
+    }
+
+    /**
+     * Multiplies an n x m matrix by an m x p matrix over a semiring, on
+     * {@code long} entries, by the tiled product.
+     * Running time is <em>THETA(nmp)</em>.
+     * @param A the n x m matrix.
+     * @param B the m x p matrix.
+     * @param n the number of rows of A.
+     * @param m the number of columns of A and rows of B.
+     * @param p the number of columns of B.
+     * @param S the semiring.
+     * @return the n x p product.
+     * @throws IllegalArgumentException if the arrays do not match the
+     *         dimensions.
+     */
+    public static long[] multiply(long[] A, long[] B, int n, int m, int p,
+            Semiring S) {
+        validate(A.length, B.length, n, m, p);
+        long[] C = new long[n * p];
+        long zero = S.zero();
+        if (zero != 0) Arrays.fill(C, zero);
+        run(new Tile(S, null, null, null, A, B, C, m, p, 0, n, 0, p), n, m, p);
+        return C;
+    }
+
+    private static void validate(int a, int b, int n, int m, int p) {
+        if (n < 0 || m < 0 || p < 0 || a != n * m || b != m * p) {
+            throw new IllegalArgumentException("dimensions do not match");
+        }
+    }
+
+    private static void run(Tile t, int n, int m, int p) {
+        if ((long) n * m * p < PARALLEL) t.compute();
+        else if (ForkJoinTask.inForkJoinPool()) t.invoke();
+        else ForkJoinPool.commonPool().invoke(t);
+    }
+
+    /**
+     * Computes the tile of rows i0..i1-1 and columns j0..j1-1 of C, on
+     * {@code double} entries if dA is not null and on {@code long} entries
+     * otherwise. Halves the longer side of the tile until it is smaller
+     * than {@code TILE} entries.
+     */
+    private static class Tile extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Semiring S;
+        private final double[] dA, dB, dC;
+        private final long[] lA, lB, lC;
+        private final int m, p, i0, i1, j0, j1;
+
+        Tile(Semiring S, double[] dA, double[] dB, double[] dC, long[] lA,
+                long[] lB, long[] lC, int m, int p, int i0, int i1, int j0,
+                int j1) {
+            this.S = S;
+            this.dA = dA;
+            this.dB = dB;
+            this.dC = dC;
+            this.lA = lA;
+            this.lB = lB;
+            this.lC = lC;
+            this.m = m;
+            this.p = p;
+            this.i0 = i0;
+            this.i1 = i1;
+            this.j0 = j0;
+            this.j1 = j1;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = i1 - i0, cols = j1 - j0;
+            if ((long) rows * cols > TILE && Math.max(rows, cols) > 1) {
+                if (rows >= cols) {
+                    int mid = i0 + rows / 2;
+                    invokeAll(split(i0, mid, j0, j1), split(mid, i1, j0, j1));
+                } else {
+                    int mid = j0 + cols / 2;
+                    invokeAll(split(i0, i1, j0, mid), split(i0, i1, mid, j1));
+                }
+                return;
+            }
+            for (int k0 = 0; k0 < m; k0 += DEPTH) {
+                int k1 = Math.min(k0 + DEPTH, m);
+                if (dA == null) {
+                    for (int i = i0; i < i1; i++) {
+                        for (int k = k0; k < k1; k++) {
+                            S.multiplyAdd(lA[i * m + k], lB, k * p + j0, lC,
+                                    i * p + j0, cols);
+                        }
+                    }
+                } else if (S == Semiring.ARITHMETIC) {
+                    arithmetic(k0, k1);
+                } else {
+                    for (int i = i0; i < i1; i++) {
+                        for (int k = k0; k < k1; k++) {
+                            S.multiplyAdd(dA[i * m + k], dB, k * p + j0, dC,
+                                    i * p + j0, cols);
+                        }
+                    }
+                }
+            }
+        }
+
+        private Tile split(int i0, int i1, int j0, int j1) {
+            return new Tile(S, dA, dB, dC, lA, lB, lC, m, p, i0, i1, j0, j1);
+        }
+
+        /**
+         * The usual product over the slice k0..k1-1, two rows of A times
+         * two rows of B at a time, which loads each entry of the tile once
+         * for four multiply-adds.
+         */
+        private void arithmetic(int k0, int k1) {
+            int i = i0;
+            for (; i + 1 < i1; i += 2) {
+                int a0 = i * m, a1 = a0 + m;
+                int r0 = i * p, r1 = r0 + p;
+                int k = k0;
+                for (; k + 1 < k1; k += 2) {
+                    double x00 = dA[a0 + k], x01 = dA[a0 + k + 1];
+                    double x10 = dA[a1 + k], x11 = dA[a1 + k + 1];
+                    int b0 = k * p, b1 = b0 + p;
+                    for (int j = j0; j < j1; j++) {
+                        double x = dB[b0 + j], y = dB[b1 + j];
+                        dC[r0 + j] += x00 * x + x01 * y;
+                        dC[r1 + j] += x10 * x + x11 * y;
+                    }
+                }
+                if (k < k1) {
+                    double x0 = dA[a0 + k], x1 = dA[a1 + k];
+                    int b = k * p;
+                    for (int j = j0; j < j1; j++) {
+                        dC[r0 + j] += x0 * dB[b + j];
+                        dC[r1 + j] += x1 * dB[b + j];
+                    }
+                }
+            }
+            if (i < i1) {
+                int a = i * m, r = i * p;
+                for (int k = k0; k < k1; k++) {
+                    double x = dA[a + k];
+                    int b = k * p;
+                    for (int j = j0; j < j1; j++) dC[r + j] += x * dB[b + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Multiplies two n x n matrices by Strassen's algorithm. Each level
+     * splits the matrices into quadrants of size ceil(n/2), padded with
+     * zeros, and computes the product from seven products of quadrants
+     * instead of eight, in parallel; quadrants smaller than
+     * {@code STRASSEN_CUTOFF} are multiplied by the tiled product.
+     * Running time is <em>THETA(n^lg7)</em>.
+     * @param A the first matrix.
+     * @param B the second matrix.
+     * @param n the number of rows and columns.
+     * @return the product.
+     * @throws IllegalArgumentException if the arrays do not hold n x n
+     *         entries.
+     */
+    public static double[] strassen(double[] A, double[] B, int n) {
+        validate(A.length, B.length, n, n, n);
+        Strassen s = new Strassen(A, B, n);
+        if (ForkJoinTask.inForkJoinPool()) s.invoke();
+        else ForkJoinPool.commonPool().invoke(s);
+        return s.C;
+    }
+
+    /**
+     * One level of Strassen's algorithm, stores the product in C.
+     */
+    private static class Strassen extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double[] A, B;
+        private final int n;
+        private double[] C;
+
+        Strassen(double[] A, double[] B, int n) {
+            this.A = A;
+            this.B = B;
+            this.n = n;
+        }
+
+        @Override
+        protected void compute() {
+            if (n < STRASSEN_CUTOFF) {
+                C = multiply(A, B, n, n, n, Semiring.ARITHMETIC);
+                return;
+            }
+            int h = (n + 1) / 2;
+            double[] A11 = quadrant(A, n, h, 0, 0);
+            double[] A12 = quadrant(A, n, h, 0, h);
+            double[] A21 = quadrant(A, n, h, h, 0);
+            double[] A22 = quadrant(A, n, h, h, h);
+            double[] B11 = quadrant(B, n, h, 0, 0);
+            double[] B12 = quadrant(B, n, h, 0, h);
+            double[] B21 = quadrant(B, n, h, h, 0);
+            double[] B22 = quadrant(B, n, h, h, h);
+            Strassen[] M = {
+                new Strassen(add(A11, A22, 1), add(B11, B22, 1), h),
+                new Strassen(add(A21, A22, 1), B11, h),
+                new Strassen(A11, add(B12, B22, -1), h),
+                new Strassen(A22, add(B21, B11, -1), h),
+                new Strassen(add(A11, A12, 1), B22, h),
+                new Strassen(add(A21, A11, -1), add(B11, B12, 1), h),
+                new Strassen(add(A12, A22, -1), add(B21, B22, 1), h)
+            };
+            invokeAll(M);
+            double[] M1 = M[0].C, M2 = M[1].C, M3 = M[2].C, M4 = M[3].C;
+            double[] M5 = M[4].C, M6 = M[5].C, M7 = M[6].C;
+            C = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                int q = i < h ? i : i - h; // the row in the quadrant
+                for (int j = 0; j < n; j++) {
+                    int x = q * h + (j < h ? j : j - h);
+                    double c;
+                    if (i < h && j < h) c = M1[x] + M4[x] - M5[x] + M7[x];
+                    else if (i < h) c = M3[x] + M5[x];
+                    else if (j < h) c = M2[x] + M4[x];
+                    else c = M1[x] - M2[x] + M3[x] + M6[x];
+                    C[i * n + j] = c;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the h x h quadrant of an n x n matrix starting at row r and
+     * column c, padded with zeros past the last row and column.
+     */
+    private static double[] quadrant(double[] A, int n, int h, int r,
+            int c) {
+        double[] Q = new double[h * h];
+        int cols = Math.min(h, n - c);
+        for (int i = 0; i < h && r + i < n; i++) {
+            System.arraycopy(A, (r + i) * n + c, Q, i * h, cols);
+        }
+        return Q;
+    }
+
+    /**
+     * Returns X + sign Y.
+     */
+    private static double[] add(double[] X, double[] Y, double sign) {
+        double[] Z = new double[X.length];
+        for (int i = 0; i < Z.length; i++) Z[i] = X[i] + sign * Y[i];
+        return Z;
+    }
+
+    /**
+     * The product by the definition, three nested loops.
+     */
+    private static double[] definition(double[] A, double[] B, int n, int m,
+            int p) {
+        double[] C = new double[n * p];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < p; j++) {
+                double c = 0;
+                for (int k = 0; k < m; k++) c += A[i * m + k] * B[k * p + j];
+                C[i * p + j] = c;
+            }
+        }
+        return C;
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        Random rand = new Random(5);
+        double error = 0;
+        // rectangular products, serial and parallel
+        int[][] dims = {{1, 1, 1}, {3, 5, 2}, {17, 129, 33}, {70, 300, 90}};
+        for (int[] d : dims) {
+            double[] A = new double[d[0] * d[1]];
+            double[] B = new double[d[1] * d[2]];
+            for (int i = 0; i < A.length; i++) A[i] = rand.nextDouble() - 0.5;
+            for (int i = 0; i < B.length; i++) B[i] = rand.nextDouble() - 0.5;
+            double[] C = multiply(A, B, d[0], d[1], d[2]);
+            double[] expected = definition(A, B, d[0], d[1], d[2]);
+            for (int i = 0; i < C.length; i++) {
+                error = Math.max(error, Math.abs(C[i] - expected[i]));
+            }
+        }
+        // Strassen on an odd size, whose quadrants are padded
+        int n = STRASSEN_CUTOFF + 1;
+        double[] A = new double[n * n];
+        double[] B = new double[n * n];
+        for (int i = 0; i < A.length; i++) A[i] = rand.nextDouble() - 0.5;
+        for (int i = 0; i < B.length; i++) B[i] = rand.nextDouble() - 0.5;
+        double[] C = strassen(A, B, n);
+        double[] expected = multiply(A, B, n, n, n, Semiring.ARITHMETIC);
+        for (int i = 0; i < C.length; i++) {
+            error = Math.max(error, Math.abs(C[i] - expected[i]));
+        }
+        System.out.println("max error: " + error
+                + (error < 1e-9 ? " ok" : " FAILED"));
+        // min-plus square of a weight matrix: shortest paths of at most
+        // two edges on 0 -> 1 -> 2, 0 -> 2
+        long inf = Semiring.INFINITY;
+        long[] W = {0, 3, 10, inf, 0, 4, inf, inf, 0};
+        long[] L = multiply(W, W, 3, 3, 3, Semiring.MIN_PLUS);
+        System.out.println(Arrays.toString(L));
+        System.out.println("expected [0, 3, 7, " + inf + ", 0, 4, " + inf
+                + ", " + inf + ", 0]");
+        // boolean square of an adjacency matrix
+        long[] E = {0, 1, 0, 0, 0, 1, 0, 0, 0};
+        System.out.println(Arrays.toString(
+                multiply(E, E, 3, 3, 3, Semiring.BOOLEAN))
+                + " expected [0, 0, 1, 0, 0, 0, 0, 0, 0]");
+    }
+}
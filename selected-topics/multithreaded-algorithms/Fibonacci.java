@@ -4,6 +4,8 @@
  * speed up the running time.
  */
 public class Fibonacci {
+    private static final int SERIAL_CUTOFF = 20;
+
     /**
      * Fibonacci algorithm using dynamic Multithreaded.
      * Running time is <em>T_p >= T_1/p >= O(phi^n)/p</em> where <em>p</em>
@@ -11,41 +13,46 @@ public class Fibonacci {
      * The parallelism is <em>T_1/T_inf = O(phi^n)/O(n) = O(phi^n/n)</em> which
      * is exponential, meaning that we would never have enough processors to
      * acheive perfect-linear-speedup.
-     * The speedup is {@code T_1/T_p <= T_1/(T_1/p) <= p} maximum p. However,
-     * threads creation and destruction are slow processes, they are too slow
-     * that the serial algorithm would become faster for larger values of n.
+     * The speedup is {@code T_1/T_p <= T_1/(T_1/p) <= p} maximum p.
+     * Numbers below {@code SERIAL_CUTOFF} are computed serially since a
+     * task costs more than computing a small Fibonacci number.
      *
      * @param n the nth Fibonacci number to compute
      * @return the nth Fibonacci number
      */
     public static int parallelCompute(int n) {
-        if (n <= 1) return n;
-        int x = parallelCompute(n - 1);
-        FibRunnable runnable = new FibRunnable(n - 2);
-        Thread t = new Thread(runnable);
-        t.start();
-        try {
-            t.join();
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
-        int y = runnable.value;
-        return x + y;
+        return parallelCompute(n, SpawnSync.DEFAULT);
+    }
+
+    /**
+     * Fibonacci algorithm using dynamic Multithreaded on a given runtime.
+     * @param n the nth Fibonacci number to compute
+     * @param runtime the runtime that runs the tasks
+     * @return the nth Fibonacci number
+     */
+    public static int parallelCompute(int n, SpawnSync runtime) {
+        return runtime.invoke(new FibTask(n));
     }
 
     /**
      * Helper class for {@code parallelCompute} method.
+     * P-FIB(n): x = spawn P-FIB(n - 1), y = P-FIB(n - 2), sync, x + y.
      */
-    private static class FibRunnable implements Runnable {
+    private static class FibTask extends SpawnSync.Task<Integer> {
+        private static final long serialVersionUID = 1L;
         private final int n;
-        public int value;
 
-        public FibRunnable(int n) {
+        public FibTask(int n) {
             this.n = n;
         }
 
-        public void run() {
-            this.value = parallelCompute(n);
+        @Override
+        protected Integer run() {
+            if (n < SERIAL_CUTOFF) return serialCompute(n);
+            SpawnSync.Task<Integer> x = spawn(new FibTask(n - 1));
+            int y = call(new FibTask(n - 2));
+            sync();
+            return x.result() + y;
         }
     }
 
@@ -66,7 +73,7 @@ public class Fibonacci {
      * Unit tests.
      */
     public static void main(String[] args) {
-        int n = 20;
+        int n = 30;
         if (args.length > 0) {
             n = Integer.parseInt(args[0]);
             System.out.println("n: " + n);
@@ -84,5 +91,12 @@ public class Fibonacci {
         runtime = end - start;
         System.out.println("F" + n + "(parallel): " + fib);
         System.out.println("parallel running time: " + runtime);
+
+        SpawnSync instrumented = new SpawnSync(
+                Runtime.getRuntime().availableProcessors(), true);
+        fib = Fibonacci.parallelCompute(n, instrumented);
+        System.out.println("F" + n + "(instrumented): " + fib);
+        System.out.println(instrumented.profile());
+        instrumented.shutdown();
     }
 }
@@ -0,0 +1,181 @@
+import java.util.Random;
+
+/**
+ * Multithreaded matrix multiplication.
+ * <p>The parallel algorithm is a divide-and-conquer on the three dimensions
+ * of the product C = AB: it halves the largest of the rows of A, the
+ * columns of B and the shared dimension. The two halves of the rows or of
+ * the columns write to disjoint parts of C, so they are spawned and run in
+ * parallel. The two halves of the shared dimension both add to the same
+ * entries of C, so they are called one after the other, which needs no
+ * temporary matrix and no parallel addition.
+ * <p>For nxn matrices the work is <em>O(n^3)</em>, the span is
+ * <em>O(n)</em> and the parallelism is <em>O(n^2)</em>.
+ */
+public class MatrixMultiply {
+    private static final int SERIAL_CUTOFF = 1 << 18; // multiply-adds
+
+    /**
+     * Multiplies two matrices using the serial triple loop.
+     * Running time is <em>O(nmp)</em> for nxm and mxp matrices.
+     * @param A the left matrix.
+     * @param B the right matrix.
+     * @return the product AB.
+     * @throws IllegalArgumentException if the matrices can not be multiplied.
+     */
+    public static double[][] serialMultiply(double[][] A, double[][] B) {
+        double[][] C = newProduct(A, B);
+        multiply(A, B, C, 0, A.length, 0, B[0].length, 0, B.length);
+        return C;
+    }
+
+    /**
+     * Multiplies two matrices using the multithreaded algorithm.
+     * @param A the left matrix.
+     * @param B the right matrix.
+     * @return the product AB.
+     * @throws IllegalArgumentException if the matrices can not be multiplied.
+     */
+    public static double[][] parallelMultiply(double[][] A, double[][] B) {
+        return parallelMultiply(A, B, SpawnSync.DEFAULT);
+    }
+
+    /**
+     * Multiplies two matrices using the multithreaded algorithm on a given
+     * runtime.
+     * @param A the left matrix.
+     * @param B the right matrix.
+     * @param runtime the runtime that runs the tasks.
+     * @return the product AB.
+     * @throws IllegalArgumentException if the matrices can not be multiplied.
+     */
+    public static double[][] parallelMultiply(double[][] A, double[][] B,
+            SpawnSync runtime) {
+        double[][] C = newProduct(A, B);
+        runtime.invoke(new MultiplyTask(A, B, C,
+                0, A.length, 0, B[0].length, 0, B.length));
+        return C;
+    }
+
+    /**
+     * Checks the dimensions of the matrices and creates their product
+     * filled with 0's.
+     */
+    private static double[][] newProduct(double[][] A, double[][] B) {
+        if (A.length == 0 || B.length == 0 || A[0].length != B.length) {
+            throw new IllegalArgumentException("incompatible dimensions");
+        }
+        return new double[A.length][B[0].length];
+    }
+
+    /**
+     * Adds the product of rows [i0, i1) of A and columns [j0, j1) of B over
+     * the shared indexes [k0, k1) to C.
+     * The loops are ordered i, k, j so the inner loop reads B and writes C
+     * row by row.
+     */
+    private static void multiply(double[][] A, double[][] B, double[][] C,
+            int i0, int i1, int j0, int j1, int k0, int k1) {
+        for (int i = i0; i < i1; i++) {
+            double[] a = A[i];
+            double[] c = C[i];
+            for (int k = k0; k < k1; k++) {
+                double aik = a[k];
+                double[] b = B[k];
+                for (int j = j0; j < j1; j++) {
+                    c[j] += aik * b[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Multiplies a block of A by a block of B and adds it to C.
+     * Blocks needing at most {@code SERIAL_CUTOFF} multiply-adds are
+     * multiplied serially.
+     */
+    private static class MultiplyTask extends SpawnSync.Task<Void> {
+        private static final long serialVersionUID = 1L;
+        private final double[][] A;
+        private final double[][] B;
+        private final double[][] C;
+        private final int i0, i1; // the rows of A and C
+        private final int j0, j1; // the columns of B and C
+        private final int k0, k1; // the columns of A and rows of B
+
+        public MultiplyTask(double[][] A, double[][] B, double[][] C,
+                int i0, int i1, int j0, int j1, int k0, int k1) {
+            this.A = A;
+            this.B = B;
+            this.C = C;
+            this.i0 = i0;
+            this.i1 = i1;
+            this.j0 = j0;
+            this.j1 = j1;
+            this.k0 = k0;
+            this.k1 = k1;
+        }
+
+        @Override
+        protected Void run() {
+            int n = i1 - i0;
+            int p = j1 - j0;
+            int m = k1 - k0;
+            if ((long) n * p * m <= SERIAL_CUTOFF) {
+                multiply(A, B, C, i0, i1, j0, j1, k0, k1);
+            } else if (n >= p && n >= m) {
+                int mid = (i0 + i1) >>> 1;
+                spawn(new MultiplyTask(A, B, C, i0, mid, j0, j1, k0, k1));
+                call(new MultiplyTask(A, B, C, mid, i1, j0, j1, k0, k1));
+                sync();
+            } else if (p >= m) {
+                int mid = (j0 + j1) >>> 1;
+                spawn(new MultiplyTask(A, B, C, i0, i1, j0, mid, k0, k1));
+                call(new MultiplyTask(A, B, C, i0, i1, mid, j1, k0, k1));
+                sync();
+            } else {
+                int mid = (k0 + k1) >>> 1;
+                call(new MultiplyTask(A, B, C, i0, i1, j0, j1, k0, mid));
+                call(new MultiplyTask(A, B, C, i0, i1, j0, j1, mid, k1));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        double[][] A = {{1, 2}, {3, 4}, {5, 6}};
+        double[][] B = {{1, 0, 2}, {0, 1, 3}};
+        // expected: [1 2 8] [3 4 18] [5 6 28]
+        for (double[] row : parallelMultiply(A, B)) {
+            for (double x : row) System.out.print(x + " ");
+            System.out.println();
+        }
+
+        int n = 512;
+        Random rand = new Random();
+        A = new double[n][n];
+        B = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                A[i][j] = rand.nextInt(10);
+                B[i][j] = rand.nextInt(10);
+            }
+        }
+        double[][] expected = serialMultiply(A, B);
+        SpawnSync instrumented = new SpawnSync(
+                Runtime.getRuntime().availableProcessors(), true);
+        double[][] C = parallelMultiply(A, B, instrumented);
+        boolean equal = true;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (C[i][j] != expected[i][j]) equal = false;
+            }
+        }
+        System.out.println(n + "x" + n + " product equals serial: " + equal);
+        System.out.println(instrumented.profile());
+        instrumented.shutdown();
+    }
+}
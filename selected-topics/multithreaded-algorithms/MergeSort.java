@@ -1,4 +1,27 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Multithreaded merge sort.
+ * <p>The parallel merge sort runs on a {@code SpawnSync} runtime, whose
+ * worker threads steal the spawned subproblems from each other, so only
+ * a fixed number of threads is used whatever the size of the array.
+ * <p>Subproblems with at most {@code SORT_CUTOFF} elements are sorted
+ * serially, and merges of at most {@code MERGE_CUTOFF} elements are done
+ * serially, since spawning a task costs far more than sorting or merging
+ * a few elements.
+ * <p>Only one scratch buffer of n elements is allocated for the whole sort:
+ * every level of recursion sorts its two halves into the other array and
+ * then merges them back, so the array and the buffer swap roles at every
+ * level.
+ * <p>Work is <em>O(nlgn)</em>, span is <em>O(lg^3(n))</em> and parallelism
+ * is <em>O(n/lg^2(n))</em>.
+ */
 public class MergeSort {
+    private static final int SORT_CUTOFF = 1 << 13;
+    private static final int MERGE_CUTOFF = 1 << 13;
+
     private static <T extends Comparable<T>> 
             void serialMergesort(T[] A, int p, int r) {
         if (p < r) {
@@ -37,98 +60,637 @@ public class MergeSort {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private static <T extends Comparable<T>>
-            void parallelMergesort(final T[] A, final int p, final int r, 
-                    final T[] B, final int s) {
-        final int n = r - p + 1;
-        if (n == 1) {
-            B[s] = A[p];
-        } else {
-            final int q = (p + r) / 2;
-            final int q2 = q - p;
-            final T[] C = (T[]) new Comparable[n];
-            Thread t = new Thread() {
-                @Override
-                public void run() {
-                    parallelMergesort(A, p, q, C, 0);
-                }
-            };
-            t.start();
-            parallelMergesort(A, q + 1, r, C, q2 + 1);
-            try {
-                t.join();
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
-            parallelMerge(C, 0, q2, q2 + 1, n - 1, B, s);
+    public static <T extends Comparable<T>> void serialMergesort(T[] A) {
+        serialMergesort(A, 0, A.length - 1);
+    }
+
+    /**
+     * Sorts an array of integers using parallel merge sort.
+     * @param A the array to be sorted.
+     */
+    public static void parallelMergesort(int[] A) {
+        parallelMergesort(A, SpawnSync.DEFAULT);
+    }
+
+    /**
+     * Sorts an array of integers using parallel merge sort.
+     * @param A the array to be sorted.
+     * @param runtime the runtime that runs the tasks.
+     */
+    public static void parallelMergesort(int[] A, SpawnSync runtime) {
+        if (A.length <= SORT_CUTOFF) {
+            Arrays.sort(A);
+            return;
         }
+        int[] B = new int[A.length];
+        runtime.invoke(new IntSortTask(A, B, 0, A.length, false));
     }
 
-    private static <T extends Comparable<T>> 
-            void parallelMerge(final T[] C, int p1, int r1, int p2, int r2, 
-                    final T[] B, final int p3) {
-        int n1 = r1 - p1 + 1;
-        int n2 = r2 - p2 + 1;
-        if (n1 < n2) {
-            int _p = p1;
-            int _r = r1;
-            int _n = n1;
-            p1 = p2;
-            r1 = r2;
-            n1 = n2;
-            p2 = _p;
-            r2 = _r;
-            n2 = _n;
-        }
-        if (n1 == 0) return;
-        final int q1 = (p1 + r1) / 2;
-        final int q2 = binarySearch(C[q1], C, p2, r2);
-        final int _p1 = p1;
-        final int _p2 = p2;
-        int q3 = p3 + (q1 - p1) + (q2 - p2);
-        B[q3] = C[q1];
-        Thread t = new Thread() {
+    /**
+     * Sorts an array of long integers using parallel merge sort.
+     * @param A the array to be sorted.
+     */
+    public static void parallelMergesort(long[] A) {
+        parallelMergesort(A, SpawnSync.DEFAULT);
+    }
+
+    /**
+     * Sorts an array of long integers using parallel merge sort.
+     * @param A the array to be sorted.
+     * @param runtime the runtime that runs the tasks.
+     */
+    public static void parallelMergesort(long[] A, SpawnSync runtime) {
+        if (A.length <= SORT_CUTOFF) {
+            Arrays.sort(A);
+            return;
+        }
+        long[] B = new long[A.length];
+        runtime.invoke(new LongSortTask(A, B, 0, A.length, false));
+    }
+
+    /**
+     * Sorts an array of doubles using parallel merge sort.
+     * The values are ordered as {@code Double.compare} orders them: -0.0 is
+     * less than 0.0 and NaN is greater than all other values.
+     * @param A the array to be sorted.
+     */
+    public static void parallelMergesort(double[] A) {
+        parallelMergesort(A, SpawnSync.DEFAULT);
+    }
+
+    /**
+     * Sorts an array of doubles using parallel merge sort.
+     * @param A the array to be sorted.
+     * @param runtime the runtime that runs the tasks.
+     */
+    public static void parallelMergesort(double[] A, SpawnSync runtime) {
+        if (A.length <= SORT_CUTOFF) {
+            Arrays.sort(A);
+            return;
+        }
+        double[] B = new double[A.length];
+        runtime.invoke(new DoubleSortTask(A, B, 0, A.length, false));
+    }
+
+    /**
+     * Sorts an array of objects using parallel merge sort.
+     * The sort is stable, equal elements keep their order.
+     * @param A the array to be sorted.
+     * @param c the comparator that orders the elements.
+     */
+    public static <T> void parallelMergesort(T[] A, Comparator<? super T> c) {
+        parallelMergesort(A, c, SpawnSync.DEFAULT);
+    }
+
+    /**
+     * Sorts an array of objects using parallel merge sort.
+     * @param A the array to be sorted.
+     * @param c the comparator that orders the elements.
+     * @param runtime the runtime that runs the tasks.
+     */
+    public static <T> void parallelMergesort(T[] A, Comparator<? super T> c,
+            SpawnSync runtime) {
+        if (A.length <= SORT_CUTOFF) {
+            Arrays.sort(A, c);
+            return;
+        }
+        T[] B = A.clone();
+        runtime.invoke(new ObjectSortTask<T>(A, B, 0, A.length, false, c));
+    }
+
+    /**
+     * Sorts an array of comparable objects using parallel merge sort.
+     * The sort is stable, equal elements keep their order.
+     * @param A the array to be sorted.
+     */
+    public static <T extends Comparable<T>> void parallelMergesort(T[] A) {
+        parallelMergesort(A, new Comparator<T>() {
             @Override
-            public void run() {
-                parallelMerge(C, _p1, q1 - 1, _p2, q2 - 1, B, p3);
+            public int compare(T a, T b) {
+                return a.compareTo(b);
+            }
+        });
+    }
+
+    /**
+     * Sorts the range [p, r) of an integer array.
+     * The sorted range is left in a if toB is false, otherwise in b.
+     * The two halves are sorted in parallel into the other array and then
+     * merged into the wanted one.
+     */
+    private static final class IntSortTask extends SpawnSync.Task<Void> {
+        private static final long serialVersionUID = 1L;
+        private final int[] a; // the array to be sorted
+        private final int[] b; // the scratch buffer
+        private final int p;
+        private final int r;
+        private final boolean toB;
+
+        IntSortTask(int[] a, int[] b, int p, int r, boolean toB) {
+            this.a = a;
+            this.b = b;
+            this.p = p;
+            this.r = r;
+            this.toB = toB;
+        }
+
+        @Override
+        protected Void run() {
+            if (r - p <= SORT_CUTOFF) {
+                Arrays.sort(a, p, r);
+                if (toB) System.arraycopy(a, p, b, p, r - p);
+                return null;
             }
-        };
-        t.start();
-        parallelMerge(C, q1 + 1, r1, q2, r2, B, q3 + 1);
-        try {
-            t.join();
-        } catch (Exception ex) {
-            ex.printStackTrace();
+            int q = (p + r) >>> 1;
+            IntSortTask left = new IntSortTask(a, b, p, q, !toB);
+            spawn(left);
+            call(new IntSortTask(a, b, q, r, !toB));
+            sync();
+            if (toB) call(new IntMergeTask(a, p, q, q, r, b, p));
+            else call(new IntMergeTask(b, p, q, q, r, a, p));
+            return null;
         }
     }
 
-    private static <T extends Comparable<T>> 
-            int binarySearch(T x, T[] C, int p, int r) {
-        int low = p;
-        int high = (p > r + 1) ? p : r + 1;
-        while (low < high) {
-            int mid = (low + high) / 2;
-            if (x.compareTo(C[mid]) <= 0) {
-                high = mid;
+    /**
+     * P-MERGE. Merges the sorted ranges [p1, r1) and [p2, r2) of src into
+     * dst starting at p3.
+     * The middle element x of the larger range is placed directly at its
+     * final position, found by binary searching x in the smaller range.
+     * The elements less than x and the elements greater than x are then
+     * merged in parallel. Ties keep the elements of the first range before
+     * the elements of the second range so the merge is stable.
+     */
+    private static final class IntMergeTask extends SpawnSync.Task<Void> {
+        private static final long serialVersionUID = 1L;
+        private final int[] src;
+        private final int p1;
+        private final int r1;
+        private final int p2;
+        private final int r2;
+        private final int[] dst;
+        private final int p3;
+
+        IntMergeTask(int[] src, int p1, int r1, int p2, int r2,
+                int[] dst, int p3) {
+            this.src = src;
+            this.p1 = p1;
+            this.r1 = r1;
+            this.p2 = p2;
+            this.r2 = r2;
+            this.dst = dst;
+            this.p3 = p3;
+        }
+
+        @Override
+        protected Void run() {
+            int n1 = r1 - p1;
+            int n2 = r2 - p2;
+            if (n1 + n2 <= MERGE_CUTOFF) {
+                merge(src, p1, r1, p2, r2, dst, p3);
+                return null;
+            }
+            IntMergeTask left;
+            IntMergeTask right;
+            if (n1 >= n2) {
+                int q1 = (p1 + r1) >>> 1;
+                int q2 = lowerBound(src, p2, r2, src[q1]);
+                int q3 = p3 + (q1 - p1) + (q2 - p2);
+                dst[q3] = src[q1];
+                left = new IntMergeTask(src, p1, q1, p2, q2, dst, p3);
+                right = new IntMergeTask(src, q1 + 1, r1, q2, r2, dst, q3 + 1);
             } else {
-                low = mid + 1;
+                int q2 = (p2 + r2) >>> 1;
+                int q1 = upperBound(src, p1, r1, src[q2]);
+                int q3 = p3 + (q1 - p1) + (q2 - p2);
+                dst[q3] = src[q2];
+                left = new IntMergeTask(src, p1, q1, p2, q2, dst, p3);
+                right = new IntMergeTask(src, q1, r1, q2 + 1, r2, dst, q3 + 1);
             }
+            spawn(left);
+            call(right);
+            sync();
+            return null;
         }
-        return high;
     }
 
-    public static <T extends Comparable<T>> void serialMergesort(T[] A) {
-        serialMergesort(A, 0, A.length - 1);
+    /**
+     * Serially merges the sorted ranges [p1, r1) and [p2, r2) of src into
+     * dst starting at p3.
+     */
+    private static void merge(int[] src, int p1, int r1, int p2, int r2,
+            int[] dst, int p3) {
+        while (p1 < r1 && p2 < r2) {
+            if (src[p1] <= src[p2]) dst[p3++] = src[p1++];
+            else dst[p3++] = src[p2++];
+        }
+        System.arraycopy(src, p1, dst, p3, r1 - p1);
+        System.arraycopy(src, p2, dst, p3 + r1 - p1, r2 - p2);
     }
 
-    @SuppressWarnings("unchecked")
-    public static <T extends Comparable<T>> void parallelMergesort(T[] A) {
-        T[] B = (T[]) new Comparable[A.length];
-        parallelMergesort(A, 0, A.length - 1, B, 0);
-        for (int i = 0; i < B.length; i++) {
-            A[i] = B[i];
+    /**
+     * Returns the index of the first element in the sorted range [p, r)
+     * that is greater or equal to x, r if there is none.
+     */
+    private static int lowerBound(int[] A, int p, int r, int x) {
+        while (p < r) {
+            int mid = (p + r) >>> 1;
+            if (A[mid] < x) p = mid + 1;
+            else r = mid;
         }
+        return p;
+    }
+
+    /**
+     * Returns the index of the first element in the sorted range [p, r)
+     * that is greater than x, r if there is none.
+     */
+    private static int upperBound(int[] A, int p, int r, int x) {
+        while (p < r) {
+            int mid = (p + r) >>> 1;
+            if (A[mid] <= x) p = mid + 1;
+            else r = mid;
+        }
+        return p;
+    }
+
+    /**
+     * Sorts the range [p, r) of a long array, see {@code IntSortTask}.
+     */
+    private static final class LongSortTask extends SpawnSync.Task<Void> {
+        private static final long serialVersionUID = 1L;
+        private final long[] a; // the array to be sorted
+        private final long[] b; // the scratch buffer
+        private final int p;
+        private final int r;
+        private final boolean toB;
+
+        LongSortTask(long[] a, long[] b, int p, int r, boolean toB) {
+            this.a = a;
+            this.b = b;
+            this.p = p;
+            this.r = r;
+            this.toB = toB;
+        }
+
+        @Override
+        protected Void run() {
+            if (r - p <= SORT_CUTOFF) {
+                Arrays.sort(a, p, r);
+                if (toB) System.arraycopy(a, p, b, p, r - p);
+                return null;
+            }
+            int q = (p + r) >>> 1;
+            LongSortTask left = new LongSortTask(a, b, p, q, !toB);
+            spawn(left);
+            call(new LongSortTask(a, b, q, r, !toB));
+            sync();
+            if (toB) call(new LongMergeTask(a, p, q, q, r, b, p));
+            else call(new LongMergeTask(b, p, q, q, r, a, p));
+            return null;
+        }
+    }
+
+    /**
+     * P-MERGE of two sorted ranges of a long array, see
+     * {@code IntMergeTask}.
+     */
+    private static final class LongMergeTask extends SpawnSync.Task<Void> {
+        private static final long serialVersionUID = 1L;
+        private final long[] src;
+        private final int p1;
+        private final int r1;
+        private final int p2;
+        private final int r2;
+        private final long[] dst;
+        private final int p3;
+
+        LongMergeTask(long[] src, int p1, int r1, int p2, int r2,
+                long[] dst, int p3) {
+            this.src = src;
+            this.p1 = p1;
+            this.r1 = r1;
+            this.p2 = p2;
+            this.r2 = r2;
+            this.dst = dst;
+            this.p3 = p3;
+        }
+
+        @Override
+        protected Void run() {
+            int n1 = r1 - p1;
+            int n2 = r2 - p2;
+            if (n1 + n2 <= MERGE_CUTOFF) {
+                merge(src, p1, r1, p2, r2, dst, p3);
+                return null;
+            }
+            LongMergeTask left;
+            LongMergeTask right;
+            if (n1 >= n2) {
+                int q1 = (p1 + r1) >>> 1;
+                int q2 = lowerBound(src, p2, r2, src[q1]);
+                int q3 = p3 + (q1 - p1) + (q2 - p2);
+                dst[q3] = src[q1];
+                left = new LongMergeTask(src, p1, q1, p2, q2, dst, p3);
+                right = new LongMergeTask(src, q1 + 1, r1, q2, r2,
+                        dst, q3 + 1);
+            } else {
+                int q2 = (p2 + r2) >>> 1;
+                int q1 = upperBound(src, p1, r1, src[q2]);
+                int q3 = p3 + (q1 - p1) + (q2 - p2);
+                dst[q3] = src[q2];
+                left = new LongMergeTask(src, p1, q1, p2, q2, dst, p3);
+                right = new LongMergeTask(src, q1, r1, q2 + 1, r2,
+                        dst, q3 + 1);
+            }
+            spawn(left);
+            call(right);
+            sync();
+            return null;
+        }
+    }
+
+    private static void merge(long[] src, int p1, int r1, int p2, int r2,
+            long[] dst, int p3) {
+        while (p1 < r1 && p2 < r2) {
+            if (src[p1] <= src[p2]) dst[p3++] = src[p1++];
+            else dst[p3++] = src[p2++];
+        }
+        System.arraycopy(src, p1, dst, p3, r1 - p1);
+        System.arraycopy(src, p2, dst, p3 + r1 - p1, r2 - p2);
+    }
+
+    private static int lowerBound(long[] A, int p, int r, long x) {
+        while (p < r) {
+            int mid = (p + r) >>> 1;
+            if (A[mid] < x) p = mid + 1;
+            else r = mid;
+        }
+        return p;
+    }
+
+    private static int upperBound(long[] A, int p, int r, long x) {
+        while (p < r) {
+            int mid = (p + r) >>> 1;
+            if (A[mid] <= x) p = mid + 1;
+            else r = mid;
+        }
+        return p;
+    }
+
+    /**
+     * Sorts the range [p, r) of a double array, see {@code IntSortTask}.
+     */
+    private static final class DoubleSortTask extends SpawnSync.Task<Void> {
+        private static final long serialVersionUID = 1L;
+        private final double[] a; // the array to be sorted
+        private final double[] b; // the scratch buffer
+        private final int p;
+        private final int r;
+        private final boolean toB;
+
+        DoubleSortTask(double[] a, double[] b, int p, int r, boolean toB) {
+            this.a = a;
+            this.b = b;
+            this.p = p;
+            this.r = r;
+            this.toB = toB;
+        }
+
+        @Override
+        protected Void run() {
+            if (r - p <= SORT_CUTOFF) {
+                Arrays.sort(a, p, r);
+                if (toB) System.arraycopy(a, p, b, p, r - p);
+                return null;
+            }
+            int q = (p + r) >>> 1;
+            DoubleSortTask left = new DoubleSortTask(a, b, p, q, !toB);
+            spawn(left);
+            call(new DoubleSortTask(a, b, q, r, !toB));
+            sync();
+            if (toB) call(new DoubleMergeTask(a, p, q, q, r, b, p));
+            else call(new DoubleMergeTask(b, p, q, q, r, a, p));
+            return null;
+        }
+    }
+
+    /**
+     * P-MERGE of two sorted ranges of a double array, see
+     * {@code IntMergeTask}.
+     */
+    private static final class DoubleMergeTask extends SpawnSync.Task<Void> {
+        private static final long serialVersionUID = 1L;
+        private final double[] src;
+        private final int p1;
+        private final int r1;
+        private final int p2;
+        private final int r2;
+        private final double[] dst;
+        private final int p3;
+
+        DoubleMergeTask(double[] src, int p1, int r1, int p2, int r2,
+                double[] dst, int p3) {
+            this.src = src;
+            this.p1 = p1;
+            this.r1 = r1;
+            this.p2 = p2;
+            this.r2 = r2;
+            this.dst = dst;
+            this.p3 = p3;
+        }
+
+        @Override
+        protected Void run() {
+            int n1 = r1 - p1;
+            int n2 = r2 - p2;
+            if (n1 + n2 <= MERGE_CUTOFF) {
+                merge(src, p1, r1, p2, r2, dst, p3);
+                return null;
+            }
+            DoubleMergeTask left;
+            DoubleMergeTask right;
+            if (n1 >= n2) {
+                int q1 = (p1 + r1) >>> 1;
+                int q2 = lowerBound(src, p2, r2, src[q1]);
+                int q3 = p3 + (q1 - p1) + (q2 - p2);
+                dst[q3] = src[q1];
+                left = new DoubleMergeTask(src, p1, q1, p2, q2, dst, p3);
+                right = new DoubleMergeTask(src, q1 + 1, r1, q2, r2,
+                        dst, q3 + 1);
+            } else {
+                int q2 = (p2 + r2) >>> 1;
+                int q1 = upperBound(src, p1, r1, src[q2]);
+                int q3 = p3 + (q1 - p1) + (q2 - p2);
+                dst[q3] = src[q2];
+                left = new DoubleMergeTask(src, p1, q1, p2, q2, dst, p3);
+                right = new DoubleMergeTask(src, q1, r1, q2 + 1, r2,
+                        dst, q3 + 1);
+            }
+            spawn(left);
+            call(right);
+            sync();
+            return null;
+        }
+    }
+
+    private static void merge(double[] src, int p1, int r1, int p2, int r2,
+            double[] dst, int p3) {
+        while (p1 < r1 && p2 < r2) {
+            if (Double.compare(src[p1], src[p2]) <= 0) dst[p3++] = src[p1++];
+            else dst[p3++] = src[p2++];
+        }
+        System.arraycopy(src, p1, dst, p3, r1 - p1);
+        System.arraycopy(src, p2, dst, p3 + r1 - p1, r2 - p2);
+    }
+
+    private static int lowerBound(double[] A, int p, int r, double x) {
+        while (p < r) {
+            int mid = (p + r) >>> 1;
+            if (Double.compare(A[mid], x) < 0) p = mid + 1;
+            else r = mid;
+        }
+        return p;
+    }
+
+    private static int upperBound(double[] A, int p, int r, double x) {
+        while (p < r) {
+            int mid = (p + r) >>> 1;
+            if (Double.compare(A[mid], x) <= 0) p = mid + 1;
+            else r = mid;
+        }
+        return p;
+    }
+
+    /**
+     * Sorts the range [p, r) of an object array, see {@code IntSortTask}.
+     */
+    private static final class ObjectSortTask<T> extends SpawnSync.Task<Void> {
+        private static final long serialVersionUID = 1L;
+        private final T[] a; // the array to be sorted
+        private final T[] b; // the scratch buffer
+        private final int p;
+        private final int r;
+        private final boolean toB;
+        private final Comparator<? super T> c;
+
+        ObjectSortTask(T[] a, T[] b, int p, int r, boolean toB,
+                Comparator<? super T> c) {
+            this.a = a;
+            this.b = b;
+            this.p = p;
+            this.r = r;
+            this.toB = toB;
+            this.c = c;
+        }
+
+        @Override
+        protected Void run() {
+            if (r - p <= SORT_CUTOFF) {
+                Arrays.sort(a, p, r, c);
+                if (toB) System.arraycopy(a, p, b, p, r - p);
+                return null;
+            }
+            int q = (p + r) >>> 1;
+            ObjectSortTask<T> left = new ObjectSortTask<>(a, b, p, q, !toB, c);
+            spawn(left);
+            call(new ObjectSortTask<>(a, b, q, r, !toB, c));
+            sync();
+            if (toB) call(new ObjectMergeTask<>(a, p, q, q, r, b, p, c));
+            else call(new ObjectMergeTask<>(b, p, q, q, r, a, p, c));
+            return null;
+        }
+    }
+
+    /**
+     * P-MERGE of two sorted ranges of an object array, see
+     * {@code IntMergeTask}.
+     */
+    private static final class ObjectMergeTask<T> extends SpawnSync.Task<Void> {
+        private static final long serialVersionUID = 1L;
+        private final T[] src;
+        private final int p1;
+        private final int r1;
+        private final int p2;
+        private final int r2;
+        private final T[] dst;
+        private final int p3;
+        private final Comparator<? super T> c;
+
+        ObjectMergeTask(T[] src, int p1, int r1, int p2, int r2,
+                T[] dst, int p3, Comparator<? super T> c) {
+            this.src = src;
+            this.p1 = p1;
+            this.r1 = r1;
+            this.p2 = p2;
+            this.r2 = r2;
+            this.dst = dst;
+            this.p3 = p3;
+            this.c = c;
+        }
+
+        @Override
+        protected Void run() {
+            int n1 = r1 - p1;
+            int n2 = r2 - p2;
+            if (n1 + n2 <= MERGE_CUTOFF) {
+                merge(src, p1, r1, p2, r2, dst, p3, c);
+                return null;
+            }
+            ObjectMergeTask<T> left;
+            ObjectMergeTask<T> right;
+            if (n1 >= n2) {
+                int q1 = (p1 + r1) >>> 1;
+                int q2 = lowerBound(src, p2, r2, src[q1], c);
+                int q3 = p3 + (q1 - p1) + (q2 - p2);
+                dst[q3] = src[q1];
+                left = new ObjectMergeTask<>(src, p1, q1, p2, q2, dst, p3, c);
+                right = new ObjectMergeTask<>(src, q1 + 1, r1, q2, r2,
+                        dst, q3 + 1, c);
+            } else {
+                int q2 = (p2 + r2) >>> 1;
+                int q1 = upperBound(src, p1, r1, src[q2], c);
+                int q3 = p3 + (q1 - p1) + (q2 - p2);
+                dst[q3] = src[q2];
+                left = new ObjectMergeTask<>(src, p1, q1, p2, q2, dst, p3, c);
+                right = new ObjectMergeTask<>(src, q1, r1, q2 + 1, r2,
+                        dst, q3 + 1, c);
+            }
+            spawn(left);
+            call(right);
+            sync();
+            return null;
+        }
+    }
+
+    private static <T> void merge(T[] src, int p1, int r1, int p2, int r2,
+            T[] dst, int p3, Comparator<? super T> c) {
+        while (p1 < r1 && p2 < r2) {
+            if (c.compare(src[p1], src[p2]) <= 0) dst[p3++] = src[p1++];
+            else dst[p3++] = src[p2++];
+        }
+        System.arraycopy(src, p1, dst, p3, r1 - p1);
+        System.arraycopy(src, p2, dst, p3 + r1 - p1, r2 - p2);
+    }
+
+    private static <T> int lowerBound(T[] A, int p, int r, T x,
+            Comparator<? super T> c) {
+        while (p < r) {
+            int mid = (p + r) >>> 1;
+            if (c.compare(A[mid], x) < 0) p = mid + 1;
+            else r = mid;
+        }
+        return p;
+    }
+
+    private static <T> int upperBound(T[] A, int p, int r, T x,
+            Comparator<? super T> c) {
+        while (p < r) {
+            int mid = (p + r) >>> 1;
+            if (c.compare(A[mid], x) <= 0) p = mid + 1;
+            else r = mid;
+        }
+        return p;
     }
 
     private static <T extends Comparable<T>> void printArray(T[] a) {
@@ -136,6 +698,9 @@ public class MergeSort {
         System.out.println();
     }
 
+    /**
+     * Unit tests.
+     */
     public static void main(String[] args) {
         Integer[] a = {1, 2, 4, 9, 7, 3, 6, 5};
         System.out.println("Serial: ");
@@ -150,5 +715,71 @@ public class MergeSort {
         printArray(a);
         MergeSort.parallelMergesort(a);
         printArray(a);
+
+        System.out.println();
+
+        // large arrays are split into parallel tasks
+        int n = 1000000;
+        Random rand = new Random();
+        int[] ints = new int[n];
+        long[] longs = new long[n];
+        double[] doubles = new double[n];
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            ints[i] = rand.nextInt();
+            longs[i] = rand.nextLong();
+            doubles[i] = rand.nextGaussian();
+            boxed[i] = rand.nextInt(1000);
+        }
+        int[] expectedInts = ints.clone();
+        Arrays.sort(expectedInts);
+        MergeSort.parallelMergesort(ints);
+        System.out.println("int[] sorted: "
+                + Arrays.equals(ints, expectedInts));
+        long[] expectedLongs = longs.clone();
+        Arrays.sort(expectedLongs);
+        MergeSort.parallelMergesort(longs);
+        System.out.println("long[] sorted: "
+                + Arrays.equals(longs, expectedLongs));
+        double[] expectedDoubles = doubles.clone();
+        Arrays.sort(expectedDoubles);
+        MergeSort.parallelMergesort(doubles);
+        System.out.println("double[] sorted: "
+                + Arrays.equals(doubles, expectedDoubles));
+
+        // sorting indexes by their keys, equal keys should keep the indexes
+        // in ascending order
+        final Integer[] keys = boxed;
+        Integer[] indexes = new Integer[n];
+        for (int i = 0; i < n; i++) indexes[i] = i;
+        MergeSort.parallelMergesort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i, Integer j) {
+                return keys[i].compareTo(keys[j]);
+            }
+        });
+        boolean stable = true;
+        for (int i = 1; i < n; i++) {
+            int cmp = keys[indexes[i - 1]].compareTo(keys[indexes[i]]);
+            if (cmp > 0 || cmp == 0 && indexes[i - 1] > indexes[i]) {
+                stable = false;
+            }
+        }
+        System.out.println("Comparator sort stable: " + stable);
+
+        SpawnSync instrumented = new SpawnSync(
+                Runtime.getRuntime().availableProcessors(), true);
+        ints = expectedInts.clone();
+        for (int i = n - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = ints[i];
+            ints[i] = ints[j];
+            ints[j] = tmp;
+        }
+        MergeSort.parallelMergesort(ints, instrumented);
+        System.out.println("int[] sorted (instrumented): "
+                + Arrays.equals(ints, expectedInts));
+        System.out.println(instrumented.profile());
+        instrumented.shutdown();
     }
 }
@@ -0,0 +1,135 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks comparing the serial and multithreaded algorithms.
+ * <p>The parallel algorithms run on the default {@code SpawnSync} runtime,
+ * which uses the common fork/join pool, so their scaling is measured by
+ * setting the number of workers of the forked JVM, e.g.
+ * {@code -jvmArgsAppend
+ * -Djava.util.concurrent.ForkJoinPool.common.parallelism=4}. The
+ * allocations of the workers are counted by {@code -prof gc}.
+ * <p>Usage: {@code java -jar target/benchmarks.jar MultithreadedBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultithreadedBenchmark {
+    @State(Scope.Thread)
+    public static class Fib {
+        @Param({"25", "30"})
+        public int n;
+    }
+
+    @State(Scope.Thread)
+    public static class Matrices {
+        @Param({"128", "512"})
+        public int rows;
+        double[][] A;
+        double[][] B;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            A = new double[rows][rows];
+            B = new double[rows][rows];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < rows; j++) {
+                    A[i][j] = rand.nextDouble();
+                    B[i][j] = rand.nextDouble();
+                }
+            }
+        }
+    }
+
+    /**
+     * Random keys between 0 and twice their number, and fresh copies of
+     * them made before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+        @Param({"100000", "1000000"})
+        public int length;
+        private Integer[] boxed;
+        private int[] ints;
+        Integer[] a;
+        int[] b;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            ints = new int[length];
+            boxed = new Integer[length];
+            for (int i = 0; i < length; i++) {
+                ints[i] = rand.nextInt(2 * length + 1);
+                boxed[i] = ints[i];
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void copy() {
+            a = boxed.clone();
+            b = ints.clone();
+        }
+    }
+
+    @Benchmark
+    public int fibonacciSerial(Fib in) {
+        return Fibonacci.serialCompute(in.n);
+    }
+
+    @Benchmark
+    public int fibonacciParallel(Fib in) {
+        return Fibonacci.parallelCompute(in.n);
+    }
+
+    @Benchmark
+    public Object matrixMultiplySerial(Matrices in) {
+        return MatrixMultiply.serialMultiply(in.A, in.B);
+    }
+
+    @Benchmark
+    public Object matrixMultiplyParallel(Matrices in) {
+        return MatrixMultiply.parallelMultiply(in.A, in.B);
+    }
+
+    @Benchmark
+    public Object mergesortSerial(Keys in) {
+        MergeSort.serialMergesort(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object mergesortParallel(Keys in) {
+        MergeSort.parallelMergesort(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object arraysSortInts(Keys in) {
+        Arrays.sort(in.b);
+        return in.b;
+    }
+
+    @Benchmark
+    public Object mergesortParallelInts(Keys in) {
+        MergeSort.parallelMergesort(in.b);
+        return in.b;
+    }
+}
@@ -0,0 +1,309 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A runtime for multithreaded algorithms written with the spawn and sync
+ * keywords of the dynamic multithreading model.
+ * <p>A computation is a tree of tasks. A task can spawn a child task which
+ * may run in parallel with the rest of the task, call a child task which
+ * runs before the task goes on like a procedure call, and sync which waits
+ * for all the spawned children to finish. A task syncs implicitly before
+ * it returns.
+ * <p>The tasks run on a work-stealing fork/join pool: a worker pushes the
+ * tasks it spawns to its own deque and idle workers steal them from the
+ * other end. A spawned task is run immediately by the spawning worker when
+ * the worker already has more than {@code MAX_SURPLUS} tasks queued that no
+ * one stole, since the other workers have enough work to steal and the
+ * spawn would only add overhead. Algorithms still coarsen the leaves of
+ * their recursion by switching to serial code for small subproblems.
+ * <p>An instrumented runtime measures the time spent in every strand, the
+ * serial parts of the tasks between spawns, calls and syncs, and computes
+ * the work <em>T_1</em>, the sum of the times of all strands, and the span
+ * <em>T_inf</em>, the longest path of strands that must run one after the
+ * other. The parallelism <em>T_1/T_inf</em> is the maximum speedup the
+ * computation can achieve on any number of processors.
+ */
+public class SpawnSync {
+    private static final int MAX_SURPLUS = 3;
+    /** Runs the tasks on the common pool without instrumentation. */
+    public static final SpawnSync DEFAULT =
+            new SpawnSync(ForkJoinPool.commonPool(), false);
+    private final ForkJoinPool pool;
+    private final boolean instrumented;
+    private volatile Profile profile; // the profile of the last computation
+
+    /**
+     * Constructor. Creates a runtime with its own pool of workers.
+     * @param parallelism the number of worker threads.
+     * @param instrumented true to measure the work and span.
+     * @throws IllegalArgumentException if parallelism is less than 1.
+     */
+    public SpawnSync(int parallelism, boolean instrumented) {
+        this(new ForkJoinPool(parallelism), instrumented);
+    }
+
+    private SpawnSync(ForkJoinPool pool, boolean instrumented) {
+        this.pool = pool;
+        this.instrumented = instrumented;
+    }
+
+    /**
+     * Runs a computation and waits for it to finish.
+     * @param root the root task of the computation.
+     * @return the result of the root task.
+     */
+    public <V> V invoke(Task<V> root) {
+        root.instrumented = instrumented;
+        long start = System.nanoTime();
+        pool.invoke(root);
+        long elapsed = System.nanoTime() - start;
+        if (instrumented) {
+            this.profile = new Profile(root.work, root.span, elapsed,
+                    pool.getParallelism());
+        }
+        return root.result;
+    }
+
+    /**
+     * Returns the profile of the last computation run by this runtime,
+     * null if the runtime is not instrumented.
+     */
+    public Profile profile() {
+        return profile;
+    }
+
+    /**
+     * Returns the number of worker threads.
+     */
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Stops the worker threads of this runtime once the running
+     * computations finish.
+     * @throws UnsupportedOperationException if this is the default runtime.
+     */
+    public void shutdown() {
+        if (pool == ForkJoinPool.commonPool()) {
+            throw new UnsupportedOperationException("the common pool");
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * A task of a multithreaded computation.
+     * <p>The children of a task are linked in a list through their
+     * {@code sibling} field, so spawning allocates nothing but the child.
+     * All the fields are only accessed by the thread that runs the task,
+     * the parent reads the fields of a child after joining it.
+     */
+    public static abstract class Task<V> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private V result;
+        private boolean instrumented;
+        private Task<?> spawned; // the last spawned child not synced yet
+        private Task<?> sibling; // the child spawned before this one
+        private long work; // the work done so far in nanoseconds
+        private long span; // the longest path to the current strand
+        private long spawnSpan; // the span of the parent when spawned
+        private long syncSpan; // the longest path through synced children
+        private long strandStart; // the start time of the current strand
+
+        /**
+         * The body of the task.
+         * @return the result of the task.
+         */
+        protected abstract V run();
+
+        /**
+         * Returns the result of the task. The result of a spawned task is
+         * only available after the parent syncs.
+         */
+        public final V result() {
+            return result;
+        }
+
+        /**
+         * Spawns a child task which may run in parallel with the rest of
+         * this task until the next sync.
+         * @param child the task to spawn.
+         * @return the child task, its result is available after sync.
+         */
+        protected final <R> Task<R> spawn(Task<R> child) {
+            endStrand();
+            child.instrumented = instrumented;
+            child.spawnSpan = span;
+            child.sibling = spawned;
+            this.spawned = child;
+            if (getSurplusQueuedTaskCount() > MAX_SURPLUS) {
+                child.invoke();
+            } else {
+                child.fork();
+            }
+            beginStrand();
+            return child;
+        }
+
+        /**
+         * Runs a child task before going on, like a procedure call.
+         * @param child the task to call.
+         * @return the result of the child task.
+         */
+        protected final <R> R call(Task<R> child) {
+            endStrand();
+            child.instrumented = instrumented;
+            child.invoke();
+            this.work += child.work;
+            this.span += child.span;
+            beginStrand();
+            return child.result;
+        }
+
+        /**
+         * Waits for all the spawned children to finish. The children are
+         * joined in the reverse order of spawning, so the last spawned
+         * child, which is most likely still in the worker's own deque, is
+         * run by the worker itself.
+         */
+        protected final void sync() {
+            if (spawned == null) return;
+            endStrand();
+            Task<?> child = spawned;
+            while (child != null) {
+                child.join();
+                this.work += child.work;
+                this.syncSpan = Math.max(syncSpan,
+                        child.spawnSpan + child.span);
+                Task<?> next = child.sibling;
+                child.sibling = null;
+                child = next;
+            }
+            this.spawned = null;
+            this.span = Math.max(span, syncSpan);
+            beginStrand();
+        }
+
+        @Override
+        protected final void compute() {
+            beginStrand();
+            this.result = run();
+            sync();
+            endStrand();
+        }
+
+        private void beginStrand() {
+            if (instrumented) this.strandStart = System.nanoTime();
+        }
+
+        private void endStrand() {
+            if (instrumented) {
+                long t = System.nanoTime() - strandStart;
+                this.work += t;
+                this.span += t;
+            }
+        }
+    }
+
+    /**
+     * The measured work and span of a computation.
+     */
+    public static class Profile {
+        public final long work; // T_1 in nanoseconds
+        public final long span; // T_inf in nanoseconds
+        public final long elapsed; // T_p in nanoseconds
+        public final int p; // the number of worker threads
+
+        public Profile(long work, long span, long elapsed, int p) {
+            this.work = work;
+            this.span = span;
+            this.elapsed = elapsed;
+            this.p = p;
+        }
+
+        /**
+         * Returns the parallelism T_1/T_inf.
+         */
+        public double parallelism() {
+            return (double) work / Math.max(span, 1);
+        }
+
+        /**
+         * Returns the speedup T_1/T_p.
+         */
+        public double speedup() {
+            return (double) work / Math.max(elapsed, 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("T1: %.3f ms, Tinf: %.3f ms, "
+                    + "parallelism: %.2f, Tp: %.3f ms (p=%d), speedup: %.2f",
+                    work / 1e6, span / 1e6, parallelism(), elapsed / 1e6, p,
+                    speedup());
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        // n spawned tasks sleeping 1 ms each have a work of about
+        // n ms and a span of about 1 ms
+        final int n = 16;
+        SpawnSync runtime = new SpawnSync(4, true);
+        Integer spawned = runtime.invoke(new Task<Integer>() {
+            @Override
+            protected Integer run() {
+                Task<?>[] children = new Task<?>[n];
+                for (int i = 0; i < n; i++) {
+                    children[i] = spawn(new Task<Integer>() {
+                        @Override
+                        protected Integer run() {
+                            sleep(1);
+                            return 1;
+                        }
+                    });
+                }
+                sync();
+                int count = 0;
+                for (Task<?> child : children) {
+                    count += (Integer) child.result();
+                }
+                return count;
+            }
+        });
+        System.out.println("spawned tasks: " + spawned);
+        System.out.println(runtime.profile());
+
+        // the same tasks called one after the other have equal work and
+        // span
+        Integer called = runtime.invoke(new Task<Integer>() {
+            @Override
+            protected Integer run() {
+                int count = 0;
+                for (int i = 0; i < n; i++) {
+                    count += call(new Task<Integer>() {
+                        @Override
+                        protected Integer run() {
+                            sleep(1);
+                            return 1;
+                        }
+                    });
+                }
+                return count;
+            }
+        });
+        System.out.println("called tasks: " + called);
+        System.out.println(runtime.profile());
+        runtime.shutdown();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
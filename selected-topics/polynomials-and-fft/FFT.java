@@ -0,0 +1,355 @@
+import java.util.Random;
+
+/**
+ * Fast Fourier transform engine over split arrays of doubles.
+ * <p>A complex vector of size n is held in two arrays {@code re} and
+ * {@code im}, and transformed in place, so no {@code ComplexNumber} is
+ * created per butterfly. As in {@code Polynomials}, the forward transform
+ * evaluates {@code y_k = sum_j a_j w^jk} at the powers of the principal
+ * nth root of unity {@code w = e^(2 pi i / n)}, and the inverse uses
+ * {@code w^-1} and divides by n.
+ * <p>An engine serves a single size n, a power of 2. Its twiddle factors
+ * {@code w^k} are computed once by {@code Math.cos} and {@code Math.sin}
+ * and kept in a table, instead of being accumulated by repeated
+ * multiplication whose rounding errors grow with k. Engines are cached by
+ * size, see {@link #forSize}, and hold no mutable state, so one engine can
+ * be used by many threads, and no transform allocates memory.
+ * <p>The transform permutes the input to bit-reversed order and then
+ * combines the sub-transforms bottom-up like {@code FFT_iterative}, but
+ * merges two radix-2 stages into one radix-4 stage: four sub-transforms of
+ * size h are combined to one of size 4h with 3 complex multiplications per
+ * 4 points instead of 4, and half the passes over the arrays. If lg n is
+ * odd, a first radix-2 stage without twiddles combines the single points.
+ * <p>A real input of size n, such as the coefficients of a polynomial, is
+ * packed into a complex vector of size n/2, {@code z_j = a_2j + i a_2j+1},
+ * transformed, and unpacked into the spectrum of the real input, which
+ * takes about half the time of the complex transform of size n.
+ * All transforms run in <em>THETA(nlgn)</em> time.
+ */
+public class FFT {
+    private static final FFT[] CACHE = new FFT[31]; // engines by lg n
+    private final int n;
+    private final int lgn;
+    // cos and sin of 2 pi k / n, for k < 3n/4, the largest radix-4 twiddle
+    private final double[] cos;
+    private final double[] sin;
+
+    /**
+     * Constructor, computes the twiddle table in <em>THETA(n)</em> time.
+     * @param n the size of the transforms.
+     * @throws IllegalArgumentException if n is not a power of 2.
+     */
+    public FFT(int n) {
+        if (n <= 0 || (n & (n - 1)) != 0) {
+            throw new IllegalArgumentException("n must be a power of 2");
+        }
+        this.n = n;
+        this.lgn = Integer.numberOfTrailingZeros(n);
+        int m = Math.max(1, 3 * (n / 4));
+        this.cos = new double[m];
+        this.sin = new double[m];
+        for (int k = 0; k < m; k++) {
+            double u = 2 * Math.PI * k / n;
+            cos[k] = Math.cos(u);
+            sin[k] = Math.sin(u);
+        }
+    }
+
+    /**
+     * Returns the cached engine of a size, creating it on the first call.
+     * @param n the size of the transforms.
+     * @throws IllegalArgumentException if n is not a power of 2.
+     */
+    public static synchronized FFT forSize(int n) {
+        if (n <= 0 || (n & (n - 1)) != 0) {
+            throw new IllegalArgumentException("n must be a power of 2");
+        }
+        int lgn = Integer.numberOfTrailingZeros(n);
+        if (CACHE[lgn] == null) CACHE[lgn] = new FFT(n);
+        return CACHE[lgn];
+    }
+
+    /**
+     * Returns the size of the transforms.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Computes the FFT of a complex vector in place.
+     * @param re the real parts, the first n entries are transformed.
+     * @param im the imaginary parts, the first n entries are transformed.
+     * @throws IllegalArgumentException if an array is shorter than n.
+     */
+    public void transform(double[] re, double[] im) {
+        transform(re, im, 0);
+    }
+
+    /**
+     * Computes the FFT of the n entries of a complex vector from a position
+     * in place, e.g. of one row of a matrix.
+     * @param re the real parts.
+     * @param im the imaginary parts.
+     * @param off the position of the first entry.
+     * @throws IllegalArgumentException if the arrays end before off + n.
+     */
+    public void transform(double[] re, double[] im, int off) {
+        validate(re, im, off);
+        fft(re, im, off, lgn, false);
+    }
+
+    /**
+     * Computes the inverse FFT of a complex vector in place, including the
+     * division by n.
+     * @param re the real parts, the first n entries are transformed.
+     * @param im the imaginary parts, the first n entries are transformed.
+     * @throws IllegalArgumentException if an array is shorter than n.
+     */
+    public void inverse(double[] re, double[] im) {
+        inverse(re, im, 0);
+    }
+
+    /**
+     * Computes the inverse FFT of the n entries of a complex vector from a
+     * position in place, including the division by n.
+     * @param re the real parts.
+     * @param im the imaginary parts.
+     * @param off the position of the first entry.
+     * @throws IllegalArgumentException if the arrays end before off + n.
+     */
+    public void inverse(double[] re, double[] im, int off) {
+        validate(re, im, off);
+        fft(re, im, off, lgn, true);
+        double scale = 1.0 / n;
+        for (int k = off; k < off + n; k++) {
+            re[k] *= scale;
+            im[k] *= scale;
+        }
+    }
+
+    /**
+     * Computes the FFT of a real vector using a complex FFT of size n/2.
+     * The result is the full spectrum of size n, whose second half is the
+     * conjugate of the first: {@code y_n-k = conj(y_k)}.
+     * @param a the real input, zero-padded to size n if shorter.
+     * @param re receives the real parts of the spectrum.
+     * @param im receives the imaginary parts of the spectrum.
+     * @throws IllegalArgumentException if a is longer than n or an output
+     *         array is shorter than n.
+     */
+    public void realTransform(double[] a, double[] re, double[] im) {
+        validate(re, im);
+        if (a.length > n) {
+            throw new IllegalArgumentException("input is longer than " + n);
+        }
+        if (n == 1) {
+            re[0] = a.length == 0 ? 0 : a[0];
+            im[0] = 0;
+            return;
+        }
+        int half = n / 2;
+        // pack z_j = a_2j + i a_2j+1
+        for (int j = 0; j < half; j++) {
+            re[j] = 2 * j < a.length ? a[2 * j] : 0;
+            im[j] = 2 * j + 1 < a.length ? a[2 * j + 1] : 0;
+        }
+        fft(re, im, 0, lgn - 1, false);
+        // unpack: the transforms of the even and odd entries are
+        // e_k = (z_k + conj(z_n/2-k)) / 2 and o_k = (z_k - conj(z_n/2-k)) / 2i
+        // then y_k = e_k + w^k o_k and y_n/2-k = conj(e_k - w^k o_k)
+        for (int k = 0; k <= half / 2; k++) {
+            int j = (half - k) & (half - 1);
+            double ar = re[k], ai = im[k];
+            double br = re[j], bi = im[j];
+            double er = (ar + br) / 2, ei = (ai - bi) / 2;
+            double or = (ai + bi) / 2, oi = (br - ar) / 2;
+            double tr = cos[k] * or - sin[k] * oi;
+            double ti = cos[k] * oi + sin[k] * or;
+            re[k] = er + tr;
+            im[k] = ei + ti;
+            re[half - k] = er - tr;
+            im[half - k] = ti - ei;
+        }
+        for (int k = 1; k < half; k++) {
+            re[n - k] = re[k];
+            im[n - k] = -im[k];
+        }
+    }
+
+    /**
+     * Computes the inverse FFT of the spectrum of a real vector using a
+     * complex FFT of size n/2, including the division by n. The spectrum
+     * must be conjugate symmetric, {@code y_n-k = conj(y_k)}, as computed
+     * by {@code realTransform} or by multiplying such spectra pointwise.
+     * @param re the real parts of the spectrum, overwritten.
+     * @param im the imaginary parts of the spectrum, overwritten.
+     * @param a receives the first n entries of the real vector.
+     * @throws IllegalArgumentException if an array is shorter than n.
+     */
+    public void realInverse(double[] re, double[] im, double[] a) {
+        validate(re, im);
+        if (a.length < n) {
+            throw new IllegalArgumentException("output is shorter than " + n);
+        }
+        if (n == 1) {
+            a[0] = re[0];
+            return;
+        }
+        int half = n / 2;
+        // pack z_k = e_k + i o_k, twice the transforms of the even and odd
+        // entries: e_k = y_k + y_k+n/2 and o_k = (y_k - y_k+n/2) w^-k
+        for (int k = 0; k < half; k++) {
+            double er = re[k] + re[k + half], ei = im[k] + im[k + half];
+            double dr = re[k] - re[k + half], di = im[k] - im[k + half];
+            double wr = cos[k], wi = -sin[k];
+            double or = dr * wr - di * wi;
+            double oi = dr * wi + di * wr;
+            re[k] = er - oi;
+            im[k] = ei + or;
+        }
+        fft(re, im, 0, lgn - 1, true);
+        double scale = 1.0 / n;
+        for (int j = 0; j < half; j++) {
+            a[2 * j] = re[j] * scale;
+            a[2 * j + 1] = im[j] * scale;
+        }
+    }
+
+    /**
+     * Transforms the 2^lgm entries of a complex vector from off in place,
+     * with the twiddles of size n taken at a stride of n / 2^lgm.
+     * @param inverse uses w^-1 instead of w, without the division.
+     */
+    private void fft(double[] re, double[] im, int off, int lgm,
+            boolean inverse) {
+        int m = 1 << lgm;
+        if (m == 1) return;
+        // bit-reversal permutation, swapping every pair once
+        int shift = 32 - lgm;
+        for (int i = 0; i < m; i++) {
+            int j = Integer.reverse(i) >>> shift;
+            if (i < j) {
+                double t = re[off + i];
+                re[off + i] = re[off + j];
+                re[off + j] = t;
+                t = im[off + i];
+                im[off + i] = im[off + j];
+                im[off + j] = t;
+            }
+        }
+        double s = inverse ? -1 : 1; // the sign of the imaginary parts of w
+        int h = 1;
+        if ((lgm & 1) == 1) {
+            // radix-2 stage of size 2, the only twiddle is 1
+            for (int k = off; k < off + m; k += 2) {
+                double ur = re[k], ui = im[k];
+                double vr = re[k + 1], vi = im[k + 1];
+                re[k] = ur + vr;
+                im[k] = ui + vi;
+                re[k + 1] = ur - vr;
+                im[k + 1] = ui - vi;
+            }
+            h = 2;
+        }
+        // radix-4 stages: combine the sub-transforms at k, k+h, k+2h, k+3h
+        // of size h to one of size 4h, with w1 = w_4h^j, w2 = w1^2, w3 = w1^3
+        for (; h < m; h <<= 2) {
+            int stride = n / (4 * h);
+            for (int k = off; k < off + m; k += 4 * h) {
+                for (int j = 0; j < h; j++) {
+                    int t1 = j * stride, t2 = 2 * t1, t3 = 3 * t1;
+                    double w1r = cos[t1], w1i = s * sin[t1];
+                    double w2r = cos[t2], w2i = s * sin[t2];
+                    double w3r = cos[t3], w3i = s * sin[t3];
+                    int k0 = k + j, k1 = k0 + h, k2 = k1 + h, k3 = k2 + h;
+                    double u0r = re[k0], u0i = im[k0];
+                    double u1r = w2r * re[k1] - w2i * im[k1];
+                    double u1i = w2r * im[k1] + w2i * re[k1];
+                    double u2r = w1r * re[k2] - w1i * im[k2];
+                    double u2i = w1r * im[k2] + w1i * re[k2];
+                    double u3r = w3r * re[k3] - w3i * im[k3];
+                    double u3i = w3r * im[k3] + w3i * re[k3];
+                    double ar = u0r + u1r, ai = u0i + u1i;
+                    double br = u0r - u1r, bi = u0i - u1i;
+                    double cr = u2r + u3r, ci = u2i + u3i;
+                    // (u2 - u3) times i, or -i for the inverse
+                    double dr = -s * (u2i - u3i), di = s * (u2r - u3r);
+                    re[k0] = ar + cr;
+                    im[k0] = ai + ci;
+                    re[k1] = br + dr;
+                    im[k1] = bi + di;
+                    re[k2] = ar - cr;
+                    im[k2] = ai - ci;
+                    re[k3] = br - dr;
+                    im[k3] = bi - di;
+                }
+            }
+        }
+    }
+
+    private void validate(double[] re, double[] im) {
+        validate(re, im, 0);
+    }
+
+    private void validate(double[] re, double[] im, int off) {
+        if (off < 0 || re.length - off < n || im.length - off < n) {
+            throw new IllegalArgumentException("arrays are shorter than "
+                    + off + " + " + n);
+        }
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        Random rand = new Random(7);
+        double error = 0; // the largest error relative to n max|a_j|
+        for (int n = 1; n <= 4096; n *= 2) {
+            double[] a = new double[n];
+            for (int i = 0; i < n; i++) a[i] = rand.nextInt(201) - 100;
+            double bound = 100.0 * n;
+            FFT f = FFT.forSize(n);
+            double[] re = new double[n];
+            double[] im = new double[n];
+            f.realTransform(a, re, im);
+            // the same spectrum as the recursive FFT, up to its drift
+            if (n > 1) {
+                ComplexNumber[] y = Polynomials.FFT_recursive(a);
+                for (int k = 0; k < n; k++) {
+                    double e = Math.hypot(y[k].real() - re[k],
+                            y[k].imaginary() - im[k]);
+                    error = Math.max(error, e / bound);
+                }
+            }
+            // the complex transform of the same vector
+            double[] zr = a.clone();
+            double[] zi = new double[n];
+            f.transform(zr, zi);
+            for (int k = 0; k < n; k++) {
+                double e = Math.hypot(zr[k] - re[k], zi[k] - im[k]);
+                error = Math.max(error, e / bound);
+            }
+            // the inverses give the input back
+            f.inverse(zr, zi);
+            double[] b = new double[n];
+            f.realInverse(re, im, b);
+            for (int i = 0; i < n; i++) {
+                double e = Math.hypot(zr[i] - a[i], zi[i]);
+                e = Math.max(e, Math.abs(b[i] - a[i]));
+                error = Math.max(error, e / bound);
+            }
+        }
+        System.out.println("max relative error: " + error
+                + (error < 1e-9 ? " ok" : " FAILED"));
+        // polynomial 9 -10x + 7x^2 + 6x^3 as in Polynomials
+        double[] a = {9, -10, 7, 6};
+        double[] re = new double[4];
+        double[] im = new double[4];
+        FFT.forSize(4).realTransform(a, re, im);
+        for (int k = 0; k < 4; k++) {
+            System.out.print(new ComplexNumber(re[k], im[k]) + " ");
+        }
+        System.out.println();
+    }
+}
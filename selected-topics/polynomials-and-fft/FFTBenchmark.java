@@ -0,0 +1,174 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the FFT implementations on n random real
+ * coefficients, n a power of 2. The recursive and iterative
+ * {@code Polynomials} transforms allocate complex numbers, the engine
+ * transforms reuse their arrays and allocate nothing after warm-up, which
+ * {@code -prof gc} shows.
+ * <p>The recursive transform takes too long on the largest sizes, so it
+ * only runs on {@code Small} inputs. {@code ParallelFFT} runs on pools of
+ * 1 to 32 workers; its speedup is its throughput over the one of
+ * {@code transform}. The six-step transform targets 8 to 32 cores, so
+ * run it on a machine with at least 32 cores, or keep the workers within
+ * the cores, e.g. with {@code -p threads=1,8,16} on 16 cores, since more
+ * workers than cores only measure the scheduler.
+ * <p>Usage: {@code java -jar target/benchmarks.jar FFTBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FFTBenchmark {
+    /**
+     * The coefficients and the arrays the engines transform in place,
+     * reset before every invocation.
+     */
+    @State(Scope.Thread)
+    public abstract static class Coefficients {
+        double[] a;
+        double[] re;
+        double[] im;
+        double[] b;
+
+        void generate(int n) {
+            Random rand = new Random(42);
+            a = new double[n];
+            for (int i = 0; i < n; i++) a[i] = rand.nextDouble();
+            re = new double[n];
+            im = new double[n];
+            b = new double[n];
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            System.arraycopy(a, 0, re, 0, a.length);
+            Arrays.fill(im, 0);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Input extends Coefficients {
+        @Param({"1024", "65536", "1048576", "4194304"})
+        public int n;
+        FFT f;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n);
+            f = FFT.forSize(n);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Small extends Coefficients {
+        @Param({"1024", "65536"})
+        public int n;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Parallel extends Coefficients {
+        @Param({"1024", "65536", "1048576", "4194304"})
+        public int n;
+        @Param({"1", "2", "4", "8", "16", "32"})
+        public int threads;
+        ForkJoinPool pool;
+        ParallelFFT p;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n);
+            pool = new ForkJoinPool(threads);
+            p = new ParallelFFT(n, pool);
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown() {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The real transform of the coefficients, copied before every
+     * invocation since the inverse transform overwrites it.
+     */
+    @State(Scope.Thread)
+    public static class Spectrum {
+        private double[] spectrumRe;
+        private double[] spectrumIm;
+        double[] re;
+        double[] im;
+
+        @Setup(Level.Trial)
+        public void transform(Input in) {
+            spectrumRe = new double[in.n];
+            spectrumIm = new double[in.n];
+            in.f.realTransform(in.a, spectrumRe, spectrumIm);
+            re = new double[in.n];
+            im = new double[in.n];
+        }
+
+        @Setup(Level.Invocation)
+        public void copy() {
+            System.arraycopy(spectrumRe, 0, re, 0, re.length);
+            System.arraycopy(spectrumIm, 0, im, 0, im.length);
+        }
+    }
+
+    @Benchmark
+    public Object recursive(Small in) {
+        return Polynomials.FFT_recursive(in.a);
+    }
+
+    @Benchmark
+    public Object iterative(Input in) {
+        return Polynomials.FFT_iterative(in.a);
+    }
+
+    @Benchmark
+    public Object transform(Input in) {
+        in.f.transform(in.re, in.im);
+        return in.re;
+    }
+
+    @Benchmark
+    public Object parallelTransform(Parallel in) {
+        in.p.transform(in.re, in.im);
+        return in.re;
+    }
+
+    @Benchmark
+    public Object realTransform(Input in) {
+        in.f.realTransform(in.a, in.re, in.im);
+        return in.re;
+    }
+
+    @Benchmark
+    public Object realInverse(Input in, Spectrum t) {
+        in.f.realInverse(t.re, t.im, in.b);
+        return in.b;
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the polynomial multiplication algorithms on random
+ * polynomials of n coefficients each, used to find the crossover sizes of
+ * {@code PolynomialMultiplication}. Schoolbook multiplication only runs on
+ * {@code Small} and Karatsuba on {@code Medium} polynomials, since they
+ * take too long on the largest ones.
+ * <p>The stream cases convolve a long stream with a short filter of m
+ * coefficients, in one product and block by block.
+ * <p>Usage: {@code java -jar target/benchmarks.jar MultiplicationBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiplicationBenchmark {
+    /**
+     * Two polynomials with integer coefficients below 2^20, as doubles
+     * and as longs.
+     */
+    @State(Scope.Thread)
+    public abstract static class Operands {
+        double[] a;
+        double[] b;
+        long[] u;
+        long[] v;
+
+        void generate(int n) {
+            Random rand = new Random(42);
+            a = new double[n];
+            b = new double[n];
+            u = new long[n];
+            v = new long[n];
+            for (int i = 0; i < n; i++) {
+                u[i] = rand.nextInt(1 << 20);
+                v[i] = rand.nextInt(1 << 20);
+                a[i] = u[i];
+                b[i] = v[i];
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Input extends Operands {
+        @Param({"32", "64", "96", "128", "160", "192", "256", "512", "4096",
+                "65536", "1048576"})
+        public int n;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Small extends Operands {
+        @Param({"32", "64", "96", "128", "160", "192", "256", "512", "4096"})
+        public int n;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Medium extends Operands {
+        @Param({"32", "64", "96", "128", "160", "192", "256", "512", "4096",
+                "65536"})
+        public int n;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Stream {
+        @Param({"16", "256", "4096"})
+        public int m;
+        double[] x;
+        double[] h;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random rand = new Random(42);
+            x = new double[1 << 20];
+            for (int i = 0; i < x.length; i++) x[i] = rand.nextDouble();
+            h = new double[m];
+            for (int i = 0; i < m; i++) h[i] = rand.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public Object schoolbook(Small in) {
+        return PolynomialMultiplication.schoolbook(in.a, in.b);
+    }
+
+    @Benchmark
+    public Object karatsuba(Medium in) {
+        return PolynomialMultiplication.karatsuba(in.a, in.b);
+    }
+
+    @Benchmark
+    public Object fft(Input in) {
+        return PolynomialMultiplication.fft(in.a, in.b);
+    }
+
+    @Benchmark
+    public Object multiply(Input in) {
+        return PolynomialMultiplication.multiply(in.a, in.b);
+    }
+
+    @Benchmark
+    public Object multiplyMod(Input in) {
+        return PolynomialMultiplication.multiplyMod(in.u, in.v,
+                NTT.P998244353);
+    }
+
+    @Benchmark
+    public Object multiplyExact(Input in) {
+        return PolynomialMultiplication.multiplyExact(in.u, in.v);
+    }
+
+    @Benchmark
+    public Object streamMultiply(Stream in) {
+        return PolynomialMultiplication.multiply(in.x, in.h);
+    }
+
+    @Benchmark
+    public Object streamOverlapAdd(Stream in) {
+        return OverlapAdd.convolve(in.x, in.h);
+    }
+}
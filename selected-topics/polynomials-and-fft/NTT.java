@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+/**
+ * Number-theoretic transform, the FFT over the integers modulo a prime.
+ * <p>If p = c 2^k + 1 is prime and g generates the multiplicative group
+ * modulo p, then {@code w = g^((p-1)/n)} is a principal nth root of unity
+ * modulo p for every power of 2 n up to 2^k, with the same cancellation
+ * and halving properties as the complex roots used by the FFT. The
+ * transform evaluates a polynomial at the n powers of w with the same
+ * butterflies, but in exact integer arithmetic, so products of polynomials
+ * with integer coefficients are computed exactly modulo p.
+ * <p>The primes are below 2^30, so the product of two residues fits in a
+ * {@code long}. Running time is <em>THETA(nlgn)</em>.
+ */
+public class NTT {
+    /** 119 2^23 + 1, with generator 3. */
+    public static final NTT P998244353 = new NTT(998244353, 3);
+    /** 7 2^26 + 1, with generator 3. */
+    public static final NTT P469762049 = new NTT(469762049, 3);
+    /** 5 2^25 + 1, with generator 3. */
+    public static final NTT P167772161 = new NTT(167772161, 3);
+    private final long p;
+    private final long g;
+    private final int maxSize;
+
+    /**
+     * Constructor.
+     * @param p an odd prime less than 2^30.
+     * @param g a generator of the multiplicative group modulo p.
+     * @throws IllegalArgumentException if p is not odd or too large.
+     */
+    public NTT(long p, long g) {
+        if (p < 3 || p >= (1L << 30) || p % 2 == 0) {
+            throw new IllegalArgumentException("invalid modulus: " + p);
+        }
+        this.p = p;
+        this.g = g % p;
+        this.maxSize = 1 << Long.numberOfTrailingZeros(p - 1);
+    }
+
+    /**
+     * Returns the prime modulus.
+     */
+    public long modulus() {
+        return p;
+    }
+
+    /**
+     * Returns the largest transform size, the largest power of 2 dividing
+     * p - 1.
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Computes the transform of the first n entries of a vector of
+     * residues in place.
+     * @param a the residues, between 0 and p-1.
+     * @param n the size of the transform, a power of 2.
+     * @throws IllegalArgumentException if n is not a power of 2, is larger
+     *         than the maximum size, or a is shorter than n.
+     */
+    public void transform(long[] a, int n) {
+        validate(a, n);
+        ntt(a, n, roots(n, false));
+    }
+
+    /**
+     * Computes the inverse transform of the first n entries of a vector of
+     * residues in place, including the division by n.
+     * @param a the residues, between 0 and p-1.
+     * @param n the size of the transform, a power of 2.
+     * @throws IllegalArgumentException if n is not a power of 2, is larger
+     *         than the maximum size, or a is shorter than n.
+     */
+    public void inverse(long[] a, int n) {
+        validate(a, n);
+        ntt(a, n, roots(n, true));
+        scale(a, n);
+    }
+
+    /**
+     * Multiplies two polynomials with integer coefficients modulo p.
+     * @param a the coefficients of the first polynomial.
+     * @param b the coefficients of the second polynomial.
+     * @return the coefficients of the product modulo p, between 0 and p-1.
+     * @throws IllegalArgumentException if the product has more
+     *         coefficients than the maximum size.
+     */
+    public long[] multiply(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) return new long[0];
+        int m = a.length + b.length - 1;
+        int n = Integer.highestOneBit(m);
+        if (n < m) n <<= 1;
+        long[] fa = new long[n];
+        long[] fb = new long[n];
+        for (int i = 0; i < a.length; i++) fa[i] = Math.floorMod(a[i], p);
+        for (int i = 0; i < b.length; i++) fb[i] = Math.floorMod(b[i], p);
+        validate(fa, n);
+        long[] w = roots(n, false);
+        ntt(fa, n, w);
+        ntt(fb, n, w);
+        for (int k = 0; k < n; k++) fa[k] = fa[k] * fb[k] % p;
+        ntt(fa, n, roots(n, true));
+        scale(fa, n);
+        return Arrays.copyOf(fa, m);
+    }
+
+    /**
+     * Returns the first n/2 powers of the principal nth root of unity, or
+     * of its inverse.
+     */
+    private long[] roots(int n, boolean inverse) {
+        long[] w = new long[Math.max(1, n / 2)];
+        long wn = pow(g, (p - 1) / n, p);
+        if (inverse) wn = pow(wn, p - 2, p);
+        w[0] = 1;
+        for (int k = 1; k < w.length; k++) w[k] = w[k - 1] * wn % p;
+        return w;
+    }
+
+    /**
+     * Iterative transform, bit-reversal permutation followed by radix-2
+     * stages, with the twiddles of size n taken at a stride of n / m.
+     */
+    private void ntt(long[] a, int n, long[] w) {
+        if (n == 1) return;
+        int shift = 32 - Integer.numberOfTrailingZeros(n);
+        for (int i = 0; i < n; i++) {
+            int j = Integer.reverse(i) >>> shift;
+            if (i < j) {
+                long t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+        }
+        for (int h = 1; h < n; h <<= 1) {
+            int stride = n / (2 * h);
+            for (int k = 0; k < n; k += 2 * h) {
+                for (int j = 0; j < h; j++) {
+                    long u = a[k + j];
+                    long t = w[j * stride] * a[k + j + h] % p;
+                    a[k + j] = u + t < p ? u + t : u + t - p;
+                    a[k + j + h] = u - t >= 0 ? u - t : u - t + p;
+                }
+            }
+        }
+    }
+
+    /**
+     * Multiplies the first n residues by the inverse of n.
+     */
+    private void scale(long[] a, int n) {
+        long inv = pow(n, p - 2, p);
+        for (int k = 0; k < n; k++) a[k] = a[k] * inv % p;
+    }
+
+    private void validate(long[] a, int n) {
+        if (n <= 0 || (n & (n - 1)) != 0) {
+            throw new IllegalArgumentException("n must be a power of 2");
+        } else if (n > maxSize) {
+            throw new IllegalArgumentException("n is larger than " + maxSize);
+        } else if (a.length < n) {
+            throw new IllegalArgumentException("array is shorter than " + n);
+        }
+    }
+
+    /**
+     * Computes b^e mod p by repeated squaring.
+     */
+    static long pow(long b, long e, long p) {
+        long r = 1;
+        b %= p;
+        for (; e > 0; e >>= 1) {
+            if ((e & 1) == 1) r = r * b % p;
+            b = b * b % p;
+        }
+        return r;
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        // (1 + 2x + 3x^2)(4 + 5x) = 4 + 13x + 22x^2 + 15x^3
+        long[] c = P998244353.multiply(new long[] {1, 2, 3},
+                new long[] {4, 5});
+        System.out.println(Arrays.toString(c) + " expected [4, 13, 22, 15]");
+        // negative coefficients are reduced modulo p
+        c = P167772161.multiply(new long[] {-1, 1}, new long[] {1, 1});
+        System.out.println(Arrays.toString(c)
+                + " expected [167772160, 0, 1]");
+        // the inverse gives the input back
+        long[] a = {5, 0, 7, 1, 998244352, 3, 2, 9};
+        long[] b = a.clone();
+        P998244353.transform(b, b.length);
+        P998244353.inverse(b, b.length);
+        System.out.println(Arrays.equals(a, b) ? "inverse ok"
+                : "inverse FAILED: " + Arrays.toString(b));
+    }
+}
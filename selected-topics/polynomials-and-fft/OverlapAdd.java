@@ -0,0 +1,168 @@
+import java.util.Arrays;
+
+/**
+ * Block convolution of a long stream with a fixed filter by the
+ * overlap-add method.
+ * <p>The stream is cut into blocks of L samples. Each block is convolved
+ * with the filter h of m coefficients by an FFT of size N >= L + m - 1,
+ * giving L + m - 1 outputs: the first L are complete once the m - 1
+ * pending outputs of the previous block are added, and the last m - 1 are
+ * kept for the next block. The spectrum of the filter is computed once,
+ * so a block costs one forward and one inverse real FFT of size N, and a
+ * stream of s samples is convolved in <em>O(s lg N)</em> time instead of
+ * <em>O(sm)</em>, without holding the whole stream in memory.
+ * <p>All buffers are allocated by the constructor and processing a block
+ * allocates no memory. A convolver holds the pending outputs of its
+ * stream, so it must not be shared between threads.
+ */
+public class OverlapAdd {
+    private final int m; // the number of filter coefficients
+    private final int L; // the block size
+    private final FFT f;
+    private final double[] hre; // the spectrum of the filter
+    private final double[] him;
+    private final double[] re; // work buffers of size N
+    private final double[] im;
+    private final double[] y;
+    private final double[] tail; // the m-1 pending outputs
+
+    /**
+     * Constructor.
+     * @param h the filter coefficients.
+     * @param blockSize the number of samples per block.
+     * @throws IllegalArgumentException if h is empty or the block size is
+     *         not positive.
+     */
+    public OverlapAdd(double[] h, int blockSize) {
+        if (h.length == 0) {
+            throw new IllegalArgumentException("empty filter");
+        } else if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid block size: "
+                    + blockSize);
+        }
+        this.m = h.length;
+        this.L = blockSize;
+        int n = Integer.highestOneBit(L + m - 1);
+        if (n < L + m - 1) n <<= 1;
+        this.f = FFT.forSize(n);
+        this.hre = new double[n];
+        this.him = new double[n];
+        f.realTransform(h, hre, him);
+        this.re = new double[n];
+        this.im = new double[n];
+        this.y = new double[n];
+        this.tail = new double[m - 1];
+    }
+
+    /**
+     * Constructor with blocks about three times longer than the filter,
+     * which keeps the FFT small while most of every block's outputs are
+     * complete.
+     * @param h the filter coefficients.
+     * @throws IllegalArgumentException if h is empty.
+     */
+    public OverlapAdd(double[] h) {
+        this(h, blockSizeOf(h.length));
+    }
+
+    private static int blockSizeOf(int m) {
+        int n = Integer.highestOneBit(Math.max(1, 4 * m - 1)) << 1;
+        return n - m + 1;
+    }
+
+    /**
+     * Returns the number of samples per block.
+     */
+    public int blockSize() {
+        return L;
+    }
+
+    /**
+     * Convolves the next block of the stream, and writes as many complete
+     * outputs as there are input samples.
+     * @param x the stream.
+     * @param off the position of the block in x.
+     * @param len the length of the block, at most the block size.
+     * @param out receives the outputs.
+     * @param outOff the position of the outputs in out.
+     * @throws IllegalArgumentException if len is larger than the block
+     *         size.
+     */
+    public void process(double[] x, int off, int len, double[] out,
+            int outOff) {
+        if (len > L) {
+            throw new IllegalArgumentException("block is longer than " + L);
+        }
+        System.arraycopy(x, off, y, 0, len);
+        Arrays.fill(y, len, y.length, 0);
+        f.realTransform(y, re, im);
+        for (int k = 0; k < re.length; k++) {
+            double r = re[k] * hre[k] - im[k] * him[k];
+            im[k] = re[k] * him[k] + im[k] * hre[k];
+            re[k] = r;
+        }
+        f.realInverse(re, im, y);
+        for (int i = 0; i < len; i++) {
+            out[outOff + i] = y[i] + (i < tail.length ? tail[i] : 0);
+        }
+        // the outputs past the block are pending, shifted by len
+        for (int i = 0; i < tail.length; i++) {
+            double t = len + i < tail.length ? tail[len + i] : 0;
+            tail[i] = y[len + i] + t;
+        }
+    }
+
+    /**
+     * Writes the m-1 pending outputs that end the convolution of the
+     * stream, and resets the convolver for a new stream.
+     * @param out receives the outputs.
+     * @param outOff the position of the outputs in out.
+     */
+    public void flush(double[] out, int outOff) {
+        System.arraycopy(tail, 0, out, outOff, tail.length);
+        Arrays.fill(tail, 0);
+    }
+
+    /**
+     * Convolves a whole stream with a filter, block by block.
+     * @param x the stream.
+     * @param h the filter coefficients.
+     * @return the x.length + h.length - 1 outputs.
+     * @throws IllegalArgumentException if h is empty.
+     */
+    public static double[] convolve(double[] x, double[] h) {
+        OverlapAdd c = new OverlapAdd(h);
+        double[] out = new double[x.length + h.length - 1];
+        for (int i = 0; i < x.length; i += c.L) {
+            c.process(x, i, Math.min(c.L, x.length - i), out, i);
+        }
+        c.flush(out, x.length);
+        return out;
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        double[] x = new double[1000];
+        for (int i = 0; i < x.length; i++) x[i] = (i * 37) % 11 - 5;
+        double[] h = {1, -2, 3, 0.5, 4};
+        double[] expected = PolynomialMultiplication.schoolbook(x, h);
+        double error = 0;
+        // the default block size, and blocks shorter than the filter
+        double[] y = convolve(x, h);
+        for (int i = 0; i < y.length; i++) {
+            error = Math.max(error, Math.abs(y[i] - expected[i]));
+        }
+        OverlapAdd c = new OverlapAdd(h, 3);
+        for (int i = 0; i < x.length; i += 3) {
+            c.process(x, i, Math.min(3, x.length - i), y, i);
+        }
+        c.flush(y, x.length);
+        for (int i = 0; i < y.length; i++) {
+            error = Math.max(error, Math.abs(y[i] - expected[i]));
+        }
+        System.out.println("max error: " + error
+                + (error < 1e-9 ? " ok" : " FAILED"));
+    }
+}
@@ -0,0 +1,334 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Multiplication of polynomials in coefficients form.
+ * <p>{@link #multiply(double[], double[])} chooses the algorithm by the
+ * number of coefficients n of the shorter polynomial:
+ * <ul>
+ *   <li>schoolbook, the <em>THETA(n^2)</em> double loop, the fastest for
+ *       small polynomials.
+ *   <li>Karatsuba, which computes the product of two halves from three
+ *       products of half the size instead of four, in
+ *       <em>THETA(n^lg3)</em> time.
+ *   <li>FFT, which evaluates both polynomials at the roots of unity,
+ *       multiplies the values pointwise and interpolates the product in
+ *       <em>THETA(nlgn)</em> time. If the other polynomial is much
+ *       longer, it is cut into blocks by {@code OverlapAdd} instead, in
+ *       <em>THETA(m lgn)</em> time where m is its size.
+ * </ul>
+ * The crossover sizes {@code KARATSUBA_THRESHOLD} and
+ * {@code FFT_THRESHOLD} were measured with {@code MultiplicationBenchmark}:
+ * the FFT product of two polynomials of 160 coefficients already takes
+ * about as long as Karatsuba's, so Karatsuba only wins in a narrow range.
+ * <p>The FFT product of floating-point coefficients has a rounding error
+ * relative to the size of the coefficients. Integer coefficients are
+ * multiplied exactly by {@link #multiplyExact}, which uses the
+ * number-theoretic transform modulo three primes and the Chinese remainder
+ * theorem.
+ */
+public class PolynomialMultiplication {
+    // the shorter polynomial size from which Karatsuba beats schoolbook
+    static final int KARATSUBA_THRESHOLD = 96;
+    // the shorter polynomial size from which the FFT beats Karatsuba
+    static final int FFT_THRESHOLD = 160;
+    // the size ratio from which overlap-add beats a single FFT product
+    static final int BLOCK_RATIO = 8;
+    private static final NTT[] PRIMES =
+            {NTT.P998244353, NTT.P469762049, NTT.P167772161};
+
+    /**
+     * Multiplies two polynomials using the fastest algorithm for their
+     * sizes.
+     * @param a the coefficients of the first polynomial.
+     * @param b the coefficients of the second polynomial.
+     * @return the a.length + b.length - 1 coefficients of the product.
+     */
+    public static double[] multiply(double[] a, double[] b) {
+        int n = Math.min(a.length, b.length);
+        if (n < KARATSUBA_THRESHOLD) return schoolbook(a, b);
+        if (n < FFT_THRESHOLD) return karatsuba(a, b);
+        // a much longer polynomial is convolved in blocks
+        if (a.length > BLOCK_RATIO * n) return OverlapAdd.convolve(a, b);
+        if (b.length > BLOCK_RATIO * n) return OverlapAdd.convolve(b, a);
+        return fft(a, b);
+    }
+
+    /**
+     * Multiplies many polynomials by the same polynomial. The FFT of b is
+     * computed once for each transform size used.
+     * @param as the coefficients of the polynomials.
+     * @param b the coefficients of the common factor.
+     * @return the coefficients of the products.
+     */
+    public static double[][] multiply(double[][] as, double[] b) {
+        double[][] c = new double[as.length][];
+        FFT f = null;
+        double[] bre = null, bim = null, re = null, im = null;
+        for (int i = 0; i < as.length; i++) {
+            double[] a = as[i];
+            if (Math.min(a.length, b.length) < FFT_THRESHOLD) {
+                c[i] = multiply(a, b);
+                continue;
+            }
+            int n = size(a.length + b.length - 1);
+            if (f == null || f.size() != n) {
+                f = FFT.forSize(n);
+                bre = new double[n];
+                bim = new double[n];
+                re = new double[n];
+                im = new double[n];
+                f.realTransform(b, bre, bim);
+            }
+            c[i] = fft(f, a, bre, bim, re, im, a.length + b.length - 1);
+        }
+        return c;
+    }
+
+    /**
+     * Multiplies two polynomials by the double loop in
+     * <em>THETA(nm)</em> time.
+     * @param a the coefficients of the first polynomial.
+     * @param b the coefficients of the second polynomial.
+     * @return the a.length + b.length - 1 coefficients of the product.
+     */
+    public static double[] schoolbook(double[] a, double[] b) {
+        if (a.length == 0 || b.length == 0) return new double[0];
+        double[] c = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            double ai = a[i];
+            for (int j = 0; j < b.length; j++) c[i + j] += ai * b[j];
+        }
+        return c;
+    }
+
+    /**
+     * Multiplies two polynomials by Karatsuba's algorithm. The longer
+     * polynomial is cut into pieces of the size of the shorter one, and
+     * each piece is multiplied in <em>THETA(n^lg3)</em> time.
+     * @param a the coefficients of the first polynomial.
+     * @param b the coefficients of the second polynomial.
+     * @return the a.length + b.length - 1 coefficients of the product.
+     */
+    public static double[] karatsuba(double[] a, double[] b) {
+        if (a.length < b.length) {
+            double[] t = a;
+            a = b;
+            b = t;
+        }
+        int n = b.length;
+        if (n == 0) return new double[0];
+        double[] c = new double[a.length + n - 1];
+        double[] piece = new double[n];
+        double[] product = new double[2 * n];
+        double[] scratch = new double[4 * n + 4 * 64];
+        for (int off = 0; off < a.length; off += n) {
+            int len = Math.min(n, a.length - off);
+            System.arraycopy(a, off, piece, 0, len);
+            Arrays.fill(piece, len, n, 0);
+            karatsuba(piece, 0, b, 0, n, product, 0, scratch, 0);
+            int end = Math.min(2 * n - 1, c.length - off);
+            for (int i = 0; i < end; i++) c[off + i] += product[i];
+        }
+        return c;
+    }
+
+    /**
+     * Writes the 2n - 1 coefficients of the product of a[ao..ao+n) and
+     * b[bo..bo+n) to c[co..co+2n-1), with c[co+2n-1] set to 0. The sums of
+     * the halves and their product are kept in scratch from so, which must
+     * hold 4n entries plus those of the recursive calls.
+     */
+    private static void karatsuba(double[] a, int ao, double[] b, int bo,
+            int n, double[] c, int co, double[] scratch, int so) {
+        if (n < KARATSUBA_THRESHOLD) {
+            Arrays.fill(c, co, co + 2 * n, 0);
+            for (int i = 0; i < n; i++) {
+                double ai = a[ao + i];
+                for (int j = 0; j < n; j++) c[co + i + j] += ai * b[bo + j];
+            }
+            return;
+        }
+        int m = n / 2; // the size of the low halves
+        int h = n - m; // the size of the high halves, h >= m
+        // z0 = a0 b0 and z2 = a1 b1 in place
+        karatsuba(a, ao, b, bo, m, c, co, scratch, so);
+        karatsuba(a, ao + m, b, bo + m, h, c, co + 2 * m, scratch, so);
+        // z1 = (a0 + a1)(b0 + b1) - z0 - z2
+        int sa = so, sb = so + h, z1 = so + 2 * h;
+        for (int i = 0; i < h; i++) {
+            scratch[sa + i] = a[ao + m + i] + (i < m ? a[ao + i] : 0);
+            scratch[sb + i] = b[bo + m + i] + (i < m ? b[bo + i] : 0);
+        }
+        karatsuba(scratch, sa, scratch, sb, h, scratch, z1, scratch,
+                z1 + 2 * h);
+        for (int i = 0; i < 2 * m - 1; i++) scratch[z1 + i] -= c[co + i];
+        for (int i = 0; i < 2 * h - 1; i++) {
+            scratch[z1 + i] -= c[co + 2 * m + i];
+        }
+        for (int i = 0; i < 2 * h - 1; i++) c[co + m + i] += scratch[z1 + i];
+    }
+
+    /**
+     * Multiplies two polynomials by the FFT in <em>THETA(nlgn)</em> time,
+     * where n is the size of the product.
+     * @param a the coefficients of the first polynomial.
+     * @param b the coefficients of the second polynomial.
+     * @return the a.length + b.length - 1 coefficients of the product.
+     */
+    public static double[] fft(double[] a, double[] b) {
+        if (a.length == 0 || b.length == 0) return new double[0];
+        int m = a.length + b.length - 1;
+        int n = size(m);
+        FFT f = FFT.forSize(n);
+        double[] bre = new double[n];
+        double[] bim = new double[n];
+        f.realTransform(b, bre, bim);
+        return fft(f, a, bre, bim, new double[n], new double[n], m);
+    }
+
+    /**
+     * Multiplies a polynomial by the one whose spectrum is given, using
+     * re and im as buffers, and returns the first m coefficients.
+     */
+    private static double[] fft(FFT f, double[] a, double[] bre,
+            double[] bim, double[] re, double[] im, int m) {
+        f.realTransform(a, re, im);
+        for (int k = 0; k < f.size(); k++) {
+            double r = re[k] * bre[k] - im[k] * bim[k];
+            im[k] = re[k] * bim[k] + im[k] * bre[k];
+            re[k] = r;
+        }
+        double[] c = new double[f.size()];
+        f.realInverse(re, im, c);
+        return Arrays.copyOf(c, m);
+    }
+
+    /**
+     * Multiplies two polynomials with integer coefficients modulo an
+     * NTT-friendly prime.
+     * @param a the coefficients of the first polynomial.
+     * @param b the coefficients of the second polynomial.
+     * @param p the transform modulo the prime, e.g.
+     *          {@code NTT.P998244353}.
+     * @return the coefficients of the product modulo the prime.
+     * @throws IllegalArgumentException if the product is larger than the
+     *         largest transform of the prime.
+     */
+    public static long[] multiplyMod(long[] a, long[] b, NTT p) {
+        return p.multiply(a, b);
+    }
+
+    /**
+     * Multiplies two polynomials with integer coefficients exactly.
+     * The product is computed modulo three primes whose product M is about
+     * 2^86, and every coefficient is recovered from its three residues by
+     * Garner's algorithm: {@code x = x1 + p1 y2 + p1 p2 y3} with the
+     * digits {@code y2 < p2, y3 < p3}, then {@code x - M} if x > M/2.
+     * The result is exact if every coefficient of the product fits in a
+     * {@code long}.
+     * @param a the coefficients of the first polynomial.
+     * @param b the coefficients of the second polynomial.
+     * @return the a.length + b.length - 1 coefficients of the product.
+     * @throws IllegalArgumentException if the product has more than 2^23
+     *         coefficients.
+     */
+    public static long[] multiplyExact(long[] a, long[] b) {
+        long[] r1 = PRIMES[0].multiply(a, b);
+        long[] r2 = PRIMES[1].multiply(a, b);
+        long[] r3 = PRIMES[2].multiply(a, b);
+        long p1 = PRIMES[0].modulus();
+        long p2 = PRIMES[1].modulus();
+        long p3 = PRIMES[2].modulus();
+        long p1InvP2 = NTT.pow(p1, p2 - 2, p2);
+        long p12 = p1 * p2; // < 2^59
+        long p12InvP3 = NTT.pow(p12 % p3, p3 - 2, p3);
+        long M = p12 * p3; // modulo 2^64
+        long[] c = new long[r1.length];
+        for (int i = 0; i < c.length; i++) {
+            long x1 = r1[i];
+            long y2 = Math.floorMod(r2[i] - x1, p2) * p1InvP2 % p2;
+            long x12 = x1 + p1 * y2;
+            long y3 = Math.floorMod(r3[i] - x12 % p3, p3) * p12InvP3 % p3;
+            long x = x12 + p12 * y3; // modulo 2^64
+            // compare the digits (y3, y2, x1) to those of M/2, which are
+            // ((p3-1)/2, (p2-1)/2, (p1-1)/2) since the primes are odd
+            int cmp = Long.compare(y3, (p3 - 1) / 2);
+            if (cmp == 0) cmp = Long.compare(y2, (p2 - 1) / 2);
+            if (cmp == 0) cmp = Long.compare(x1, (p1 - 1) / 2);
+            c[i] = cmp > 0 ? x - M : x;
+        }
+        return c;
+    }
+
+    /**
+     * Returns the smallest power of 2 not less than m.
+     */
+    private static int size(int m) {
+        int n = Integer.highestOneBit(m);
+        return n < m ? n << 1 : n;
+    }
+
+    /**
+     * Unit tests.
+     */
+    public static void main(String[] args) {
+        // (1 + 2x + 3x^2)(4 + 5x) = 4 + 13x + 22x^2 + 15x^3
+        double[] a = {1, 2, 3};
+        double[] b = {4, 5};
+        System.out.println(Arrays.toString(schoolbook(a, b)));
+        System.out.println(Arrays.toString(karatsuba(a, b)));
+        System.out.println(Arrays.toString(fft(a, b)));
+        System.out.println(Arrays.toString(
+                multiplyExact(new long[] {1, 2, 3}, new long[] {4, 5})));
+        // all algorithms agree on random polynomials of many sizes
+        Random rand = new Random(11);
+        double error = 0;
+        boolean exact = true;
+        int[] sizes = {1, 2, 7, 95, 96, 100, 161, 333, 1000, 2049};
+        for (int na : sizes) {
+            for (int nb : sizes) {
+                double[] x = new double[na];
+                double[] y = new double[nb];
+                long[] u = new long[na];
+                long[] v = new long[nb];
+                for (int i = 0; i < na; i++) {
+                    u[i] = rand.nextInt(2001) - 1000;
+                    x[i] = u[i];
+                }
+                for (int i = 0; i < nb; i++) {
+                    v[i] = rand.nextInt(2001) - 1000;
+                    y[i] = v[i];
+                }
+                double[] expected = schoolbook(x, y);
+                double[][] results = {karatsuba(x, y), fft(x, y),
+                        multiply(x, y), multiply(new double[][] {x}, y)[0]};
+                for (double[] c : results) {
+                    for (int i = 0; i < c.length; i++) {
+                        error = Math.max(error, Math.abs(c[i] - expected[i]));
+                    }
+                }
+                long[] w = multiplyExact(u, v);
+                for (int i = 0; i < w.length; i++) {
+                    if (w[i] != (long) expected[i]) exact = false;
+                }
+            }
+        }
+        System.out.println("max error: " + error
+                + (error < 1e-3 ? " ok" : " FAILED"));
+        // coefficients near 2^28 give products near 2^62, beyond p1 p2
+        long[] big = new long[64];
+        for (int i = 0; i < big.length; i++) {
+            big[i] = (i % 2 == 0 ? 1 : -1) * (Integer.MAX_VALUE / 8 - i);
+        }
+        long[] w = multiplyExact(big, big);
+        for (int k = 0; k < w.length; k++) {
+            long s = 0;
+            for (int i = Math.max(0, k - 63); i <= Math.min(k, 63); i++) {
+                s += big[i] * big[k - i];
+            }
+            if (w[k] != s) exact = false;
+        }
+        System.out.println("exact: " + (exact ? "ok" : "FAILED"));
+    }
+}
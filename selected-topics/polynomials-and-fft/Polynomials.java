@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 /**
  * A <b>polynomial</b> in the variable x over an algebric feild F represents a 
  * function {@code A(x) = sum_j=0^n-1 ajx^j} where {@code a0, a1, ..., an-1}
@@ -148,6 +150,8 @@ public class Polynomials {
      * of the recursive approach by lowering the constant hidden in the 
      * THETA-notation.
      * Uses bottom-up approach instead of top-down used in recursive algorithm.
+     * The transform is computed by the {@code FFT} engine over arrays of
+     * doubles, and only the result is converted to complex numbers.
      * Running time is <em>THETA(nlgn)</em>.
      *
      * @param a the polynomial coefficients
@@ -156,71 +160,44 @@ public class Polynomials {
      */
     public static ComplexNumber[] FFT_iterative(double[] a) {
         int n = a.length;
-        if (n % 2 != 0) {
-            throw new IllegalArgumentException("n must be a power of 2");
-        }
-        ComplexNumber[] A = bitReverseCopy(a);
-        print(A, "bit-reversed-a");
-        for (int s = 0; s <= log(n); s++) {
-            int m = (int) Math.pow(2, s);
-            System.out.println("m: " + m);
-            ComplexNumber wm = new ComplexNumber(2 * Math.PI / m);
-            for (int k = 0; k < n; k += m) {
-                ComplexNumber w = new ComplexNumber(1, 0);
-                for (int j = 0; j < m / 2; j++) {
-                    ComplexNumber t = w.times(A[k + j + (m/2)]);
-                    ComplexNumber u = A[k + j];
-                    A[k + j] = u.plus(t);
-                    A[k + j + (m/2)] = u.minus(t);
-                    w = w.times(wm);
-                }
-            }
-        }
+        double[] re = new double[n];
+        double[] im = new double[n];
+        FFT(a, re, im);
+        ComplexNumber[] A = new ComplexNumber[n];
+        for (int k = 0; k < n; k++) A[k] = new ComplexNumber(re[k], im[k]);
         return A;
     }
 
     /**
-     * Computes logarithm base 2 of an integer.
-     * @param n the integer
-     * @return the logarithm base 2 of n
+     * Evaluates a polynomial at the n complex nth roots of unity into
+     * arrays of the real and imaginary parts, without allocating memory
+     * once the {@code FFT} engine of size n is cached.
+     * Running time is <em>THETA(nlgn)</em>.
+     *
+     * @param a the polynomial coefficients
+     * @param re receives the real parts of the n values
+     * @param im receives the imaginary parts of the n values
+     * @throws IllegalArgumentException if n is not a power of 2, or an
+     *         output array is shorter than n
      */
-    private static int log(int n) {
-        return (int) (Math.log(n) / Math.log(2));
+    public static void FFT(double[] a, double[] re, double[] im) {
+        FFT.forSize(a.length).realTransform(a, re, im);
     }
 
     /**
-     * Rearranges the polynomial coefficients in an array by their 
-     * reversed-bits order.
-     * The total number of bits is {@code lgn} where n is the array's size.
-     * For example if n = 8 and x = 001(1) then reversed-bits x is 100(4).
-     * n must be a power of 2 otherwise the bit-reversed indexes might become
-     * out of array's bounds.
+     * Interpolates the real coefficients of a polynomial from its values at
+     * the n complex nth roots of unity, the inverse of
+     * {@code FFT(a, re, im)}. The values are overwritten.
      * Running time is <em>THETA(nlgn)</em>.
      *
-     * @param n the number to reverse its bits order
-     * @return n in reversed-bits order
-     * @throws IllegalArgumentException if n is not a power of 2
+     * @param re the real parts of the n values
+     * @param im the imaginary parts of the n values
+     * @param a receives the coefficients of the polynomial
+     * @throws IllegalArgumentException if n is not a power of 2, or an
+     *         array is shorter than n
      */
-    private static ComplexNumber[] bitReverseCopy(double[] a) {
-        int n = a.length; // n is a power of 2
-        if (n % 2 != 0) {
-            throw new IllegalArgumentException("n must be a power of 2");
-        }
-        ComplexNumber[] b = new ComplexNumber[n];
-        int bits = log(n) - 1; // extra shift needed at end
-        for (int i = 0; i < n; i++) {
-            int s = bits;
-            int x = i;
-            int r = x & 1; // first get LSB of x
-            for (x >>= 1; x != 0; x >>= 1) {
-                r <<= 1;
-                r |= x & 1;
-                s--;
-            }
-            r <<= s;
-            b[r] = new ComplexNumber(a[i], 0);
-        }
-        return b;
+    public static void FFT_inverse(double[] re, double[] im, double[] a) {
+        FFT.forSize(a.length).realInverse(re, im, a);
     }
 
     /**
@@ -262,5 +239,12 @@ public class Polynomials {
         print(FFT_inverse_recursive(y), "FFT-Inverse");
         // Testing FFT_iterative
         print(FFT_iterative(a), "FFT-Iterative");
+        // Testing the allocation-free FFT and its inverse
+        double[] re = new double[n];
+        double[] im = new double[n];
+        FFT(a, re, im);
+        double[] b = new double[n];
+        FFT_inverse(re, im, b);
+        System.out.println("FFT-Inverse: " + Arrays.toString(b));
     }
 }
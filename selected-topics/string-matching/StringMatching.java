@@ -202,8 +202,8 @@ public class StringMatching {
      * @return the prefix function pi
      */
     private static int[] computePrefexFunction(String P) {
-        int[] pi = new int[m];
         int m = P.length();
+        int[] pi = new int[m];
         pi[0] = -1;
         int k = -1;
         for (int q = 1; q < m; q++) {
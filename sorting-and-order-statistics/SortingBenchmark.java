@@ -0,0 +1,214 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the sorting algorithms over several input sizes and
+ * distributions. {@code Arrays.sort} is included as a baseline.
+ * <p>Every invocation sorts a fresh copy of the same input, made before
+ * the measured call. The quadratic algorithms run on {@code Small} inputs
+ * of up to 10000 keys, and the quick-sort variants on random {@code Quick}
+ * inputs only, since sorted inputs make them quadratic and recurse deep
+ * enough to overflow the stack. Both can be run on other inputs with
+ * {@code -p}, e.g. {@code -p distribution=SORTED -p n=1000}.
+ * <p>Usage: {@code java -jar target/benchmarks.jar SortingBenchmark
+ * -prof gc}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortingBenchmark {
+    /**
+     * The distributions of the generated keys.
+     */
+    public static enum Distribution {
+        RANDOM,
+        SORTED,
+        REVERSED,
+        FEW_UNIQUE;
+
+        /**
+         * Generates n integers between 0 and 2n following the distribution.
+         * @param n the number of integers.
+         * @param rand the source of random numbers.
+         */
+        public int[] ints(int n, Random rand) {
+            int[] a = new int[n];
+            for (int i = 0; i < n; i++) {
+                if (this == FEW_UNIQUE) a[i] = rand.nextInt(16);
+                else a[i] = rand.nextInt(2 * n + 1);
+            }
+            if (this == SORTED || this == REVERSED) Arrays.sort(a);
+            if (this == REVERSED) {
+                for (int i = 0, j = n - 1; i < j; i++, j--) {
+                    int tmp = a[i];
+                    a[i] = a[j];
+                    a[j] = tmp;
+                }
+            }
+            return a;
+        }
+    }
+
+    /**
+     * The keys, boxed and primitive, and their fresh copies.
+     */
+    public abstract static class Keys {
+        private Integer[] boxed;
+        private int[] ints;
+        private double[] doubles;
+        Integer[] a;
+        int[] b;
+        double[] c;
+
+        void generate(int n, Distribution distribution) {
+            Random rand = new Random(42);
+            ints = distribution.ints(n, rand);
+            boxed = new Integer[n];
+            for (int i = 0; i < n; i++) boxed[i] = ints[i];
+            doubles = new double[n];
+            for (int i = 0; i < n; i++) doubles[i] = rand.nextDouble();
+        }
+
+        @Setup(Level.Invocation)
+        public void copy() {
+            a = boxed.clone();
+            b = ints.clone();
+            c = doubles.clone();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Input extends Keys {
+        @Param({"1000", "100000"})
+        public int n;
+        @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE"})
+        public Distribution distribution;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n, distribution);
+        }
+    }
+
+    /**
+     * Inputs for the quadratic algorithms.
+     */
+    @State(Scope.Thread)
+    public static class Small extends Keys {
+        @Param({"1000", "10000"})
+        public int n;
+        @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE"})
+        public Distribution distribution;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n, distribution);
+        }
+    }
+
+    /**
+     * Inputs for the quick-sort variants and bucket sort.
+     */
+    @State(Scope.Thread)
+    public static class Quick extends Keys {
+        @Param({"1000", "100000"})
+        public int n;
+        @Param({"RANDOM"})
+        public Distribution distribution;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            generate(n, distribution);
+        }
+    }
+
+    @Benchmark
+    public Object arraysSort(Input in) {
+        Arrays.sort(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object quickSort(Quick in) {
+        QuickSort.sort(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object quickSortTailRecursive(Quick in) {
+        QuickSort.sortTailRecursive(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object quickSortHoare(Quick in) {
+        QuickSort.sortHoarePartitioning(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object mergeSort(Input in) {
+        MergeSort.sort(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object heapSort(Input in) {
+        HeapSort.sort(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object selectionSort(Small in) {
+        SelectionSort.sort(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object bubbleSort(Small in) {
+        BubbleSort.sort(in.a);
+        return in.a;
+    }
+
+    @Benchmark
+    public Object arraysSortInts(Input in) {
+        Arrays.sort(in.b);
+        return in.b;
+    }
+
+    @Benchmark
+    public Object countingSort(Input in) {
+        CountingSort.sort(in.b);
+        return in.b;
+    }
+
+    @Benchmark
+    public Object radixSort(Input in) {
+        RadixSort.sort(in.b);
+        return in.b;
+    }
+
+    /**
+     * Bucket sort of uniform doubles.
+     */
+    @Benchmark
+    public Object bucketSort(Quick in) {
+        BucketSort.sort(in.c);
+        return in.c;
+    }
+}